@@ -13,6 +13,9 @@ import com.smockin.mockserver.dto.MockServerState;
 import com.smockin.mockserver.dto.MockedServerConfigDTO;
 import com.smockin.mockserver.dto.ProxyForwardConfigDTO;
 import com.smockin.mockserver.dto.ProxyForwardConfigResponseDTO;
+import com.smockin.mockserver.dto.ProxyResponseCacheStatsDTO;
+import com.smockin.mockserver.dto.TrafficJournalEntryDTO;
+import com.smockin.mockserver.dto.TrafficJournalQueryDTO;
 import com.smockin.mockserver.exception.MockServerException;
 import com.smockin.utils.GeneralUtils;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -23,6 +26,7 @@ import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -235,6 +239,37 @@ public class MockedServerEngineController {
         return new ResponseEntity<>(HttpStatus.OK);
     }
 
+    @RequestMapping(
+            path="/mockedserver/config/{serverType}/user/proxy/cache/stats",
+            method = RequestMethod.GET,
+            produces = MediaType.APPLICATION_JSON_VALUE)
+    public @ResponseBody ResponseEntity<List<ProxyResponseCacheStatsDTO>> getServerConfigUserProxyCacheStats(
+                                                                    @PathVariable("serverType") final String serverType,
+                                                                    @RequestHeader(value = GeneralUtils.OAUTH_HEADER_NAME, required = false) final String bearerToken) {
+
+        return new ResponseEntity<>(mockedServerEngineService.loadProxyResponseCacheStatsForUser(GeneralUtils.extractOAuthToken(bearerToken)), HttpStatus.OK);
+    }
+
+    @RequestMapping(
+            path="/mockedserver/config/{serverType}/traffic/journal",
+            method = RequestMethod.GET,
+            produces = MediaType.APPLICATION_JSON_VALUE)
+    public @ResponseBody ResponseEntity<List<TrafficJournalEntryDTO>> searchTrafficJournal(@PathVariable("serverType") final String serverType,
+                                                                                         @RequestParam(value = "from", required = false) final Long from,
+                                                                                         @RequestParam(value = "to", required = false) final Long to,
+                                                                                         @RequestParam(value = "pathPrefix", required = false) final String pathPrefix,
+                                                                                         @RequestParam(value = "minStatus", required = false) final Integer minStatus,
+                                                                                         @RequestParam(value = "maxStatus", required = false) final Integer maxStatus,
+                                                                                         @RequestParam(value = "traceId", required = false) final String traceId,
+                                                                                         @RequestParam(value = "limit", required = false, defaultValue = "0") final int limit,
+                                                                                         @RequestHeader(value = GeneralUtils.OAUTH_HEADER_NAME, required = false) final String bearerToken)
+            throws AuthException, ValidationException {
+
+        return new ResponseEntity<>(mockedServerEngineService.searchTrafficJournal(
+                new TrafficJournalQueryDTO(from, to, pathPrefix, minStatus, maxStatus, traceId, limit),
+                GeneralUtils.extractOAuthToken(bearerToken)), HttpStatus.OK);
+    }
+
 
     //
     // Live Logging
@@ -15,6 +15,11 @@ public class HttpClientCallDTO {
     private String url;
     private String body;
 
+    // Optional downstream specific connection settings (where 0 is the client default)
+    private int connectTimeOutMillis;
+    private int readTimeOutMillis;
+    private int maxConnectionsPerRoute;
+
     public HttpClientCallDTO() { }
 
     public HttpClientCallDTO(final String url, final RestMethodEnum method) {
@@ -50,4 +55,25 @@ public class HttpClientCallDTO {
         this.body = body;
     }
 
+    public int getConnectTimeOutMillis() {
+        return connectTimeOutMillis;
+    }
+    public void setConnectTimeOutMillis(int connectTimeOutMillis) {
+        this.connectTimeOutMillis = connectTimeOutMillis;
+    }
+
+    public int getReadTimeOutMillis() {
+        return readTimeOutMillis;
+    }
+    public void setReadTimeOutMillis(int readTimeOutMillis) {
+        this.readTimeOutMillis = readTimeOutMillis;
+    }
+
+    public int getMaxConnectionsPerRoute() {
+        return maxConnectionsPerRoute;
+    }
+    public void setMaxConnectionsPerRoute(int maxConnectionsPerRoute) {
+        this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+    }
+
 }
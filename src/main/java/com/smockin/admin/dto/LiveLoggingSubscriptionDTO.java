@@ -0,0 +1,24 @@
+package com.smockin.admin.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Narrows down the traffic sent to a live logging session. Anything left empty matches all traffic.
+ *
+ * statusRanges take the form 404, 4xx or 400-499, whilst proxied selects calls forwarded on by a proxy mapping (true)
+ * or handled by smockin itself (false).
+ */
+@Data
+@NoArgsConstructor
+public class LiveLoggingSubscriptionDTO {
+
+    private String pathPrefix;
+    private List<String> methods;
+    private List<String> statusRanges;
+    private List<String> mockTypes;
+    private Boolean proxied;
+
+}
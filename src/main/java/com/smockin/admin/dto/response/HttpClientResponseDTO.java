@@ -53,7 +53,7 @@ public class HttpClientResponseDTO {
         return body;
     }
     public void setBody(String responseBody) {
-        this.body = body;
+        this.body = responseBody;
     }
 
 }
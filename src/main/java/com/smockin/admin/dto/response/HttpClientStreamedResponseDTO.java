@@ -0,0 +1,37 @@
+package com.smockin.admin.dto.response;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+
+public class HttpClientStreamedResponseDTO extends HttpClientResponseDTO implements Closeable {
+
+    // Where there is no body (i.e. 204) or the call failed, this is null
+    private InputStream bodyStream;
+
+    public HttpClientStreamedResponseDTO(final int status) {
+        super(status);
+    }
+
+    public HttpClientStreamedResponseDTO(final int status, final String contentType, final Map<String, String> headers, final InputStream bodyStream) {
+        super(status, contentType, headers, null);
+        this.bodyStream = bodyStream;
+    }
+
+    public InputStream getBodyStream() {
+        return bodyStream;
+    }
+
+    /**
+     * Releases the underlying connection, discarding any of the body which is yet to be read.
+     */
+    @Override
+    public void close() throws IOException {
+
+        if (bodyStream != null) {
+            bodyStream.close();
+        }
+    }
+
+}
@@ -1,19 +1,40 @@
 package com.smockin.admin.dto.response;
 
+import com.smockin.admin.persistence.enums.RestMockTypeEnum;
+
 import java.util.Map;
 
 public class LiveLoggingOutboundContentDTO extends LiveLoggingContentDTO {
 
     private final Integer status;
+    private final String method;
+    private final RestMockTypeEnum mockType;
 
     public LiveLoggingOutboundContentDTO(final String url, final Map<String, String> headers, final String body, final Integer status) {
+        this(url, headers, body, status, null, null);
+    }
+
+    public LiveLoggingOutboundContentDTO(final String url,
+                                         final Map<String, String> headers,
+                                         final String body,
+                                         final Integer status,
+                                         final String method,
+                                         final RestMockTypeEnum mockType) {
         super(url, headers, body);
         this.status = status;
+        this.method = method;
+        this.mockType = mockType;
     }
 
     public Integer getStatus() {
         return status;
     }
+    public String getMethod() {
+        return method;
+    }
+    public RestMockTypeEnum getMockType() {
+        return mockType;
+    }
 
 }
 
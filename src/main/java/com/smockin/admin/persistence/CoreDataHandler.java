@@ -11,6 +11,7 @@ import com.smockin.admin.persistence.enums.ServerTypeEnum;
 import com.smockin.admin.persistence.enums.SmockinUserRoleEnum;
 import com.smockin.admin.persistence.migration.DataMigrationService;
 import com.smockin.admin.service.EncryptionService;
+import com.smockin.mockserver.engine.UserCtxPathIndex;
 import com.smockin.utils.GeneralUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -45,6 +46,9 @@ public class CoreDataHandler {
     @Autowired
     private EncryptionService encryptionService;
 
+    @Autowired
+    private UserCtxPathIndex userCtxPathIndex;
+
     @Transactional
     public void exec() {
 
@@ -56,6 +60,10 @@ public class CoreDataHandler {
 
         resetSystemAdmin();
 
+        // i.e. to pick up the seeded admin user, and any users amended by data migrations
+        GeneralUtils.executeAfterTransactionCommits(() ->
+                userCtxPathIndex.rebuild());
+
     }
 
     void applyServerConfigDefaults() {
@@ -12,6 +12,9 @@ public interface UserKeyValueDataDAO extends JpaRepository<UserKeyValueData, Lon
     @Query("FROM UserKeyValueData kvp WHERE kvp.createdBy.id = :userId")
     List<UserKeyValueData> findAllByUser(@Param("userId") final long userId);
 
+    @Query("FROM UserKeyValueData kvp JOIN FETCH kvp.createdBy")
+    List<UserKeyValueData> findAllWithUser();
+
     UserKeyValueData findByExtId(final String extId);
 
     @Query("FROM UserKeyValueData kvp WHERE LOWER(kvp.key) = LOWER(:key) AND kvp.createdBy.id = :userId")
@@ -26,4 +26,27 @@ public class ProxyForwardMapping extends Identifier {
     @Column(name = "IS_DISABLED", nullable = false)
     private boolean disabled;
 
+    @ColumnDefault("0")
+    @Column(name = "MAX_CONNECTIONS", nullable = false)
+    private int maxConnections;
+
+    @ColumnDefault("0")
+    @Column(name = "CONNECT_TIMEOUT_MILLIS", nullable = false)
+    private int connectTimeOutMillis;
+
+    @ColumnDefault("0")
+    @Column(name = "READ_TIMEOUT_MILLIS", nullable = false)
+    private int readTimeOutMillis;
+
+    @ColumnDefault("0")
+    @Column(name = "CACHE_TTL_MILLIS", nullable = false)
+    private int cacheTtlMillis;
+
+    @ColumnDefault("0")
+    @Column(name = "CACHE_MAX_ENTRIES", nullable = false)
+    private int cacheMaxEntries;
+
+    @Column(name = "CACHE_KEY_HEADERS", length = 500)
+    private String cacheKeyHeaders;
+
 }
@@ -28,6 +28,10 @@ public class ProxyForwardUserConfig extends Identifier {
     @Column(name = "NO_FORWARD_WHEN_404_MOCK", nullable = false)
     private boolean doNotForwardWhen404Mock;
 
+    @ColumnDefault("false")
+    @Column(name = "HEDGE_REQUESTS", nullable = false)
+    private boolean hedgeRequests;
+
     @OneToOne(fetch = FetchType.LAZY)
     @JoinColumn(name="CREATED_BY")
     private SmockinUser createdBy;
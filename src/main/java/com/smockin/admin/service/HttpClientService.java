@@ -2,8 +2,13 @@ package com.smockin.admin.service;
 
 import com.smockin.admin.dto.HttpClientCallDTO;
 import com.smockin.admin.dto.response.HttpClientResponseDTO;
+import com.smockin.admin.dto.response.HttpClientStreamedResponseDTO;
 import com.smockin.admin.exception.ValidationException;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.CompletableFuture;
+
 /**
  * Created by mgallina.
  */
@@ -15,4 +20,37 @@ public interface HttpClientService {
     HttpClientResponseDTO handleExternalCall(final HttpClientCallDTO httpClientCallDTO) throws ValidationException;
     HttpClientResponseDTO handleCallToMock(final HttpClientCallDTO httpClientCallDTO) throws ValidationException;
 
+    /**
+     * As handleExternalCall, but the request body is sent from, and the response body is handed over as, a stream
+     * rather than being held in memory in full.
+     */
+    <T> T handleExternalStreamedCall(final HttpClientCallDTO httpClientCallDTO,
+                                     final InputStream requestBody,
+                                     final StreamedResponseHandler<T> responseHandler) throws ValidationException, IOException;
+
+    /**
+     * As handleExternalStreamedCall, but made without blocking the calling thread. The future completes as soon as
+     * the response headers have been received, with the body then streamed as it arrives. Should the call fail,
+     * the future completes with a 404 (as per handleExternalCall). The call's connect and read time outs, and its
+     * connection limit, are applied just as they are by handleExternalStreamedCall.
+     *
+     * Cancelling the future abandons the call.
+     */
+    CompletableFuture<HttpClientStreamedResponseDTO> handleExternalAsyncCall(final HttpClientCallDTO httpClientCallDTO,
+                                                                             final InputStream requestBody) throws ValidationException;
+
+    /**
+     * @return the longest the given call could take for its response headers to be received.
+     */
+    long getMaxResponseWaitMillis(final HttpClientCallDTO httpClientCallDTO);
+
+    /**
+     * Receives the status and headers of a streamed call, along with its (as yet unread) body.
+     * The body is null where there is none (i.e. 204) and is released once this returns.
+     */
+    @FunctionalInterface
+    interface StreamedResponseHandler<T> {
+        T handle(final HttpClientResponseDTO response, final InputStream body) throws IOException;
+    }
+
 }
@@ -2,24 +2,42 @@ package com.smockin.admin.service;
 
 import com.smockin.admin.dto.HttpClientCallDTO;
 import com.smockin.admin.dto.response.HttpClientResponseDTO;
+import com.smockin.admin.dto.response.HttpClientStreamedResponseDTO;
 import com.smockin.admin.exception.ValidationException;
 import com.smockin.mockserver.dto.MockServerState;
 import com.smockin.utils.HttpClientUtils;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.math.NumberUtils;
 import org.apache.http.Header;
+import org.apache.http.HttpHost;
 import org.apache.http.HttpResponse;
+import org.apache.http.client.config.RequestConfig;
 import org.apache.http.client.fluent.Executor;
 import org.apache.http.client.fluent.Request;
+import org.apache.http.client.fluent.Response;
+import org.apache.http.client.utils.URIUtils;
 import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.routing.HttpRoute;
 import org.apache.http.conn.socket.ConnectionSocketFactory;
 import org.apache.http.conn.socket.PlainConnectionSocketFactory;
 import org.apache.http.conn.ssl.NoopHostnameVerifier;
 import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.entity.InputStreamEntity;
 import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
 import org.apache.http.impl.client.HttpClientBuilder;
 import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
 import org.apache.http.ssl.SSLContextBuilder;
+import org.eclipse.jetty.client.HttpClient;
+import org.eclipse.jetty.client.api.Result;
+import org.eclipse.jetty.client.util.InputStreamContentProvider;
+import org.eclipse.jetty.client.util.InputStreamResponseListener;
+import org.eclipse.jetty.http.HttpHeader;
+import org.eclipse.jetty.util.HttpCookieStore;
+import org.eclipse.jetty.util.ssl.SslContextFactory;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+import org.eclipse.jetty.util.thread.ScheduledExecutorScheduler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -27,14 +45,21 @@ import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import javax.net.ssl.SSLContext;
 import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
 import java.nio.charset.StandardCharsets;
-import java.security.KeyManagementException;
-import java.security.KeyStoreException;
-import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Created by mgallina.
@@ -44,9 +69,111 @@ public class HttpClientServiceImpl implements HttpClientService {
 
     private final Logger logger = LoggerFactory.getLogger(HttpClientServiceImpl.class);
 
+    static final int MAX_CONNECTIONS_TOTAL = 500;
+    static final int DEFAULT_MAX_CONNECTIONS_PER_ROUTE = 50;
+    static final int DEFAULT_CONNECT_TIMEOUT_MILLIS = 10000;
+    static final int DEFAULT_READ_TIMEOUT_MILLIS = 60000;
+    static final int CONNECTION_REQUEST_TIMEOUT_MILLIS = 30000;
+    static final long DEFAULT_KEEP_ALIVE_MILLIS = 30000;
+
     @Autowired
     private MockedServerEngineService mockedServerEngineService;
 
+    // Shared by all calls, so connections (and TLS sessions) are reused across calls to the same downstream host
+    private PoolingHttpClientConnectionManager connectionManager;
+    private CloseableHttpClient httpClient;
+    private Executor executor;
+
+    // Non blocking clients, used where the caller should not be held for the duration of the call. As the connect time
+    // out and connection limit can only be set per client, there is one for each distinct pair of these in use (keyed by
+    // [connect time out, max connections per destination]), all sharing the same threads.
+    private final Map<List<Integer>, HttpClient> asyncHttpClients = new ConcurrentHashMap<>();
+    private SslContextFactory.Client asyncSslContextFactory;
+    private QueuedThreadPool asyncClientThreadPool;
+    private ScheduledExecutorScheduler asyncClientScheduler;
+
+    // Per route connection limits applied so far, to avoid needlessly locking the pool on every call
+    private final Map<HttpRoute, Integer> routeConnectionLimits = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void initHttpClient() throws Exception {
+
+        final SSLContext sslContext = new SSLContextBuilder()
+                .loadTrustMaterial(null, (x509CertChain, authType) -> true)
+                .build();
+
+        connectionManager = new PoolingHttpClientConnectionManager(
+                RegistryBuilder.<ConnectionSocketFactory>create()
+                        .register("http", PlainConnectionSocketFactory.INSTANCE)
+                        .register("https", new SSLConnectionSocketFactory(sslContext,
+                                NoopHostnameVerifier.INSTANCE))
+                        .build());
+
+        connectionManager.setMaxTotal(MAX_CONNECTIONS_TOTAL);
+        connectionManager.setDefaultMaxPerRoute(DEFAULT_MAX_CONNECTIONS_PER_ROUTE);
+        connectionManager.setValidateAfterInactivity(2000);
+
+        httpClient = HttpClientBuilder.create()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectTimeout(DEFAULT_CONNECT_TIMEOUT_MILLIS)
+                        .setSocketTimeout(DEFAULT_READ_TIMEOUT_MILLIS)
+                        .setConnectionRequestTimeout(CONNECTION_REQUEST_TIMEOUT_MILLIS)
+                        .build())
+                .setKeepAliveStrategy((response, context) -> {
+                    final long keepAlive = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+                    return (keepAlive > 0) ? keepAlive : DEFAULT_KEEP_ALIVE_MILLIS;
+                })
+                .evictExpiredConnections()
+                .evictIdleConnections(DEFAULT_KEEP_ALIVE_MILLIS, TimeUnit.MILLISECONDS)
+                .disableCookieManagement() // shared by all callers, so a cookie set for one must never be sent on behalf of another
+                .build();
+
+        executor = Executor.newInstance(httpClient);
+
+        asyncSslContextFactory = new SslContextFactory.Client(true);
+        asyncSslContextFactory.setEndpointIdentificationAlgorithm(null);
+
+        // Started up front, so these are left running by each client that stops (see Jetty's ContainerLifeCycle)
+        asyncSslContextFactory.start();
+
+        asyncClientThreadPool = new QueuedThreadPool();
+        asyncClientThreadPool.setName("smockin-async-http-client");
+        asyncClientThreadPool.setDaemon(true);
+        asyncClientThreadPool.start();
+
+        asyncClientScheduler = new ScheduledExecutorScheduler("smockin-async-http-client-scheduler", true);
+        asyncClientScheduler.start();
+
+        getAsyncHttpClient(DEFAULT_CONNECT_TIMEOUT_MILLIS, DEFAULT_MAX_CONNECTIONS_PER_ROUTE);
+    }
+
+    @PreDestroy
+    public void closeHttpClient() throws Exception {
+
+        if (httpClient != null) {
+            httpClient.close();
+        }
+
+        for (HttpClient asyncHttpClient : asyncHttpClients.values()) {
+            asyncHttpClient.stop();
+        }
+
+        asyncHttpClients.clear();
+
+        if (asyncClientScheduler != null) {
+            asyncClientScheduler.stop();
+        }
+
+        if (asyncClientThreadPool != null) {
+            asyncClientThreadPool.stop();
+        }
+
+        if (asyncSslContextFactory != null) {
+            asyncSslContextFactory.stop();
+        }
+    }
+
     @Override
     public HttpClientResponseDTO handleExternalCall(final HttpClientCallDTO dto) throws ValidationException {
         logger.debug("handleExternalCall called");
@@ -118,6 +245,161 @@ public class HttpClientServiceImpl implements HttpClientService {
 
     }
 
+    @Override
+    public <T> T handleExternalStreamedCall(final HttpClientCallDTO dto,
+                                            final InputStream requestBody,
+                                            final StreamedResponseHandler<T> responseHandler) throws ValidationException, IOException {
+        logger.debug("handleExternalStreamedCall called");
+
+        debugDTO(dto);
+        validateRequest(dto);
+
+        final Response response;
+
+        try {
+
+            final Request request = buildStreamedRequest(dto, requestBody);
+
+            applyRequestHeaders(request, dto.getHeaders());
+            applyConnectionSettings(request, dto);
+
+            response = executor.execute(request);
+
+        } catch (Exception ex) {
+            logger.debug("Error performing external call ", ex);
+            return responseHandler.handle(new HttpClientResponseDTO(HttpStatus.NOT_FOUND.value()), null);
+        }
+
+        // Any of the body left unread by the handler is discarded, so the connection can be reused
+        return response.handleResponse(httpResponse ->
+                responseHandler.handle(
+                        new HttpClientResponseDTO(
+                            httpResponse.getStatusLine().getStatusCode(),
+                            extractResponseContentType(httpResponse),
+                            extractResponseHeaders(httpResponse),
+                            null),
+                        (httpResponse.getEntity() != null)
+                            ? httpResponse.getEntity().getContent()
+                            : null)); // i.e. 204
+    }
+
+    @Override
+    public CompletableFuture<HttpClientStreamedResponseDTO> handleExternalAsyncCall(final HttpClientCallDTO dto,
+                                                                                    final InputStream requestBody) throws ValidationException {
+        logger.debug("handleExternalAsyncCall called");
+
+        debugDTO(dto);
+        validateRequest(dto);
+
+        final org.eclipse.jetty.client.api.Request request = getAsyncHttpClient(dto)
+                .newRequest(dto.getUrl())
+                .method(dto.getMethod().name());
+
+        switch (dto.getMethod()) {
+            case GET:
+            case DELETE:
+                break;
+            case POST:
+            case PUT:
+            case PATCH:
+                applyAsyncRequestBody(request, dto, requestBody);
+                break;
+            default:
+                logger.debug("Invalid / Unsupported method: " + dto.getMethod());
+                return CompletableFuture.completedFuture(new HttpClientStreamedResponseDTO(HttpStatus.NOT_FOUND.value()));
+        }
+
+        if (dto.getHeaders() != null) {
+            dto.getHeaders().forEach(request::header);
+        }
+
+        if (dto.getReadTimeOutMillis() > 0) {
+            request.idleTimeout(dto.getReadTimeOutMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        final CompletableFuture<HttpClientStreamedResponseDTO> future = new CompletableFuture<>();
+
+        future.whenComplete((r, e) -> {
+            if (future.isCancelled()) {
+                request.abort(e);
+            }
+        });
+
+        request.send(new InputStreamResponseListener() {
+
+            @Override
+            public void onHeaders(final org.eclipse.jetty.client.api.Response response) {
+                super.onHeaders(response);
+
+                final Map<String, String> headers = new HashMap<>();
+
+                response.getHeaders()
+                        .forEach(h ->
+                            headers.put(h.getName(), h.getValue()));
+
+                future.complete(new HttpClientStreamedResponseDTO(
+                        response.getStatus(),
+                        response.getHeaders().get(HttpHeader.CONTENT_TYPE),
+                        headers,
+                        getInputStream()));
+            }
+
+            @Override
+            public void onComplete(final Result result) {
+                super.onComplete(result);
+
+                if (result.isFailed()
+                        && future.complete(new HttpClientStreamedResponseDTO(HttpStatus.NOT_FOUND.value()))) {
+                    logger.debug("Error performing external call ", result.getFailure());
+                }
+            }
+
+        });
+
+        return future;
+    }
+
+    @Override
+    public long getMaxResponseWaitMillis(final HttpClientCallDTO dto) {
+
+        // No data at all before the idle (i.e. read) time out would fail the call
+        return ((dto.getConnectTimeOutMillis() > 0) ? dto.getConnectTimeOutMillis() : DEFAULT_CONNECT_TIMEOUT_MILLIS)
+                + ((dto.getReadTimeOutMillis() > 0) ? dto.getReadTimeOutMillis() : DEFAULT_READ_TIMEOUT_MILLIS);
+    }
+
+    HttpClient getAsyncHttpClient(final HttpClientCallDTO dto) {
+
+        return getAsyncHttpClient(
+                (dto.getConnectTimeOutMillis() > 0) ? dto.getConnectTimeOutMillis() : DEFAULT_CONNECT_TIMEOUT_MILLIS,
+                (dto.getMaxConnectionsPerRoute() > 0) ? dto.getMaxConnectionsPerRoute() : DEFAULT_MAX_CONNECTIONS_PER_ROUTE);
+    }
+
+    private HttpClient getAsyncHttpClient(final int connectTimeOutMillis, final int maxConnectionsPerDestination) {
+
+        return asyncHttpClients.computeIfAbsent(Arrays.asList(connectTimeOutMillis, maxConnectionsPerDestination), k -> {
+
+            final HttpClient asyncHttpClient = new HttpClient(asyncSslContextFactory);
+            asyncHttpClient.setExecutor(asyncClientThreadPool);
+            asyncHttpClient.setScheduler(asyncClientScheduler);
+            asyncHttpClient.setMaxConnectionsPerDestination(maxConnectionsPerDestination);
+            asyncHttpClient.setConnectTimeout(connectTimeOutMillis);
+            asyncHttpClient.setIdleTimeout(DEFAULT_READ_TIMEOUT_MILLIS);
+            asyncHttpClient.setUserAgentField(null);
+            asyncHttpClient.setCookieStore(new HttpCookieStore.Empty());
+
+            // Compressed responses are passed back as they are
+            asyncHttpClient.getContentDecoderFactories().clear();
+
+            try {
+                asyncHttpClient.start();
+            } catch (Exception e) {
+                throw new IllegalStateException("Unable to start async http client", e);
+            }
+
+            return asyncHttpClient;
+        });
+    }
+
     boolean isHttps(final String url) {
         return StringUtils.startsWith(url, HTTPS_PROTOCOL);
     }
@@ -126,7 +408,7 @@ public class HttpClientServiceImpl implements HttpClientService {
 
         final Request request = Request.Get(reqDto.getUrl());
 
-        return executeRequest(request, reqDto, isHttps(reqDto.getUrl()));
+        return executeRequest(request, reqDto);
     }
 
     HttpClientResponseDTO post(final HttpClientCallDTO reqDto) throws IOException {
@@ -135,7 +417,7 @@ public class HttpClientServiceImpl implements HttpClientService {
 
         HttpClientUtils.handleRequestData(request, reqDto.getHeaders(), reqDto);
 
-        return executeRequest(request, reqDto, isHttps(reqDto.getUrl()));
+        return executeRequest(request, reqDto);
     }
 
     HttpClientResponseDTO put(final HttpClientCallDTO reqDto) throws IOException {
@@ -144,14 +426,14 @@ public class HttpClientServiceImpl implements HttpClientService {
 
         HttpClientUtils.handleRequestData(request, reqDto.getHeaders(), reqDto);
 
-        return executeRequest(request, reqDto, isHttps(reqDto.getUrl()));
+        return executeRequest(request, reqDto);
     }
 
     HttpClientResponseDTO delete(final HttpClientCallDTO reqDto) throws IOException {
 
         final Request request = Request.Delete(reqDto.getUrl());
 
-        return executeRequest(request, reqDto, isHttps(reqDto.getUrl()));
+        return executeRequest(request, reqDto);
     }
 
     HttpClientResponseDTO patch(final HttpClientCallDTO reqDto) throws IOException {
@@ -159,7 +441,82 @@ public class HttpClientServiceImpl implements HttpClientService {
         final Request request = Request.Patch(reqDto.getUrl())
                 .bodyByteArray((reqDto.getBody() != null) ? reqDto.getBody().getBytes() : null);
 
-        return executeRequest(request, reqDto, isHttps(reqDto.getUrl()));
+        return executeRequest(request, reqDto);
+    }
+
+    Request buildStreamedRequest(final HttpClientCallDTO reqDto, final InputStream requestBody) throws ValidationException {
+
+        switch (reqDto.getMethod()) {
+            case GET:
+                return Request.Get(reqDto.getUrl());
+            case POST:
+                return applyStreamedRequestBody(Request.Post(reqDto.getUrl()), reqDto, requestBody);
+            case PUT:
+                return applyStreamedRequestBody(Request.Put(reqDto.getUrl()), reqDto, requestBody);
+            case DELETE:
+                return Request.Delete(reqDto.getUrl());
+            case PATCH:
+                return applyStreamedRequestBody(Request.Patch(reqDto.getUrl()), reqDto, requestBody);
+            default:
+                throw new ValidationException("Invalid / Unsupported method: " + reqDto.getMethod());
+        }
+
+    }
+
+    /**
+     * The apache client sets its own CONTENT_LENGTH / TRANSFER_ENCODING headers from the entity, so these are moved
+     * from the request headers onto the entity instead (where no length is given, the body is sent chunked).
+     */
+    Request applyStreamedRequestBody(final Request request,
+                                     final HttpClientCallDTO reqDto,
+                                     final InputStream requestBody) {
+
+        final Optional<String> contentLength = removeRequestHeader(reqDto, HttpHeaders.CONTENT_LENGTH);
+        removeRequestHeader(reqDto, HttpHeaders.TRANSFER_ENCODING);
+
+        if (requestBody == null) {
+            return request;
+        }
+
+        return request.body(new InputStreamEntity(requestBody,
+                NumberUtils.toLong(contentLength.orElse(null), -1)));
+    }
+
+    void applyAsyncRequestBody(final org.eclipse.jetty.client.api.Request request,
+                               final HttpClientCallDTO reqDto,
+                               final InputStream requestBody) {
+
+        final long contentLength = NumberUtils.toLong(removeRequestHeader(reqDto, HttpHeaders.CONTENT_LENGTH).orElse(null), -1);
+        removeRequestHeader(reqDto, HttpHeaders.TRANSFER_ENCODING);
+
+        if (requestBody == null) {
+            return;
+        }
+
+        request.content(new InputStreamContentProvider(requestBody) {
+
+            // Where no length is given, the body is sent chunked
+            @Override
+            public long getLength() {
+                return contentLength;
+            }
+
+        });
+    }
+
+    private Optional<String> removeRequestHeader(final HttpClientCallDTO reqDto, final String headerName) {
+
+        if (reqDto.getHeaders() == null) {
+            return Optional.empty();
+        }
+
+        final Optional<String> headerKey = reqDto.getHeaders()
+                .keySet()
+                .stream()
+                .filter(k -> headerName.equalsIgnoreCase(k))
+                .findFirst();
+
+        return headerKey.map(k -> reqDto.getHeaders().remove(k));
     }
 
     /**
@@ -220,33 +577,26 @@ public class HttpClientServiceImpl implements HttpClientService {
         };
     }
 
+    String extractResponseContentType(final HttpResponse httpResponse) {
+
+        return (httpResponse.getEntity() != null && httpResponse.getEntity().getContentType() != null)
+                ? httpResponse.getEntity().getContentType().getValue()
+                : null; // i.e. 204
+    }
+
     String extractResponseBody(final HttpResponse httpResponse) throws IOException {
 
         return IOUtils.toString(httpResponse.getEntity().getContent(), StandardCharsets.UTF_8.name());
     }
 
     HttpClientResponseDTO executeRequest(final Request request,
-                                         final HttpClientCallDTO reqDto,
-                                         final boolean isHttpsCall) throws IOException {
+                                         final HttpClientCallDTO reqDto) throws IOException {
 
         duplicateContentLengthBugFix(reqDto);
         applyRequestHeaders(request, reqDto.getHeaders());
+        applyConnectionSettings(request, reqDto);
 
-        final HttpResponse httpResponse;
-
-        if (isHttpsCall) {
-
-            try {
-                final Executor executor = Executor.newInstance(noSslHttpClient());
-                httpResponse = executor.execute(request).returnResponse();
-            } catch (KeyManagementException | NoSuchAlgorithmException | KeyStoreException e) {
-                throw new IOException();
-            }
-
-        } else {
-
-            httpResponse = request.execute().returnResponse();
-        }
+        final HttpResponse httpResponse = executor.execute(request).returnResponse();
 
         return new HttpClientResponseDTO(
                 httpResponse.getStatusLine().getStatusCode(),
@@ -260,23 +610,39 @@ public class HttpClientServiceImpl implements HttpClientService {
         );
     }
 
-    private CloseableHttpClient noSslHttpClient() throws KeyManagementException, NoSuchAlgorithmException, KeyStoreException {
+    void applyConnectionSettings(final Request request, final HttpClientCallDTO reqDto) {
 
-        final SSLContext sslContext = new SSLContextBuilder()
-                .loadTrustMaterial(null, (x509CertChain, authType) -> true)
-                .build();
+        if (reqDto.getConnectTimeOutMillis() > 0) {
+            request.connectTimeout(reqDto.getConnectTimeOutMillis());
+        }
 
-        return HttpClientBuilder.create()
-                .setSSLContext(sslContext)
-                .setConnectionManager(
-                        new PoolingHttpClientConnectionManager(
-                                RegistryBuilder.<ConnectionSocketFactory>create()
-                                        .register("http", PlainConnectionSocketFactory.INSTANCE)
-                                        .register("https", new SSLConnectionSocketFactory(sslContext,
-                                                NoopHostnameVerifier.INSTANCE))
-                                        .build()
-                        ))
-                .build();
+        if (reqDto.getReadTimeOutMillis() > 0) {
+            request.socketTimeout(reqDto.getReadTimeOutMillis());
+        }
+
+        if (reqDto.getMaxConnectionsPerRoute() > 0) {
+
+            final HttpRoute route = toRoute(reqDto.getUrl());
+            final Integer previousLimit = routeConnectionLimits.put(route, reqDto.getMaxConnectionsPerRoute());
+
+            if (previousLimit == null
+                    || previousLimit != reqDto.getMaxConnectionsPerRoute()) {
+                connectionManager.setMaxPerRoute(route, reqDto.getMaxConnectionsPerRoute());
+            }
+        }
+
+    }
+
+    // Matches the route the client itself resolves for this url (i.e. with the default port applied)
+    HttpRoute toRoute(final String url) {
+
+        final HttpHost host = URIUtils.extractHost(URI.create(url));
+        final boolean secure = "https".equalsIgnoreCase(host.getSchemeName());
+        final int port = (host.getPort() > 0)
+                ? host.getPort()
+                : (secure ? 443 : 80);
+
+        return new HttpRoute(new HttpHost(host.getHostName(), port, host.getSchemeName()), null, secure);
     }
 
     private void debugDTO(final HttpClientCallDTO dto) {
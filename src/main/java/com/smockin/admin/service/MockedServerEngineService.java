@@ -11,9 +11,13 @@ import com.smockin.mockserver.dto.MockServerState;
 import com.smockin.mockserver.dto.MockedServerConfigDTO;
 import com.smockin.mockserver.dto.ProxyForwardConfigDTO;
 import com.smockin.mockserver.dto.ProxyForwardConfigResponseDTO;
+import com.smockin.mockserver.dto.ProxyResponseCacheStatsDTO;
+import com.smockin.mockserver.dto.TrafficJournalEntryDTO;
+import com.smockin.mockserver.dto.TrafficJournalQueryDTO;
 import com.smockin.mockserver.exception.MockServerException;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -64,4 +68,9 @@ public interface MockedServerEngineService {
     void saveProxyForwardMappingsForUser(final ProxyForwardConfigDTO proxyForwardConfigDTO,
                                           final String token) throws AuthException, ValidationException, RecordNotFoundException;
 
+    List<ProxyResponseCacheStatsDTO> loadProxyResponseCacheStatsForUser(final String token);
+
+    List<TrafficJournalEntryDTO> searchTrafficJournal(final TrafficJournalQueryDTO query, final String token)
+            throws AuthException, ValidationException;
+
 }
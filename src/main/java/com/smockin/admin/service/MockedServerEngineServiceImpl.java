@@ -14,6 +14,7 @@ import com.smockin.admin.service.utils.UserTokenServiceUtils;
 import com.smockin.mockserver.dto.*;
 import com.smockin.mockserver.engine.*;
 import com.smockin.mockserver.exception.MockServerException;
+import com.smockin.mockserver.service.TrafficJournalService;
 import com.smockin.utils.GeneralUtils;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
@@ -68,6 +69,12 @@ public class MockedServerEngineServiceImpl implements MockedServerEngineService
     @Autowired
     private ProxyMappingCache proxyMappingCache;
 
+    @Autowired
+    private ProxyResponseCache proxyResponseCache;
+
+    @Autowired
+    private TrafficJournalService trafficJournalService;
+
     @Autowired
     private S3MockDAO s3MockDAO;
 
@@ -418,14 +425,12 @@ public class MockedServerEngineServiceImpl implements MockedServerEngineService
 
         dto.setProxyModeType(pm.getProxyModeType());
         dto.setDoNotForwardWhen404Mock(pm.isDoNotForwardWhen404Mock());
+        dto.setHedgeRequests(pm.isHedgeRequests());
         dto.setProxyForwardMappings(
                 pm.getProxyForwardMappings()
                         .stream()
                         .map(m ->
-                                new ProxyForwardMappingDTO(
-                                        m.getPath(),
-                                        m.getProxyForwardUrl(),
-                                        m.isDisabled()))
+                                toProxyForwardMappingDTO(m))
                         .collect(Collectors.toList()));
 
         return dto;
@@ -444,6 +449,7 @@ public class MockedServerEngineServiceImpl implements MockedServerEngineService
             proxyForwardUserConfig = buildNewProxyForwardUserConfig(smockinUser);
             proxyForwardUserConfig.setProxyModeType(ProxyModeTypeEnum.ACTIVE);
             proxyForwardUserConfig.setDoNotForwardWhen404Mock(false);
+            proxyForwardUserConfig.setHedgeRequests(false);
 
             saveUserProxyMappings(proxyForwardUserConfig, Arrays.asList());
         }
@@ -452,13 +458,11 @@ public class MockedServerEngineServiceImpl implements MockedServerEngineService
                 isProxyModeEnabled(),
                 proxyForwardUserConfig.getProxyModeType(),
                 proxyForwardUserConfig.isDoNotForwardWhen404Mock(),
+                proxyForwardUserConfig.isHedgeRequests(),
                 proxyForwardUserConfig.getProxyForwardMappings()
                         .stream()
                         .map(m ->
-                                new ProxyForwardMappingDTO(
-                                        m.getPath(),
-                                        m.getProxyForwardUrl(),
-                                        m.isDisabled()))
+                                toProxyForwardMappingDTO(m))
                         .collect(Collectors.toList()));
     }
 
@@ -491,6 +495,7 @@ public class MockedServerEngineServiceImpl implements MockedServerEngineService
 
         proxyForwardUserConfig.setProxyModeType(proxyForwardConfigDTO.getProxyModeType());
         proxyForwardUserConfig.setDoNotForwardWhen404Mock(proxyForwardConfigDTO.isDoNotForwardWhen404Mock());
+        proxyForwardUserConfig.setHedgeRequests(proxyForwardConfigDTO.isHedgeRequests());
 
         // Save latest mappings
         saveUserProxyMappings(proxyForwardUserConfig, proxyForwardConfigDTO.getProxyForwardMappings());
@@ -499,12 +504,34 @@ public class MockedServerEngineServiceImpl implements MockedServerEngineService
         final ProxyForwardConfigCacheDTO cacheDTO = new ProxyForwardConfigCacheDTO(smockinUser.getExtId(), smockinUser.getCtxPath());
         cacheDTO.setProxyModeType(proxyForwardConfigDTO.getProxyModeType());
         cacheDTO.setDoNotForwardWhen404Mock(proxyForwardConfigDTO.isDoNotForwardWhen404Mock());
+        cacheDTO.setHedgeRequests(proxyForwardConfigDTO.isHedgeRequests());
         cacheDTO.setProxyForwardMappings(proxyForwardConfigDTO.getProxyForwardMappings());
 
         if (isProxyModeEnabled()) {
             proxyMappingCache.update(cacheDTO);
         }
 
+        // Cached responses may no longer apply to the latest mappings
+        proxyResponseCache.clear(smockinUser.getCtxPath());
+
+    }
+
+    @Override
+    public List<ProxyResponseCacheStatsDTO> loadProxyResponseCacheStatsForUser(final String token) {
+
+        final SmockinUser smockinUser = userTokenServiceUtils.loadCurrentActiveUser(token);
+
+        return proxyResponseCache.getStats(smockinUser.getCtxPath());
+    }
+
+    @Override
+    public List<TrafficJournalEntryDTO> searchTrafficJournal(final TrafficJournalQueryDTO query, final String token)
+            throws AuthException, ValidationException {
+
+        // The journal holds all users' traffic
+        smockinUserService.assertCurrentUserIsAdmin(userTokenServiceUtils.loadCurrentActiveUser(token));
+
+        return trafficJournalService.search(query);
     }
 
     ProxyForwardUserConfig buildNewProxyForwardUserConfig(final SmockinUser smockinUser) {
@@ -584,7 +611,7 @@ public class MockedServerEngineServiceImpl implements MockedServerEngineService
         final List<ProxyForwardMappingDTO> dtos = proxyForwardUserConfig.getProxyForwardMappings()
             .stream()
             .map(m ->
-                    new ProxyForwardMappingDTO(m.getPath(), m.getProxyForwardUrl(), m.isDisabled()))
+                    toProxyForwardMappingDTO(m))
             .collect(Collectors.toList());
 
         if (dtos.isEmpty()) {
@@ -643,6 +670,8 @@ public class MockedServerEngineServiceImpl implements MockedServerEngineService
             // Save latest mappings
             saveUserProxyMappings(proxyForwardUserConfig, proxyForwardMappingDTOs);
 
+            proxyResponseCache.clear(smockinUser.getCtxPath());
+
         } catch (IOException ex) {
             throw new MockExportException("Error importing proxy mappings file");
         }
@@ -693,11 +722,31 @@ public class MockedServerEngineServiceImpl implements MockedServerEngineService
                         + proxyForwardMappingDTO.getPath());
         proxyForwardMapping.setProxyForwardUrl(proxyForwardMappingDTO.getProxyForwardUrl());
         proxyForwardMapping.setDisabled(proxyForwardMappingDTO.isDisabled());
+        proxyForwardMapping.setMaxConnections(proxyForwardMappingDTO.getMaxConnections());
+        proxyForwardMapping.setConnectTimeOutMillis(proxyForwardMappingDTO.getConnectTimeOutMillis());
+        proxyForwardMapping.setReadTimeOutMillis(proxyForwardMappingDTO.getReadTimeOutMillis());
+        proxyForwardMapping.setCacheTtlMillis(proxyForwardMappingDTO.getCacheTtlMillis());
+        proxyForwardMapping.setCacheMaxEntries(proxyForwardMappingDTO.getCacheMaxEntries());
+        proxyForwardMapping.setCacheKeyHeaders(proxyForwardMappingDTO.getCacheKeyHeaders());
 
         return proxyForwardMapping;
 
     }
 
+    ProxyForwardMappingDTO toProxyForwardMappingDTO(final ProxyForwardMapping proxyForwardMapping) {
+
+        return new ProxyForwardMappingDTO(
+                proxyForwardMapping.getPath(),
+                proxyForwardMapping.getProxyForwardUrl(),
+                proxyForwardMapping.isDisabled(),
+                proxyForwardMapping.getMaxConnections(),
+                proxyForwardMapping.getConnectTimeOutMillis(),
+                proxyForwardMapping.getReadTimeOutMillis(),
+                proxyForwardMapping.getCacheTtlMillis(),
+                proxyForwardMapping.getCacheMaxEntries(),
+                proxyForwardMapping.getCacheKeyHeaders());
+    }
+
     void autoStartManager(final ServerTypeEnum serverType) throws MockServerException {
 
         if (serverType == null) {
@@ -758,6 +807,17 @@ public class MockedServerEngineServiceImpl implements MockedServerEngineService
                 throw new ValidationException("The 'Proxy Forward Url' value '" + dto.getProxyForwardUrl() + "' is invalid");
             }
 
+            if (dto.getMaxConnections() < 0
+                    || dto.getConnectTimeOutMillis() < 0
+                    || dto.getReadTimeOutMillis() < 0) {
+                throw new ValidationException("The connection settings for 'Proxy Forward Url' value '" + dto.getProxyForwardUrl() + "' cannot be negative");
+            }
+
+            if (dto.getCacheTtlMillis() < 0
+                    || dto.getCacheMaxEntries() < 0) {
+                throw new ValidationException("The cache settings for 'Proxy Forward Url' value '" + dto.getProxyForwardUrl() + "' cannot be negative");
+            }
+
         }
 
     }
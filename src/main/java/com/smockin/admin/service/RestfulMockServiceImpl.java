@@ -12,6 +12,8 @@ import com.smockin.admin.persistence.enums.RestMethodEnum;
 import com.smockin.admin.persistence.enums.RestMockTypeEnum;
 import com.smockin.admin.service.utils.RestfulMockServiceUtils;
 import com.smockin.admin.service.utils.UserTokenServiceUtils;
+import com.smockin.mockserver.engine.RestfulMockRouteCache;
+import com.smockin.utils.GeneralUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -41,6 +43,9 @@ public class RestfulMockServiceImpl implements RestfulMockService {
     @Autowired
     private UserTokenServiceUtils userTokenServiceUtils;
 
+    @Autowired
+    private RestfulMockRouteCache restfulMockRouteCache;
+
 
     @Override
     public RestfulMockResponseDTO loadEndpoint(final String mockExtId, final String token) throws RecordNotFoundException, ValidationException {
@@ -74,6 +79,9 @@ public class RestfulMockServiceImpl implements RestfulMockService {
 
         restfulMockServiceUtils.handleEndpointOrdering();
 
+        GeneralUtils.executeAfterTransactionCommits(() ->
+                restfulMockRouteCache.rebuild());
+
         return mainMock.getExtId();
     }
 
@@ -112,6 +120,9 @@ public class RestfulMockServiceImpl implements RestfulMockService {
             restfulMockServiceUtils.handleEndpointOrdering();
         }
 
+        GeneralUtils.executeAfterTransactionCommits(() ->
+                restfulMockRouteCache.rebuild());
+
     }
 
     @Override
@@ -125,6 +136,9 @@ public class RestfulMockServiceImpl implements RestfulMockService {
         restfulMockServiceUtils.handleDeleteStatefulMock(mock);
 
         restfulMockDAO.delete(mock);
+
+        GeneralUtils.executeAfterTransactionCommits(() ->
+                restfulMockRouteCache.rebuild());
     }
 
     @Override
@@ -29,6 +29,7 @@ public interface SmockinUserService {
     void resetToken(final String token) throws RecordNotFoundException;
     void lookUpToken(final String sessionToken) throws AuthException;
     UserModeEnum getUserMode();
+    boolean doesUserExistWithCtxPath(final String ctxPath);
     SmockinUser loadCurrentUser(final String sessionToken) throws RecordNotFoundException;
     Optional<SmockinUser> loadDefaultUser();
     void assertCurrentUserIsAdmin(final SmockinUser user) throws AuthException;
@@ -14,6 +14,9 @@ import com.smockin.admin.persistence.dao.SmockinUserDAO;
 import com.smockin.admin.persistence.entity.SmockinUser;
 import com.smockin.admin.persistence.enums.RecordStatusEnum;
 import com.smockin.admin.persistence.enums.SmockinUserRoleEnum;
+import com.smockin.mockserver.engine.RestfulMockRouteCache;
+import com.smockin.mockserver.engine.UserCtxPathIndex;
+import com.smockin.mockserver.engine.UserKeyValueDataCache;
 import com.smockin.utils.GeneralUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -47,6 +50,15 @@ public class SmockinUserServiceImpl implements SmockinUserService {
     @Autowired
     private RestfulMockDAO restfulMockDAO;
 
+    @Autowired
+    private RestfulMockRouteCache restfulMockRouteCache;
+
+    @Autowired
+    private UserKeyValueDataCache userKeyValueDataCache;
+
+    @Autowired
+    private UserCtxPathIndex userCtxPathIndex;
+
     @Value("${multi.user.mode:false}")
     private boolean multiUserMode;
 
@@ -80,11 +92,15 @@ public class SmockinUserServiceImpl implements SmockinUserService {
 
         final String passwordEnc = validateAndEncryptPassword(dto.getPassword());
 
-        return smockinUserDAO
+        final SmockinUser smockinUser = smockinUserDAO
                 .save(new SmockinUser(dto.getUsername(), passwordEnc, dto.getFullName(), dto.getUsername(),
                                         SmockinUserRoleEnum.REGULAR, RecordStatusEnum.ACTIVE,
-                                        GeneralUtils.generateUUID(), GeneralUtils.generateUUID()))
-                .getExtId();
+                                        GeneralUtils.generateUUID(), GeneralUtils.generateUUID()));
+
+        GeneralUtils.executeAfterTransactionCommits(() ->
+                userCtxPathIndex.rebuild());
+
+        return smockinUser.getExtId();
     }
 
     @Override
@@ -111,6 +127,13 @@ public class SmockinUserServiceImpl implements SmockinUserService {
         smockinUser.setCtxPath(dto.getUsername());
 
         smockinUserDAO.save(smockinUser);
+
+        GeneralUtils.executeAfterTransactionCommits(() ->
+                userCtxPathIndex.rebuild());
+
+        // User's ctx path and role are part of each mock's matching path
+        GeneralUtils.executeAfterTransactionCommits(() ->
+                restfulMockRouteCache.rebuild());
     }
 
     @Override
@@ -126,6 +149,18 @@ public class SmockinUserServiceImpl implements SmockinUserService {
         }
 
         smockinUserDAO.delete(smockinUser);
+
+        final long userId = smockinUser.getId();
+
+        GeneralUtils.executeAfterTransactionCommits(() ->
+                userCtxPathIndex.rebuild());
+
+        GeneralUtils.executeAfterTransactionCommits(() ->
+                userKeyValueDataCache.evict(userId));
+
+        // Deletion cascades to all of the user's mocks
+        GeneralUtils.executeAfterTransactionCommits(() ->
+                restfulMockRouteCache.rebuild());
     }
 
     @Override
@@ -207,6 +242,11 @@ public class SmockinUserServiceImpl implements SmockinUserService {
         return (multiUserMode) ? UserModeEnum.ACTIVE : UserModeEnum.INACTIVE;
     }
 
+    @Override
+    public boolean doesUserExistWithCtxPath(final String ctxPath) {
+        return userCtxPathIndex.contains(ctxPath);
+    }
+
     @Override
     public Optional<SmockinUser> loadDefaultUser() {
         return smockinUserDAO.findAllByRole(SmockinUserRoleEnum.SYS_ADMIN).stream().findFirst();
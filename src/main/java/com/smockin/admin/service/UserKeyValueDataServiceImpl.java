@@ -7,11 +7,17 @@ import com.smockin.admin.persistence.dao.UserKeyValueDataDAO;
 import com.smockin.admin.persistence.entity.SmockinUser;
 import com.smockin.admin.persistence.entity.UserKeyValueData;
 import com.smockin.admin.service.utils.UserTokenServiceUtils;
+import com.smockin.mockserver.engine.UserKeyValueDataCache;
+import com.smockin.utils.GeneralUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
@@ -24,6 +30,8 @@ public class UserKeyValueDataServiceImpl implements UserKeyValueDataService {
     @Autowired
     private UserTokenServiceUtils userTokenServiceUtils;
 
+    @Autowired
+    private UserKeyValueDataCache userKeyValueDataCache;
 
     @Override
     public List<UserKeyValueDataDTO> loadAll(final String token) throws RecordNotFoundException {
@@ -54,18 +62,33 @@ public class UserKeyValueDataServiceImpl implements UserKeyValueDataService {
     }
 
     @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
     public UserKeyValueDataDTO loadByKey(final String key, final long userId) {
 
-        final UserKeyValueData userKeyValueData = userKeyValueDataDAO.findByKey(key, userId);
-
-        if (userKeyValueData == null) {
+        if (key == null) {
             return null;
         }
 
-        return new UserKeyValueDataDTO(
-                userKeyValueData.getExtId(),
-                userKeyValueData.getKey(),
-                userKeyValueData.getValue());
+        return userKeyValueDataCache.find(userId, key);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public Map<String, UserKeyValueDataDTO> loadByKeys(final Collection<String> keys, final long userId) {
+
+        final Map<String, UserKeyValueDataDTO> results = new HashMap<>();
+
+        keys.stream()
+                .filter(k ->
+                        k != null)
+                .forEach(k -> {
+                    final UserKeyValueDataDTO dto = userKeyValueDataCache.find(userId, k);
+                    if (dto != null) {
+                        results.put(k, dto);
+                    }
+                });
+
+        return results;
     }
 
     @Override
@@ -82,6 +105,11 @@ public class UserKeyValueDataServiceImpl implements UserKeyValueDataService {
 
             userKeyValueDataDAO.save(userKeyValueData);
         });
+
+        final long userId = user.getId();
+
+        GeneralUtils.executeAfterTransactionCommits(() ->
+                userKeyValueDataCache.reload(userId));
     }
 
     @Override
@@ -99,6 +127,11 @@ public class UserKeyValueDataServiceImpl implements UserKeyValueDataService {
         userKeyValueData.setValue(dto.getValue());
 
         userKeyValueDataDAO.save(userKeyValueData);
+
+        final long userId = userKeyValueData.getCreatedBy().getId();
+
+        GeneralUtils.executeAfterTransactionCommits(() ->
+                userKeyValueDataCache.reload(userId));
     }
 
     @Override
@@ -113,6 +146,11 @@ public class UserKeyValueDataServiceImpl implements UserKeyValueDataService {
         userTokenServiceUtils.validateRecordOwner(userKeyValueData.getCreatedBy(), token);
 
         userKeyValueDataDAO.delete(userKeyValueData);
+
+        final long userId = userKeyValueData.getCreatedBy().getId();
+
+        GeneralUtils.executeAfterTransactionCommits(() ->
+                userKeyValueDataCache.reload(userId));
     }
 
 }
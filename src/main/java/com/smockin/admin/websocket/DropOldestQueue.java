@@ -0,0 +1,55 @@
+package com.smockin.admin.websocket;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Lock free, bounded queue, which makes room for anything new by discarding whatever has been waiting longest.
+ *
+ * The bound is approximate whilst several threads are offering at once, but never drifts.
+ */
+final class DropOldestQueue<T> {
+
+    private final int capacity;
+    private final Queue<T> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger();
+
+    DropOldestQueue(final int capacity) {
+        this.capacity = capacity;
+    }
+
+    /**
+     * @return the oldest item, if this had to be dropped to make room (otherwise null).
+     */
+    T addDroppingOldest(final T item) {
+
+        queue.offer(item);
+
+        if (size.incrementAndGet() <= capacity) {
+            return null;
+        }
+
+        return poll();
+    }
+
+    T poll() {
+
+        final T item = queue.poll();
+
+        if (item != null) {
+            size.decrementAndGet();
+        }
+
+        return item;
+    }
+
+    boolean isEmpty() {
+        return queue.isEmpty();
+    }
+
+    void clear() {
+        while (poll() != null);
+    }
+
+}
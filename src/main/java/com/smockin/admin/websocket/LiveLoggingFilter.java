@@ -0,0 +1,171 @@
+package com.smockin.admin.websocket;
+
+import com.smockin.admin.dto.LiveLoggingSubscriptionDTO;
+import com.smockin.admin.dto.response.LiveLoggingInboundContentDTO;
+import com.smockin.admin.dto.response.LiveLoggingOutboundContentDTO;
+import com.smockin.admin.dto.response.LiveLoggingTrafficDTO;
+import com.smockin.admin.enums.LiveLoggingDirectionEnum;
+import com.smockin.utils.GeneralUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.math.NumberUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A session's LiveLoggingSubscriptionDTO, compiled so it can be matched against traffic cheaply.
+ *
+ * The path prefix is matched by the LiveLoggingSubscriptionIndex, so is not checked here. Status, mock type and
+ * whether a call was proxied are only known once the response is sent, so requests are only matched on their method.
+ */
+final class LiveLoggingFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(LiveLoggingFilter.class);
+
+    static final LiveLoggingFilter ALL = new LiveLoggingFilter("", Collections.emptySet(), Collections.emptyList(), Collections.emptySet(), null);
+
+    private final String pathPrefix;
+    private final Set<String> methods;
+    private final List<int[]> statusRanges;
+    private final Set<String> mockTypes;
+    private final Boolean proxied;
+
+    private LiveLoggingFilter(final String pathPrefix,
+                              final Set<String> methods,
+                              final List<int[]> statusRanges,
+                              final Set<String> mockTypes,
+                              final Boolean proxied) {
+        this.pathPrefix = pathPrefix;
+        this.methods = methods;
+        this.statusRanges = statusRanges;
+        this.mockTypes = mockTypes;
+        this.proxied = proxied;
+    }
+
+    static LiveLoggingFilter compile(final LiveLoggingSubscriptionDTO dto) {
+
+        if (dto == null) {
+            return ALL;
+        }
+
+        final List<int[]> statusRanges = new ArrayList<>();
+
+        if (dto.getStatusRanges() != null) {
+            dto.getStatusRanges()
+                    .forEach(r -> {
+
+                        final int[] range = parseStatusRange(r);
+
+                        if (range != null) {
+                            statusRanges.add(range);
+                        } else {
+                            logger.warn("Ignoring invalid live logging subscription status range: " + r);
+                        }
+                    });
+        }
+
+        return new LiveLoggingFilter(StringUtils.defaultString(dto.getPathPrefix()),
+                toUpperCaseSet(dto.getMethods()),
+                statusRanges,
+                toUpperCaseSet(dto.getMockTypes()),
+                dto.getProxied());
+    }
+
+    String getPathPrefix() {
+        return pathPrefix;
+    }
+
+    boolean matches(final LiveLoggingTrafficDTO traffic) {
+
+        if (LiveLoggingDirectionEnum.REQUEST.equals(traffic.getDirection())) {
+            return matchesMethod(((LiveLoggingInboundContentDTO) traffic.getContent()).getMethod());
+        }
+
+        final LiveLoggingOutboundContentDTO content = (LiveLoggingOutboundContentDTO) traffic.getContent();
+
+        return matchesMethod(content.getMethod())
+                && matchesStatus(content.getStatus())
+                && (mockTypes.isEmpty()
+                        || (content.getMockType() != null && mockTypes.contains(content.getMockType().name())))
+                && (proxied == null
+                        || proxied == isProxied(content));
+    }
+
+    private boolean matchesMethod(final String method) {
+        return methods.isEmpty()
+                || (method != null && methods.contains(method));
+    }
+
+    private boolean matchesStatus(final Integer status) {
+
+        if (statusRanges.isEmpty()) {
+            return true;
+        }
+
+        if (status == null) {
+            return false;
+        }
+
+        for (int[] range : statusRanges) {
+            if (status >= range[0] && status <= range[1]) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private boolean isProxied(final LiveLoggingOutboundContentDTO content) {
+        return content.getHeaders() != null
+                && content.getHeaders().containsKey(GeneralUtils.PROXIED_DOWNSTREAM_URL_HEADER);
+    }
+
+    // i.e. 404, 4xx or 400-499
+    static int[] parseStatusRange(final String range) {
+
+        final String r = StringUtils.trimToEmpty(range).toLowerCase();
+
+        if (r.length() == 3 && r.endsWith("xx") && Character.isDigit(r.charAt(0))) {
+            final int min = (r.charAt(0) - '0') * 100;
+            return new int[] { min, min + 99 };
+        }
+
+        final String[] bounds = StringUtils.split(r, '-');
+
+        if (bounds.length == 0
+                || bounds.length > 2
+                || !NumberUtils.isDigits(bounds[0])
+                || (bounds.length == 2 && !NumberUtils.isDigits(bounds[1]))) {
+            return null;
+        }
+
+        final int min = Integer.parseInt(bounds[0]);
+        final int max = (bounds.length == 2) ? Integer.parseInt(bounds[1]) : min;
+
+        return (min <= max)
+                ? new int[] { min, max }
+                : null;
+    }
+
+    private static Set<String> toUpperCaseSet(final List<String> values) {
+
+        if (values == null) {
+            return Collections.emptySet();
+        }
+
+        final Set<String> set = new HashSet<>();
+
+        values.stream()
+                .filter(StringUtils::isNotBlank)
+                .forEach(v ->
+                        set.add(StringUtils.upperCase(StringUtils.trim(v))));
+
+        return set;
+    }
+
+}
@@ -11,4 +11,14 @@ public interface LiveLoggingHandler {
 
     void broadcast(final LiveLoggingDTO dto);
 
+    /**
+     * @return true if anyone is currently connected to the live logging feed.
+     */
+    boolean hasSubscribers();
+
+    /**
+     * @return the number of messages dropped so far, as these were not being received quickly enough.
+     */
+    long getDroppedMessageCount();
+
 }
@@ -3,6 +3,7 @@ package com.smockin.admin.websocket;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.smockin.admin.dto.LiveLoggingAction;
 import com.smockin.admin.dto.LiveLoggingBlockedResponseAmendmentDTO;
+import com.smockin.admin.dto.LiveLoggingSubscriptionDTO;
 import com.smockin.admin.dto.response.LiveLoggingDTO;
 import com.smockin.admin.dto.response.LiveLoggingS3DTO;
 import com.smockin.admin.dto.response.LiveLoggingTrafficDTO;
@@ -25,12 +26,31 @@ import org.springframework.web.socket.TextMessage;
 import org.springframework.web.socket.WebSocketSession;
 import org.springframework.web.socket.handler.TextWebSocketHandler;
 
-import java.io.IOException;
-import java.util.ArrayList;
-import java.util.List;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.Collection;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.AtomicReference;
-
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Broadcasts are queued and then handed off to a dedicated publisher thread, so the mock server threads logging
+ * traffic never wait on a connected browser. The publisher serialises each message once and passes it on to the
+ * send queue of each session due to receive it (see LiveLoggingSubscriber). Should either of these queues fill up,
+ * the oldest traffic messages are dropped. Blocked responses and S3 messages go through queues of their own, which
+ * are never dropped from (as a blocked response is holding up a call until the user acts on it).
+ *
+ * Sessions can narrow down the traffic they receive by sending a LIVE_LOGGING_SUBSCRIPTION message (see
+ * LiveLoggingSubscriptionDTO), which is then only matched against the sessions interested in it (see
+ * LiveLoggingSubscriptionIndex). Blocked responses and S3 messages are sent regardless.
+ */
 @Component
 public class LiveLoggingHandlerImpl extends TextWebSocketHandler implements LiveLoggingHandler {
 
@@ -39,9 +59,26 @@ public class LiveLoggingHandlerImpl extends TextWebSocketHandler implements Live
     private static final String ENABLE_LIVE_LOG_BLOCKING = "ENABLE_LIVE_LOG_BLOCKING";
     private static final String DISABLE_LIVE_LOG_BLOCKING = "DISABLE_LIVE_LOG_BLOCKING";
     private static final String LIVE_LOGGING_AMENDMENT = "LIVE_LOGGING_AMENDMENT";
+    private static final String LIVE_LOGGING_SUBSCRIPTION = "LIVE_LOGGING_SUBSCRIPTION";
+
+    static final int MAX_PENDING_BROADCASTS = 4096;
+    static final int MAX_PENDING_MESSAGES_PER_SESSION = 1024;
+
+    // Keyed by session id
+    private final Map<String, LiveLoggingSubscriber> subscribers = new ConcurrentHashMap<>();
+    private final AtomicReference<LiveLoggingSubscriptionIndex> subscriptionIndexRef = new AtomicReference<>(LiveLoggingSubscriptionIndex.EMPTY);
 
-    private final AtomicReference<List<WebSocketSession>> liveSessionsRef = new AtomicReference<>(new ArrayList<>());
+    private final DropOldestQueue<LiveLoggingDTO> pendingBroadcasts = new DropOldestQueue<>(MAX_PENDING_BROADCASTS);
+    private final Queue<LiveLoggingDTO> pendingControlBroadcasts = new ConcurrentLinkedQueue<>();
+    private final LongAdder droppedMessages = new LongAdder();
 
+    private final Thread publisher = new Thread(this::publishPendingBroadcasts, "smockin-live-logging-publisher");
+
+    private final ExecutorService sender = Executors.newCachedThreadPool(r -> {
+        final Thread thread = new Thread(r, "smockin-live-logging-sender");
+        thread.setDaemon(true);
+        return thread;
+    });
 
     @Autowired
     private MockedRestServerEngine mockedRestServerEngine;
@@ -56,10 +93,23 @@ public class LiveLoggingHandlerImpl extends TextWebSocketHandler implements Live
     private SmockinUserDAO smockinUserDAO;
 
 
+    @PostConstruct
+    public void startPublisher() {
+        publisher.setDaemon(true);
+        publisher.start();
+    }
+
+    @PreDestroy
+    public void stopPublisher() {
+        publisher.interrupt();
+        sender.shutdownNow();
+    }
+
     @Override
     public void afterConnectionEstablished(WebSocketSession session) throws Exception {
 
-        liveSessionsRef.get().add(session);
+        subscribers.put(session.getId(), new LiveLoggingSubscriber(session, MAX_PENDING_MESSAGES_PER_SESSION, droppedMessages));
+        rebuildSubscriptionIndex();
     }
 
     @Override
@@ -70,7 +120,13 @@ public class LiveLoggingHandlerImpl extends TextWebSocketHandler implements Live
 
         logger.debug("Live logging WS connection closed");
 
-        liveSessionsRef.get().remove(session);
+        final LiveLoggingSubscriber subscriber = subscribers.remove(session.getId());
+        rebuildSubscriptionIndex();
+
+        if (subscriber != null
+                && subscriber.getDroppedMessages() > 0) {
+            logger.warn("Live logging WS connection " + session.getId() + " dropped " + subscriber.getDroppedMessages() + " messages, as these were not being received quickly enough");
+        }
 
         stopLiveBlockingMode(session);
 
@@ -99,29 +155,98 @@ public class LiveLoggingHandlerImpl extends TextWebSocketHandler implements Live
             stopLiveBlockingMode(session);
         } else if (StringUtils.equals(LIVE_LOGGING_AMENDMENT, type)) {
             handleLiveLoggingResponseAmendment(message);
+        } else if (StringUtils.equals(LIVE_LOGGING_SUBSCRIPTION, type)) {
+            handleLiveLoggingSubscription(session, message);
         }
 
     }
 
     @Override
-    public synchronized void broadcast(final LiveLoggingDTO dto) {
-
-        final List<WebSocketSession> sessions = liveSessionsRef.get();
+    public void broadcast(final LiveLoggingDTO dto) {
 
-        if (sessions.isEmpty()) {
+        if (subscribers.isEmpty()) {
             return;
         }
 
-        sessions.stream()
-                .forEach(s ->
-                    handleBroadcast(dto, s));
+        if (!isTraffic(dto)) {
+            pendingControlBroadcasts.offer(dto);
+        } else if (pendingBroadcasts.addDroppingOldest(dto) != null) {
+            droppedMessages.increment();
+        }
+
+        LockSupport.unpark(publisher);
+    }
+
+    @Override
+    public boolean hasSubscribers() {
+        return !subscribers.isEmpty();
+    }
+
+    @Override
+    public long getDroppedMessageCount() {
+        return droppedMessages.sum();
+    }
+
+    private void publishPendingBroadcasts() {
+
+        while (!Thread.currentThread().isInterrupted()) {
+
+            final LiveLoggingDTO dto = pollNextBroadcast();
+
+            if (dto == null) {
+                LockSupport.park(this);
+                continue;
+            }
+
+            try {
+                publish(dto);
+            } catch (RuntimeException e) {
+                logger.error("Error publishing live logging message", e);
+            }
+        }
+
+    }
+
+    // Control messages are published ahead of any traffic still waiting
+    LiveLoggingDTO pollNextBroadcast() {
+
+        final LiveLoggingDTO controlDto = pendingControlBroadcasts.poll();
+
+        return (controlDto != null)
+                ? controlDto
+                : pendingBroadcasts.poll();
+    }
+
+    void publish(final LiveLoggingDTO dto) {
+
+        final Collection<LiveLoggingSubscriber> candidates = (isTraffic(dto))
+                ? subscriptionIndexRef.get().find((LiveLoggingTrafficDTO) dto.getPayload())
+                : subscribers.values();
+
+        // Serialised at most once, however many sessions this is sent to
+        TextMessage message = null;
+
+        for (LiveLoggingSubscriber subscriber : candidates) {
+
+            if (!isRecipient(dto, subscriber.getSession())) {
+                continue;
+            }
+
+            if (message == null) {
+                message = serialiseMessage(dto);
+            }
+
+            if (subscriber.enqueue(message, !isTraffic(dto))) {
+                sender.execute(subscriber::drain);
+            }
+        }
 
     }
 
     private void stopLiveBlockingMode(final WebSocketSession session) {
 
         if (!UserModeEnum.ACTIVE.equals(smockinUserService.getUserMode())
-                || liveSessionsRef.get().isEmpty()) {
+                || subscribers.isEmpty()) {
             mockedRestServerEngine.clearAllPathsFromLiveBlocking();
             mockedRestServerEngine.updateLiveBlockingMode(false);
             return;
@@ -150,80 +275,82 @@ public class LiveLoggingHandlerImpl extends TextWebSocketHandler implements Live
 
     }
 
-    private TextMessage serialiseMessage(final LiveLoggingDTO dto) {
-        return new TextMessage(GeneralUtils.serialiseJson(dto));
-    }
-
-    void handleBroadcast(final LiveLoggingDTO dto,
-                         final WebSocketSession session) {
+    private void handleLiveLoggingSubscription(final WebSocketSession session,
+                                               final TextMessage message) {
 
-        try {
+        final LiveLoggingAction liveLoggingAction
+                = GeneralUtils.deserialiseJson(message.getPayload(),
+                    new TypeReference<LiveLoggingAction<LiveLoggingSubscriptionDTO>>() {});
 
-            // Not in multi user mode, so just send to single user
-            if (!UserModeEnum.ACTIVE.equals(smockinUserService.getUserMode())) {
-                session.sendMessage(serialiseMessage(dto));
-                return;
-            }
+        final LiveLoggingSubscriber subscriber = subscribers.get(session.getId());
 
-            final Boolean adminViewAll = (Boolean) session.getAttributes().get(WS_CONNECTED_USER_ADMIN_VIEW_ALL);
+        if (subscriber == null) {
+            return;
+        }
 
-            if (LiveLoggingMessageTypeEnum.TRAFFIC.equals(dto.getType())
-                    || LiveLoggingMessageTypeEnum.BLOCKED_RESPONSE.equals(dto.getType())) {
+        // An empty payload clears any previous subscription
+        subscriber.setFilter(LiveLoggingFilter.compile((LiveLoggingSubscriptionDTO) liveLoggingAction.getPayload()));
 
-                //
-                // Multi user mode logic...
-                final String inboundPath = ((LiveLoggingTrafficDTO)dto.getPayload()).getContent().getUrl();
-                final String userCtxPath = findUserCtxPath(session);
+        rebuildSubscriptionIndex();
+    }
 
-                if (isSysAdmin(session)) {
+    // Serialised, so the last index built always reflects the latest changes
+    private synchronized void rebuildSubscriptionIndex() {
+        subscriptionIndexRef.set(LiveLoggingSubscriptionIndex.build(subscribers.values()));
+    }
 
-                    if (adminViewAll) {
-                        session.sendMessage(serialiseMessage(dto));
-                        return;
-                    }
+    private boolean isTraffic(final LiveLoggingDTO dto) {
+        return LiveLoggingMessageTypeEnum.TRAFFIC.equals(dto.getType());
+    }
 
-                    final String userCtxSegmentFromInboundPath = mockedRestServerEngineUtils.extractMultiUserCtxPathSegment(inboundPath);
+    private TextMessage serialiseMessage(final LiveLoggingDTO dto) {
+        return new TextMessage(GeneralUtils.serialiseJson(dto));
+    }
 
-                    // TODO
-                    // This function will eventually move to using a cache, as at the moment we are making a DB call for EVERY SINGLE
-                    // live logging broadcast where the admin user DOES NOT want to see calls from other users!
-                    if (!mockedRestServerEngineUtils.isInboundPathMultiUserPath(userCtxSegmentFromInboundPath)) {
-                        session.sendMessage(serialiseMessage(dto));
-                    }
+    boolean isRecipient(final LiveLoggingDTO dto,
+                        final WebSocketSession session) {
 
-                    return;
-                }
+        // Not in multi user mode, so just send to single user
+        if (!UserModeEnum.ACTIVE.equals(smockinUserService.getUserMode())) {
+            return true;
+        }
 
-                if (StringUtils.startsWith(inboundPath, userCtxPath)) {
-                    session.sendMessage(serialiseMessage(dto));
-                }
+        final Boolean adminViewAll = (Boolean) session.getAttributes().get(WS_CONNECTED_USER_ADMIN_VIEW_ALL);
 
-                return;
-            }
+        if (LiveLoggingMessageTypeEnum.TRAFFIC.equals(dto.getType())
+                || LiveLoggingMessageTypeEnum.BLOCKED_RESPONSE.equals(dto.getType())) {
 
-            if (LiveLoggingMessageTypeEnum.S3.equals(dto.getType())) {
+            //
+            // Multi user mode logic...
+            final String inboundPath = ((LiveLoggingTrafficDTO)dto.getPayload()).getContent().getUrl();
+            final String userCtxPath = findUserCtxPath(session);
 
-                if (isSysAdmin(session) && adminViewAll) {
+            if (isSysAdmin(session)) {
 
-                    session.sendMessage(serialiseMessage(dto));
-                    return;
+                if (adminViewAll) {
+                    return true;
                 }
 
-                final String connectedUserId = (String) session.getAttributes().get(WS_CONNECTED_USER_ID);
+                final String userCtxSegmentFromInboundPath = mockedRestServerEngineUtils.extractMultiUserCtxPathSegment(inboundPath);
 
-                if (!StringUtils.equals(((LiveLoggingS3DTO)dto.getPayload()).getBucketOwnerId(), connectedUserId)) {
-                    return;
-                }
+                return !mockedRestServerEngineUtils.isInboundPathMultiUserPath(userCtxSegmentFromInboundPath);
+            }
+
+            return StringUtils.startsWith(inboundPath, userCtxPath);
+        }
 
-                session.sendMessage(serialiseMessage(dto));
+        if (LiveLoggingMessageTypeEnum.S3.equals(dto.getType())) {
 
-                return;
+            if (isSysAdmin(session) && adminViewAll) {
+                return true;
             }
 
-        } catch (IOException e) {
-            logger.error("Error pushing message to connected web socket: " + session.getId(), e);
+            final String connectedUserId = (String) session.getAttributes().get(WS_CONNECTED_USER_ID);
+
+            return StringUtils.equals(((LiveLoggingS3DTO)dto.getPayload()).getBucketOwnerId(), connectedUserId);
         }
 
+        return false;
     }
 
     private boolean isSysAdmin(final WebSocketSession session) {
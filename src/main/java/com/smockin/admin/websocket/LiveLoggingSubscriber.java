@@ -0,0 +1,112 @@
+package com.smockin.admin.websocket;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.io.IOException;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A connected live logging session, along with the messages still waiting to be sent to it.
+ *
+ * Messages are sent by one drain at a time (as a WebSocketSession does not support concurrent sends), so a slow
+ * browser only ever holds up its own queue, which drops its oldest messages once full. Control messages (i.e. blocked
+ * responses and S3 messages) are never dropped, and are sent ahead of any traffic still waiting.
+ */
+final class LiveLoggingSubscriber {
+
+    private final Logger logger = LoggerFactory.getLogger(LiveLoggingSubscriber.class);
+
+    private final WebSocketSession session;
+    private final DropOldestQueue<TextMessage> pendingMessages;
+    private final Queue<TextMessage> pendingControlMessages = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private final AtomicLong droppedMessages = new AtomicLong();
+    private final LongAdder allDroppedMessages;
+    private volatile LiveLoggingFilter filter = LiveLoggingFilter.ALL;
+
+    LiveLoggingSubscriber(final WebSocketSession session,
+                          final int maxPendingMessages,
+                          final LongAdder allDroppedMessages) {
+        this.session = session;
+        this.pendingMessages = new DropOldestQueue<>(maxPendingMessages);
+        this.allDroppedMessages = allDroppedMessages;
+    }
+
+    WebSocketSession getSession() {
+        return session;
+    }
+
+    LiveLoggingFilter getFilter() {
+        return filter;
+    }
+
+    void setFilter(final LiveLoggingFilter filter) {
+        this.filter = filter;
+    }
+
+    long getDroppedMessages() {
+        return droppedMessages.get();
+    }
+
+    /**
+     * @return true if the caller should now run drain(), as no other drain is under way.
+     */
+    boolean enqueue(final TextMessage message,
+                    final boolean isControlMessage) {
+
+        if (isControlMessage) {
+            pendingControlMessages.offer(message);
+        } else if (pendingMessages.addDroppingOldest(message) != null) {
+            droppedMessages.incrementAndGet();
+            allDroppedMessages.increment();
+        }
+
+        return draining.compareAndSet(false, true);
+    }
+
+    void drain() {
+
+        do {
+
+            TextMessage message;
+
+            while ((message = pollNextMessage()) != null) {
+
+                if (!session.isOpen()) {
+                    pendingControlMessages.clear();
+                    pendingMessages.clear();
+                    break;
+                }
+
+                try {
+                    session.sendMessage(message);
+                } catch (IOException e) {
+                    logger.error("Error pushing message to connected web socket: " + session.getId(), e);
+                }
+            }
+
+            draining.set(false);
+
+            // Picks up anything enqueued after the last poll, but before the flag was cleared
+        } while (!(pendingControlMessages.isEmpty() && pendingMessages.isEmpty())
+                && draining.compareAndSet(false, true));
+
+    }
+
+    private TextMessage pollNextMessage() {
+
+        final TextMessage controlMessage = pendingControlMessages.poll();
+
+        return (controlMessage != null)
+                ? controlMessage
+                : pendingMessages.poll();
+    }
+
+}
@@ -0,0 +1,107 @@
+package com.smockin.admin.websocket;
+
+import com.smockin.admin.dto.response.LiveLoggingTrafficDTO;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable index of each connected session's subscription, rebuilt whenever a session connects, disconnects or
+ * changes its subscription.
+ *
+ * Sessions are held in a character trie by their path prefix, so finding those interested in a call only walks its
+ * path once, with the rest of each candidate's filter then checked.
+ */
+final class LiveLoggingSubscriptionIndex {
+
+    static final LiveLoggingSubscriptionIndex EMPTY = new LiveLoggingSubscriptionIndex(new Node());
+
+    private final Node root;
+
+    private LiveLoggingSubscriptionIndex(final Node root) {
+        this.root = root;
+    }
+
+    static LiveLoggingSubscriptionIndex build(final Collection<LiveLoggingSubscriber> subscribers) {
+
+        final Node root = new Node();
+
+        for (LiveLoggingSubscriber subscriber : subscribers) {
+
+            final LiveLoggingFilter filter = subscriber.getFilter();
+            final String pathPrefix = filter.getPathPrefix();
+
+            Node node = root;
+
+            for (int i = 0; i < pathPrefix.length(); i++) {
+                node = node.children.computeIfAbsent(pathPrefix.charAt(i), c -> new Node());
+            }
+
+            node.entries.add(new Entry(subscriber, filter));
+        }
+
+        return new LiveLoggingSubscriptionIndex(root);
+    }
+
+    List<LiveLoggingSubscriber> find(final LiveLoggingTrafficDTO traffic) {
+
+        final String url = traffic.getContent().getUrl();
+        final List<LiveLoggingSubscriber> matches = new ArrayList<>();
+
+        Node node = root;
+        addMatches(node, traffic, matches);
+
+        if (url == null) {
+            return matches;
+        }
+
+        for (int i = 0; i < url.length(); i++) {
+
+            node = node.children.get(url.charAt(i));
+
+            if (node == null) {
+                break;
+            }
+
+            addMatches(node, traffic, matches);
+        }
+
+        return matches;
+    }
+
+    private void addMatches(final Node node,
+                            final LiveLoggingTrafficDTO traffic,
+                            final List<LiveLoggingSubscriber> matches) {
+
+        for (Entry entry : node.entries) {
+            if (entry.filter.matches(traffic)) {
+                matches.add(entry.subscriber);
+            }
+        }
+    }
+
+    private static final class Entry {
+
+        private final LiveLoggingSubscriber subscriber;
+        private final LiveLoggingFilter filter;
+
+        private Entry(final LiveLoggingSubscriber subscriber, final LiveLoggingFilter filter) {
+            this.subscriber = subscriber;
+            this.filter = filter;
+        }
+
+    }
+
+    // Only ever modified whilst building, prior to the index being published
+    private static final class Node {
+
+        private final Map<Character, Node> children = new HashMap<>();
+        private final List<Entry> entries = new ArrayList<>();
+
+    }
+
+}
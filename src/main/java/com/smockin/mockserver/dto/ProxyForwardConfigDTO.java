@@ -17,6 +17,7 @@ public class ProxyForwardConfigDTO {
 
     private ProxyModeTypeEnum proxyModeType;
     private boolean doNotForwardWhen404Mock;
+    private boolean hedgeRequests;
     private List<ProxyForwardMappingDTO> proxyForwardMappings;
 
 
@@ -18,9 +18,10 @@ public class ProxyForwardConfigResponseDTO extends ProxyForwardConfigDTO {
     public ProxyForwardConfigResponseDTO(final boolean proxyMode,
                                          final ProxyModeTypeEnum proxyModeType,
                                          final boolean doNotForwardWhen404Mock,
+                                         final boolean hedgeRequests,
                                          final List<ProxyForwardMappingDTO> proxyForwardMappings) {
 
-        super(proxyModeType, doNotForwardWhen404Mock, proxyForwardMappings);
+        super(proxyModeType, doNotForwardWhen404Mock, hedgeRequests, proxyForwardMappings);
         this.proxyMode = proxyMode;
     }
 
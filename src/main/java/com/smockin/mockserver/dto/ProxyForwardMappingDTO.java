@@ -16,4 +16,22 @@ public class ProxyForwardMappingDTO {
     private String proxyForwardUrl;
     private boolean disabled;
 
+    // Downstream connection settings, where 0 uses the HTTP client's default
+    private int maxConnections;
+    private int connectTimeOutMillis;
+    private int readTimeOutMillis;
+
+    // Caching of downstream responses to GET requests, where 0 disables this
+    private int cacheTtlMillis;
+    private int cacheMaxEntries;
+
+    // Comma separated names of any request headers which the cached response varies by (e.g. Accept, Authorization)
+    private String cacheKeyHeaders;
+
+    public ProxyForwardMappingDTO(final String path, final String proxyForwardUrl, final boolean disabled) {
+        this.path = path;
+        this.proxyForwardUrl = proxyForwardUrl;
+        this.disabled = disabled;
+    }
+
 }
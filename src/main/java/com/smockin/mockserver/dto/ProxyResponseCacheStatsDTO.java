@@ -0,0 +1,29 @@
+package com.smockin.mockserver.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ProxyResponseCacheStatsDTO {
+
+    private String path;
+    private int entries;
+    private long hits;
+    private long misses;
+
+    // Misses which were served by joining an identical downstream call already under way
+    private long coalesced;
+
+    public double getHitRate() {
+
+        final long lookups = hits + misses;
+
+        return (lookups > 0)
+                ? ((double) hits / lookups)
+                : 0;
+    }
+
+}
@@ -0,0 +1,30 @@
+package com.smockin.mockserver.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+/**
+ * A single request / response exchange, as held in the traffic journal.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class TrafficJournalEntryDTO {
+
+    private String traceId;
+    private long timestamp;
+    private long durationMillis;
+    private String method;
+    private String path;
+    private int status;
+    private boolean proxied;
+    private String mockType;
+    private Map<String, String> requestHeaders;
+    private String requestBody;
+    private Map<String, String> responseHeaders;
+    private String responseBody;
+
+}
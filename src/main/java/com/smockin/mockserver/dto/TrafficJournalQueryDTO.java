@@ -0,0 +1,23 @@
+package com.smockin.mockserver.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Any criteria left null matches all traffic. Times are in epoch millis.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class TrafficJournalQueryDTO {
+
+    private Long from;
+    private Long to;
+    private String pathPrefix;
+    private Integer minStatus;
+    private Integer maxStatus;
+    private String traceId;
+    private int limit;
+
+}
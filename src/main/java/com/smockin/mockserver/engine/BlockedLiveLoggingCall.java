@@ -0,0 +1,40 @@
+package com.smockin.mockserver.engine;
+
+import com.smockin.mockserver.dto.LiveloggingUserOverrideResponse;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A request whose response is being held back by live logging, until it is released by the user (with or without
+ * an amended response), blocking is lifted or it times out.
+ */
+final class BlockedLiveLoggingCall {
+
+    private final String method;
+    private final String path;
+    private final CompletableFuture<Optional<LiveloggingUserOverrideResponse>> release = new CompletableFuture<>();
+
+    BlockedLiveLoggingCall(final String method, final String path) {
+        this.method = method;
+        this.path = path;
+    }
+
+    String getMethod() {
+        return method;
+    }
+
+    String getPath() {
+        return path;
+    }
+
+    CompletableFuture<Optional<LiveloggingUserOverrideResponse>> getRelease() {
+        return release;
+    }
+
+    // Only the first release counts
+    void release(final Optional<LiveloggingUserOverrideResponse> responseAmendmentOpt) {
+        release.complete(responseAmendmentOpt);
+    }
+
+}
@@ -0,0 +1,48 @@
+package com.smockin.mockserver.engine;
+
+import java.util.Map;
+
+/**
+ * A downstream response, held in full by the ProxyResponseCache.
+ */
+final class CachedProxyResponse {
+
+    private final int status;
+    private final String contentType;
+    private final Map<String, String> headers;
+    private final byte[] body;
+    private final long expiresAtMillis;
+
+    CachedProxyResponse(final int status,
+                        final String contentType,
+                        final Map<String, String> headers,
+                        final byte[] body,
+                        final long expiresAtMillis) {
+        this.status = status;
+        this.contentType = contentType;
+        this.headers = headers;
+        this.body = body;
+        this.expiresAtMillis = expiresAtMillis;
+    }
+
+    int getStatus() {
+        return status;
+    }
+
+    String getContentType() {
+        return contentType;
+    }
+
+    Map<String, String> getHeaders() {
+        return headers;
+    }
+
+    byte[] getBody() {
+        return body;
+    }
+
+    boolean isExpired(final long nowMillis) {
+        return nowMillis >= expiresAtMillis;
+    }
+
+}
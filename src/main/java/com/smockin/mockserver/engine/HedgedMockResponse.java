@@ -0,0 +1,62 @@
+package com.smockin.mockserver.engine;
+
+import spark.Request;
+import spark.Response;
+
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * The outcome of a mock lookup made whilst a (hedged) downstream call was still under way. This is only
+ * replayed to the caller should the downstream call then lose out to it.
+ */
+final class HedgedMockResponse {
+
+    private final Optional<String> body;
+    private final int status;
+    private final Map<String, String> headers;
+
+    // When the response is due, allowing for any simulated latency which has elapsed in the meantime
+    private final long respondAtMillis;
+
+    HedgedMockResponse(final Optional<String> body,
+                       final int status,
+                       final Map<String, String> headers,
+                       final long respondAtMillis) {
+        this.body = body;
+        this.status = status;
+        this.headers = headers;
+        this.respondAtMillis = respondAtMillis;
+    }
+
+    Optional<String> replay(final Request request, final Response response) {
+
+        if (!body.isPresent()) {
+            return body;
+        }
+
+        response.status(status);
+        headers.forEach(response::header);
+
+        ResponseDelayHandler.delay(request.raw(), respondAtMillis - System.currentTimeMillis());
+
+        return body;
+    }
+
+    Optional<String> getBody() {
+        return body;
+    }
+
+    int getStatus() {
+        return status;
+    }
+
+    Map<String, String> getHeaders() {
+        return headers;
+    }
+
+    long getRespondAtMillis() {
+        return respondAtMillis;
+    }
+
+}
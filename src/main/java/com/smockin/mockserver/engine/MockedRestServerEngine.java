@@ -3,6 +3,7 @@ package com.smockin.mockserver.engine;
 import com.smockin.admin.enums.UserModeEnum;
 import com.smockin.admin.exception.ValidationException;
 import com.smockin.admin.persistence.enums.RestMethodEnum;
+import com.smockin.admin.persistence.enums.RestMockTypeEnum;
 import com.smockin.admin.service.SmockinUserService;
 import com.smockin.admin.websocket.LiveLoggingHandler;
 import com.smockin.mockserver.dto.*;
@@ -12,6 +13,7 @@ import com.smockin.mockserver.service.ws.SparkWebSocketEchoService;
 import com.smockin.utils.GeneralUtils;
 import com.smockin.utils.LiveLoggingUtils;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.math.NumberUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -22,13 +24,19 @@ import org.springframework.transaction.annotation.Transactional;
 import spark.Request;
 import spark.Response;
 import spark.Spark;
+import spark.embeddedserver.EmbeddedServers;
 
+import javax.servlet.DispatcherType;
 import javax.servlet.http.HttpServletResponse;
 import java.util.*;
-import java.util.concurrent.Executors;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.UnaryOperator;
 import java.util.stream.Collectors;
 
 /**
@@ -70,20 +78,32 @@ public class MockedRestServerEngine {
     @Autowired
     private ProxyMappingCache proxyMappingCache;
 
+    @Autowired
+    private ProxyResponseCache proxyResponseCache;
+
+    @Autowired
+    private RestfulMockRouteCache restfulMockRouteCache;
+
+    @Autowired
+    private TrafficJournalService trafficJournalService;
+
 
     private static final String SPARK_WILDCARD_PATH = "/*";
+    static final int DEFAULT_LIVE_LOGGING_SAMPLE_PERCENT = 100;
+    static final int DEFAULT_LIVE_LOGGING_MAX_BODY_SIZE = 1024 * 1024;
+    static final long LIVE_BLOCKING_TIMEOUT_MILLIS = 5 * 60 * 1000;
+    private static final String JOURNAL_START_MILLIS_ATTR = "smockin.journalStartMillis";
 
     // Server state
     private final Object serverStateMonitor = new Object();
     private MockServerState serverState = new MockServerState(false, 0);
 
     // Live logging response blocker
-    // TODO find a smarter way to do this (i.e BlockingQueue...)
-    private final Object responseBlockingMonitor = new Object();
-    private Map<String, Optional<LiveloggingUserOverrideResponse>> responseAmendments = new HashMap<>();
-    private List<BlockedPathToRelease> userCallsToRelease = new ArrayList<>();
+    private final Object liveBlockPathsMonitor = new Object();
+    private final Map<String, BlockedLiveLoggingCall> blockedLiveLoggingCalls = new ConcurrentHashMap<>(); // keyed by trace id
     private AtomicBoolean liveBlockingModeEnabled = new AtomicBoolean();
     private AtomicReference<List<LiveBlockPath>> liveBlockPathsRef = new AtomicReference<>(new ArrayList<>());
+    private AtomicReference<Map<RestMethodEnum, PathMatchTrie<LiveBlockPath>>> liveBlockPathMatchersRef = new AtomicReference<>(Collections.emptyMap());
     private AtomicBoolean proxyModeEnabled = new AtomicBoolean();
 
 
@@ -105,11 +125,14 @@ public class MockedRestServerEngine {
         handleCORS(config);
 
         proxyMappingCache.init(allProxyForwardConfig);
+        proxyResponseCache.clear();
+
+        restfulMockRouteCache.rebuild();
 
         // Next handle all HTTP RESTFul web service routes
         buildGlobalHttpEndpointsHandler(isMultiUserMode);
 
-        applyTrafficLogging(config.isProxyMode());
+        applyTrafficLogging(config);
 
         initServer(config.getPort());
     }
@@ -176,6 +199,9 @@ public class MockedRestServerEngine {
         if (logger.isDebugEnabled())
             logger.debug(config.toString());
 
+        // Serves simulated latency without holding a Jetty worker thread
+        EmbeddedServers.add(EmbeddedServers.defaultIdentifier(), ResponseDelayHandler.embeddedServerFactory());
+
         Spark.port(config.getPort());
         Spark.threadPool(config.getMaxThreads(), config.getMinThreads(), config.getTimeOutMillis());
     }
@@ -185,7 +211,18 @@ public class MockedRestServerEngine {
         Spark.webSocket(SPARK_WILDCARD_PATH, new SparkWebSocketEchoService(webSocketService, isMultiUserMode));
     }
 
-    private void applyTrafficLogging(final boolean isUsingProxyMode) {
+    /**
+     * Traffic is only captured (i.e. given a trace id and logged) whilst someone is connected to the live logging feed,
+     * or the traffic journal is enabled, so otherwise costs nothing. The server's native properties can further limit
+     * live logging to a percentage of requests and cap the size of the bodies captured.
+     */
+    private void applyTrafficLogging(final MockedServerConfigDTO config) {
+
+        final boolean isUsingProxyMode = config.isProxyMode();
+        final int samplePercent = NumberUtils.toInt(config.getNativeProperties().get(GeneralUtils.LIVE_LOGGING_SAMPLE_PERCENT_PARAM),
+                DEFAULT_LIVE_LOGGING_SAMPLE_PERCENT);
+        final int maxBodySize = NumberUtils.toInt(config.getNativeProperties().get(GeneralUtils.LIVE_LOGGING_MAX_BODY_SIZE_PARAM),
+                DEFAULT_LIVE_LOGGING_MAX_BODY_SIZE);
 
         // Live logging filter
         Spark.before((request, response) -> {
@@ -194,12 +231,38 @@ public class MockedRestServerEngine {
                 return;
             }
 
+            // i.e a parked request being processed again, which has already been logged (if captured)
+            if (DispatcherType.ASYNC.equals(request.raw().getDispatcherType())) {
+                if (request.attribute(GeneralUtils.LOG_REQ_ID) != null) {
+                    response.raw()
+                            .addHeader(GeneralUtils.LOG_REQ_ID, request.attribute(GeneralUtils.LOG_REQ_ID));
+                }
+                return;
+            }
+
+            final boolean isLiveLogged = isTrafficCaptured(samplePercent);
+            final boolean isJournaled = trafficJournalService.isEnabled();
+
+            if (!isLiveLogged && !isJournaled) {
+                return;
+            }
+
             final String traceId = GeneralUtils.generateUUID();
 
             request.attribute(GeneralUtils.LOG_REQ_ID, traceId);
             response.raw()
                     .addHeader(GeneralUtils.LOG_REQ_ID, traceId);
 
+            if (isJournaled) {
+                request.attribute(JOURNAL_START_MILLIS_ATTR, System.currentTimeMillis());
+            }
+
+            if (!isLiveLogged) {
+                return;
+            }
+
+            request.attribute(MockedRestServerEngineUtils.LIVE_LOGGED_ATTR, Boolean.TRUE);
+
             final Map<String, String> reqHeaders = request
                     .headers()
                     .stream()
@@ -213,7 +276,7 @@ public class MockedRestServerEngine {
                         request.requestMethod(),
                         request.pathInfo(),
                         reqHeaders,
-                        request.body(),
+                        LiveLoggingUtils.truncateBody(request.body(), maxBodySize),
                         isUsingProxyMode,
                         GeneralUtils.extractAllRequestParams(request)));
         });
@@ -221,7 +284,9 @@ public class MockedRestServerEngine {
         Spark.afterAfter((request, response) -> {
 
             if (request.raw().getHeader(webSocketService.WS_SEC_WEBSOCKET_KEY) != null
-                    || serverSideEventService.SSE_EVENT_STREAM_HEADER.equals(response.raw().getHeader(HttpHeaders.CONTENT_TYPE))) {
+                    || serverSideEventService.SSE_EVENT_STREAM_HEADER.equals(response.raw().getHeader(HttpHeaders.CONTENT_TYPE))
+                    || ResponseDelayHandler.isParked(request.raw())
+                    || request.attribute(GeneralUtils.LOG_REQ_ID) == null) {
                 return;
             }
 
@@ -229,18 +294,63 @@ public class MockedRestServerEngine {
 
             respHeaders.put(GeneralUtils.LOG_REQ_ID, request.attribute(GeneralUtils.LOG_REQ_ID));
 
-            liveLoggingHandler.broadcast(
-                    LiveLoggingUtils.buildLiveLogOutboundDTO(
-                        request.attribute(GeneralUtils.LOG_REQ_ID),
-                        request.pathInfo(),
-                        response.raw().getStatus(),
-                        respHeaders,
-                        response.body(),
-                        isUsingProxyMode));
+            // Calls forwarded on by a proxy mapping were not handled by any mock
+            final RestMockTypeEnum mockType = (!respHeaders.containsKey(GeneralUtils.PROXIED_DOWNSTREAM_URL_HEADER))
+                    ? (RestMockTypeEnum) request.raw().getAttribute(MockedRestServerEngineUtils.MOCK_TYPE_ATTR)
+                    : null;
+
+            if (request.attribute(MockedRestServerEngineUtils.LIVE_LOGGED_ATTR) != null) {
+                liveLoggingHandler.broadcast(
+                        LiveLoggingUtils.buildLiveLogOutboundDTO(
+                            request.attribute(GeneralUtils.LOG_REQ_ID),
+                            request.requestMethod(),
+                            request.pathInfo(),
+                            response.raw().getStatus(),
+                            respHeaders,
+                            LiveLoggingUtils.truncateBody(response.body(), maxBodySize),
+                            isUsingProxyMode,
+                            mockType));
+            }
+
+            final Long journalStartMillis = request.attribute(JOURNAL_START_MILLIS_ATTR);
+
+            if (journalStartMillis != null) {
+                trafficJournalService.record(
+                        new TrafficJournalEntryDTO(
+                            request.attribute(GeneralUtils.LOG_REQ_ID),
+                            journalStartMillis,
+                            System.currentTimeMillis() - journalStartMillis,
+                            request.requestMethod(),
+                            request.pathInfo(),
+                            response.raw().getStatus(),
+                            respHeaders.containsKey(GeneralUtils.PROXIED_DOWNSTREAM_URL_HEADER),
+                            (mockType != null) ? mockType.name() : null,
+                            request.headers()
+                                    .stream()
+                                    .collect(Collectors.toMap(h -> h, h -> request.headers(h))),
+                            mockedRestServerEngineUtils.captureRequestBody(request, trafficJournalService.getMaxBodySize()),
+                            respHeaders,
+                            response.body()));
+            }
         });
 
     }
 
+    boolean isTrafficCaptured(final int samplePercent) {
+
+        if (!liveLoggingHandler.hasSubscribers()) {
+            return false;
+        }
+
+        // Blocked calls are released by their trace id, so all calls need capturing whilst blocking is enabled
+        if (liveBlockingModeEnabled.get()) {
+            return true;
+        }
+
+        return samplePercent >= 100
+                || ThreadLocalRandom.current().nextInt(100) < samplePercent;
+    }
+
     void buildGlobalHttpEndpointsHandler(final boolean isMultiUserMode) {
         logger.debug("buildGlobalHttpEndpointsHandler called");
 
@@ -248,7 +358,7 @@ public class MockedRestServerEngine {
         Spark.head(GeneralUtils.PATH_WILDCARD, (request, response) -> {
 
             processResponse(request, response, isMultiUserMode, proxyModeEnabled.get());
-            checkForAndHandleBlockSwapAndMock(request, response, isMultiUserMode, proxyModeEnabled.get());
+            checkForAndHandleBlockSwapAndMock(request, response, proxyModeEnabled.get());
 
             return "";
         });
@@ -264,7 +374,7 @@ public class MockedRestServerEngine {
             final String responseBody = processResponse(request, response, isMultiUserMode, proxyModeEnabled.get());
 
             final Optional<String> amendmentOpt =
-                    checkForAndHandleBlockSwapAndMock(request, response, isMultiUserMode, proxyModeEnabled.get());
+                    checkForAndHandleBlockSwapAndMock(request, response, proxyModeEnabled.get());
 
             return (amendmentOpt.isPresent())
                     ? amendmentOpt.get()
@@ -277,7 +387,7 @@ public class MockedRestServerEngine {
             final String responseBody = processResponse(request, response, isMultiUserMode, proxyModeEnabled.get());
 
             final Optional<String> amendmentOpt =
-                    checkForAndHandleBlockSwapAndMock(request, response, isMultiUserMode, proxyModeEnabled.get());
+                    checkForAndHandleBlockSwapAndMock(request, response, proxyModeEnabled.get());
 
             return (amendmentOpt.isPresent())
                     ? amendmentOpt.get()
@@ -290,7 +400,7 @@ public class MockedRestServerEngine {
             final String responseBody = processResponse(request, response, isMultiUserMode, proxyModeEnabled.get());
 
             final Optional<String> amendmentOpt =
-                    checkForAndHandleBlockSwapAndMock(request, response, isMultiUserMode, proxyModeEnabled.get());
+                    checkForAndHandleBlockSwapAndMock(request, response, proxyModeEnabled.get());
 
             return (amendmentOpt.isPresent())
                     ? amendmentOpt.get()
@@ -303,7 +413,7 @@ public class MockedRestServerEngine {
             final String responseBody = processResponse(request, response, isMultiUserMode, proxyModeEnabled.get());
 
             final Optional<String> amendmentOpt =
-                    checkForAndHandleBlockSwapAndMock(request, response, isMultiUserMode, proxyModeEnabled.get());
+                    checkForAndHandleBlockSwapAndMock(request, response, proxyModeEnabled.get());
 
             return (amendmentOpt.isPresent())
                     ? amendmentOpt.get()
@@ -316,7 +426,7 @@ public class MockedRestServerEngine {
             final String responseBody = processResponse(request, response, isMultiUserMode, proxyModeEnabled.get());
 
             final Optional<String> amendmentOpt =
-                    checkForAndHandleBlockSwapAndMock(request, response, isMultiUserMode, proxyModeEnabled.get());
+                    checkForAndHandleBlockSwapAndMock(request, response, proxyModeEnabled.get());
 
             return (amendmentOpt.isPresent())
                     ? amendmentOpt.get()
@@ -337,83 +447,58 @@ public class MockedRestServerEngine {
 
     Optional<String> checkForAndHandleBlockSwapAndMock(final Request request,
                                                        final Response response,
-                                                       final boolean isMultiUserMode,
                                                        final boolean isProxyMode)
             throws InterruptedException {
 
-        if (blockLoggingResponse(request, response, isProxyMode)) {
-
-            logger.debug("Endpoint match made. Blocking response...");
-
-            synchronized (responseBlockingMonitor) {
-
-                while (true) {
-
-                    // Wait for response amendment for this request (by traceId)
-                    responseBlockingMonitor.wait();
-
-                    final String traceId = request.attribute(GeneralUtils.LOG_REQ_ID);
-
-                    // Release request if liveBlocking is disabled at any stage
-                    if (!liveBlockingModeEnabled.get()) {
-                        if (logger.isDebugEnabled()) {
-                            logger.debug("Releasing blocked request with traceId: " + traceId + " as blocking mode has been disabled");
-                        }
-                        break;
-                    }
-
-                    if (isMultiUserMode) {
-
-                        if (userCallsToRelease
-                                .stream()
-                                .anyMatch(p -> {
-
-                                    if (p.getMethod().isPresent()) {
-
-                                        return request.requestMethod().equalsIgnoreCase(p.getMethod().get().name())
-                                                && StringUtils.equals(request.pathInfo(), p.getPathPattern());
-                                    }
-
-                                    // Is Admin
-                                    if (GeneralUtils.URL_PATH_SEPARATOR.equals(p.getPathPattern())) {
-                                        // Nasty solution to a problem of how do we identify the call is to an admin's mock...
-                                        // TODO This will improve when we update isInboundPathMultiUserPath to use a cache instead.
-                                        final String userCtxPathSegment = mockedRestServerEngineUtils.extractMultiUserCtxPathSegment(request.pathInfo());
-                                        return !mockedRestServerEngineUtils.isInboundPathMultiUserPath(userCtxPathSegment);
-                                    }
-
-                                    return StringUtils.startsWith(request.pathInfo(), p.getPathPattern());
-                                })
-                        ) {
-                            break;
-                        }
-
-                    }
+        if (ResponseDelayHandler.isParked(request.raw())
+                || !isLiveBlocked(request)) {
+            return Optional.empty();
+        }
 
-                    if (!responseAmendments.containsKey(traceId)) {
-                        // No amendment found so continue waiting...
-                        continue;
-                    }
+        logger.debug("Endpoint match made. Blocking response...");
 
-                    if (logger.isDebugEnabled()) {
-                        logger.debug("Releasing blocked request with traceId: " + traceId + " as response provided");
-                    }
+        final String traceId = request.attribute(GeneralUtils.LOG_REQ_ID);
+        final BlockedLiveLoggingCall blockedCall = new BlockedLiveLoggingCall(request.requestMethod(), request.pathInfo());
 
-                    final Optional<LiveloggingUserOverrideResponse> responseAmendmentOpt
-                            = responseAmendments.get(traceId);
+        // Registered before the live logging console is told, so an amendment cannot arrive ahead of this
+        blockedLiveLoggingCalls.put(traceId, blockedCall);
 
-                    // Could be no amendment is provided (in which case this request will default to the original response)
-                    if (responseAmendmentOpt.isPresent()) {
+        try {
 
-                        final String body = amendResponse(responseAmendmentOpt, response);
+            // Blocking could have been lifted in the meantime, in which case nothing would release this
+            if (!isLiveBlocked(request)) {
+                return Optional.empty();
+            }
 
-                        return Optional.of(body);
-                    }
+            // Send response details to live logging console via WS...
+            liveLoggingHandler.broadcast(
+                    LiveLoggingUtils.buildLiveLogInterceptedResponseDTO(
+                            traceId,
+                            request.pathInfo(),
+                            response.raw().getStatus(),
+                            mockedRestServerEngineUtils.extractResponseHeadersAsMap(response),
+                            response.body(),
+                            isProxyMode));
+
+            // Wait for response amendment for this request
+            final Optional<LiveloggingUserOverrideResponse> responseAmendmentOpt
+                    = blockedCall.getRelease().get(LIVE_BLOCKING_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+
+            if (logger.isDebugEnabled()) {
+                logger.debug("Releasing blocked request with traceId: " + traceId);
+            }
 
-                    break;
-                }
+            // Could be no amendment is provided (in which case this request will default to the original response)
+            if (responseAmendmentOpt.isPresent()) {
+                return Optional.of(amendResponse(responseAmendmentOpt, response));
             }
 
+        } catch (TimeoutException e) {
+            logger.warn("Releasing blocked request with traceId: " + traceId + " as no response was provided in time");
+        } catch (ExecutionException e) {
+            logger.error("Error waiting on blocked request with traceId: " + traceId, e);
+        } finally {
+            blockedLiveLoggingCalls.remove(traceId, blockedCall);
         }
 
         return Optional.empty();
@@ -473,9 +558,7 @@ public class MockedRestServerEngine {
                 && "websocket".equalsIgnoreCase(request.headers(HttpHeaders.UPGRADE));
     }
 
-    boolean blockLoggingResponse(final Request request,
-                          final Response response,
-                          final boolean proxyMode) {
+    boolean isLiveBlocked(final Request request) {
 
         if (logger.isDebugEnabled()) {
             logger.debug("liveBlockEnabled: " + liveBlockingModeEnabled.get());
@@ -483,31 +566,23 @@ public class MockedRestServerEngine {
             logger.debug("inbound path: " + request.pathInfo());
         }
 
-        if (this.liveBlockingModeEnabled.get()) {
-
-            // Check if this call matches any endpoints that should be blocked...
-            if (liveBlockPathsRef.get()
-                    .stream()
-                    .anyMatch(p ->
-                            p.getMethod().name().equalsIgnoreCase(request.requestMethod())
-                                    && GeneralUtils.matchPaths(p.getPath(), request.pathInfo()))) {
+        // (calls which were not captured by live logging have no trace id to be released by)
+        return request.attribute(MockedRestServerEngineUtils.LIVE_LOGGED_ATTR) != null
+                && isLiveBlocked(request.requestMethod(), request.pathInfo());
+    }
 
-                // If so then send response details to live logging console via WS...
-                liveLoggingHandler.broadcast(
-                        LiveLoggingUtils.buildLiveLogInterceptedResponseDTO(
-                                request.attribute(GeneralUtils.LOG_REQ_ID),
-                                request.pathInfo(),
-                                response.raw().getStatus(),
-                                mockedRestServerEngineUtils.extractResponseHeadersAsMap(response),
-                                response.body(),
-                                proxyMode));
-
-                return true;
-            }
+    private boolean isLiveBlocked(final String method, final String path) {
 
+        if (!liveBlockingModeEnabled.get()) {
+            return false;
         }
 
-        return false;
+        final PathMatchTrie<LiveBlockPath> liveBlockPathMatcher =
+                liveBlockPathMatchersRef.get().get(RestMethodEnum.findByName(method));
+
+        // Check if this call matches any endpoints that should be blocked...
+        return liveBlockPathMatcher != null
+                && liveBlockPathMatcher.match(path).isPresent();
     }
 
     void clearState() {
@@ -561,12 +636,14 @@ public class MockedRestServerEngine {
         if (logger.isDebugEnabled())
             logger.debug("Adding amended response for blocked request with traceId " + traceId);
 
-        synchronized (responseBlockingMonitor) {
+        final BlockedLiveLoggingCall blockedCall = blockedLiveLoggingCalls.get(traceId);
 
-            responseAmendments.put(traceId, responseAmendmentOpt);
-            responseBlockingMonitor.notifyAll(); // wake up all waiting threads, so they can check if their is a response amendment.
+        if (blockedCall == null) {
+            logger.debug("Blocked request has already been released");
+            return;
         }
 
+        blockedCall.release(responseAmendmentOpt);
     }
 
     public void updateLiveBlockingMode(final boolean liveBlockEnabled) {
@@ -580,53 +657,43 @@ public class MockedRestServerEngine {
 
             logger.debug("releasing all outstanding blocked requests...");
 
-            synchronized (responseBlockingMonitor) {
-                responseBlockingMonitor.notifyAll(); // wake up all waiting threads, so they can check if their is a response amendment.
-            }
-
+            blockedLiveLoggingCalls.values()
+                    .forEach(c ->
+                            c.release(Optional.empty()));
         }
 
     }
 
+    /**
+     * Releases the blocked calls to the given endpoint, which is no longer being blocked, or where no method is given,
+     * all calls to the given user ctx path (i.e. as the user has disconnected).
+     */
     public void notifyBlockedLiveLoggingCalls(final Optional<RestMethodEnum> method, final String userCtxOrFullPath) {
 
-
         if (logger.isDebugEnabled()) {
             logger.debug("releasing all outstanding blocked requests for user ctx path: " + method + userCtxOrFullPath);
         }
 
-        final BlockedPathToRelease blockedPathToRelease = new BlockedPathToRelease(method, userCtxOrFullPath);
-
-        // Release any callers currently blocked on this endpoint.
-        synchronized (responseBlockingMonitor) {
-
-            if (logger.isDebugEnabled())
-                logger.debug("Adding: " + blockedPathToRelease + " to userCallsToRelease");
-
-            userCallsToRelease.add(blockedPathToRelease);
-
-            if (logger.isDebugEnabled())
-                logger.debug("userCallsToRelease size : " + userCallsToRelease.size());
-
-            responseBlockingMonitor.notifyAll(); // wake up all waiting threads, so they can check if their is a response amendment.
-
-        }
-
-        // Assume all blocked callers are released after 8 secs and remove entry...
-        Executors.newScheduledThreadPool(1)
-            .schedule(() -> {
-                synchronized (responseBlockingMonitor) {
-
-                    if (logger.isDebugEnabled())
-                        logger.debug("Removing: " + blockedPathToRelease + " from userCallsToRelease");
+        blockedLiveLoggingCalls.values()
+                .stream()
+                .filter(c -> {
 
-                    userCallsToRelease.remove(blockedPathToRelease);
+                    if (method.isPresent()) {
+                        return c.getMethod().equalsIgnoreCase(method.get().name())
+                                && !isLiveBlocked(c.getMethod(), c.getPath());
+                    }
 
-                    if (logger.isDebugEnabled())
-                        logger.debug("userCallsToRelease size : " + userCallsToRelease.size());
+                    // Is Admin
+                    if (GeneralUtils.URL_PATH_SEPARATOR.equals(userCtxOrFullPath)) {
+                        // Identify the call is to an admin's mock (i.e does not start with a user's ctx path)
+                        final String userCtxPathSegment = mockedRestServerEngineUtils.extractMultiUserCtxPathSegment(c.getPath());
+                        return !mockedRestServerEngineUtils.isInboundPathMultiUserPath(userCtxPathSegment);
+                    }
 
-                }
-        }, 8000, TimeUnit.MILLISECONDS);
+                    return StringUtils.startsWith(c.getPath(), userCtxOrFullPath);
+                })
+                .forEach(c ->
+                        c.release(Optional.empty()));
 
     }
 
@@ -642,7 +709,11 @@ public class MockedRestServerEngine {
             throw new ValidationException("This endpoint is already being blocked");
         }
 
-        liveBlockPathsRef.get().add(new LiveBlockPath(method, path, ownerUserId));
+        updateLiveBlockPaths(current -> {
+            final List<LiveBlockPath> liveBlockPaths = new ArrayList<>(current);
+            liveBlockPaths.add(new LiveBlockPath(method, path, ownerUserId));
+            return liveBlockPaths;
+        });
 
         if (logger.isDebugEnabled())
             logger.debug("blocking rule size: " + liveBlockPathsRef.get().size());
@@ -658,9 +729,8 @@ public class MockedRestServerEngine {
 
 //        liveBlockPathsRef.get().remove(new LiveBlockPath(method, path, ownerUserId));
 
-        liveBlockPathsRef.compareAndSet(
-                liveBlockPathsRef.get(),
-                liveBlockPathsRef.get()
+        updateLiveBlockPaths(current ->
+                current
                         .stream()
                         .filter(p ->
                                 !(StringUtils.equalsIgnoreCase(p.getPath(), path)
@@ -690,7 +760,8 @@ public class MockedRestServerEngine {
 
         logger.debug("clearing down all blocking rules...");
 
-        liveBlockPathsRef.get().clear();
+        updateLiveBlockPaths(current ->
+                new ArrayList<>());
     }
 
     public void clearAllPathsFromLiveBlockingForUser(final String ownerUserId) {
@@ -698,9 +769,8 @@ public class MockedRestServerEngine {
         if (logger.isDebugEnabled())
             logger.debug("clearing down all blocking rules for user: " + ownerUserId);
 
-        liveBlockPathsRef.compareAndSet(
-                liveBlockPathsRef.get(),
-                liveBlockPathsRef.get()
+        updateLiveBlockPaths(current ->
+                current
                         .stream()
                         .filter(p ->
                             !StringUtils.equalsIgnoreCase(p.getOwnerUserId(), ownerUserId))
@@ -716,4 +786,28 @@ public class MockedRestServerEngine {
 
     }
 
+    // Replaces the blocked paths and their compiled per method matchers (copy on write)
+    private void updateLiveBlockPaths(final UnaryOperator<List<LiveBlockPath>> update) {
+
+        synchronized (liveBlockPathsMonitor) {
+
+            final List<LiveBlockPath> liveBlockPaths = update.apply(liveBlockPathsRef.get());
+
+            final Map<RestMethodEnum, PathMatchTrie.Builder<LiveBlockPath>> builders = new EnumMap<>(RestMethodEnum.class);
+
+            liveBlockPaths.forEach(p ->
+                    builders.computeIfAbsent(p.getMethod(), k -> PathMatchTrie.builder())
+                            .add(p.getPath(), p));
+
+            final Map<RestMethodEnum, PathMatchTrie<LiveBlockPath>> liveBlockPathMatchers = new EnumMap<>(RestMethodEnum.class);
+
+            builders.forEach((k, v) ->
+                    liveBlockPathMatchers.put(k, v.build()));
+
+            liveBlockPathsRef.set(liveBlockPaths);
+            liveBlockPathMatchersRef.set(liveBlockPathMatchers);
+        }
+
+    }
+
 }
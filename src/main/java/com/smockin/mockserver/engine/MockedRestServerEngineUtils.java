@@ -2,22 +2,26 @@ package com.smockin.mockserver.engine;
 
 import com.smockin.admin.dto.HttpClientCallDTO;
 import com.smockin.admin.dto.response.HttpClientResponseDTO;
-import com.smockin.admin.persistence.dao.RestfulMockDAO;
-import com.smockin.admin.persistence.dao.SmockinUserDAO;
+import com.smockin.admin.dto.response.HttpClientStreamedResponseDTO;
+import com.smockin.admin.exception.ValidationException;
 import com.smockin.admin.persistence.entity.RestfulMock;
-import com.smockin.admin.persistence.entity.RestfulMockDefinitionOrder;
-import com.smockin.admin.persistence.entity.RestfulMockDefinitionRule;
 import com.smockin.admin.persistence.enums.ProxyModeTypeEnum;
 import com.smockin.admin.persistence.enums.RestMethodEnum;
 import com.smockin.admin.persistence.enums.RestMockTypeEnum;
 import com.smockin.admin.persistence.enums.SmockinUserRoleEnum;
 import com.smockin.admin.service.HttpClientService;
+import com.smockin.admin.service.SmockinUserService;
+import com.smockin.admin.websocket.LiveLoggingHandler;
 import com.smockin.mockserver.dto.ProxyForwardConfigCacheDTO;
 import com.smockin.mockserver.dto.ProxyForwardMappingDTO;
 import com.smockin.mockserver.exception.InboundParamMatchException;
 import com.smockin.mockserver.service.*;
+import com.smockin.mockserver.service.bean.RestfulMockDefinitionSnapshot;
+import com.smockin.mockserver.service.bean.RestfulMockSnapshot;
 import com.smockin.mockserver.service.dto.RestfulResponseDTO;
 import com.smockin.utils.GeneralUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.input.BoundedInputStream;
 import org.apache.commons.lang3.RandomUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
@@ -26,25 +30,47 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 import spark.Request;
 import spark.Response;
 
+import javax.servlet.ServletInputStream;
+import javax.servlet.ServletRequestWrapper;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 /**
  * Created by mgallina.
  */
 @Service
-@Transactional(readOnly = true)
 public class MockedRestServerEngineUtils {
 
     private final Logger logger = LoggerFactory.getLogger(MockedRestServerEngineUtils.class);
 
+    static final int PROXY_STREAM_BUFFER_SIZE = 8192;
+    static final String ASYNC_PROXY_DOWNSTREAM_URL_ATTR = "smockin.asyncProxyDownstreamUrl";
+    static final String ASYNC_PROXY_BUFFER_RESPONSE_ATTR = "smockin.asyncProxyBufferResponse";
+    static final String ASYNC_PROXY_CALL_COMPLETED_ATTR = "smockin.asyncProxyCallCompleted";
+    static final String HEDGED_MOCK_RESPONSE_ATTR = "smockin.hedgedMockResponse";
+    static final String PROXY_CACHE_LOOKUP_ATTR = "smockin.proxyCacheLookup";
+    static final String MOCK_TYPE_ATTR = "smockin.mockType";
+    static final String LIVE_LOGGED_ATTR = "smockin.liveLogged";
+    static final String REQUEST_BODY_STREAMED_ATTR = "smockin.requestBodyStreamed";
+    static final int PROXY_CACHE_MAX_BODY_BYTES = 1024 * 1024;
+    static final List<String> PROXY_CACHE_CREDENTIAL_HEADERS =
+            Collections.unmodifiableList(Arrays.asList(HttpHeaders.AUTHORIZATION, HttpHeaders.COOKIE, HttpHeaders.PROXY_AUTHORIZATION));
+
     @Autowired
-    private RestfulMockDAO restfulMockDAO;
+    private RestfulMockRouteCache restfulMockRouteCache;
 
     @Autowired
     private MockOrderingCounterService mockOrderingCounterService;
@@ -71,11 +97,17 @@ public class MockedRestServerEngineUtils {
     private HttpClientService httpClientService;
 
     @Autowired
-    private SmockinUserDAO smockinUserDAO;
+    private SmockinUserService smockinUserService;
 
     @Autowired
     private ProxyMappingCache proxyMappingCache;
 
+    @Autowired
+    private LiveLoggingHandler liveLoggingHandler;
+
+    @Autowired
+    private ProxyResponseCache proxyResponseCache;
+
 
     public Optional<String> loadMockedResponse(final Request request,
                                                final Response response,
@@ -101,45 +133,27 @@ public class MockedRestServerEngineUtils {
 
         try {
 
-            RestMethodEnum method = RestMethodEnum.findByName(request.requestMethod());
+            final Optional<PathMatchTrie.PathMatch<RestfulMockSnapshot>> matchOpt = matchMock(request, isMultiUserMode);
 
-            if (RestMethodEnum.HEAD.equals(method)) {
-                method = RestMethodEnum.GET;
-            }
-
-            final RestfulMock mock = (isMultiUserMode)
-                    ? restfulMockDAO.findActiveByMethodAndPathPatternAndTypesForMultiUser(
-                    method,
-                    request.pathInfo(),
-                    Arrays.asList(RestMockTypeEnum.PROXY_SSE,
-                            RestMockTypeEnum.PROXY_HTTP,
-                            RestMockTypeEnum.SEQ,
-                            RestMockTypeEnum.RULE,
-                            RestMockTypeEnum.STATEFUL,
-                            RestMockTypeEnum.CUSTOM_JS))
-                    : restfulMockDAO.findActiveByMethodAndPathPatternAndTypesForSingleUser(
-                    method,
-                    request.pathInfo(),
-                    Arrays.asList(RestMockTypeEnum.PROXY_SSE,
-                            RestMockTypeEnum.PROXY_HTTP,
-                            RestMockTypeEnum.SEQ,
-                            RestMockTypeEnum.RULE,
-                            RestMockTypeEnum.STATEFUL,
-                            RestMockTypeEnum.CUSTOM_JS));
-
-            if (mock == null) {
+            if (!matchOpt.isPresent()) {
                 logger.debug("no mock was found");
                 return Optional.empty();
             }
 
+            final RestfulMockSnapshot mock = matchOpt.get().getValue();
+
             debugLoadedMock(mock);
 
+            // Made available to live logging
+            request.raw().setAttribute(MOCK_TYPE_ATTR, mock.getMockType());
+
+            // Made available to the mock type handlers, so these need not be worked out again from the paths
+            request.raw().setAttribute(GeneralUtils.PATH_VARS_ATTR, matchOpt.get().getPathVars());
+
             if (RestMockTypeEnum.PROXY_SSE.equals(mock.getMockType())) {
                 return Optional.of(processSSERequest(mock, request, response));
             }
 
-            removeSuspendedResponses(mock);
-
             final String responseBody = processRequest(mock, request, response, ignore404MockResponses);
 
             // Yuk! Bit of a hacky work around returning null from processRequest, so as to distinguish an ignored 404...
@@ -153,6 +167,23 @@ public class MockedRestServerEngineUtils {
 
     }
 
+    Optional<RestfulMockSnapshot> findMock(final Request request, final boolean isMultiUserMode) {
+        return restfulMockRouteCache.find(resolveLookupMethod(request), request.pathInfo(), isMultiUserMode);
+    }
+
+    Optional<PathMatchTrie.PathMatch<RestfulMockSnapshot>> matchMock(final Request request, final boolean isMultiUserMode) {
+        return restfulMockRouteCache.match(resolveLookupMethod(request), request.pathInfo(), isMultiUserMode);
+    }
+
+    private RestMethodEnum resolveLookupMethod(final Request request) {
+
+        final RestMethodEnum method = RestMethodEnum.findByName(request.requestMethod());
+
+        return (RestMethodEnum.HEAD.equals(method))
+                ? RestMethodEnum.GET
+                : method;
+    }
+
     private String amendPathForMultiUser(final Request request, final boolean isMultiUserMode) {
 
         String inboundPath = request.pathInfo();
@@ -178,8 +209,7 @@ public class MockedRestServerEngineUtils {
     }
 
     public boolean isInboundPathMultiUserPath(final String userCtxPathSegment) {
-        // TODO remove this DB query and replace with a cached list of user CTX paths.
-        return smockinUserDAO.doesUserExistWithCtxPath(userCtxPathSegment);
+        return smockinUserService.doesUserExistWithCtxPath(userCtxPathSegment);
     }
 
     Optional<String> handleProxyInterceptorMode(final boolean isMultiUserMode,
@@ -199,38 +229,108 @@ public class MockedRestServerEngineUtils {
 
             final Optional<ProxyForwardConfigCacheDTO> configOpt = proxyMappingCache.find(userCtxPath);
 
-            String proxyDownstreamURL = (configOpt.isPresent())
-                                            ? lookUpProxyMappingDownstreamUrl(amendedInboundPath, configOpt.get().getProxyForwardMappings())
-                                            : null;
+            final boolean isActiveMode = configOpt.isPresent()
+                    && ProxyModeTypeEnum.ACTIVE.equals(configOpt.get().getProxyModeType());
 
-            if (proxyDownstreamURL == null && configOpt.isPresent()) {
-                proxyDownstreamURL = lookUpDefaultProxyMappingDownstreamUrl(configOpt.get().getProxyForwardMappings());
+            // i.e. an asynchronous downstream call made for this request, which has since completed (or timed out)
+            if (request.raw().getAttribute(ASYNC_PROXY_DOWNSTREAM_URL_ATTR) != null) {
+                return handleAsyncClientDownstreamProxyCallResponse(request, response, isMultiUserMode, !isActiveMode);
             }
 
+            // i.e. the mock substitute for an asynchronous downstream call's 404, which was then itself parked
+            if (request.raw().getAttribute(ASYNC_PROXY_CALL_COMPLETED_ATTR) != null) {
+                return handleMockLookup(request, response, isMultiUserMode, false);
+            }
+
+            final ProxyForwardMappingDTO proxyMapping = (configOpt.isPresent())
+                                            ? proxyMappingCache.lookUpProxyMapping(amendedInboundPath, configOpt.get()).orElse(null)
+                                            : null;
+
             // No relevant proxy mappings were found for the inbound path, so skip this section and just look for a mock.
-            if (proxyDownstreamURL == null) {
+            if (proxyMapping == null) {
                 return handleMockLookup(request, response, isMultiUserMode, false);
             }
 
+            // i.e. waiting on an identical downstream call, which has since completed (or timed out)
+            if (request.raw().getAttribute(PROXY_CACHE_LOOKUP_ATTR) != null) {
+                return handleCoalescedClientDownstreamProxyCallResponse(amendedInboundPath, request, response, proxyMapping, isActiveMode);
+            }
+
+            final String proxyDownstreamURL = proxyMapping.getProxyForwardUrl();
+            final boolean isCacheable = isProxyResponseCacheable(request, proxyMapping);
+
             // ACTIVE Mode...
-            if (configOpt.isPresent() && ProxyModeTypeEnum.ACTIVE.equals(configOpt.get().getProxyModeType())) {
+            if (isActiveMode) {
+
+                final boolean ignore404MockResponses = !configOpt.get().isDoNotForwardWhen404Mock();
+
+                if (!isCacheable
+                        && isHedgeable(configOpt.get(), request, isMultiUserMode, true)) {
+                    return handleHedgedActiveMode(amendedInboundPath, request, response, proxyMapping, isMultiUserMode, ignore404MockResponses);
+                }
 
                 // Look for mock...
-                final Optional<String> result = handleMockLookup(request, response, isMultiUserMode, !configOpt.get().isDoNotForwardWhen404Mock());
+                final Optional<String> result = handleMockLookup(request, response, isMultiUserMode, ignore404MockResponses);
 
                 if (result.isPresent()) {
                     return result;
                 }
 
                 // Make downstream client call of no mock was found
+                if (isCacheable) {
+                    return executeCachedClientDownstreamProxyCall(userCtxPath, amendedInboundPath, request, response, proxyMapping);
+                }
+
+                if (ResponseDelayHandler.canPark(request.raw())) {
+                    executeAsyncClientDownstreamProxyCall(amendedInboundPath, request, proxyMapping, false);
+                    return Optional.of("");
+                }
+
+                if (!isTrafficCaptured(request)) {
+                    streamClientDownstreamProxyCall(amendedInboundPath, request, response, proxyMapping, false);
+                    return Optional.of("");
+                }
+
                 return handleClientDownstreamProxyCallResponse(
-                        executeClientDownstreamProxyCall(amendedInboundPath, request, proxyDownstreamURL),
+                        executeClientDownstreamProxyCall(amendedInboundPath, request, proxyMapping),
                         response,
                         proxyDownstreamURL);
             }
 
             // Default to REACTIVE mode...
-            final Optional<HttpClientResponseDTO> httpClientResponse = executeClientDownstreamProxyCall(amendedInboundPath, request, proxyDownstreamURL);
+
+            // A 404 is never cached, so is passed back via handleAsyncClientDownstreamProxyCallResponse(), which falls back to a mock as usual
+            if (isCacheable) {
+                return executeCachedClientDownstreamProxyCall(userCtxPath, amendedInboundPath, request, response, proxyMapping);
+            }
+
+            // The request body is retained, should we need to fall back to a mock once the downstream call completes
+            if (ResponseDelayHandler.canPark(request.raw())) {
+
+                final boolean hedged = isHedgeable(configOpt.get(), request, isMultiUserMode, false);
+
+                executeAsyncClientDownstreamProxyCall(amendedInboundPath, request, proxyMapping, true);
+
+                if (hedged) {
+                    // The mock is prepared whilst the downstream call is under way, should it then be needed
+                    request.raw().setAttribute(HEDGED_MOCK_RESPONSE_ATTR, captureHedgedMockLookup(request, response, isMultiUserMode));
+                }
+
+                return Optional.of("");
+            }
+
+            // The downstream response is only buffered where live logging needs to see (or amend) it
+            if (!isTrafficCaptured(request)) {
+
+                if (streamClientDownstreamProxyCall(amendedInboundPath, request, response, proxyMapping, true)) {
+                    return Optional.of("");
+                }
+
+                // Look for mock substitute if downstream client returns a 404
+                return handleMockLookup(request, response, isMultiUserMode, false);
+            }
+
+            final Optional<HttpClientResponseDTO> httpClientResponse = executeClientDownstreamProxyCall(amendedInboundPath, request, proxyMapping);
 
             if (!httpClientResponse.isPresent()) {
                 return Optional.empty();
@@ -253,12 +353,591 @@ public class MockedRestServerEngineUtils {
 
     Optional<HttpClientResponseDTO> executeClientDownstreamProxyCall(final String inboundPath,
                                                                      final Request request,
-                                                                     final String proxyDownstreamURL) {
+                                                                     final ProxyForwardMappingDTO proxyMapping) {
+
+        if (proxyMapping == null) {
+            return Optional.empty();
+        }
+
+        final HttpClientCallDTO httpClientCallDTO = buildClientDownstreamProxyCall(inboundPath, request, proxyMapping);
 
-        if (proxyDownstreamURL == null) {
+        httpClientCallDTO.setBody(request.body());
+
+        try {
+            return Optional.of(httpClientService.handleExternalCall(httpClientCallDTO));
+        } catch (Throwable ex) {
+            logger.error("Error making proxy downstream call: " + ex.getMessage());
             return Optional.empty();
         }
 
+    }
+
+    /**
+     * Pipes the request body to the downstream client and its response body straight back to the caller,
+     * through a bounded buffer, rather than holding either in memory in full.
+     *
+     * @return false if the downstream client returned a 404 which is to be ignored (in which case nothing is
+     * written to the response), otherwise true.
+     */
+    boolean streamClientDownstreamProxyCall(final String inboundPath,
+                                            final Request request,
+                                            final Response response,
+                                            final ProxyForwardMappingDTO proxyMapping,
+                                            final boolean ignore404Responses) throws ValidationException, IOException {
+
+        final HttpClientCallDTO httpClientCallDTO = buildClientDownstreamProxyCall(inboundPath, request, proxyMapping);
+
+        return httpClientService.handleExternalStreamedCall(httpClientCallDTO, openRequestBodyStream(request), (httpClientResponse, body) -> {
+
+            if (ignore404Responses
+                    && HttpStatus.NOT_FOUND.value() == httpClientResponse.getStatus()) {
+                return false;
+            }
+
+            writeStreamedClientDownstreamProxyCallResponse(httpClientResponse, body, response, proxyMapping.getProxyForwardUrl());
+
+            return true;
+        });
+
+    }
+
+    /**
+     * Makes the downstream call without blocking and parks this request in the meantime, so a slow downstream client
+     * does not hold a worker thread. Once the response headers arrive, the request is processed again, at which
+     * point the response is passed back via handleAsyncClientDownstreamProxyCallResponse().
+     */
+    void executeAsyncClientDownstreamProxyCall(final String inboundPath,
+                                               final Request request,
+                                               final ProxyForwardMappingDTO proxyMapping,
+                                               final boolean retainRequestBody) throws ValidationException, IOException {
+
+        final HttpClientCallDTO httpClientCallDTO = buildClientDownstreamProxyCall(inboundPath, request, proxyMapping);
+
+        parkOnAsyncClientDownstreamProxyCall(request,
+                proxyMapping,
+                httpClientCallDTO,
+                startAsyncClientDownstreamProxyCall(httpClientCallDTO, request, retainRequestBody));
+    }
+
+    CompletableFuture<HttpClientStreamedResponseDTO> startAsyncClientDownstreamProxyCall(final HttpClientCallDTO httpClientCallDTO,
+                                                                                        final Request request,
+                                                                                        final boolean retainRequestBody) throws ValidationException, IOException {
+
+        final boolean bufferResponse = isTrafficCaptured(request);
+
+        if (bufferResponse) {
+            // The body is needed as text by live logging, so is not to be compressed
+            httpClientCallDTO.getHeaders().keySet().removeIf(h -> HttpHeaders.ACCEPT_ENCODING.equalsIgnoreCase(h));
+        }
+
+        final InputStream requestBody;
+
+        if (retainRequestBody) {
+
+            final byte[] body = request.bodyAsBytes();
+
+            if (body != null) {
+                ResponseDelayHandler.retainRequestBody(request.raw(), body);
+            }
+
+            requestBody = (body != null) ? new ByteArrayInputStream(body) : null;
+        } else {
+            requestBody = openRequestBodyStream(request);
+        }
+
+        request.raw().setAttribute(ASYNC_PROXY_BUFFER_RESPONSE_ATTR, bufferResponse);
+
+        return httpClientService.handleExternalAsyncCall(httpClientCallDTO, requestBody);
+    }
+
+    void parkOnAsyncClientDownstreamProxyCall(final Request request,
+                                              final ProxyForwardMappingDTO proxyMapping,
+                                              final HttpClientCallDTO httpClientCallDTO,
+                                              final CompletableFuture<HttpClientStreamedResponseDTO> future) {
+
+        request.raw().setAttribute(ASYNC_PROXY_DOWNSTREAM_URL_ATTR, proxyMapping.getProxyForwardUrl());
+
+        ResponseDelayHandler.park(request.raw(), future, httpClientService.getMaxResponseWaitMillis(httpClientCallDTO));
+    }
+
+    /**
+     * Hedging makes the mock lookup and the downstream call side by side, rather than one after the other. As one of
+     * the two is then discarded, this is limited to where doing so has no side effects. i.e. In ACTIVE mode, the
+     * downstream call is only made up front for GET requests, and in REACTIVE mode, the mock is only processed up
+     * front where it does not track state between calls. Either way, there needs to be a mock to hedge against.
+     */
+    boolean isHedgeable(final ProxyForwardConfigCacheDTO config,
+                        final Request request,
+                        final boolean isMultiUserMode,
+                        final boolean isActiveMode) {
+
+        if (!config.isHedgeRequests()
+                || !ResponseDelayHandler.canPark(request.raw())) {
+            return false;
+        }
+
+        final Optional<RestfulMockSnapshot> mockOpt = findMock(request, isMultiUserMode);
+
+        if (!mockOpt.isPresent()) {
+            return false;
+        }
+
+        final RestMockTypeEnum mockType = mockOpt.get().getMockType();
+
+        if (isActiveMode) {
+            // Proxied mocks always take precedence, so there is nothing to gain
+            return RestMethodEnum.GET.name().equals(request.requestMethod())
+                    && !RestMockTypeEnum.PROXY_HTTP.equals(mockType)
+                    && !RestMockTypeEnum.PROXY_SSE.equals(mockType);
+        }
+
+        return RestMockTypeEnum.RULE.equals(mockType)
+                || (RestMockTypeEnum.SEQ.equals(mockType) && mockOpt.get().isRandomiseDefinitions());
+    }
+
+    Optional<String> handleHedgedActiveMode(final String inboundPath,
+                                            final Request request,
+                                            final Response response,
+                                            final ProxyForwardMappingDTO proxyMapping,
+                                            final boolean isMultiUserMode,
+                                            final boolean ignore404MockResponses) throws ValidationException, IOException {
+
+        final HttpClientCallDTO httpClientCallDTO = buildClientDownstreamProxyCall(inboundPath, request, proxyMapping);
+
+        // The body is read up front, so is not consumed by the downstream call whilst the mock lookup needs it
+        final CompletableFuture<HttpClientStreamedResponseDTO> future =
+                startAsyncClientDownstreamProxyCall(httpClientCallDTO, request, true);
+
+        final Optional<String> result = handleMockLookup(request, response, isMultiUserMode, ignore404MockResponses);
+
+        if (result.isPresent()) {
+            abandonAsyncClientDownstreamProxyCall(future);
+            return result;
+        }
+
+        parkOnAsyncClientDownstreamProxyCall(request, proxyMapping, httpClientCallDTO, future);
+
+        return Optional.of("");
+    }
+
+    /**
+     * Makes the mock lookup as usual, but in a form which can be replayed later on (see HedgedMockResponse), as
+     * anything written to the response now is discarded once the request is parked.
+     */
+    HedgedMockResponse captureHedgedMockLookup(final Request request,
+                                               final Response response,
+                                               final boolean isMultiUserMode) {
+
+        final HttpServletRequest rawRequest = request.raw();
+        final HttpServletResponse rawResponse = response.raw();
+        final Set<String> existingHeaders = new HashSet<>(rawResponse.getHeaderNames());
+
+        final Optional<String> body = handleMockLookup(request, response, isMultiUserMode, false);
+
+        final Map<String, String> headers = rawResponse.getHeaderNames()
+                .stream()
+                .filter(h -> !existingHeaders.contains(h))
+                .collect(Collectors.toMap(h -> h, rawResponse::getHeader, (h1, h2) -> h1, LinkedHashMap::new));
+
+        // Any simulated latency starts now, so whatever elapses whilst waiting on the downstream call counts towards it
+        final Long delayInMillis = (Long) rawRequest.getAttribute(ResponseDelayHandler.DELAY_MILLIS_ATTR);
+        rawRequest.removeAttribute(ResponseDelayHandler.DELAY_MILLIS_ATTR);
+
+        return new HedgedMockResponse(body,
+                rawResponse.getStatus(),
+                headers,
+                System.currentTimeMillis() + ((delayInMillis != null) ? delayInMillis : 0));
+    }
+
+    void abandonAsyncClientDownstreamProxyCall(final CompletableFuture<HttpClientStreamedResponseDTO> future) {
+
+        if (future.cancel(true)) {
+            return;
+        }
+
+        // i.e. the response has already arrived, so the connection is released instead
+        future.thenAccept(httpClientResponse -> {
+            try {
+                httpClientResponse.close();
+            } catch (IOException e) {
+                logger.debug("Error closing abandoned proxy downstream response", e);
+            }
+        });
+    }
+
+    Optional<String> handleAsyncClientDownstreamProxyCallResponse(final Request request,
+                                                                  final Response response,
+                                                                  final boolean isMultiUserMode,
+                                                                  final boolean ignore404Responses) throws IOException {
+
+        final HttpServletRequest rawRequest = request.raw();
+        final String proxyDownstreamURL = (String) rawRequest.getAttribute(ASYNC_PROXY_DOWNSTREAM_URL_ATTR);
+        final boolean bufferResponse = Boolean.TRUE.equals(rawRequest.getAttribute(ASYNC_PROXY_BUFFER_RESPONSE_ATTR));
+
+        rawRequest.removeAttribute(ASYNC_PROXY_DOWNSTREAM_URL_ATTR);
+        final HedgedMockResponse hedgedMockResponse = (HedgedMockResponse) rawRequest.getAttribute(HEDGED_MOCK_RESPONSE_ATTR);
+        final ProxyResponseCache.Lookup cacheLookup = (ProxyResponseCache.Lookup) rawRequest.getAttribute(PROXY_CACHE_LOOKUP_ATTR);
+
+        rawRequest.removeAttribute(ASYNC_PROXY_BUFFER_RESPONSE_ATTR);
+        rawRequest.removeAttribute(HEDGED_MOCK_RESPONSE_ATTR);
+        rawRequest.removeAttribute(PROXY_CACHE_LOOKUP_ATTR);
+        rawRequest.setAttribute(ASYNC_PROXY_CALL_COMPLETED_ATTR, Boolean.TRUE);
+
+        final CompletableFuture<HttpClientStreamedResponseDTO> future = ResponseDelayHandler.resume(rawRequest);
+
+        // Abandons the call if timed out, unless the response has arrived in the meantime
+        if (future != null) {
+            future.cancel(false);
+        }
+
+        final HttpClientStreamedResponseDTO httpClientResponse = (future != null && !future.isCancelled())
+                ? future.getNow(null)
+                : new HttpClientStreamedResponseDTO(HttpStatus.NOT_FOUND.value());
+
+        InputStream body = httpClientResponse.getBodyStream();
+
+        try {
+
+            if (cacheLookup != null) {
+
+                final byte[] cacheableBody = readCacheableBody(httpClientResponse);
+
+                if (cacheableBody != null
+                        && cacheableBody.length <= PROXY_CACHE_MAX_BODY_BYTES) {
+
+                    return writeCachedClientDownstreamProxyCallResponse(
+                            proxyResponseCache.complete(cacheLookup, httpClientResponse.getStatus(), httpClientResponse.getContentType(), httpClientResponse.getHeaders(), cacheableBody),
+                            request,
+                            response,
+                            proxyDownstreamURL);
+                }
+
+                proxyResponseCache.abandon(cacheLookup);
+
+                if (cacheableBody != null) {
+                    // i.e. too large to cache, so is passed back as usual, starting with what has been read so far
+                    body = new SequenceInputStream(new ByteArrayInputStream(cacheableBody), body);
+                }
+            }
+
+            if (ignore404Responses
+                    && HttpStatus.NOT_FOUND.value() == httpClientResponse.getStatus()) {
+
+                // Look for mock substitute if downstream client returns a 404 (unless this was already done whilst waiting)
+                return (hedgedMockResponse != null)
+                        ? hedgedMockResponse.replay(request, response)
+                        : handleMockLookup(request, response, isMultiUserMode, false);
+            }
+
+            if (bufferResponse) {
+
+                httpClientResponse.setBody((body != null)
+                        ? IOUtils.toString(body, StandardCharsets.UTF_8)
+                        : null);
+
+                return handleClientDownstreamProxyCallResponse(Optional.of(httpClientResponse), response, proxyDownstreamURL);
+            }
+
+            writeStreamedClientDownstreamProxyCallResponse(httpClientResponse, body, response, proxyDownstreamURL);
+
+            return Optional.of("");
+
+        } finally {
+
+            if (cacheLookup != null) {
+                // i.e. where an error has occurred (otherwise this has no effect)
+                proxyResponseCache.abandon(cacheLookup);
+            }
+
+            httpClientResponse.close();
+        }
+
+    }
+
+    boolean isProxyResponseCacheable(final Request request, final ProxyForwardMappingDTO proxyMapping) {
+
+        if (proxyMapping.getCacheTtlMillis() <= 0
+                || !RestMethodEnum.GET.name().equals(request.requestMethod())
+                || !ResponseDelayHandler.canPark(request.raw())) {
+            return false;
+        }
+
+        // Calls made with the caller's credentials are never shared, unless these are part of the cache key
+        final Set<String> cacheKeyHeaders = Arrays.stream(StringUtils.split(StringUtils.defaultString(proxyMapping.getCacheKeyHeaders()), ','))
+                .map(h -> StringUtils.trim(h).toLowerCase())
+                .collect(Collectors.toSet());
+
+        return PROXY_CACHE_CREDENTIAL_HEADERS
+                .stream()
+                .noneMatch(h ->
+                        request.headers(h) != null
+                            && !cacheKeyHeaders.contains(h.toLowerCase()));
+    }
+
+    /**
+     * Serves the downstream response from the ProxyResponseCache where possible. Otherwise the downstream call is made
+     * (as per executeAsyncClientDownstreamProxyCall()), unless an identical call is already under way, in which case
+     * this request is parked until that completes instead (see handleCoalescedClientDownstreamProxyCallResponse()).
+     */
+    Optional<String> executeCachedClientDownstreamProxyCall(final String userCtxPath,
+                                                            final String inboundPath,
+                                                            final Request request,
+                                                            final Response response,
+                                                            final ProxyForwardMappingDTO proxyMapping) throws ValidationException, IOException {
+
+        final HttpClientCallDTO httpClientCallDTO = buildClientDownstreamProxyCall(inboundPath, request, proxyMapping);
+
+        // Cached responses are passed back to all callers, so are not to be compressed
+        httpClientCallDTO.getHeaders().keySet().removeIf(h -> HttpHeaders.ACCEPT_ENCODING.equalsIgnoreCase(h));
+
+        final ProxyResponseCache.Lookup lookup =
+                proxyResponseCache.lookup(userCtxPath, proxyMapping, buildProxyResponseCacheKey(httpClientCallDTO, proxyMapping));
+
+        if (lookup.getCachedResponse() != null) {
+            return writeCachedClientDownstreamProxyCallResponse(lookup.getCachedResponse(), request, response, proxyMapping.getProxyForwardUrl());
+        }
+
+        request.raw().setAttribute(PROXY_CACHE_LOOKUP_ATTR, lookup);
+
+        if (!lookup.isLeader()) {
+            ResponseDelayHandler.park(request.raw(), lookup.getInFlight(), httpClientService.getMaxResponseWaitMillis(httpClientCallDTO));
+            return Optional.of("");
+        }
+
+        try {
+            parkOnAsyncClientDownstreamProxyCall(request,
+                    proxyMapping,
+                    httpClientCallDTO,
+                    startAsyncClientDownstreamProxyCall(httpClientCallDTO, request, false));
+        } catch (ValidationException | IOException | RuntimeException ex) {
+            // Releases any others waiting on this call
+            proxyResponseCache.abandon(lookup);
+            throw ex;
+        }
+
+        return Optional.of("");
+    }
+
+    Optional<String> handleCoalescedClientDownstreamProxyCallResponse(final String inboundPath,
+                                                                      final Request request,
+                                                                      final Response response,
+                                                                      final ProxyForwardMappingDTO proxyMapping,
+                                                                      final boolean isActiveMode) throws ValidationException, IOException {
+
+        request.raw().removeAttribute(PROXY_CACHE_LOOKUP_ATTR);
+
+        final CompletableFuture<CachedProxyResponse> future = ResponseDelayHandler.resume(request.raw());
+        final CachedProxyResponse cachedResponse = (future != null) ? future.getNow(null) : null;
+
+        if (cachedResponse != null) {
+            return writeCachedClientDownstreamProxyCallResponse(cachedResponse, request, response, proxyMapping.getProxyForwardUrl());
+        }
+
+        // i.e. the other call's response could not be cached (or is taking too long), so this makes its own call instead
+        executeAsyncClientDownstreamProxyCall(inboundPath, request, proxyMapping, !isActiveMode);
+
+        return Optional.of("");
+    }
+
+    String buildProxyResponseCacheKey(final HttpClientCallDTO httpClientCallDTO, final ProxyForwardMappingDTO proxyMapping) {
+
+        final StringBuilder key = new StringBuilder(httpClientCallDTO.getMethod().name())
+                .append(' ')
+                .append(httpClientCallDTO.getUrl());
+
+        for (String header : StringUtils.split(StringUtils.defaultString(proxyMapping.getCacheKeyHeaders()), ',')) {
+
+            header = StringUtils.trim(header);
+
+            key.append('\n')
+                .append(header.toLowerCase())
+                .append(':')
+                .append(StringUtils.defaultString(findHeader(httpClientCallDTO.getHeaders(), header)));
+        }
+
+        return key.toString();
+    }
+
+    /**
+     * @return the body of the given downstream response, up to one byte more than PROXY_CACHE_MAX_BODY_BYTES,
+     * or null if the response is not one to be cached.
+     */
+    byte[] readCacheableBody(final HttpClientStreamedResponseDTO httpClientResponse) throws IOException {
+
+        final int status = httpClientResponse.getStatus();
+
+        if (status < HttpStatus.OK.value()
+                || status >= HttpStatus.MULTIPLE_CHOICES.value()
+                || status == HttpStatus.PARTIAL_CONTENT.value()) {
+            return null;
+        }
+
+        // Responses specific to the caller are never shared
+        final String cacheControl = findHeader(httpClientResponse.getHeaders(), HttpHeaders.CACHE_CONTROL);
+
+        if (findHeader(httpClientResponse.getHeaders(), HttpHeaders.SET_COOKIE) != null
+                || StringUtils.containsIgnoreCase(cacheControl, "no-store")
+                || StringUtils.containsIgnoreCase(cacheControl, "private")) {
+            return null;
+        }
+
+        if (httpClientResponse.getBodyStream() == null) {
+            return new byte[0];
+        }
+
+        return IOUtils.toByteArray(new BoundedInputStream(httpClientResponse.getBodyStream(), PROXY_CACHE_MAX_BODY_BYTES + 1));
+    }
+
+    // i.e. live logging is capturing this request's traffic (see MockedRestServerEngine.applyTrafficLogging)
+    boolean isTrafficCaptured(final Request request) {
+        return request.attribute(LIVE_LOGGED_ATTR) != null;
+    }
+
+    Optional<String> writeCachedClientDownstreamProxyCallResponse(final CachedProxyResponse cachedResponse,
+                                                                  final Request request,
+                                                                  final Response response,
+                                                                  final String proxyDownstreamURL) throws IOException {
+
+        applyClientDownstreamProxyCallResponse(
+                new HttpClientResponseDTO(cachedResponse.getStatus(), cachedResponse.getContentType(), cachedResponse.getHeaders(), null),
+                response,
+                proxyDownstreamURL);
+
+        if (isTrafficCaptured(request)) {
+
+            // The body is needed as text by live logging
+            final String body = new String(cachedResponse.getBody(), StandardCharsets.UTF_8);
+            response.body(body);
+
+            return Optional.of(body);
+        }
+
+        final HttpServletResponse rawResponse = response.raw();
+
+        rawResponse.getOutputStream().write(cachedResponse.getBody());
+
+        // Commits the response, so Spark does not then go on to write a (blank) body of its own
+        rawResponse.flushBuffer();
+
+        return Optional.of("");
+    }
+
+    private String findHeader(final Map<String, String> headers, final String name) {
+
+        return headers.entrySet()
+                .stream()
+                .filter(h ->
+                        StringUtils.equalsIgnoreCase(h.getKey(), name))
+                .map(Map.Entry::getValue)
+                .findFirst()
+                .orElse(null);
+    }
+
+    void writeStreamedClientDownstreamProxyCallResponse(final HttpClientResponseDTO httpClientResponse,
+                                                        final InputStream body,
+                                                        final Response response,
+                                                        final String proxyDownstreamURL) throws IOException {
+
+        applyClientDownstreamProxyCallResponse(httpClientResponse, response, proxyDownstreamURL);
+
+        final HttpServletResponse rawResponse = response.raw();
+
+        if (body != null) {
+            IOUtils.copy(body, rawResponse.getOutputStream(), PROXY_STREAM_BUFFER_SIZE);
+        }
+
+        // Commits the response, so Spark does not then go on to write a (blank) body of its own
+        rawResponse.flushBuffer();
+    }
+
+    /**
+     * Spark reads the whole request body into memory, as soon as it is first read. So unless this has already
+     * happened (e.g. the body was read for logging), the body is read from the underlying request instead.
+     */
+    InputStream openRequestBodyStream(final Request request) throws IOException {
+
+        final HttpServletRequest rawRequest = request.raw();
+
+        if (rawRequest instanceof ServletRequestWrapper) {
+
+            final ServletInputStream inputStream = ((ServletRequestWrapper) rawRequest).getRequest().getInputStream();
+
+            if (!inputStream.isFinished()) {
+
+                // i.e. the body, if there is one, will no longer be available once this has been read
+                if (rawRequest.getContentLengthLong() > 0
+                        || rawRequest.getHeader(HttpHeaders.TRANSFER_ENCODING) != null) {
+                    rawRequest.setAttribute(REQUEST_BODY_STREAMED_ATTR, Boolean.TRUE);
+                }
+
+                return inputStream;
+            }
+        }
+
+        final byte[] body = request.bodyAsBytes();
+
+        return (body != null)
+                ? new ByteArrayInputStream(body)
+                : null;
+    }
+
+    /**
+     * Captures no more of the request body than the given max size (in characters) would keep, reading this straight
+     * from the underlying request where nothing has read the body yet (so a body the mock never needed is not pulled
+     * into memory in full). The result is then left for the caller to truncate.
+     *
+     * Returns TrafficJournalService.BODY_NOT_CAPTURED where the body has already been streamed on downstream.
+     */
+    String captureRequestBody(final Request request, final int maxBodySize) throws IOException {
+
+        final HttpServletRequest rawRequest = request.raw();
+
+        if (rawRequest.getAttribute(REQUEST_BODY_STREAMED_ATTR) != null) {
+            return TrafficJournalService.BODY_NOT_CAPTURED;
+        }
+
+        if (maxBodySize <= 0) {
+            return request.body();
+        }
+
+        final byte[] retainedBody = ResponseDelayHandler.getRetainedRequestBody(rawRequest);
+
+        if (retainedBody != null) {
+            return readBodyPrefix(new ByteArrayInputStream(retainedBody), maxBodySize);
+        }
+
+        if (rawRequest instanceof ServletRequestWrapper) {
+
+            final ServletInputStream inputStream = ((ServletRequestWrapper) rawRequest).getRequest().getInputStream();
+
+            if (!inputStream.isFinished()) {
+                return readBodyPrefix(inputStream, maxBodySize);
+            }
+        }
+
+        final byte[] body = request.bodyAsBytes();
+
+        return (body != null)
+                ? readBodyPrefix(new ByteArrayInputStream(body), maxBodySize)
+                : null;
+    }
+
+    // Reads 1 character more than the max size, so the caller can tell the body was truncated
+    private String readBodyPrefix(final InputStream body, final int maxBodySize) throws IOException {
+
+        // i.e. at most 4 bytes per UTF-8 character
+        final Reader reader = new InputStreamReader(new BoundedInputStream(body, 4L * (maxBodySize + 1)), StandardCharsets.UTF_8);
+        final char[] prefix = new char[maxBodySize + 1];
+
+        return new String(prefix, 0, IOUtils.read(reader, prefix));
+    }
+
+    HttpClientCallDTO buildClientDownstreamProxyCall(final String inboundPath,
+                                                     final Request request,
+                                                     final ProxyForwardMappingDTO proxyMapping) {
+
+        final String proxyDownstreamURL = proxyMapping.getProxyForwardUrl();
+
         if (logger.isDebugEnabled()) {
             logger.debug("Initiating proxied call to downstream client for path: " + inboundPath);
         }
@@ -275,7 +954,9 @@ public class MockedRestServerEngineUtils {
 
         httpClientCallDTO.setUrl(proxyDownstreamURL + inboundPath + reqParams);
         httpClientCallDTO.setMethod(RestMethodEnum.valueOf(request.requestMethod()));
-        httpClientCallDTO.setBody(request.body());
+        httpClientCallDTO.setConnectTimeOutMillis(proxyMapping.getConnectTimeOutMillis());
+        httpClientCallDTO.setReadTimeOutMillis(proxyMapping.getReadTimeOutMillis());
+        httpClientCallDTO.setMaxConnectionsPerRoute(proxyMapping.getMaxConnections());
 
         httpClientCallDTO.setHeaders(request
                 .headers()
@@ -284,13 +965,7 @@ public class MockedRestServerEngineUtils {
 
         httpClientCallDTO.getHeaders().put(HttpHeaders.HOST, sanitizeHost(proxyDownstreamURL));
 
-        try {
-            return Optional.of(httpClientService.handleExternalCall(httpClientCallDTO));
-        } catch (Throwable ex) {
-            logger.error("Error making proxy downstream call: " + ex.getMessage());
-            return Optional.empty();
-        }
-
+        return httpClientCallDTO;
     }
 
     String sanitizeHost(final String proxyDownstreamURL) {
@@ -312,22 +987,30 @@ public class MockedRestServerEngineUtils {
 
         final HttpClientResponseDTO httpClientResponse = httpClientResponseOpt.get();
 
+        applyClientDownstreamProxyCallResponse(httpClientResponse, response, proxyDownstreamURL);
+
+        response.body(httpClientResponse.getBody());
+
+        return Optional.of(StringUtils.defaultIfBlank(httpClientResponse.getBody(),""));
+    }
+
+    void applyClientDownstreamProxyCallResponse(final HttpClientResponseDTO httpClientResponse,
+                                                final Response response,
+                                                final String proxyDownstreamURL) {
+
         if (logger.isDebugEnabled()) {
             logger.debug("Downstream client response status: " + httpClientResponse.getStatus());
         }
 
         response.status(httpClientResponse.getStatus());
         response.type(httpClientResponse.getContentType());
-        response.body(httpClientResponse.getBody());
 
         applyHeadersToResponse(httpClientResponse.getHeaders(), response);
 
         response.header(GeneralUtils.PROXIED_DOWNSTREAM_URL_HEADER, proxyDownstreamURL);
-
-        return Optional.of(StringUtils.defaultIfBlank(httpClientResponse.getBody(),""));
     }
 
-    String processRequest(final RestfulMock mock,
+    String processRequest(final RestfulMockSnapshot mock,
                           final Request req,
                           final Response res,
                           final boolean ignore404MockResponses) {
@@ -337,10 +1020,14 @@ public class MockedRestServerEngineUtils {
 
         switch (mock.getMockType()) {
             case RULE:
-                outcome = ruleEngine.process(req, mock.getRules());
+                outcome = ruleEngine.process(req, mock);
                 break;
             case PROXY_HTTP:
-                outcome = proxyService.waitForResponse(req.pathInfo(), mock);
+                outcome = awaitProxiedResponse(req, mock);
+                if (ResponseDelayHandler.isParked(req.raw())) {
+                    // Response is discarded, as this request is processed again once resumed
+                    return "";
+                }
                 break;
             case CUSTOM_JS:
                 outcome = javaScriptResponseHandler.executeUserResponse(req, mock);
@@ -374,8 +1061,10 @@ public class MockedRestServerEngineUtils {
         String response;
 
         try {
-            response = inboundParamMatchService.enrichWithInboundParamMatches(req, mock.getPath(), outcome.getResponseBody(), mock.getCreatedBy().getCtxPath(), mock.getCreatedBy().getId());
-            handleLatency(mock);
+            response = (outcome.getResponseTemplate() != null)
+                    ? inboundParamMatchService.enrichWithInboundParamMatches(req, mock.getPath(), outcome.getResponseTemplate(), mock.getUserCtxPath(), mock.getUserId())
+                    : inboundParamMatchService.enrichWithInboundParamMatches(req, mock.getPath(), outcome.getResponseBody(), mock.getUserCtxPath(), mock.getUserId());
+            handleLatency(mock, outcome, req);
         } catch (InboundParamMatchException e) {
             logger.error(e.getMessage());
             res.status(HttpStatus.INTERNAL_SERVER_ERROR.value());
@@ -389,46 +1078,48 @@ public class MockedRestServerEngineUtils {
         return StringUtils.defaultIfBlank(response,"");
     }
 
-    RestfulResponseDTO getDefault(final RestfulMock restfulMock) {
-        logger.debug("getDefault called");
+    RestfulResponseDTO awaitProxiedResponse(final Request req, final RestfulMockSnapshot mock) {
 
-        if (RestMockTypeEnum.PROXY_HTTP.equals(restfulMock.getMockType())) {
-            return new RestfulResponseDTO(HttpStatus.NOT_FOUND.value());
-        }
+        final HttpServletRequest rawRequest = req.raw();
 
-        final RestfulMockDefinitionOrder mockDefOrder = restfulMock.getDefinitions().get(0);
-        return new RestfulResponseDTO(mockDefOrder.getHttpStatusCode(), mockDefOrder.getResponseContentType(), mockDefOrder.getResponseBody(), mockDefOrder.getResponseHeaders().entrySet());
-    }
+        final CompletableFuture<RestfulResponseDTO> resumedFuture = ResponseDelayHandler.resume(rawRequest);
 
-    void removeSuspendedResponses(final RestfulMock mock) {
-        logger.debug("removeSuspendedResponses called");
+        if (resumedFuture != null) {
+            // Give up our place in the queue if timed out, unless a response has arrived in the meantime
+            resumedFuture.complete(null);
+            return resumedFuture.getNow(null);
+        }
 
-        final Iterator<RestfulMockDefinitionOrder> definitionsIter = mock.getDefinitions().iterator();
+        if (!ResponseDelayHandler.canPark(rawRequest)) {
+            return proxyService.waitForResponse(req.pathInfo(), mock);
+        }
 
-        while (definitionsIter.hasNext()) {
-            final RestfulMockDefinitionOrder d = definitionsIter.next();
+        final CompletableFuture<RestfulResponseDTO> future = proxyService.awaitResponse(req.pathInfo(), mock);
 
-            if (d.isSuspend()) {
-                definitionsIter.remove();
-            }
+        if (future.isDone()) {
+            return future.getNow(null);
         }
 
-        final Iterator<RestfulMockDefinitionRule> rulesIter =  mock.getRules().iterator();
+        ResponseDelayHandler.park(rawRequest, future, proxyService.getTimeOutInMillis(mock));
 
-        while (rulesIter.hasNext()) {
-            final RestfulMockDefinitionRule r = rulesIter.next();
+        return null;
+    }
 
-            if (r.isSuspend()) {
-                rulesIter.remove();
-            }
+    RestfulResponseDTO getDefault(final RestfulMockSnapshot restfulMock) {
+        logger.debug("getDefault called");
+
+        if (RestMockTypeEnum.PROXY_HTTP.equals(restfulMock.getMockType())) {
+            return new RestfulResponseDTO(HttpStatus.NOT_FOUND.value());
         }
 
+        final RestfulMockDefinitionSnapshot mockDefOrder = restfulMock.getDefinitions().get(0);
+        return new RestfulResponseDTO(mockDefOrder.getHttpStatusCode(), mockDefOrder.getResponseContentType(), mockDefOrder.getResponseBody(), mockDefOrder.getResponseHeaders().entrySet(), mockDefOrder.getResponseTemplate());
     }
 
-    String processSSERequest(final RestfulMock mock, final Request req, final Response res) {
+    String processSSERequest(final RestfulMockSnapshot mock, final Request req, final Response res) {
 
         try {
-            serverSideEventService.register(buildUserPath(mock), mock.getSseHeartBeatInMillis(), mock.isProxyPushIdOnConnect(), req, res);
+            serverSideEventService.register(mock.getUserPath(), mock.getSseHeartBeatInMillis(), mock.isProxyPushIdOnConnect(), req, res);
         } catch (IOException e) {
             logger.error("Error registering SEE client", e);
         }
@@ -436,21 +1127,20 @@ public class MockedRestServerEngineUtils {
         return "";
     }
 
-    private void handleLatency(final RestfulMock mock) {
+    // Any rule / definition specific sleep plus any randomised latency, served without holding the current thread
+    private void handleLatency(final RestfulMockSnapshot mock, final RestfulResponseDTO outcome, final Request req) {
 
-        if (!mock.isRandomiseLatency()) {
-            return;
-        }
+        long delayInMillis = outcome.getSleepInMillis();
 
-        long min = (mock.getRandomiseLatencyRangeMinMillis() > 0) ? mock.getRandomiseLatencyRangeMinMillis() : 1000;
-        long max = (mock.getRandomiseLatencyRangeMaxMillis() > 0) ? mock.getRandomiseLatencyRangeMaxMillis() : 5000;
+        if (mock.isRandomiseLatency()) {
 
-        try {
-            Thread.sleep(RandomUtils.nextLong(min, (max + 1)));
-        } catch (InterruptedException ex) {
-            logger.error("Failed to apply randomised latency and prolong current thread execution", ex);
+            long min = (mock.getRandomiseLatencyRangeMinMillis() > 0) ? mock.getRandomiseLatencyRangeMinMillis() : 1000;
+            long max = (mock.getRandomiseLatencyRangeMaxMillis() > 0) ? mock.getRandomiseLatencyRangeMaxMillis() : 5000;
+
+            delayInMillis += RandomUtils.nextLong(min, (max + 1));
         }
 
+        ResponseDelayHandler.delay(req.raw(), delayInMillis);
     }
 
     public String buildUserPath(final RestfulMock mock) {
@@ -472,32 +1162,6 @@ public class MockedRestServerEngineUtils {
 
     }
 
-    String lookUpDefaultProxyMappingDownstreamUrl(final List<ProxyForwardMappingDTO> proxyForwardMappings) {
-
-        return lookUpProxyMappingDownstreamUrl(GeneralUtils.PATH_WILDCARD, proxyForwardMappings);
-    }
-
-    String lookUpProxyMappingDownstreamUrl(final String inboundPath,
-                                           final List<ProxyForwardMappingDTO> proxyForwardMappings) {
-
-        return proxyForwardMappings
-                .stream()
-                .filter(p -> {
-
-                    if (StringUtils.endsWith(p.getPath(), GeneralUtils.PATH_WILDCARD)
-                            && StringUtils.startsWith(inboundPath, StringUtils.removeEnd(p.getPath(), GeneralUtils.PATH_WILDCARD))) {
-                        return true;
-                    }
-
-                    return StringUtils.equals(inboundPath, p.getPath());
-
-                })
-                .map(p ->
-                        p.getProxyForwardUrl())
-                .findFirst()
-                .orElse(null);
-    }
-
     void applyHeadersToResponse(final Map<String, String> headers,
                               final Response response) {
 
@@ -534,7 +1198,7 @@ public class MockedRestServerEngineUtils {
 
     }
 
-    private void debugLoadedMock(final RestfulMock mock) {
+    private void debugLoadedMock(final RestfulMockSnapshot mock) {
 
         if (logger.isDebugEnabled()) {
 
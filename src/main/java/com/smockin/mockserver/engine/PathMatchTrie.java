@@ -0,0 +1,317 @@
+package com.smockin.mockserver.engine;
+
+import com.smockin.utils.GeneralUtils;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.apache.commons.lang3.StringUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Immutable segment trie of mock path patterns, built once and then shared across request threads.
+ *
+ * Each pattern segment becomes either a literal, {var}, * or ** edge. Matching walks the trie once,
+ * preferring literal edges, then {var}, then * and finally **, so the most specific pattern wins
+ * (in line with the literal before wildcard ordering applied by RestfulMockSortingUtils).
+ * Where several values share an identical pattern, the first one added wins.
+ *
+ * Segments the trie cannot express (e.g. 'foo*', '{id}.json', '{id:[0-9]+}' or '?') are matched
+ * with Ant style matching, but only once the trie itself has found no match.
+ *
+ * Path vars are captured during the walk, keyed as per GeneralUtils.findAllPathVars (i.e. a * is keyed
+ * by its segment index, counted from after any leading segments the pattern was added with, such as a user's ctx path).
+ */
+public final class PathMatchTrie<T> {
+
+    private static final String WILDCARD = "*";
+    private static final String DOUBLE_WILDCARD = "**";
+    private static final String VAR_START = "{";
+    private static final String VAR_END = "}";
+
+    private final Node<T> root;
+    private final List<ComplexPattern<T>> complexPatterns;
+    private final int size;
+
+    private PathMatchTrie(final Node<T> root, final List<ComplexPattern<T>> complexPatterns, final int size) {
+        this.root = root;
+        this.complexPatterns = complexPatterns;
+        this.size = size;
+    }
+
+    public static <T> Builder<T> builder() {
+        return new Builder<>();
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public Optional<PathMatch<T>> match(final String path) {
+
+        if (path == null || size == 0) {
+            return Optional.empty();
+        }
+
+        final String[] segments = StringUtils.split(path, GeneralUtils.URL_PATH_SEPARATOR);
+        final boolean trailingSeparator = path.endsWith(GeneralUtils.URL_PATH_SEPARATOR);
+        final String[] captureNames = new String[segments.length];
+        final int[] captureDepths = new int[segments.length];
+
+        final Terminal<T> terminal = walk(root, segments, 0, trailingSeparator, captureNames, captureDepths);
+
+        if (terminal != null) {
+            return Optional.of(new PathMatch<>(terminal.getValue(),
+                    buildPathVars(segments, captureNames, captureDepths, terminal.getLeadingSegments())));
+        }
+
+        for (ComplexPattern<T> c : complexPatterns) {
+            if (GeneralUtils.matchPaths(c.getPattern(), path)) {
+                return Optional.of(new PathMatch<>(c.getValue(),
+                        GeneralUtils.findAllPathVars(removeLeadingSegments(segments, c.getLeadingSegments()),
+                                removeLeadingSegments(StringUtils.split(c.getPattern(), GeneralUtils.URL_PATH_SEPARATOR), c.getLeadingSegments()))));
+            }
+        }
+
+        return Optional.empty();
+    }
+
+    private Terminal<T> walk(final Node<T> node,
+                             final String[] segments,
+                             final int index,
+                             final boolean trailingSeparator,
+                             final String[] captureNames,
+                             final int[] captureDepths) {
+
+        if (index == segments.length) {
+            return findTerminal(node, trailingSeparator);
+        }
+
+        final String segment = segments[index];
+        Terminal<T> terminal;
+
+        final Node<T> literal = node.literals.get(segment);
+
+        if (literal != null) {
+            captureNames[index] = null;
+            if ((terminal = walk(literal, segments, index + 1, trailingSeparator, captureNames, captureDepths)) != null) {
+                return terminal;
+            }
+        }
+
+        for (Map.Entry<String, Node<T>> var : node.vars.entrySet()) {
+            captureNames[index] = var.getKey();
+            if ((terminal = walk(var.getValue(), segments, index + 1, trailingSeparator, captureNames, captureDepths)) != null) {
+                return terminal;
+            }
+        }
+
+        if (node.wildcard != null) {
+            captureNames[index] = WILDCARD;
+            captureDepths[index] = node.depth;
+            if ((terminal = walk(node.wildcard, segments, index + 1, trailingSeparator, captureNames, captureDepths)) != null) {
+                return terminal;
+            }
+        }
+
+        if (node.doubleWildcard != null) {
+            // ** consumes zero or more segments, shortest first
+            for (int next = index; next <= segments.length; next++) {
+                if (next > index) {
+                    captureNames[next - 1] = null;
+                }
+                if ((terminal = walk(node.doubleWildcard, segments, next, trailingSeparator, captureNames, captureDepths)) != null) {
+                    return terminal;
+                }
+            }
+        }
+
+        return null;
+    }
+
+    private Terminal<T> findTerminal(final Node<T> node, final boolean trailingSeparator) {
+
+        for (Terminal<T> t : node.terminals) {
+            // As with Ant matching, a trailing separator must agree unless the pattern ends with **
+            if (node.reachedByDoubleWildcard || t.isTrailingSeparator() == trailingSeparator) {
+                return t;
+            }
+        }
+
+        // A trailing ** may match nothing at all (i.e /foo/** matches /foo)
+        if (node.doubleWildcard != null && !node.doubleWildcard.terminals.isEmpty()) {
+            return node.doubleWildcard.terminals.get(0);
+        }
+
+        // A trailing * matches a path ending with the separator (i.e /foo/* matches /foo/)
+        if (trailingSeparator && node.wildcard != null && !node.wildcard.terminals.isEmpty()) {
+            return node.wildcard.terminals.get(0);
+        }
+
+        return null;
+    }
+
+    private Map<String, String> buildPathVars(final String[] segments,
+                                              final String[] captureNames,
+                                              final int[] captureDepths,
+                                              final int leadingSegments) {
+
+        final Map<String, String> pathVars = new HashMap<>();
+
+        for (int i = 0; i < segments.length; i++) {
+            if (WILDCARD.equals(captureNames[i])) {
+                pathVars.put(WILDCARD + (captureDepths[i] - leadingSegments), segments[i]);
+            } else if (captureNames[i] != null) {
+                pathVars.put(captureNames[i], segments[i]);
+            }
+        }
+
+        return pathVars;
+    }
+
+    private static String removeLeadingSegments(final String[] segments, final int leadingSegments) {
+
+        return GeneralUtils.URL_PATH_SEPARATOR
+                + StringUtils.join(segments, GeneralUtils.URL_PATH_SEPARATOR, Math.min(leadingSegments, segments.length), segments.length);
+    }
+
+    public static final class Builder<T> {
+
+        private final Node<T> root = new Node<>(0, false);
+        private final List<ComplexPattern<T>> complexPatterns = new ArrayList<>();
+        private int size;
+
+        private Builder() {
+        }
+
+        public Builder<T> add(final String pattern, final T value) {
+            return add(pattern, value, 0);
+        }
+
+        /**
+         * The leading segments (e.g. a user's ctx path) are matched as normal, but are not counted when keying any * path vars.
+         */
+        public Builder<T> add(final String pattern, final T value, final int leadingSegments) {
+
+            final String[] segments = StringUtils.split(pattern, GeneralUtils.URL_PATH_SEPARATOR);
+
+            for (String s : segments) {
+                if (isComplexSegment(s)) {
+                    complexPatterns.add(new ComplexPattern<>(pattern, value, leadingSegments));
+                    size++;
+                    return this;
+                }
+            }
+
+            Node<T> node = root;
+
+            for (String s : segments) {
+                node = node.child(s);
+            }
+
+            node.terminals.add(new Terminal<>(value, pattern.endsWith(GeneralUtils.URL_PATH_SEPARATOR), leadingSegments));
+            size++;
+
+            return this;
+        }
+
+        public PathMatchTrie<T> build() {
+            return new PathMatchTrie<>(root, Collections.unmodifiableList(complexPatterns), size);
+        }
+
+        private boolean isComplexSegment(final String segment) {
+
+            if (WILDCARD.equals(segment) || DOUBLE_WILDCARD.equals(segment) || isVarSegment(segment)) {
+                return false;
+            }
+
+            return StringUtils.containsAny(segment, '*', '?', '{', '}');
+        }
+
+    }
+
+    private static boolean isVarSegment(final String segment) {
+
+        if (!segment.startsWith(VAR_START) || !segment.endsWith(VAR_END) || segment.length() < 3) {
+            return false;
+        }
+
+        final String name = segment.substring(1, segment.length() - 1);
+
+        return !StringUtils.containsAny(name, '*', '?', '{', '}', ':');
+    }
+
+    private static final class Node<T> {
+
+        private final int depth;
+        private final boolean reachedByDoubleWildcard;
+        private final Map<String, Node<T>> literals = new HashMap<>();
+        private final Map<String, Node<T>> vars = new LinkedHashMap<>();
+        private Node<T> wildcard;
+        private Node<T> doubleWildcard;
+        private final List<Terminal<T>> terminals = new ArrayList<>(1);
+
+        private Node(final int depth, final boolean reachedByDoubleWildcard) {
+            this.depth = depth;
+            this.reachedByDoubleWildcard = reachedByDoubleWildcard;
+        }
+
+        private Node<T> child(final String segment) {
+
+            if (DOUBLE_WILDCARD.equals(segment)) {
+                if (doubleWildcard == null) {
+                    doubleWildcard = new Node<>(depth + 1, true);
+                }
+                return doubleWildcard;
+            }
+
+            if (WILDCARD.equals(segment)) {
+                if (wildcard == null) {
+                    wildcard = new Node<>(depth + 1, false);
+                }
+                return wildcard;
+            }
+
+            if (isVarSegment(segment)) {
+                // Var names are held in lower case, consistent with GeneralUtils.findAllPathVars
+                return vars.computeIfAbsent(segment.substring(1, segment.length() - 1).toLowerCase(), k -> new Node<>(depth + 1, false));
+            }
+
+            return literals.computeIfAbsent(segment, k -> new Node<>(depth + 1, false));
+        }
+
+    }
+
+    @Getter
+    @AllArgsConstructor
+    private static final class Terminal<T> {
+        private final T value;
+        private final boolean trailingSeparator;
+        private final int leadingSegments;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    private static final class ComplexPattern<T> {
+        private final String pattern;
+        private final T value;
+        private final int leadingSegments;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static final class PathMatch<T> {
+        private final T value;
+        private final Map<String, String> pathVars;
+    }
+
+}
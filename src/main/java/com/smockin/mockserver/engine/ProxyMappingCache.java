@@ -1,30 +1,37 @@
 package com.smockin.mockserver.engine;
 
 import com.smockin.mockserver.dto.ProxyForwardConfigCacheDTO;
+import com.smockin.mockserver.dto.ProxyForwardMappingDTO;
 import org.springframework.stereotype.Service;
 
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
 
+/**
+ * Each update builds and then swaps in a new (immutable) map, so requests being proxied in the meantime
+ * carry on reading a consistent view of the mappings.
+ */
 @Service
 public class ProxyMappingCache {
 
-    private AtomicReference<Map<String, ProxyForwardConfigCacheDTO>> proxyForwardConfigRef = new AtomicReference();
+    private final AtomicReference<Map<String, CompiledProxyForwardConfig>> proxyForwardConfigRef = new AtomicReference<>(Collections.emptyMap());
 
     public void init(final List<ProxyForwardConfigCacheDTO> allProxyForwardConfig) {
 
         // (hard set, clears all previous cached mappings)
         proxyForwardConfigRef.set(
 
-            allProxyForwardConfig
+            Collections.unmodifiableMap(allProxyForwardConfig
                 .stream()
                 .map(pm ->
-                    filterProxyConfigMappings(pm))
+                    compileProxyConfigMappings(pm))
                 .filter(Optional::isPresent)
-                .collect(Collectors.toMap(k -> k.get().getUserCtxPath(), v -> v.get()))
+                .collect(Collectors.toMap(k -> k.get().proxyForwardConfig.getUserCtxPath(), v -> v.get())))
 
         );
 
@@ -33,42 +40,48 @@ public class ProxyMappingCache {
     // Handles adding, updating and removal
     public void update(final ProxyForwardConfigCacheDTO proxyForwardConfigDTO) {
 
-        final Optional<ProxyForwardConfigCacheDTO> filteredProxyForwardConfigCacheOpt = filterProxyConfigMappings(proxyForwardConfigDTO);
+        final Optional<CompiledProxyForwardConfig> compiledProxyForwardConfigCacheOpt = compileProxyConfigMappings(proxyForwardConfigDTO);
 
-        // Only add to cache if active mappings were found
-        if (filteredProxyForwardConfigCacheOpt.isPresent()) {
+        proxyForwardConfigRef.updateAndGet(pfm -> {
 
-            proxyForwardConfigRef.getAndUpdate(pfm -> {
+            final Map<String, CompiledProxyForwardConfig> updatedPfm = new HashMap<>(pfm);
 
-                final ProxyForwardConfigCacheDTO dto = filteredProxyForwardConfigCacheOpt.get();
-                pfm.put(dto.getUserCtxPath(), dto);
+            // Only add to cache if active mappings were found, otherwise remove existing config for this user (if present)
+            if (compiledProxyForwardConfigCacheOpt.isPresent()) {
+                updatedPfm.put(proxyForwardConfigDTO.getUserCtxPath(), compiledProxyForwardConfigCacheOpt.get());
+            } else {
+                updatedPfm.remove(proxyForwardConfigDTO.getUserCtxPath());
+            }
 
-                return pfm;
-            });
-
-            return;
-        }
-
-        // As there are no active mappings, remove existing config for this user (if present)
-        proxyForwardConfigRef.getAndUpdate(pfm -> {
-
-            pfm.remove(proxyForwardConfigDTO.getUserCtxPath());
-
-            return pfm;
+            return Collections.unmodifiableMap(updatedPfm);
         });
 
     }
 
     public Optional<ProxyForwardConfigCacheDTO> find(final String userCtxPath) {
 
-        final ProxyForwardConfigCacheDTO dto = proxyForwardConfigRef.get().get(userCtxPath);
+        final CompiledProxyForwardConfig compiled = proxyForwardConfigRef.get().get(userCtxPath);
 
-        return (dto != null)
-                ? Optional.of(dto)
+        return (compiled != null)
+                ? Optional.of(compiled.proxyForwardConfig)
                 : Optional.empty();
     }
 
-    private Optional<ProxyForwardConfigCacheDTO> filterProxyConfigMappings(final ProxyForwardConfigCacheDTO proxyForwardConfig) {
+    // Falls back to the longest matching wildcard mapping (i.e. * where nothing more specific is found)
+    public Optional<ProxyForwardMappingDTO> lookUpProxyMapping(final String inboundPath,
+                                                               final ProxyForwardConfigCacheDTO proxyForwardConfig) {
+
+        final CompiledProxyForwardConfig compiled = proxyForwardConfigRef.get().get(proxyForwardConfig.getUserCtxPath());
+
+        // i.e. the config was not loaded via this cache, or has since been replaced by an update
+        final ProxyMappingTrie proxyMappingTrie = (compiled != null && compiled.proxyForwardConfig == proxyForwardConfig)
+                ? compiled.proxyForwardMappingTrie
+                : ProxyMappingTrie.build(proxyForwardConfig.getProxyForwardMappings());
+
+        return proxyMappingTrie.find(inboundPath);
+    }
+
+    private Optional<CompiledProxyForwardConfig> compileProxyConfigMappings(final ProxyForwardConfigCacheDTO proxyForwardConfig) {
 
         proxyForwardConfig.setProxyForwardMappings(
 
@@ -81,9 +94,24 @@ public class ProxyMappingCache {
         );
 
         // If no active mappings are present, then there is no point adding this mapping config to the cache
-        return proxyForwardConfig.getProxyForwardMappings().isEmpty()
-                ? Optional.empty()
-                : Optional.of(proxyForwardConfig);
+        if (proxyForwardConfig.getProxyForwardMappings().isEmpty()) {
+            return Optional.empty();
+        }
+
+        return Optional.of(new CompiledProxyForwardConfig(proxyForwardConfig, ProxyMappingTrie.build(proxyForwardConfig.getProxyForwardMappings())));
+    }
+
+    private static final class CompiledProxyForwardConfig {
+
+        private final ProxyForwardConfigCacheDTO proxyForwardConfig;
+        private final ProxyMappingTrie proxyForwardMappingTrie;
+
+        private CompiledProxyForwardConfig(final ProxyForwardConfigCacheDTO proxyForwardConfig,
+                                           final ProxyMappingTrie proxyForwardMappingTrie) {
+            this.proxyForwardConfig = proxyForwardConfig;
+            this.proxyForwardMappingTrie = proxyForwardMappingTrie;
+        }
+
     }
 
 }
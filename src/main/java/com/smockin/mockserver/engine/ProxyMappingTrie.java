@@ -0,0 +1,95 @@
+package com.smockin.mockserver.engine;
+
+import com.smockin.mockserver.dto.ProxyForwardMappingDTO;
+import com.smockin.utils.GeneralUtils;
+import org.apache.commons.lang3.StringUtils;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Immutable character trie of a user's proxy mapping paths, built once and then shared across request threads.
+ *
+ * A path ending in * matches any inbound path starting with whatever precedes this (so * alone is the default mapping),
+ * otherwise the inbound path must match it exactly. Matching walks the trie once, so where several mappings match,
+ * the longest (i.e. most specific) of these wins, with an exact match winning over a wildcard of the same length.
+ * Where mappings share an identical path, the first one added wins.
+ */
+public final class ProxyMappingTrie {
+
+    private final Node root;
+
+    private ProxyMappingTrie(final Node root) {
+        this.root = root;
+    }
+
+    public static ProxyMappingTrie build(final List<ProxyForwardMappingDTO> proxyForwardMappings) {
+
+        final Node root = new Node();
+
+        for (ProxyForwardMappingDTO mapping : proxyForwardMappings) {
+
+            if (mapping.getPath() == null) {
+                continue;
+            }
+
+            final boolean isWildcard = StringUtils.endsWith(mapping.getPath(), GeneralUtils.PATH_WILDCARD);
+            final String path = (isWildcard)
+                    ? StringUtils.removeEnd(mapping.getPath(), GeneralUtils.PATH_WILDCARD)
+                    : mapping.getPath();
+
+            Node node = root;
+
+            for (int i = 0; i < path.length(); i++) {
+                node = node.children.computeIfAbsent(path.charAt(i), c -> new Node());
+            }
+
+            if (isWildcard) {
+                if (node.wildcardMapping == null) {
+                    node.wildcardMapping = mapping;
+                }
+            } else if (node.exactMapping == null) {
+                node.exactMapping = mapping;
+            }
+        }
+
+        return new ProxyMappingTrie(root);
+    }
+
+    public Optional<ProxyForwardMappingDTO> find(final String inboundPath) {
+
+        if (inboundPath == null) {
+            return Optional.empty();
+        }
+
+        Node node = root;
+        ProxyForwardMappingDTO match = root.wildcardMapping;
+
+        for (int i = 0; i < inboundPath.length(); i++) {
+
+            node = node.children.get(inboundPath.charAt(i));
+
+            if (node == null) {
+                return Optional.ofNullable(match);
+            }
+
+            if (node.wildcardMapping != null) {
+                match = node.wildcardMapping;
+            }
+        }
+
+        return Optional.ofNullable((node.exactMapping != null) ? node.exactMapping : match);
+    }
+
+    // Only ever modified whilst building, prior to the trie being published
+    private static final class Node {
+
+        private final Map<Character, Node> children = new HashMap<>();
+        private ProxyForwardMappingDTO exactMapping;
+        private ProxyForwardMappingDTO wildcardMapping;
+
+    }
+
+}
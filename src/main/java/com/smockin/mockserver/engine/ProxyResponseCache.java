@@ -0,0 +1,221 @@
+package com.smockin.mockserver.engine;
+
+import com.smockin.mockserver.dto.ProxyForwardMappingDTO;
+import com.smockin.mockserver.dto.ProxyResponseCacheStatsDTO;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.stereotype.Service;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Holds downstream responses for the proxy mappings which have caching enabled (i.e. a cacheTtlMillis), so identical
+ * calls are not all forwarded on.
+ *
+ * Each mapping has its own partition, which is bounded to the mapping's cacheMaxEntries, evicting the least recently
+ * used response first. Concurrent misses on the same key are coalesced, so only the first of these (the leader) makes
+ * the downstream call, with the others waiting on its outcome (see Lookup).
+ */
+@Service
+public class ProxyResponseCache {
+
+    static final int DEFAULT_MAX_ENTRIES = 500;
+
+    private final Map<String, Partition> partitions = new ConcurrentHashMap<>();
+
+    Lookup lookup(final String userCtxPath,
+                  final ProxyForwardMappingDTO proxyMapping,
+                  final String key) {
+
+        final Partition partition = partitions.computeIfAbsent(buildPartitionKey(userCtxPath, proxyMapping.getPath()),
+                k -> new Partition(userCtxPath, proxyMapping.getPath()));
+
+        final CachedProxyResponse cachedResponse = partition.get(key, System.currentTimeMillis());
+
+        if (cachedResponse != null) {
+            partition.hits.increment();
+            return new Lookup(partition, proxyMapping, key, cachedResponse, null, false);
+        }
+
+        partition.misses.increment();
+
+        final CompletableFuture<CachedProxyResponse> inFlight = new CompletableFuture<>();
+        final CompletableFuture<CachedProxyResponse> existingInFlight = partition.inFlight.putIfAbsent(key, inFlight);
+
+        if (existingInFlight != null) {
+            partition.coalesced.increment();
+            return new Lookup(partition, proxyMapping, key, null, existingInFlight, false);
+        }
+
+        return new Lookup(partition, proxyMapping, key, null, inFlight, true);
+    }
+
+    /**
+     * Called by the leader once its downstream response has arrived in full, caching this and passing it on to any
+     * others waiting on it.
+     */
+    CachedProxyResponse complete(final Lookup lookup,
+                                 final int status,
+                                 final String contentType,
+                                 final Map<String, String> headers,
+                                 final byte[] body) {
+
+        final CachedProxyResponse response = new CachedProxyResponse(status,
+                contentType,
+                headers,
+                body,
+                System.currentTimeMillis() + lookup.proxyMapping.getCacheTtlMillis());
+
+        if (lookup.isLeader()) {
+            lookup.partition.put(lookup.key,
+                    response,
+                    (lookup.proxyMapping.getCacheMaxEntries() > 0) ? lookup.proxyMapping.getCacheMaxEntries() : DEFAULT_MAX_ENTRIES);
+        }
+
+        release(lookup, response);
+
+        return response;
+    }
+
+    /**
+     * Called by the leader where its downstream response cannot be cached (or the call failed), in which case any
+     * others waiting on it make their own downstream call instead.
+     */
+    void abandon(final Lookup lookup) {
+        release(lookup, null);
+    }
+
+    public List<ProxyResponseCacheStatsDTO> getStats(final String userCtxPath) {
+
+        return partitions.values()
+                .stream()
+                .filter(p ->
+                        StringUtils.equals(userCtxPath, p.userCtxPath))
+                .map(p ->
+                        new ProxyResponseCacheStatsDTO(p.path, p.size(), p.hits.sum(), p.misses.sum(), p.coalesced.sum()))
+                .collect(Collectors.toList());
+    }
+
+    // Handles any changes to a user's mappings
+    public void clear(final String userCtxPath) {
+
+        partitions.values()
+                .removeIf(p ->
+                        StringUtils.equals(userCtxPath, p.userCtxPath));
+    }
+
+    public void clear() {
+        partitions.clear();
+    }
+
+    private void release(final Lookup lookup, final CachedProxyResponse response) {
+
+        if (!lookup.isLeader()) {
+            return;
+        }
+
+        lookup.partition.inFlight.remove(lookup.key, lookup.inFlight);
+        lookup.inFlight.complete(response);
+    }
+
+    private String buildPartitionKey(final String userCtxPath, final String path) {
+        return userCtxPath + " " + path;
+    }
+
+    /**
+     * The outcome of a cache lookup. Where there is no cached response, this is either the leader, which is responsible
+     * for making the downstream call and then calling complete(), or a follower, which waits on getInFlight().
+     */
+    static final class Lookup {
+
+        private final Partition partition;
+        private final ProxyForwardMappingDTO proxyMapping;
+        private final String key;
+        private final CachedProxyResponse cachedResponse;
+        private final CompletableFuture<CachedProxyResponse> inFlight;
+        private final boolean leader;
+
+        private Lookup(final Partition partition,
+                       final ProxyForwardMappingDTO proxyMapping,
+                       final String key,
+                       final CachedProxyResponse cachedResponse,
+                       final CompletableFuture<CachedProxyResponse> inFlight,
+                       final boolean leader) {
+            this.partition = partition;
+            this.proxyMapping = proxyMapping;
+            this.key = key;
+            this.cachedResponse = cachedResponse;
+            this.inFlight = inFlight;
+            this.leader = leader;
+        }
+
+        CachedProxyResponse getCachedResponse() {
+            return cachedResponse;
+        }
+
+        CompletableFuture<CachedProxyResponse> getInFlight() {
+            return inFlight;
+        }
+
+        boolean isLeader() {
+            return leader;
+        }
+
+    }
+
+    private static final class Partition {
+
+        private final String userCtxPath;
+        private final String path;
+
+        // In access order, so the eldest entry is the least recently used (guarded by this)
+        private final LinkedHashMap<String, CachedProxyResponse> entries = new LinkedHashMap<>(16, 0.75f, true);
+        private final Map<String, CompletableFuture<CachedProxyResponse>> inFlight = new ConcurrentHashMap<>();
+
+        private final LongAdder hits = new LongAdder();
+        private final LongAdder misses = new LongAdder();
+        private final LongAdder coalesced = new LongAdder();
+
+        private Partition(final String userCtxPath, final String path) {
+            this.userCtxPath = userCtxPath;
+            this.path = path;
+        }
+
+        private synchronized CachedProxyResponse get(final String key, final long nowMillis) {
+
+            final CachedProxyResponse response = entries.get(key);
+
+            if (response != null
+                    && response.isExpired(nowMillis)) {
+                entries.remove(key);
+                return null;
+            }
+
+            return response;
+        }
+
+        private synchronized void put(final String key, final CachedProxyResponse response, final int maxEntries) {
+
+            entries.put(key, response);
+
+            final Iterator<String> eldest = entries.keySet().iterator();
+
+            while (entries.size() > maxEntries) {
+                eldest.next();
+                eldest.remove();
+            }
+        }
+
+        private synchronized int size() {
+            return entries.size();
+        }
+
+    }
+
+}
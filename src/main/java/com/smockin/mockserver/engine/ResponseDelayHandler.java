@@ -0,0 +1,440 @@
+package com.smockin.mockserver.engine;
+
+import com.smockin.utils.GeneralUtils;
+import org.eclipse.jetty.server.Handler;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.handler.HandlerWrapper;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+import org.eclipse.jetty.util.thread.ThreadPool;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import spark.embeddedserver.EmbeddedServerFactory;
+import spark.embeddedserver.jetty.EmbeddedJettyFactory;
+import spark.embeddedserver.jetty.JettyServerFactory;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.DispatcherType;
+import javax.servlet.ReadListener;
+import javax.servlet.ServletException;
+import javax.servlet.ServletInputStream;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletRequestWrapper;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UnsupportedEncodingException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Jetty handler which sits in front of Spark, so that simulated response latency, or waiting on a response which
+ * is yet to be provided, does not hold a worker thread.
+ *
+ * Rather than sleeping, the mock server records the delay against the request (see delay()). The response Spark
+ * then writes is buffered, the request is put into async mode and the worker thread is released. Once the delay
+ * has elapsed, a shared timer dispatches the request back to Jetty, where the buffered response is sent.
+ *
+ * Rather than blocking, a request waiting on a future can be parked (see park()). Whatever response Spark then
+ * writes is discarded and the request is put into async mode. Once the future completes (or the time out elapses),
+ * the request is dispatched back through Spark in full, where the future is then available via resume(). As the
+ * request body may well have been consumed by then, it can be retained for this beforehand (see retainRequestBody()).
+ *
+ * Spark itself always serialises (and closes) the response on the calling thread, hence this being done
+ * here rather than in the route handlers.
+ */
+final class ResponseDelayHandler extends HandlerWrapper {
+
+    private static final Logger logger = LoggerFactory.getLogger(ResponseDelayHandler.class);
+
+    static final String DELAY_SUPPORTED_ATTR = "smockin.responseDelaySupported";
+    static final String DELAY_MILLIS_ATTR = "smockin.responseDelayMillis";
+    static final String RESUMED_FUTURE_ATTR = "smockin.resumedFuture";
+    private static final String DELAYED_BODY_ATTR = "smockin.responseDelayedBody";
+    private static final String PARKED_FUTURE_ATTR = "smockin.parkedFuture";
+    private static final String PARKED_TIMEOUT_ATTR = "smockin.parkedTimeOutMillis";
+    private static final String RETAINED_BODY_ATTR = "smockin.retainedRequestBody";
+
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(r -> {
+        final Thread thread = new Thread(r, "smockin-response-delay");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Delays the response to the given request by the specified period.
+     *
+     * Falls back to pausing the current thread, where the request was not received via this handler.
+     */
+    static void delay(final HttpServletRequest request, final long delayInMillis) {
+
+        if (delayInMillis <= 0) {
+            return;
+        }
+
+        if (request == null
+                || request.getAttribute(DELAY_SUPPORTED_ATTR) == null) {
+            GeneralUtils.checkForAndHandleSleep(delayInMillis);
+            return;
+        }
+
+        final Long currentDelay = (Long) request.getAttribute(DELAY_MILLIS_ATTR);
+
+        request.setAttribute(DELAY_MILLIS_ATTR, (currentDelay != null) ? (currentDelay + delayInMillis) : delayInMillis);
+    }
+
+    /**
+     * @return true if the given request can be parked (i.e was received via this handler).
+     */
+    static boolean canPark(final HttpServletRequest request) {
+        return request != null
+                && request.getAttribute(DELAY_SUPPORTED_ATTR) != null;
+    }
+
+    /**
+     * Parks the given request until the future completes or the time out elapses, after which the request is
+     * processed again. Whatever response is produced in the meantime is discarded.
+     */
+    static void park(final HttpServletRequest request, final CompletableFuture<?> future, final long timeOutInMillis) {
+        request.setAttribute(PARKED_FUTURE_ATTR, future);
+        request.setAttribute(PARKED_TIMEOUT_ATTR, timeOutInMillis);
+    }
+
+    /**
+     * Replays the given body to each subsequent processing of this request (i.e once resumed), as by then
+     * the original body may well have already been consumed.
+     */
+    static void retainRequestBody(final HttpServletRequest request, final byte[] body) {
+        request.setAttribute(RETAINED_BODY_ATTR, body);
+    }
+
+    static byte[] getRetainedRequestBody(final HttpServletRequest request) {
+        return (byte[]) request.getAttribute(RETAINED_BODY_ATTR);
+    }
+
+    static boolean isParked(final HttpServletRequest request) {
+        return request != null
+                && request.getAttribute(PARKED_FUTURE_ATTR) != null;
+    }
+
+    /**
+     * @return the future the given request was parked on, if it is now being processed again (otherwise null).
+     * This is only returned once.
+     */
+    @SuppressWarnings("unchecked")
+    static <T> CompletableFuture<T> resume(final HttpServletRequest request) {
+
+        if (request == null) {
+            return null;
+        }
+
+        final CompletableFuture<T> future = (CompletableFuture<T>) request.getAttribute(RESUMED_FUTURE_ATTR);
+
+        if (future != null) {
+            request.removeAttribute(RESUMED_FUTURE_ATTR);
+        }
+
+        return future;
+    }
+
+    static EmbeddedServerFactory embeddedServerFactory() {
+        return new EmbeddedJettyFactory(new DelayingJettyServerFactory());
+    }
+
+    @Override
+    public void handle(final String target,
+                       final Request baseRequest,
+                       final HttpServletRequest request,
+                       final HttpServletResponse response) throws IOException, ServletException {
+
+        if (DispatcherType.ASYNC.equals(baseRequest.getDispatcherType())
+                && request.getAttribute(DELAYED_BODY_ATTR) != null) {
+            sendDelayedResponse(baseRequest, request, response);
+            return;
+        }
+
+        if (DispatcherType.ASYNC.equals(baseRequest.getDispatcherType())
+                && request.getAttribute(PARKED_FUTURE_ATTR) != null) {
+            request.setAttribute(RESUMED_FUTURE_ATTR, request.getAttribute(PARKED_FUTURE_ATTR));
+            request.removeAttribute(PARKED_FUTURE_ATTR);
+            request.removeAttribute(PARKED_TIMEOUT_ATTR);
+        }
+
+        if (!request.isAsyncSupported()) {
+            super.handle(target, baseRequest, request, response);
+            return;
+        }
+
+        request.setAttribute(DELAY_SUPPORTED_ATTR, Boolean.TRUE);
+
+        final DeferrableResponse deferrableResponse = new DeferrableResponse(request, response);
+        final byte[] retainedBody = (byte[]) request.getAttribute(RETAINED_BODY_ATTR);
+
+        super.handle(target,
+                baseRequest,
+                (DispatcherType.ASYNC.equals(baseRequest.getDispatcherType()) && retainedBody != null)
+                        ? new RetainedBodyRequest(request, retainedBody)
+                        : request,
+                deferrableResponse);
+
+        if (request.getAttribute(PARKED_FUTURE_ATTR) != null) {
+            parkRequest(request, response);
+            return;
+        }
+
+        final ByteArrayOutputStream deferredBody = deferrableResponse.getDeferredBody();
+
+        if (deferredBody == null) {
+            return;
+        }
+
+        final long delayInMillis = (Long) request.getAttribute(DELAY_MILLIS_ATTR);
+
+        if (logger.isDebugEnabled()) {
+            logger.debug("Releasing worker thread whilst delaying response by " + delayInMillis + "ms");
+        }
+
+        request.setAttribute(DELAYED_BODY_ATTR, deferredBody);
+
+        final AsyncContext asyncContext = request.startAsync();
+        asyncContext.setTimeout(0);
+
+        timer.schedule(() -> {
+            try {
+                asyncContext.dispatch();
+            } catch (RuntimeException ex) {
+                // e.g. the server has since been stopped
+                logger.debug("Unable to dispatch delayed response", ex);
+            }
+        }, delayInMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private void parkRequest(final HttpServletRequest request, final HttpServletResponse response) {
+
+        final CompletableFuture<?> future = (CompletableFuture<?>) request.getAttribute(PARKED_FUTURE_ATTR);
+        final long timeOutInMillis = (Long) request.getAttribute(PARKED_TIMEOUT_ATTR);
+
+        if (logger.isDebugEnabled()) {
+            logger.debug("Releasing worker thread whilst request is parked for up to " + timeOutInMillis + "ms");
+        }
+
+        // Any delay is re-applied once resumed
+        request.removeAttribute(DELAY_MILLIS_ATTR);
+        response.reset();
+
+        final AsyncContext asyncContext = request.startAsync();
+        asyncContext.setTimeout(0);
+
+        final AtomicBoolean dispatched = new AtomicBoolean();
+
+        final Runnable dispatch = () -> {
+            if (dispatched.compareAndSet(false, true)) {
+                try {
+                    asyncContext.dispatch();
+                } catch (RuntimeException ex) {
+                    // e.g. the server has since been stopped
+                    logger.debug("Unable to dispatch parked request", ex);
+                }
+            }
+        };
+
+        final ScheduledFuture<?> timeOut = timer.schedule(dispatch, timeOutInMillis, TimeUnit.MILLISECONDS);
+
+        future.whenComplete((r, e) -> {
+            timeOut.cancel(false);
+            dispatch.run();
+        });
+    }
+
+    @Override
+    protected void doStop() throws Exception {
+        timer.shutdownNow();
+        super.doStop();
+    }
+
+    private void sendDelayedResponse(final Request baseRequest,
+                                     final HttpServletRequest request,
+                                     final HttpServletResponse response) throws IOException {
+
+        final ByteArrayOutputStream deferredBody = (ByteArrayOutputStream) request.getAttribute(DELAYED_BODY_ATTR);
+
+        request.removeAttribute(DELAYED_BODY_ATTR);
+        baseRequest.setHandled(true);
+
+        deferredBody.writeTo(response.getOutputStream());
+    }
+
+    /*
+        Buffers the response body, but only where a delay has been requested (or the request parked) by the time it is written.
+        All other calls (status, headers, etc) pass straight through to the underlying response.
+    */
+    private static final class DeferrableResponse extends HttpServletResponseWrapper {
+
+        private final HttpServletRequest request;
+        private ByteArrayOutputStream deferredBody;
+        private ServletOutputStream deferredOutputStream;
+
+        private DeferrableResponse(final HttpServletRequest request, final HttpServletResponse response) {
+            super(response);
+            this.request = request;
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+
+            if (deferredOutputStream != null) {
+                return deferredOutputStream;
+            }
+
+            if (request.getAttribute(DELAY_MILLIS_ATTR) == null
+                    && request.getAttribute(PARKED_FUTURE_ATTR) == null) {
+                return super.getOutputStream();
+            }
+
+            deferredBody = new ByteArrayOutputStream();
+            deferredOutputStream = new BufferedServletOutputStream(deferredBody);
+
+            return deferredOutputStream;
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+
+            // Would otherwise commit the response ahead of the delay
+            if (deferredOutputStream == null) {
+                super.flushBuffer();
+            }
+        }
+
+        private ByteArrayOutputStream getDeferredBody() {
+            return deferredBody;
+        }
+    }
+
+    private static final class RetainedBodyRequest extends HttpServletRequestWrapper {
+
+        private final byte[] body;
+
+        private RetainedBodyRequest(final HttpServletRequest request, final byte[] body) {
+            super(request);
+            this.body = body;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+
+            final ByteArrayInputStream bodyStream = new ByteArrayInputStream(body);
+
+            return new ServletInputStream() {
+
+                @Override
+                public int read() {
+                    return bodyStream.read();
+                }
+
+                @Override
+                public int read(final byte[] b, final int off, final int len) {
+                    return bodyStream.read(b, off, len);
+                }
+
+                @Override
+                public boolean isFinished() {
+                    return bodyStream.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(final ReadListener readListener) {
+                    throw new UnsupportedOperationException();
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() throws UnsupportedEncodingException {
+            return new BufferedReader(new InputStreamReader(new ByteArrayInputStream(body),
+                    (getCharacterEncoding() != null) ? getCharacterEncoding() : StandardCharsets.ISO_8859_1.name()));
+        }
+    }
+
+    private static final class BufferedServletOutputStream extends ServletOutputStream {
+
+        private final ByteArrayOutputStream buffer;
+
+        private BufferedServletOutputStream(final ByteArrayOutputStream buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public void write(final int b) {
+            buffer.write(b);
+        }
+
+        @Override
+        public void write(final byte[] b, final int off, final int len) {
+            buffer.write(b, off, len);
+        }
+
+        @Override
+        public boolean isReady() {
+            return true;
+        }
+
+        @Override
+        public void setWriteListener(final WriteListener writeListener) {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    /*
+        Builds the same server as Spark's own default factory, but with this handler wrapped around whichever
+        handler(s) Spark then applies.
+    */
+    private static final class DelayingJettyServerFactory implements JettyServerFactory {
+
+        @Override
+        public Server create(final int maxThreads, final int minThreads, final int threadTimeoutMillis) {
+
+            if (maxThreads > 0) {
+                return create(new QueuedThreadPool(
+                        maxThreads,
+                        (minThreads > 0) ? minThreads : 8,
+                        (threadTimeoutMillis > 0) ? threadTimeoutMillis : 60000));
+            }
+
+            return create(null);
+        }
+
+        @Override
+        public Server create(final ThreadPool threadPool) {
+
+            return new Server(threadPool) {
+
+                @Override
+                public void setHandler(final Handler handler) {
+
+                    final ResponseDelayHandler responseDelayHandler = new ResponseDelayHandler();
+                    responseDelayHandler.setHandler(handler);
+
+                    super.setHandler(responseDelayHandler);
+                }
+            };
+        }
+    }
+
+}
@@ -0,0 +1,157 @@
+package com.smockin.mockserver.engine;
+
+import com.smockin.admin.persistence.dao.RestfulMockDAO;
+import com.smockin.admin.persistence.enums.RecordStatusEnum;
+import com.smockin.admin.persistence.enums.RestMethodEnum;
+import com.smockin.admin.persistence.enums.RestMockTypeEnum;
+import com.smockin.admin.persistence.enums.SmockinUserRoleEnum;
+import com.smockin.mockserver.service.bean.RestfulMockSnapshot;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+/**
+ * Immutable in memory route table of all ACTIVE HTTP based mocks, used by the mock server to
+ * resolve inbound requests without a DB round trip.
+ *
+ * Each mock is held as a RestfulMockSnapshot, so nothing served from here is attached to a persistence context.
+ *
+ * The table is rebuilt in full and swapped atomically whenever the mock server starts or
+ * a mock is created, updated or deleted.
+ */
+@Service
+public class RestfulMockRouteCache {
+
+    private final Logger logger = LoggerFactory.getLogger(RestfulMockRouteCache.class);
+
+    static final List<RestMockTypeEnum> HTTP_MOCK_TYPES = Collections.unmodifiableList(Arrays.asList(
+            RestMockTypeEnum.PROXY_SSE,
+            RestMockTypeEnum.PROXY_HTTP,
+            RestMockTypeEnum.SEQ,
+            RestMockTypeEnum.RULE,
+            RestMockTypeEnum.STATEFUL,
+            RestMockTypeEnum.CUSTOM_JS));
+
+    @Autowired
+    private RestfulMockDAO restfulMockDAO;
+
+    private final Object rebuildMonitor = new Object();
+    private final AtomicReference<RouteTable> routeTableRef = new AtomicReference<>(new RouteTable(0, Collections.emptyMap(), Collections.emptyMap()));
+
+    @Transactional(propagation = Propagation.REQUIRES_NEW, readOnly = true)
+    public void rebuild() {
+        logger.debug("rebuild called");
+
+        // Serialised so the last build to complete always reflects the latest committed state.
+        synchronized (rebuildMonitor) {
+
+            final List<RestfulMockSnapshot> activeMocks = restfulMockDAO.findAllByStatus(RecordStatusEnum.ACTIVE)
+                    .stream()
+                    .filter(m ->
+                            HTTP_MOCK_TYPES.contains(m.getMockType()))
+                    .map(m ->
+                            RestfulMockSnapshot.from(m))
+                    .collect(Collectors.toList());
+
+            load(activeMocks);
+        }
+
+    }
+
+    void load(final List<RestfulMockSnapshot> activeMocks) {
+
+        final RouteTable current = routeTableRef.get();
+
+        final RouteTable routeTable = new RouteTable(current.getVersion() + 1,
+                buildRoutes(activeMocks, false),
+                buildRoutes(activeMocks, true));
+
+        routeTableRef.set(routeTable);
+
+        if (logger.isDebugEnabled()) {
+            logger.debug("Route table version " + routeTable.getVersion() + " loaded with " + activeMocks.size() + " mocks");
+        }
+
+    }
+
+    public long getVersion() {
+        return routeTableRef.get().getVersion();
+    }
+
+    public Optional<RestfulMockSnapshot> find(final RestMethodEnum method, final String path, final boolean isMultiUserMode) {
+
+        return match(method, path, isMultiUserMode)
+                .map(PathMatchTrie.PathMatch::getValue);
+    }
+
+    /**
+     * As per find, but also returns the path vars captured whilst matching, keyed relative to the mock's own path.
+     */
+    public Optional<PathMatchTrie.PathMatch<RestfulMockSnapshot>> match(final RestMethodEnum method, final String path, final boolean isMultiUserMode) {
+
+        final RouteTable routeTable = routeTableRef.get();
+
+        final PathMatchTrie<RestfulMockSnapshot> routes = (isMultiUserMode)
+                ? routeTable.getMultiUserRoutes().get(method)
+                : routeTable.getSingleUserRoutes().get(method);
+
+        if (routes == null) {
+            return Optional.empty();
+        }
+
+        return routes.match(path);
+    }
+
+    Map<RestMethodEnum, PathMatchTrie<RestfulMockSnapshot>> buildRoutes(final List<RestfulMockSnapshot> activeMocks, final boolean isMultiUserMode) {
+
+        final Map<RestMethodEnum, PathMatchTrie.Builder<RestfulMockSnapshot>> builders = new EnumMap<>(RestMethodEnum.class);
+
+        // Mocks are added in initialisation order, so this decides between mocks sharing an identical matching path
+        activeMocks
+            .stream()
+            .filter(m ->
+                    isMultiUserMode || SmockinUserRoleEnum.SYS_ADMIN.equals(m.getUserRole()))
+            .forEach(m ->
+                builders.computeIfAbsent(m.getMethod(), k -> PathMatchTrie.builder())
+                        .add((isMultiUserMode) ? m.getUserPath() : m.getPath(), m, countCtxPathSegments(m, isMultiUserMode)));
+
+        final Map<RestMethodEnum, PathMatchTrie<RestfulMockSnapshot>> routes = new EnumMap<>(RestMethodEnum.class);
+
+        builders.forEach((k, v) ->
+                routes.put(k, v.build()));
+
+        return Collections.unmodifiableMap(routes);
+    }
+
+    // i.e. the user's ctx path, which prefixes the paths of non admin mocks in multi user mode
+    private int countCtxPathSegments(final RestfulMockSnapshot mock, final boolean isMultiUserMode) {
+
+        return (isMultiUserMode && !StringUtils.equals(mock.getUserPath(), mock.getPath()))
+                ? 1
+                : 0;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    static final class RouteTable {
+        private final long version;
+        private final Map<RestMethodEnum, PathMatchTrie<RestfulMockSnapshot>> singleUserRoutes;
+        private final Map<RestMethodEnum, PathMatchTrie<RestfulMockSnapshot>> multiUserRoutes;
+    }
+
+}
@@ -0,0 +1,65 @@
+package com.smockin.mockserver.engine;
+
+import com.smockin.admin.persistence.dao.SmockinUserDAO;
+import com.smockin.admin.persistence.entity.SmockinUser;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.annotation.PostConstruct;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+/**
+ * In memory index of every user's ctx path, used by the multi user mock server to resolve which user an inbound
+ * request belongs to without a DB round trip.
+ *
+ * The index is always rebuilt in full from the DB (and swapped atomically) once any change to the users has been
+ * committed.
+ */
+@Service
+public class UserCtxPathIndex {
+
+    @Autowired
+    private SmockinUserDAO smockinUserDAO;
+
+    /*
+        Key: SmockinUser.ctxPath
+        Value: SmockinUser.id
+        (Copy on write, as this is read on every multi user mock server call)
+    */
+    private final Object rebuildMonitor = new Object();
+    private final AtomicReference<Map<String, Long>> indexRef = new AtomicReference<>(Collections.emptyMap());
+
+    @PostConstruct
+    public void init() {
+        rebuild();
+    }
+
+    @Transactional(propagation = Propagation.REQUIRES_NEW, readOnly = true)
+    public void rebuild() {
+
+        // Serialised so the last rebuild to complete always reflects the latest committed state.
+        synchronized (rebuildMonitor) {
+
+            indexRef.set(
+                smockinUserDAO
+                    .findAll()
+                    .stream()
+                    .collect(Collectors.collectingAndThen(
+                            Collectors.toMap(SmockinUser::getCtxPath, SmockinUser::getId, (u1, u2) -> u1),
+                            Collections::unmodifiableMap))
+            );
+        }
+
+    }
+
+    public boolean contains(final String ctxPath) {
+        return (ctxPath != null)
+                && indexRef.get().containsKey(ctxPath);
+    }
+
+}
@@ -0,0 +1,119 @@
+package com.smockin.mockserver.engine;
+
+import com.smockin.admin.dto.UserKeyValueDataDTO;
+import com.smockin.admin.persistence.dao.UserKeyValueDataDAO;
+import com.smockin.admin.persistence.entity.UserKeyValueData;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.annotation.PostConstruct;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
+
+/**
+ * In memory copy of every user's KVPs, used by JS and templated mock responses to look these up without a DB round trip.
+ *
+ * A user's KVPs are reloaded from the DB (and swapped atomically) once any change to them has been committed.
+ */
+@Service
+public class UserKeyValueDataCache {
+
+    @Autowired
+    private UserKeyValueDataDAO userKeyValueDataDAO;
+
+    /*
+        Key: SmockinUser.id
+        Value: the user's KVPs, keyed by lower case key (as keys are looked up case insensitively)
+        (Copy on write, as this is read by every JS or templated mock response that uses a KVP)
+    */
+    private final Object reloadMonitor = new Object();
+    private final AtomicReference<Map<Long, Map<String, UserKeyValueDataDTO>>> kvpCacheRef = new AtomicReference<>(Collections.emptyMap());
+
+    @PostConstruct
+    public void init() {
+
+        final Map<Long, Map<String, UserKeyValueDataDTO>> cache = new HashMap<>();
+
+        userKeyValueDataDAO
+                .findAllWithUser()
+                .forEach(kvp ->
+                        cache.computeIfAbsent(kvp.getCreatedBy().getId(), k -> new HashMap<>())
+                                .putIfAbsent(toCacheKey(kvp.getKey()), toDTO(kvp)));
+
+        kvpCacheRef.set(Collections.unmodifiableMap(cache
+                .entrySet()
+                .stream()
+                .collect(Collectors.toMap(Map.Entry::getKey, e -> Collections.unmodifiableMap(e.getValue())))));
+
+    }
+
+    public UserKeyValueDataDTO find(final long userId, final String key) {
+        return kvpCacheRef.get()
+                .getOrDefault(userId, Collections.emptyMap())
+                .get(toCacheKey(key));
+    }
+
+    /**
+     * Called once a change to the user's KVPs has been committed.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW, readOnly = true)
+    public void reload(final long userId) {
+
+        // Serialised so the last reload to complete always reflects the latest committed state.
+        synchronized (reloadMonitor) {
+
+            final Map<String, UserKeyValueDataDTO> userKvps = new HashMap<>();
+
+            userKeyValueDataDAO
+                    .findAllByUser(userId)
+                    .forEach(kvp ->
+                            userKvps.putIfAbsent(toCacheKey(kvp.getKey()), toDTO(kvp)));
+
+            update(cache -> {
+
+                if (userKvps.isEmpty()) {
+                    cache.remove(userId);
+                } else {
+                    cache.put(userId, Collections.unmodifiableMap(userKvps));
+                }
+
+                return cache;
+            });
+        }
+
+    }
+
+    /**
+     * Called once the user has been deleted.
+     */
+    public void evict(final long userId) {
+
+        synchronized (reloadMonitor) {
+            update(cache -> {
+                cache.remove(userId);
+                return cache;
+            });
+        }
+
+    }
+
+    private String toCacheKey(final String key) {
+        return key.toLowerCase();
+    }
+
+    private void update(final UnaryOperator<Map<Long, Map<String, UserKeyValueDataDTO>>> update) {
+        kvpCacheRef.updateAndGet(cache ->
+                Collections.unmodifiableMap(update.apply(new HashMap<>(cache))));
+    }
+
+    private UserKeyValueDataDTO toDTO(final UserKeyValueData kvp) {
+        return new UserKeyValueDataDTO(kvp.getExtId(), kvp.getKey(), kvp.getValue());
+    }
+
+}
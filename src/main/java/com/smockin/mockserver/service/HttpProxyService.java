@@ -2,10 +2,12 @@ package com.smockin.mockserver.service;
 
 import com.smockin.admin.exception.RecordNotFoundException;
 import com.smockin.admin.exception.ValidationException;
-import com.smockin.admin.persistence.entity.RestfulMock;
+import com.smockin.mockserver.service.bean.RestfulMockSnapshot;
 import com.smockin.mockserver.service.dto.HttpProxiedDTO;
 import com.smockin.mockserver.service.dto.RestfulResponseDTO;
 
+import java.util.concurrent.CompletableFuture;
+
 /**
  * Created by mgallina.
  */
@@ -13,7 +15,9 @@ public interface HttpProxyService {
 
     int MAX_TIMEOUT_MILLIS = 1800000; // 30 mins
 
-    RestfulResponseDTO waitForResponse(final String requestPath, final RestfulMock mock);
+    RestfulResponseDTO waitForResponse(final String requestPath, final RestfulMockSnapshot mock);
+    CompletableFuture<RestfulResponseDTO> awaitResponse(final String requestPath, final RestfulMockSnapshot mock);
+    long getTimeOutInMillis(final RestfulMockSnapshot mock);
     void addResponse(final String externalId, final HttpProxiedDTO dto, final String token) throws RecordNotFoundException, ValidationException;
     void clearSession(final String externalId, final String token) throws RecordNotFoundException, ValidationException;
     void clearAllSessions();
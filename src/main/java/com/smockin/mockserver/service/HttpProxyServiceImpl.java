@@ -8,6 +8,7 @@ import com.smockin.admin.persistence.enums.RestMethodEnum;
 import com.smockin.admin.service.utils.UserTokenServiceUtils;
 import com.smockin.mockserver.engine.MockedRestServerEngineUtils;
 import com.smockin.mockserver.service.bean.ProxiedKey;
+import com.smockin.mockserver.service.bean.RestfulMockSnapshot;
 import com.smockin.mockserver.service.dto.HttpProxiedDTO;
 import com.smockin.mockserver.service.dto.RestfulResponseDTO;
 import org.slf4j.Logger;
@@ -16,26 +17,32 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.*;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.locks.Condition;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
 
 
 /**
  * Created by mgallina on 09/08/17.
  */
 @Service
-@Transactional
 public class HttpProxyServiceImpl implements HttpProxyService {
 
     private final Logger logger = LoggerFactory.getLogger(HttpProxyServiceImpl.class);
 
-    // TODO Should add TTL and scheduled sweeper to stop the synchronizedProxyResponsesMap from building up.
-    private Map<ProxiedKey, List<HttpProxiedDTO>> synchronizedProxyResponsesMap = new HashMap<>();
+    // Queues not used within this period (and with no one waiting on them) are evicted
+    static final long QUEUE_TTL_MILLIS = MAX_TIMEOUT_MILLIS;
+    private static final long SWEEP_INTERVAL_MILLIS = 60000;
 
-    private final ReentrantLock lock = new ReentrantLock();
-    private final Condition condition = lock.newCondition();
+    private final Map<ProxiedKey, ProxiedResponseQueue> proxiedResponseQueues = new ConcurrentHashMap<>();
+    private final AtomicLong lastSweepMillis = new AtomicLong(System.currentTimeMillis());
 
     @Autowired
     private RestfulMockDAO restfulMockDAO;
@@ -47,52 +54,60 @@ public class HttpProxyServiceImpl implements HttpProxyService {
     private MockedRestServerEngineUtils mockedRestServerEngineUtils;
 
     @Override
-    public RestfulResponseDTO waitForResponse(final String requestPath, final RestfulMock mock) {
+    public RestfulResponseDTO waitForResponse(final String requestPath, final RestfulMockSnapshot mock) {
 
-        try {
+        final CompletableFuture<RestfulResponseDTO> future = awaitResponse(requestPath, mock);
 
-            lock.lock();
+        try {
 
-            final List<HttpProxiedDTO> responses = synchronizedProxyResponsesMap.get(new ProxiedKey(requestPath, mock.getMethod()));
+            return future.get(getTimeOutInMillis(mock), TimeUnit.MILLISECONDS);
 
-            if (responses == null || responses.isEmpty()) {
+        } catch (TimeoutException ex) {
 
-                // No matching response was found, so wait until one is added to the synchronizedProxyResponsesMap.
+            if (logger.isDebugEnabled()) {
+                logger.debug("The wait for '" + mock.getMethod() + " " + requestPath + "' has timed out");
+            }
 
-                final long timeOut = (mock.getProxyTimeOutInMillis() > 0)?mock.getProxyTimeOutInMillis():MAX_TIMEOUT_MILLIS;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            logger.error("Error whilst waiting for proxied mock response from queue", ex);
+        } catch (ExecutionException ex) {
+            logger.error("Error whilst waiting for proxied mock response from queue", ex);
+        }
 
-                if (!condition.await(timeOut, TimeUnit.MILLISECONDS)) {
+        // Give up our place in the queue, unless a response has arrived in the meantime
+        future.complete(null);
 
-                    // The wait has timed out
+        return future.getNow(null);
+    }
 
-                    if (logger.isDebugEnabled()) {
-                        logger.debug("The wait for '" + mock.getMethod() + " " + requestPath + "' has timed out");
-                    }
+    @Override
+    public CompletableFuture<RestfulResponseDTO> awaitResponse(final String requestPath, final RestfulMockSnapshot mock) {
 
-                    return null;
-                }
+        sweepIdleQueues();
 
-                // Signal received i.e something has been added to the synchronizedProxyResponsesMap, so let's check if it's what this request wants.
-                return waitForResponse(requestPath, mock);
+        final ProxiedKey key = new ProxiedKey(requestPath, mock.getMethod());
 
-            } else {
+        while (true) {
 
-                // A matching path was found, so consume/remove the element from the synchronizedProxyResponsesMap, release the lock and return response.
+            final CompletableFuture<RestfulResponseDTO> future =
+                    proxiedResponseQueues.computeIfAbsent(key, k -> new ProxiedResponseQueue())
+                            .take();
 
-                final HttpProxiedDTO proxiedResponse = responses.remove(0);
-                return new RestfulResponseDTO(proxiedResponse.getHttpStatusCode(), proxiedResponse.getResponseContentType(), proxiedResponse.getBody(), new HashSet<>());
+            // Otherwise the queue was evicted whilst being fetched, so try again
+            if (future != null) {
+                return future;
             }
-
-        } catch (InterruptedException ex) {
-            logger.error("Error whilst waiting for proxied mock response from queue", ex);
-        } finally {
-            lock.unlock();
         }
+    }
 
-        return null;
+    @Override
+    public long getTimeOutInMillis(final RestfulMockSnapshot mock) {
+        return (mock.getProxyTimeOutInMillis() > 0) ? mock.getProxyTimeOutInMillis() : MAX_TIMEOUT_MILLIS;
     }
 
     @Override
+    @Transactional(readOnly = true)
     public void addResponse(final String externalId, final HttpProxiedDTO dto, final String token) throws RecordNotFoundException, ValidationException {
 
         final RestfulMock mock = loadRestMock(externalId);
@@ -101,58 +116,72 @@ public class HttpProxyServiceImpl implements HttpProxyService {
 
         final String path = mockedRestServerEngineUtils.buildUserPath(mock);
 
-        try {
-
-            lock.lock();
-
-            final ProxiedKey key = new ProxiedKey(path, dto.getMethod());
-            final List<HttpProxiedDTO> responses = synchronizedProxyResponsesMap.getOrDefault(key, new ArrayList<>());
-            responses.add(dto);
-
-            synchronizedProxyResponsesMap.put(key, responses);
+        sweepIdleQueues();
 
-            if (logger.isDebugEnabled())
-                logger.debug("Added dto " + path + ". Responses size is " + responses.size());
+        final ProxiedKey key = new ProxiedKey(path, dto.getMethod());
+        final RestfulResponseDTO response = new RestfulResponseDTO(dto.getHttpStatusCode(), dto.getResponseContentType(), dto.getBody(), new HashSet<>());
 
-            // Signal ALL threads waiting on a proxied response to check synchronizedProxyResponsesMap.
-            condition.signalAll();
-
-        } finally {
-            lock.unlock();
+        // Hands the response straight to the longest waiting caller for this key (if any)
+        while (!proxiedResponseQueues.computeIfAbsent(key, k -> new ProxiedResponseQueue()).offer(response)) {
+            // Queue was evicted whilst being fetched, so try again
         }
 
+        if (logger.isDebugEnabled())
+            logger.debug("Added dto " + path + ". Responses size is " + proxiedResponseQueues.get(key).size());
+
     }
 
     @Override
+    @Transactional(readOnly = true)
     public void clearSession(final String externalId, final String token) throws RecordNotFoundException, ValidationException {
 
         final RestfulMock mock = loadRestMock(externalId);
 
         userTokenServiceUtils.validateRecordOwner(mock.getCreatedBy(), token);
 
-        try {
-            lock.lock();
+        final String path = mockedRestServerEngineUtils.buildUserPath(mock);
 
-            Arrays.stream(RestMethodEnum.values())
-                    .forEach( rm -> synchronizedProxyResponsesMap.remove(new ProxiedKey(mockedRestServerEngineUtils.buildUserPath(mock), rm)));
-
-        } finally {
-            lock.unlock();
-        }
+        Arrays.stream(RestMethodEnum.values())
+                .map(rm -> proxiedResponseQueues.get(new ProxiedKey(path, rm)))
+                .filter(Objects::nonNull)
+                .forEach(ProxiedResponseQueue::clearResponses);
 
     }
 
     @Override
     public void clearAllSessions() {
 
-        try {
-            lock.lock();
+        // Any callers still waiting keep their place, so the queues themselves are left for the sweeper
+        proxiedResponseQueues.values()
+                .forEach(ProxiedResponseQueue::clearResponses);
+
+    }
 
-            synchronizedProxyResponsesMap.clear();
-        } finally {
-            lock.unlock();
+    void sweepIdleQueues() {
+
+        final long now = System.currentTimeMillis();
+        final long lastSweep = lastSweepMillis.get();
+
+        if ((now - lastSweep) < SWEEP_INTERVAL_MILLIS
+                || !lastSweepMillis.compareAndSet(lastSweep, now)) {
+            return;
         }
 
+        evictQueuesIdleSince(now - QUEUE_TTL_MILLIS);
+    }
+
+    void evictQueuesIdleSince(final long cutOffMillis) {
+
+        proxiedResponseQueues.forEach((k, v) -> {
+            if (v.retireIfIdleSince(cutOffMillis)) {
+                proxiedResponseQueues.remove(k, v);
+            }
+        });
+
+    }
+
+    int getQueueCount() {
+        return proxiedResponseQueues.size();
     }
 
     RestfulMock loadRestMock(final String externalId) throws RecordNotFoundException {
@@ -1,6 +1,7 @@
 package com.smockin.mockserver.service;
 
 import com.smockin.mockserver.exception.InboundParamMatchException;
+import com.smockin.mockserver.service.bean.ResponseTemplate;
 import spark.Request;
 
 /**
@@ -15,4 +16,10 @@ public interface InboundParamMatchService {
                                          final String userCtxPath,
                                          final long mockOwnerUserId) throws InboundParamMatchException;
 
+    String enrichWithInboundParamMatches(final Request req,
+                                         final String mockPath,
+                                         final ResponseTemplate responseTemplate,
+                                         final String userCtxPath,
+                                         final long mockOwnerUserId) throws InboundParamMatchException;
+
 }
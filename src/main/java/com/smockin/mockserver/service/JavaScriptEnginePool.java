@@ -0,0 +1,152 @@
+package com.smockin.mockserver.service;
+
+import jdk.nashorn.api.scripting.NashornScriptEngineFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.script.Bindings;
+import javax.script.Compilable;
+import javax.script.CompiledScript;
+import javax.script.ScriptContext;
+import javax.script.ScriptEngine;
+import javax.script.ScriptException;
+import javax.script.SimpleScriptContext;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Runs scripts on a single, shared Nashorn engine, bounding how many of these can run at once. Scripts (including the
+ * JS extensions) are compiled once by this engine and can then be run against any global.
+ *
+ * Each run is given a fresh global (with the JS extensions loaded and the security restrictions applied), so nothing a
+ * script does to its globals (or their prototypes) can be seen by any script run after it.
+ */
+final class JavaScriptEnginePool {
+
+    private final Logger logger = LoggerFactory.getLogger(JavaScriptEnginePool.class);
+
+    private static final long BORROW_TIMEOUT_MILLIS = 30000;
+
+    private final ScriptEngine engine;
+    private final List<CompiledScript> extensions;
+    private final Semaphore permits;
+    private final Object compileMonitor = new Object();
+
+    JavaScriptEnginePool(final String[] engineArgs, final List<String> extensionFilePaths, final int maxSize) {
+        this.engine = new NashornScriptEngineFactory()
+                .getScriptEngine(
+                        engineArgs,
+                        null,
+                        (s) -> false);
+        this.extensions = compileEngineExtensions(extensionFilePaths);
+        this.permits = new Semaphore(maxSize);
+    }
+
+    CompiledScript compile(final String js) throws ScriptException {
+
+        synchronized (compileMonitor) {
+            return ((Compilable) engine).compile(js);
+        }
+    }
+
+    <T> T eval(final CompiledScript script,
+               final Map<String, Object> values,
+               final Function<Object, T> resultHandler) throws ScriptException {
+
+        acquire();
+
+        try {
+            return resultHandler.apply(script.eval(buildContext(values)));
+        } finally {
+            permits.release();
+        }
+    }
+
+    <T> T eval(final String js,
+               final Map<String, Object> values,
+               final Function<Object, T> resultHandler) throws ScriptException {
+
+        acquire();
+
+        try {
+            return resultHandler.apply(engine.eval(js, buildContext(values)));
+        } finally {
+            permits.release();
+        }
+    }
+
+    private void acquire() throws ScriptException {
+
+        try {
+
+            if (!permits.tryAcquire(BORROW_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                throw new ScriptException("Timed out waiting for an available JavaScript engine");
+            }
+
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new ScriptException("Interrupted whilst waiting for an available JavaScript engine");
+        }
+    }
+
+    private ScriptContext buildContext(final Map<String, Object> values) {
+
+        final Bindings bindings = engine.createBindings();
+        final ScriptContext context = new SimpleScriptContext();
+        context.setBindings(bindings, ScriptContext.ENGINE_SCOPE);
+
+        loadEngineExtensions(context);
+        applySecurityRestrictions(bindings);
+
+        if (values != null) {
+            bindings.putAll(values);
+        }
+
+        return context;
+    }
+
+    private List<CompiledScript> compileEngineExtensions(final List<String> extensionFilePaths) {
+
+        final List<CompiledScript> compiled = new ArrayList<>();
+
+        for (String path : extensionFilePaths) {
+            try (Reader reader = new FileReader(path)) {
+                compiled.add(((Compilable) engine).compile(reader));
+            } catch (ScriptException | IOException e) {
+                logger.error("Error loading JS extensions", e);
+            }
+        }
+
+        return compiled;
+    }
+
+    private void loadEngineExtensions(final ScriptContext context) {
+
+        for (CompiledScript extension : extensions) {
+            try {
+                extension.eval(context);
+            } catch (ScriptException e) {
+                logger.error("Error loading JS extensions", e);
+            }
+        }
+
+    }
+
+    // A few security restrictions...
+    private void applySecurityRestrictions(final Bindings bindings) {
+
+        bindings.remove("exit");
+        bindings.remove("java");
+        bindings.remove("javax");
+        bindings.remove("sun");
+
+    }
+
+}
@@ -1,6 +1,6 @@
 package com.smockin.mockserver.service;
 
-import com.smockin.admin.persistence.entity.RestfulMock;
+import com.smockin.mockserver.service.bean.RestfulMockSnapshot;
 import com.smockin.mockserver.service.dto.RestfulResponseDTO;
 import spark.Request;
 
@@ -29,9 +29,13 @@ public interface JavaScriptResponseHandler {
                 + " headers : {}"
                 + "};";
 
+    // Request data and KVPs are passed in as JSON strings via the engine bindings, rather than concatenated into the script
+    String requestBindingName = "smockinRequestJson";
+    String requestObjectFromBindings = " var request = JSON.parse(" + requestBindingName + ");";
+
     String keyValuePairFindFuncName = "lookUpKvp";
-    String defaultKeyValuePairStoreObjectStart = "var kvpStore = ";
-    String defaultKeyValuePairStoreObject = defaultKeyValuePairStoreObjectStart + "{};";
+    String keyValuePairStoreBindingName = "smockinKvpStoreJson";
+    String keyValuePairStoreObjectFromBindings = " var kvpStore = JSON.parse(" + keyValuePairStoreBindingName + ");";
 
     String keyValuePairFindFunc = "function " + keyValuePairFindFuncName + "(k) {"
                         + "var result = kvpStore[k];"
@@ -46,6 +50,6 @@ public interface JavaScriptResponseHandler {
             + " response;"
             + "}";
 
-    RestfulResponseDTO executeUserResponse(final Request req, final RestfulMock mock);
+    RestfulResponseDTO executeUserResponse(final Request req, final RestfulMockSnapshot mock);
 
 }
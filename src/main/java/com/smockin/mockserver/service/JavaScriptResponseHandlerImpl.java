@@ -1,12 +1,11 @@
 package com.smockin.mockserver.service;
 
 import com.smockin.admin.dto.UserKeyValueDataDTO;
-import com.smockin.admin.persistence.entity.RestfulMock;
 import com.smockin.admin.service.SmockinUserService;
 import com.smockin.admin.service.UserKeyValueDataService;
+import com.smockin.mockserver.service.bean.RestfulMockSnapshot;
 import com.smockin.mockserver.service.dto.RestfulResponseDTO;
 import com.smockin.utils.GeneralUtils;
-import jdk.nashorn.api.scripting.NashornScriptEngineFactory;
 import jdk.nashorn.api.scripting.ScriptObjectMirror;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.http.client.utils.URLEncodedUtils;
@@ -15,23 +14,21 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 import spark.Request;
 
-import javax.script.Bindings;
-import javax.script.ScriptContext;
-import javax.script.ScriptEngine;
+import javax.script.CompiledScript;
 import javax.script.ScriptException;
-import java.io.FileNotFoundException;
-import java.io.FileReader;
 import java.nio.charset.Charset;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
-@Transactional
 public class JavaScriptResponseHandlerImpl implements JavaScriptResponseHandler {
 
     private final Logger logger = LoggerFactory.getLogger(JavaScriptResponseHandlerImpl.class);
@@ -45,21 +42,35 @@ public class JavaScriptResponseHandlerImpl implements JavaScriptResponseHandler
     private final static String CARRIAGE_RETURN_REGEX = "\\r\\n|\\r|\\n";
     private final String extensionsDir = "js-extensions/";
 
-    public RestfulResponseDTO executeUserResponse(final Request req, final RestfulMock mock) {
-        logger.debug("executeUserResponse called");
+    private final JavaScriptEnginePool enginePool = new JavaScriptEnginePool(
+            engineSecurityArgs,
+            Collections.singletonList(getExtensionsFilePath("from-xml.min.js")), // XML support
+            Math.max(2, Runtime.getRuntime().availableProcessors()));
+
+    static final int MAX_COMPILED_HANDLERS = 1000;
 
-        Object engineResponse;
+    // Keyed by mock extId and replaced whenever the mock's JS changes. Bounded, evicting the least recently used first,
+    // so the handlers of deleted (or no longer JS) mocks do not build up.
+    private final Map<String, CompiledHandler> compiledHandlers = Collections.synchronizedMap(
+            new LinkedHashMap<String, CompiledHandler>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(final Map.Entry<String, CompiledHandler> eldest) {
+                    return size() > MAX_COMPILED_HANDLERS;
+                }
+            });
+
+    public RestfulResponseDTO executeUserResponse(final Request req, final RestfulMockSnapshot mock) {
+        logger.debug("executeUserResponse called");
 
         try {
 
-            engineResponse = executeJS(
-                    defaultRequestObject
-                        + populateRequestObjectWithInbound(req, mock.getPath(), mock.getCreatedBy().getCtxPath())
-                        + populateKVPs(req, mock)
-                        + keyValuePairFindFunc
-                        + defaultResponseObject
-                        + userResponseFunctionInvoker
-                        + mock.getJavaScriptHandler().getSyntax());
+            final CompiledHandler handler = loadCompiledHandler(mock);
+
+            final Map<String, Object> values = new HashMap<>();
+            values.put(requestBindingName, GeneralUtils.serialiseJson(buildRequestObject(req, mock.getPath(), mock.getUserCtxPath())));
+            values.put(keyValuePairStoreBindingName, GeneralUtils.serialiseJson(populateKVPs(req, mock, handler.getKvpSource())));
+
+            return enginePool.eval(handler.getScript(), values, this::toResponse);
 
         } catch (ScriptException ex) {
 
@@ -68,6 +79,11 @@ public class JavaScriptResponseHandlerImpl implements JavaScriptResponseHandler
                     "Looks like there is an issue with the Javascript driving this mock " + ex.getMessage());
         }
 
+    }
+
+    // Called whilst the engine is still held, so the script objects are not read once handed to another request
+    private RestfulResponseDTO toResponse(final Object engineResponse) {
+
         if (!(engineResponse instanceof ScriptObjectMirror)) {
             return new RestfulResponseDTO(500,
                     "text/plain",
@@ -83,52 +99,52 @@ public class JavaScriptResponseHandlerImpl implements JavaScriptResponseHandler
                 convertResponseHeaders(response));
     }
 
+    CompiledHandler loadCompiledHandler(final RestfulMockSnapshot mock) throws ScriptException {
+
+        final String syntax = StringUtils.defaultString(mock.getJavaScriptSyntax());
+        final CompiledHandler cached = compiledHandlers.get(mock.getExtId());
+
+        if (cached != null && cached.getSyntax().equals(syntax)) {
+            return cached;
+        }
+
+        final String js = requestObjectFromBindings
+                + keyValuePairStoreObjectFromBindings
+                + keyValuePairFindFunc
+                + defaultResponseObject
+                + userResponseFunctionInvoker
+                + syntax;
+
+        if (logger.isDebugEnabled())
+            logger.debug(js);
+
+        final CompiledHandler handler = new CompiledHandler(syntax, GeneralUtils.removeJsComments(syntax), enginePool.compile(js));
+        compiledHandlers.put(mock.getExtId(), handler);
+
+        return handler;
+    }
+
     Object executeJS(final String js) throws ScriptException {
         if (logger.isDebugEnabled())
             logger.debug(js);
-        return buildEngine().eval(js);
+        return enginePool.eval(js, null, Function.identity());
     }
 
-    String populateRequestObjectWithInbound(final Request req, final String mockPath, final String ctxPath) {
+    Map<String, Object> buildRequestObject(final Request req, final String mockPath, final String ctxPath) {
 
         final Map<String, String> reqHeaders =
                 req.headers()
                     .stream()
                     .collect(Collectors.toMap(k -> k, k -> req.headers(k)));
 
-        final StringBuilder reqObject = new StringBuilder();
-
-        reqObject.append("request.path=")
-                .append("'").append(req.pathInfo()).append("'")
-                .append("; ");
-
-        if (StringUtils.isNotBlank(req.body())) {
-            reqObject.append("request.body=")
-                    .append("'").append(removeLineBreaks(req.body())).append("'")
-                    .append(";");
-        }
-
-        final String sanitizedInboundPath = GeneralUtils.sanitizeMultiUserPath(smockinUserService.getUserMode(), req.pathInfo(), ctxPath);
-        applyMapValuesToStringBuilder("request.pathVars", GeneralUtils.findAllPathVars(sanitizedInboundPath, mockPath), reqObject);
-        applyMapValuesToStringBuilder("request.parameters", extractAllRequestParams(req), reqObject);
-        applyMapValuesToStringBuilder("request.headers", reqHeaders, reqObject);
-
-        return reqObject.toString();
-    }
-
-    void applyMapValuesToStringBuilder(final String field, final Map<String, String> values, final StringBuilder reqObject) {
+        final Map<String, Object> reqObject = new LinkedHashMap<>();
+        reqObject.put("path", req.pathInfo());
+        reqObject.put("pathVars", GeneralUtils.loadPathVars(req, smockinUserService.getUserMode(), ctxPath, mockPath));
+        reqObject.put("body", (StringUtils.isNotBlank(req.body())) ? removeLineBreaks(req.body()) : null);
+        reqObject.put("headers", reqHeaders);
+        reqObject.put("parameters", extractAllRequestParams(req));
 
-        if (values == null || values.isEmpty()) {
-            return;
-        }
-
-        values.entrySet().forEach(e ->
-                reqObject.append(" ")
-                        .append(field)
-                        .append("['").append(e.getKey()).append("']")
-                        .append("=")
-                        .append("'").append(e.getValue()).append("'")
-                        .append(";"));
+        return reqObject;
     }
 
     Map<String, String> extractAllRequestParams(final Request req) {
@@ -165,17 +181,20 @@ public class JavaScriptResponseHandlerImpl implements JavaScriptResponseHandler
         return responseHeaders.entrySet();
     }
 
-    String populateKVPs(final Request req, final RestfulMock mock) throws ScriptException {
+    Map<String, String> populateKVPs(final Request req, final RestfulMockSnapshot mock) throws ScriptException {
+        return populateKVPs(req, mock, GeneralUtils.removeJsComments(mock.getJavaScriptSyntax()));
+    }
+
+    Map<String, String> populateKVPs(final Request req, final RestfulMockSnapshot mock, final String handleResponseFunc) throws ScriptException {
         logger.debug("populateKVPs called");
 
-        final String handleResponseFunc = GeneralUtils.removeJsComments(mock.getJavaScriptHandler().getSyntax());
-        final long mockOwnerUserId = mock.getCreatedBy().getId();
+        final long mockOwnerUserId = mock.getUserId();
 
         final int MAX_PASSES = 500;
         int currentPos = 0;
         final String keyValuePairFuncPrefix = keyValuePairFindFuncName + "(";
 
-        final Map<String, String> kvps = new HashMap<>();
+        final Set<String> keys = new HashSet<>();
 
         for (int i=0; i < MAX_PASSES; i++) {
 
@@ -189,23 +208,25 @@ public class JavaScriptResponseHandlerImpl implements JavaScriptResponseHandler
             final String sanitizedKey = findKvpKey(startPos, closingParenthesisPos, req, mock, keyValuePairFuncPrefix, handleResponseFunc);
 
             if (sanitizedKey != null) {
-                final UserKeyValueDataDTO userKeyValueDataDTO = userKeyValueDataService.loadByKey(sanitizedKey, mockOwnerUserId);
-                kvps.put(sanitizedKey, (userKeyValueDataDTO != null) ? userKeyValueDataDTO.getValue() : "");
+                keys.add(sanitizedKey);
             }
 
             currentPos = closingParenthesisPos;
         }
 
-        if (!kvps.isEmpty()) {
-            return defaultKeyValuePairStoreObjectStart
-                    + GeneralUtils.serialiseJson(kvps)
-                    + ";";
+        if (keys.isEmpty()) {
+            return new HashMap<>();
         }
 
-        return defaultKeyValuePairStoreObject;
+        // Resolve all referenced keys in one look up
+        final Map<String, UserKeyValueDataDTO> userKeyValueData = userKeyValueDataService.loadByKeys(keys, mockOwnerUserId);
+
+        return keys.stream()
+                .collect(Collectors.toMap(k -> k, k ->
+                        (userKeyValueData.get(k) != null) ? userKeyValueData.get(k).getValue() : ""));
     }
 
-    private String findKvpKey(final int startPos, final int closingParenthesisPos, final Request req, final RestfulMock mock, final String keyValuePairFuncPrefix, final String handleResponseFunc)
+    private String findKvpKey(final int startPos, final int closingParenthesisPos, final Request req, final RestfulMockSnapshot mock, final String keyValuePairFuncPrefix, final String handleResponseFunc)
             throws ScriptException {
         logger.debug("findKvpKey called");
 
@@ -236,8 +257,7 @@ public class JavaScriptResponseHandlerImpl implements JavaScriptResponseHandler
             if (requestObjectField.startsWith("pathVars")) {
 
                 final String pathVarsObjectField = StringUtils.remove(requestObjectField, "pathVars").trim();
-                final String sanitizedInboundPath = GeneralUtils.sanitizeMultiUserPath(smockinUserService.getUserMode(), req.pathInfo(), mock.getCreatedBy().getCtxPath());
-                sanitizedKey = GeneralUtils.findAllPathVars(sanitizedInboundPath, mock.getPath())
+                sanitizedKey = GeneralUtils.loadPathVars(req, smockinUserService.getUserMode(), mock.getUserCtxPath(), mock.getPath())
                         .get(extractObjectField(StringUtils.lowerCase(pathVarsObjectField)));
 
             } else if ("body".equals(requestObjectField)) {
@@ -291,31 +311,6 @@ public class JavaScriptResponseHandlerImpl implements JavaScriptResponseHandler
         return null;
     }
 
-    private ScriptEngine buildEngine() {
-
-        final ScriptEngine engine = new NashornScriptEngineFactory()
-                .getScriptEngine(
-                        engineSecurityArgs,
-                        null,
-                            (s) -> false);
-
-        loadEngineExtensions(engine);
-        applyEngineBindings(engine);
-
-        return engine;
-    }
-
-    private void loadEngineExtensions(final ScriptEngine engine) {
-
-        try {
-
-            engine.eval(new FileReader(getExtensionsFilePath("from-xml.min.js"))); // XML support
-
-        } catch (ScriptException | FileNotFoundException e) {
-            logger.error("Error loading JS extensions", e);
-        }
-    }
-
     private String getExtensionsFilePath(final String extensionsFileName) {
 
         return getClass()
@@ -324,20 +319,32 @@ public class JavaScriptResponseHandlerImpl implements JavaScriptResponseHandler
                 .getFile();
     }
 
-    // A few security restrictions...
-    private void applyEngineBindings(final ScriptEngine engine) {
-
-        final Bindings bindings = engine.getBindings(ScriptContext.ENGINE_SCOPE);
-        bindings.remove("exit");
-        bindings.remove("java");
-        bindings.remove("javax");
-        bindings.remove("sun");
+    String removeLineBreaks(final String input) {
 
+        return StringUtils.replaceAll(input, CARRIAGE_RETURN_REGEX, "");
     }
 
-    String removeLineBreaks(final String input) {
+    static final class CompiledHandler {
 
-        return StringUtils.replaceAll(input, CARRIAGE_RETURN_REGEX, "");
+        private final String syntax;
+        private final String kvpSource;
+        private final CompiledScript script;
+
+        private CompiledHandler(final String syntax, final String kvpSource, final CompiledScript script) {
+            this.syntax = syntax;
+            this.kvpSource = kvpSource;
+            this.script = script;
+        }
+
+        String getSyntax() {
+            return syntax;
+        }
+        String getKvpSource() {
+            return kvpSource;
+        }
+        CompiledScript getScript() {
+            return script;
+        }
     }
 
 }
@@ -1,6 +1,6 @@
 package com.smockin.mockserver.service;
 
-import com.smockin.admin.persistence.entity.RestfulMock;
+import com.smockin.mockserver.service.bean.RestfulMockSnapshot;
 import com.smockin.mockserver.service.dto.RestfulResponseDTO;
 
 /**
@@ -8,7 +8,7 @@ import com.smockin.mockserver.service.dto.RestfulResponseDTO;
  */
 public interface MockOrderingCounterService {
 
-    RestfulResponseDTO process(final RestfulMock restfulMockDefinition);
+    RestfulResponseDTO process(final RestfulMockSnapshot restfulMockDefinition);
     void clearMockStateById(final String mockExtId);
     void clearState();
 
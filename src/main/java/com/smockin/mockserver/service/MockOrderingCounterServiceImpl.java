@@ -1,31 +1,31 @@
 package com.smockin.mockserver.service;
 
-import com.smockin.admin.persistence.entity.RestfulMock;
-import com.smockin.admin.persistence.entity.RestfulMockDefinitionOrder;
-import com.smockin.utils.GeneralUtils;
+import com.smockin.mockserver.service.bean.DefinitionAliasTable;
+import com.smockin.mockserver.service.bean.DefinitionSequence;
+import com.smockin.mockserver.service.bean.RestfulMockDefinitionSnapshot;
+import com.smockin.mockserver.service.bean.RestfulMockSnapshot;
 import com.smockin.mockserver.service.dto.RestfulResponseDTO;
-import org.apache.commons.lang3.RandomUtils;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Created by gallina.
  */
 @Service
-@Transactional
 public class MockOrderingCounterServiceImpl implements MockOrderingCounterService {
 
-    private final Object monitor = new Object();
-    private final Map<String, List<DefinitionCounter>> synchronizedCounter = new HashMap<>();
+    /*
+        Key: RestfulMock.extId
+        Value: the next position in the mock's DefinitionSequence
+    */
+    private final Map<String, AtomicLong> sequenceCursors = new ConcurrentHashMap<>();
 
-    public RestfulResponseDTO process(final RestfulMock restfulMock) {
+    public RestfulResponseDTO process(final RestfulMockSnapshot restfulMock) {
 
-        final RestfulMockDefinitionOrder mockDef;
+        final RestfulMockDefinitionSnapshot mockDef;
 
         if (restfulMock.isRandomiseDefinitions()) {
             mockDef = getRandomResponse(restfulMock);
@@ -33,109 +33,45 @@ public class MockOrderingCounterServiceImpl implements MockOrderingCounterServic
             mockDef = getNextInSequence(restfulMock);
         }
 
-        GeneralUtils.checkForAndHandleSleep(mockDef.getSleepInMillis());
-
-        return new RestfulResponseDTO(mockDef.getHttpStatusCode(), mockDef.getResponseContentType(), mockDef.getResponseBody(), mockDef.getResponseHeaders().entrySet());
+        return new RestfulResponseDTO(mockDef.getHttpStatusCode(), mockDef.getResponseContentType(), mockDef.getResponseBody(), mockDef.getResponseHeaders().entrySet(), mockDef.getResponseTemplate(), mockDef.getSleepInMillis());
     }
 
-    RestfulMockDefinitionOrder getNextInSequence(final RestfulMock restfulMock) {
-
-        final String mockExtId = restfulMock.getExtId();
-
-        String mockDefinitionId = null;
-
-        synchronized (monitor) {
-
-            // Load definition counters for mock endpoint
-            final List<DefinitionCounter> definitionCounterList = synchronizedCounter.getOrDefault(mockExtId, new ArrayList<DefinitionCounter>() {
-                {
-                    // Create definition counters for mock endpoint if not present
-                    restfulMock.getDefinitions().forEach(d ->
-                        add(new DefinitionCounter(d.getExtId(), (d.getFrequencyCount() > 0)?d.getFrequencyCount():1))
-                    );
-                }
-            });
-
-            // Look up the next definition
-            for (DefinitionCounter d : definitionCounterList) {
-                if (d.getFrequencyCount() > d.getCurrentTally()) {
-                    mockDefinitionId = d.getDefinitionExtId();
-                    d.setCurrentTally(d.getCurrentTally()+1);
-                    break;
-                }
-            }
-
-            // If tally counters are all maxed out then reset and restart at the 1st definition
-            if (mockDefinitionId == null) {
+    RestfulMockDefinitionSnapshot getNextInSequence(final RestfulMockSnapshot restfulMock) {
 
-                for (DefinitionCounter d : definitionCounterList) {
-                    if (mockDefinitionId == null) {
-                        mockDefinitionId = d.getDefinitionExtId();
-                        d.setCurrentTally(1);
-                    } else {
-                        d.setCurrentTally(0);
-                    }
-                }
+        final DefinitionSequence sequence = restfulMock.getDefinitionSequence();
 
-            }
-
-            synchronizedCounter.put(mockExtId, definitionCounterList);
+        if (sequence.isEmpty()) {
+            throw new IllegalStateException("No active definitions found for mock " + restfulMock.getExtId());
         }
 
-        // Finally load the definition for the given mockDefinitionId
-        for (RestfulMockDefinitionOrder d : restfulMock.getDefinitions()) {
-            if (d.getExtId().equals(mockDefinitionId)) {
-                return d;
-            }
+        // Avoids computeIfAbsent locking on what is almost always an existing cursor
+        AtomicLong cursor = sequenceCursors.get(restfulMock.getExtId());
+
+        if (cursor == null) {
+            cursor = sequenceCursors.computeIfAbsent(restfulMock.getExtId(), k -> new AtomicLong());
         }
 
-        throw new NullPointerException("mockDefinitionId not found!");
+        return restfulMock.getDefinitions().get(sequence.indexAt(cursor.getAndIncrement()));
     }
 
-    RestfulMockDefinitionOrder getRandomResponse(final RestfulMock restfulMock) {
+    RestfulMockDefinitionSnapshot getRandomResponse(final RestfulMockSnapshot restfulMock) {
+
+        final DefinitionAliasTable aliasTable = restfulMock.getDefinitionAliasTable();
 
-        final int randomIndex = RandomUtils.nextInt(0, restfulMock.getDefinitions().size());
+        if (aliasTable.isEmpty()) {
+            throw new IllegalStateException("No active definitions found for mock " + restfulMock.getExtId());
+        }
 
-        return restfulMock.getDefinitions().get(randomIndex);
+        // Weighted by each definition's frequency count
+        return restfulMock.getDefinitions().get(aliasTable.sample());
     }
 
     public void clearMockStateById(final String mockExtId) {
-
-        synchronized (monitor) {
-            synchronizedCounter.remove(mockExtId);
-        }
+        sequenceCursors.remove(mockExtId);
     }
 
     public void clearState() {
-
-        synchronized (monitor) {
-            synchronizedCounter.clear();
-        }
-    }
-
-    private class DefinitionCounter {
-
-        private final String definitionExtId;
-        private final int frequencyCount;
-        private int currentTally;
-
-        DefinitionCounter(String definitionExtId, int frequencyCount) {
-            this.definitionExtId = definitionExtId;
-            this.frequencyCount = frequencyCount;
-        }
-
-        public String getDefinitionExtId() {
-            return definitionExtId;
-        }
-        public int getFrequencyCount() {
-            return frequencyCount;
-        }
-        public int getCurrentTally() {
-            return currentTally;
-        }
-        public void setCurrentTally(int currentTally) {
-            this.currentTally = currentTally;
-        }
+        sequenceCursors.clear();
     }
 
 }
@@ -0,0 +1,95 @@
+package com.smockin.mockserver.service;
+
+import com.smockin.mockserver.service.dto.RestfulResponseDTO;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * The proxied responses and waiting callers of a single ProxiedKey.
+ *
+ * Each waiter is handed its own future, which is completed directly by the next response added for this key,
+ * so adding a response only ever wakes the one caller that consumes it. A waiter gives up by completing its
+ * future (e.g. with null) itself, after which it is simply skipped.
+ */
+final class ProxiedResponseQueue {
+
+    private final Deque<RestfulResponseDTO> responses = new ArrayDeque<>();
+    private final Deque<CompletableFuture<RestfulResponseDTO>> waiters = new ArrayDeque<>();
+    private long lastAccessedMillis = System.currentTimeMillis();
+    private boolean retired;
+
+    /**
+     * @return a future for the next response, which is already complete if one is queued,
+     * or null if this queue has since been retired.
+     */
+    synchronized CompletableFuture<RestfulResponseDTO> take() {
+
+        if (retired) {
+            return null;
+        }
+
+        lastAccessedMillis = System.currentTimeMillis();
+
+        final RestfulResponseDTO response = responses.pollFirst();
+
+        if (response != null) {
+            return CompletableFuture.completedFuture(response);
+        }
+
+        final CompletableFuture<RestfulResponseDTO> waiter = new CompletableFuture<>();
+        waiters.addLast(waiter);
+
+        return waiter;
+    }
+
+    /**
+     * @return false if this queue has since been retired.
+     */
+    synchronized boolean offer(final RestfulResponseDTO response) {
+
+        if (retired) {
+            return false;
+        }
+
+        lastAccessedMillis = System.currentTimeMillis();
+
+        CompletableFuture<RestfulResponseDTO> waiter;
+
+        while ((waiter = waiters.pollFirst()) != null) {
+            if (waiter.complete(response)) {
+                return true;
+            }
+        }
+
+        responses.addLast(response);
+
+        return true;
+    }
+
+    synchronized int size() {
+        return responses.size();
+    }
+
+    synchronized void clearResponses() {
+        responses.clear();
+    }
+
+    /**
+     * Retires this queue if it has not been used since the given time and has no one waiting on it.
+     * Retired queues are never used again.
+     */
+    synchronized boolean retireIfIdleSince(final long cutOffMillis) {
+
+        waiters.removeIf(CompletableFuture::isDone);
+
+        if (waiters.isEmpty()
+                && lastAccessedMillis < cutOffMillis) {
+            retired = true;
+        }
+
+        return retired;
+    }
+
+}
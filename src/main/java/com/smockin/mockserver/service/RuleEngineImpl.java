@@ -1,27 +1,25 @@
 package com.smockin.mockserver.service;
 
-import com.smockin.admin.persistence.entity.RestfulMockDefinitionRule;
-import com.smockin.admin.persistence.entity.RestfulMockDefinitionRuleGroup;
-import com.smockin.admin.persistence.entity.RestfulMockDefinitionRuleGroupCondition;
 import com.smockin.admin.persistence.enums.RuleMatchingTypeEnum;
 import com.smockin.admin.service.SmockinUserService;
+import com.smockin.mockserver.service.bean.JsonFieldPath;
+import com.smockin.mockserver.service.bean.RestfulMockRuleConditionSnapshot;
+import com.smockin.mockserver.service.bean.RestfulMockRuleGroupSnapshot;
+import com.smockin.mockserver.service.bean.RestfulMockRuleSnapshot;
+import com.smockin.mockserver.service.bean.RestfulMockSnapshot;
+import com.smockin.mockserver.service.bean.RuleDispatchPlan;
 import com.smockin.mockserver.service.dto.RestfulResponseDTO;
-import com.smockin.utils.GeneralUtils;
 import com.smockin.utils.RuleEngineUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 import spark.Request;
 
-import java.util.List;
-
 /**
  * Created by gallina.
  */
 @Service
-@Transactional
 public class RuleEngineImpl implements RuleEngine {
 
     private final Logger logger = LoggerFactory.getLogger(RuleEngineImpl.class);
@@ -33,65 +31,102 @@ public class RuleEngineImpl implements RuleEngine {
     private SmockinUserService smockinUserService;
 
 
-    public RestfulResponseDTO process(final Request req, final List<RestfulMockDefinitionRule> rules) {
+    public RestfulResponseDTO process(final Request req, final RestfulMockSnapshot mock) {
         logger.debug("process called");
 
-        for (RestfulMockDefinitionRule rule : rules) {
-
-            for (RestfulMockDefinitionRuleGroup group : rule.getConditionGroups()) {
+        final RuleRequestContext context = new RuleRequestContext(req, mock.getPath(), mock.getUserCtxPath(), smockinUserService.getUserMode());
 
-                int groupMatchCount = 0;
+        for (RuleDispatchPlan.Segment segment : mock.getRulePlan().getSegments()) {
 
-                for (RestfulMockDefinitionRuleGroupCondition condition : group.getConditions()) {
+            final RestfulMockRuleSnapshot rule = findFirstMatch(segment, context);
 
-                    final String inboundValue = extractInboundValue(condition.getRuleMatchingType(),
-                            condition.getField(),
-                            req,
-                            rule.getRestfulMock().getPath(),
-                            rule.getRestfulMock().getCreatedBy().getCtxPath());
+            if (rule != null) {
 
-                    if (logger.isDebugEnabled()) {
-                        logger.debug("Rule Matching Type: " + condition.getRuleMatchingType());
-                        logger.debug("Inbound Value: " + inboundValue);
-                    }
+                return new RestfulResponseDTO(rule.getHttpStatusCode(), rule.getResponseContentType(), rule.getResponseBody(), rule.getResponseHeaders().entrySet(), rule.getResponseTemplate(), rule.getSleepInMillis());
+            }
 
-                    if (ruleResolver.processRuleComparison(condition, inboundValue)) {
-                        groupMatchCount++;
-                    }
+        }
 
-                }
+        return null;
+    }
 
-                // If a group of conditions is met then return straight out of this iteration.
-                if (groupMatchCount == group.getConditions().size()) {
+    RestfulMockRuleSnapshot findFirstMatch(final RuleDispatchPlan.Segment segment, final RuleRequestContext context) {
 
-                    GeneralUtils.checkForAndHandleSleep(rule.getSleepInMillis());
+        if (segment instanceof RuleDispatchPlan.IndexedSegment) {
 
-                    return new RestfulResponseDTO(rule.getHttpStatusCode(), rule.getResponseContentType(), rule.getResponseBody(), rule.getResponseHeaders().entrySet());
-                }
+            final RuleDispatchPlan.IndexedSegment indexedSegment = (RuleDispatchPlan.IndexedSegment) segment;
+            final String inboundValue = context.getInboundValue(indexedSegment.getCondition(), c ->
+                    extractInboundValue(c.getRuleMatchingType(), c.getField(), c.getJsonFieldPath(), context));
 
+            if (logger.isDebugEnabled()) {
+                logger.debug("Indexed look up across " + indexedSegment.size() + " rule groups with inbound value: " + inboundValue);
             }
 
+            final RuleDispatchPlan.Entry entry = indexedSegment.find(inboundValue);
+
+            return (entry != null)
+                    ? entry.getRule()
+                    : null;
+        }
+
+        // If a group of conditions is met then return straight out of this iteration.
+        for (RuleDispatchPlan.Entry entry : ((RuleDispatchPlan.ScanSegment) segment).getEntries()) {
+            if (isGroupMatch(entry.getGroup(), context)) {
+                return entry.getRule();
+            }
         }
 
         return null;
     }
 
+    boolean isGroupMatch(final RestfulMockRuleGroupSnapshot group, final RuleRequestContext context) {
+
+        for (RestfulMockRuleConditionSnapshot condition : group.getConditions()) {
+
+            final String inboundValue = context.getInboundValue(condition, c ->
+                    extractInboundValue(c.getRuleMatchingType(), c.getField(), c.getJsonFieldPath(), context));
+
+            if (logger.isDebugEnabled()) {
+                logger.debug("Rule Matching Type: " + condition.getRuleMatchingType());
+                logger.debug("Inbound Value: " + inboundValue);
+            }
+
+            // All conditions in a group must match, so stop at the first which does not.
+            if (!ruleResolver.processRuleComparison(condition, inboundValue)) {
+                return false;
+            }
+
+        }
+
+        return true;
+    }
+
     String extractInboundValue(final RuleMatchingTypeEnum matchingType, final String fieldName, final Request req, final String mockPath, final String userCtxPath) {
 
+        return extractInboundValue(matchingType, fieldName, null, new RuleRequestContext(req, mockPath, userCtxPath, smockinUserService.getUserMode()));
+    }
+
+    String extractInboundValue(final RuleMatchingTypeEnum matchingType,
+                               final String fieldName,
+                               final JsonFieldPath jsonFieldPath,
+                               final RuleRequestContext context) {
+
+        final Request req = context.getRequest();
+
         switch (matchingType) {
             case REQUEST_HEADER:
                 return req.headers(fieldName);
             case REQUEST_PARAM:
-                return GeneralUtils.extractRequestParamByName(req, fieldName);
+                return context.getRequestParam(fieldName);
             case REQUEST_BODY:
                 return req.body();
             case PATH_VARIABLE:
-                final String sanitizedInboundPath = GeneralUtils.sanitizeMultiUserPath(smockinUserService.getUserMode(), req.pathInfo(), userCtxPath);
-                return GeneralUtils.findPathVarIgnoreCase(sanitizedInboundPath, mockPath, fieldName);
+                return context.getPathVar(fieldName);
             case PATH_VARIABLE_WILD:
                 return RuleEngineUtils.matchOnPathVariable(fieldName, req);
             case REQUEST_BODY_JSON_ANY:
-                return RuleEngineUtils.matchOnJsonField(fieldName, req.body(), req.pathInfo());
+                return ((jsonFieldPath != null) ? jsonFieldPath : JsonFieldPath.compile(fieldName))
+                        .read(context.getJsonBody());
             default:
                 throw new IllegalArgumentException("Unsupported Rule Matching Type : " + matchingType);
         }
@@ -0,0 +1,105 @@
+package com.smockin.mockserver.service;
+
+import com.smockin.admin.enums.UserModeEnum;
+import com.smockin.mockserver.service.bean.RestfulMockRuleConditionSnapshot;
+import com.smockin.utils.GeneralUtils;
+import com.smockin.utils.RuleEngineUtils;
+import spark.Request;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Request scoped state for a single rule engine evaluation.
+ *
+ * Each distinct inbound value (as identified by RestfulMockRuleConditionSnapshot.getExtractionKey()) is
+ * extracted at most once per request and then shared by every rule and condition that refers to it.
+ * The request params, path vars and JSON body are likewise only parsed the first time they are needed.
+ *
+ * Not thread safe, an instance must never outlive the request it was created for.
+ */
+final class RuleRequestContext {
+
+    private final Request req;
+    private final String mockPath;
+    private final String userCtxPath;
+    private final UserModeEnum userMode;
+
+    private final Map<String, String> inboundValues = new HashMap<>();
+    private Map<String, String> requestParams;
+    private Map<String, String> pathVars;
+    private Object jsonBody;
+    private boolean jsonBodyParsed;
+
+    RuleRequestContext(final Request req, final String mockPath, final String userCtxPath, final UserModeEnum userMode) {
+        this.req = req;
+        this.mockPath = mockPath;
+        this.userCtxPath = userCtxPath;
+        this.userMode = userMode;
+    }
+
+    Request getRequest() {
+        return req;
+    }
+
+    String getInboundValue(final RestfulMockRuleConditionSnapshot condition,
+                           final Function<RestfulMockRuleConditionSnapshot, String> extractor) {
+
+        final String key = condition.getExtractionKey();
+
+        // Values can legitimately be null, so computeIfAbsent is not used here
+        if (inboundValues.containsKey(key)) {
+            return inboundValues.get(key);
+        }
+
+        final String value = extractor.apply(condition);
+        inboundValues.put(key, value);
+
+        return value;
+    }
+
+    String getRequestParam(final String name) {
+
+        if (name == null) {
+            return null;
+        }
+
+        if (requestParams == null) {
+
+            // Keyed in lower case, in line with the case insensitive look up of GeneralUtils.extractRequestParamByName
+            requestParams = new HashMap<>();
+
+            GeneralUtils.extractAllRequestParams(req)
+                    .forEach((k, v) ->
+                            requestParams.putIfAbsent(k.toLowerCase(), v));
+        }
+
+        return requestParams.get(name.toLowerCase());
+    }
+
+    String getPathVar(final String name) {
+
+        if (name == null) {
+            return null;
+        }
+
+        if (pathVars == null) {
+            pathVars = GeneralUtils.loadPathVars(req, userMode, userCtxPath, mockPath);
+        }
+
+        return pathVars.get(name.toLowerCase());
+    }
+
+    Object getJsonBody() {
+
+        // The parsed body may be null (i.e blank or invalid JSON), so track whether parsing has already been attempted
+        if (!jsonBodyParsed) {
+            jsonBody = RuleEngineUtils.parseJsonBody(req.body());
+            jsonBodyParsed = true;
+        }
+
+        return jsonBody;
+    }
+
+}
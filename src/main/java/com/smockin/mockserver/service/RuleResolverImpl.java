@@ -1,7 +1,7 @@
 package com.smockin.mockserver.service;
 
-import com.smockin.admin.persistence.entity.RestfulMockDefinitionRuleGroupCondition;
 import com.smockin.admin.persistence.enums.RuleDataTypeEnum;
+import com.smockin.mockserver.service.bean.RestfulMockRuleConditionSnapshot;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.math.NumberUtils;
 import org.springframework.stereotype.Service;
@@ -13,7 +13,7 @@ import org.springframework.stereotype.Service;
 public class RuleResolverImpl implements RuleResolver {
 
     @Override
-    public boolean processRuleComparison(final RestfulMockDefinitionRuleGroupCondition condition, final String inboundValue) {
+    public boolean processRuleComparison(final RestfulMockRuleConditionSnapshot condition, final String inboundValue) {
 
         if (condition.getComparator() == null) {
             throw new IllegalArgumentException("Invalid rule comparator. Cannot be null");
@@ -34,7 +34,7 @@ public class RuleResolverImpl implements RuleResolver {
     }
 
     // Supports TEXT and NUMERIC data types
-    boolean handleEquals(RestfulMockDefinitionRuleGroupCondition condition, final String inboundValue) {
+    boolean handleEquals(RestfulMockRuleConditionSnapshot condition, final String inboundValue) {
 
         if (inboundValue == null) {
             return false;
@@ -60,7 +60,7 @@ public class RuleResolverImpl implements RuleResolver {
     }
 
     // Always handled as TEXT!
-    boolean handleIsMissing(RestfulMockDefinitionRuleGroupCondition condition, final String inboundValue) {
+    boolean handleIsMissing(RestfulMockRuleConditionSnapshot condition, final String inboundValue) {
 
         if (StringUtils.isNotBlank(inboundValue)) {
 
@@ -83,7 +83,7 @@ public class RuleResolverImpl implements RuleResolver {
     }
 
     // Always handled as TEXT!
-    boolean handleContains(RestfulMockDefinitionRuleGroupCondition condition, final String inboundValue) {
+    boolean handleContains(RestfulMockRuleConditionSnapshot condition, final String inboundValue) {
 
         if (inboundValue == null) {
             return false;
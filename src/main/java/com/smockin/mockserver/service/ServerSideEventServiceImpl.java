@@ -32,7 +32,6 @@ import java.util.concurrent.ConcurrentHashMap;
  * Created by mgallina
  */
 @Service
-@Transactional
 public class ServerSideEventServiceImpl implements ServerSideEventService {
 
     private final Logger logger = LoggerFactory.getLogger(ServerSideEventServiceImpl.class);
@@ -73,6 +72,7 @@ public class ServerSideEventServiceImpl implements ServerSideEventService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<PushClientDTO> getClientConnections(final String mockExtId, final String token) throws RecordNotFoundException, ValidationException {
 
         final RestfulMock mock = restfulMockDAO.findByExtId(mockExtId);
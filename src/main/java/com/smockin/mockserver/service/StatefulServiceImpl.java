@@ -5,10 +5,11 @@ import com.smockin.admin.exception.RecordNotFoundException;
 import com.smockin.admin.exception.ValidationException;
 import com.smockin.admin.persistence.dao.RestfulMockDAO;
 import com.smockin.admin.persistence.entity.RestfulMock;
-import com.smockin.admin.persistence.entity.RestfulMockStatefulMeta;
 import com.smockin.admin.persistence.enums.RestMethodEnum;
 import com.smockin.admin.service.SmockinUserService;
 import com.smockin.admin.service.utils.UserTokenServiceUtils;
+import com.smockin.mockserver.service.bean.RestfulMockSnapshot;
+import com.smockin.mockserver.service.bean.RestfulMockStatefulMetaSnapshot;
 import com.smockin.mockserver.service.dto.RestfulResponseDTO;
 import com.smockin.mockserver.service.enums.PatchCommandEnum;
 import com.smockin.utils.GeneralUtils;
@@ -31,7 +32,6 @@ import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
 
 @Service
-@Transactional
 public class StatefulServiceImpl implements StatefulService {
 
     private final Logger logger = LoggerFactory.getLogger(StatefulServiceImpl.class);
@@ -53,15 +53,14 @@ public class StatefulServiceImpl implements StatefulService {
 
 
     @Override
-    public RestfulResponseDTO process(final Request req, final RestfulMock mock) {
+    public RestfulResponseDTO process(final Request req, final RestfulMockSnapshot mock) {
 
-        final RestfulMock parent = loadStatefulParent(mock);
+        final String parentExtId = mock.getStatefulParentExtId();
+        final RestfulMockStatefulMetaSnapshot statefulMeta = mock.getStatefulMeta();
 
-        final String sanitizedInboundPath = GeneralUtils.sanitizeMultiUserPath(smockinUserService.getUserMode(), req.pathInfo(), mock.getCreatedBy().getCtxPath());
-
-        final List<Map<String, Object>> mockStateContent = loadStateForMock(parent);
-        final Map<String, String> pathVars = GeneralUtils.findAllPathVars(sanitizedInboundPath, mock.getPath());
-        final String fieldId = parent.getRestfulMockStatefulMeta().getIdFieldName();
+        final List<Map<String, Object>> mockStateContent = loadStateForMock(parentExtId, statefulMeta);
+        final Map<String, String> pathVars = GeneralUtils.loadPathVars(req, smockinUserService.getUserMode(), mock.getUserCtxPath(), mock.getPath());
+        final String fieldId = statefulMeta.getIdFieldName();
         final String dataId = pathVars.get(fieldId);
 
         StatefulResponse statefulResponse;
@@ -71,23 +70,23 @@ public class StatefulServiceImpl implements StatefulService {
             switch (RestMethodEnum.findByName(req.requestMethod())) {
 
                 case GET:
-                    statefulResponse = handleGet(dataId, mockStateContent, parent.getRestfulMockStatefulMeta());
+                    statefulResponse = handleGet(dataId, mockStateContent, statefulMeta);
                     break;
 
                 case POST:
-                    statefulResponse = handlePost(parent.getExtId(), req.body(), mockStateContent, parent.getRestfulMockStatefulMeta());
+                    statefulResponse = handlePost(parentExtId, req.body(), mockStateContent, statefulMeta);
                     break;
 
                 case PUT:
-                    statefulResponse = handlePut(dataId, parent.getExtId(), req.body(), mockStateContent, parent.getRestfulMockStatefulMeta());
+                    statefulResponse = handlePut(dataId, parentExtId, req.body(), mockStateContent, statefulMeta);
                     break;
 
                 case PATCH:
-                    statefulResponse = handlePatch(dataId, parent.getExtId(), req.body(), mockStateContent, parent.getRestfulMockStatefulMeta());
+                    statefulResponse = handlePatch(dataId, parentExtId, req.body(), mockStateContent, statefulMeta);
                     break;
 
                 case DELETE:
-                    statefulResponse = handleDelete(dataId, parent.getExtId(), mockStateContent, parent.getRestfulMockStatefulMeta());
+                    statefulResponse = handleDelete(dataId, parentExtId, mockStateContent, statefulMeta);
                     break;
 
                 default:
@@ -112,6 +111,7 @@ public class StatefulServiceImpl implements StatefulService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public void resetState(final String externalId, final String userToken) throws RecordNotFoundException, ValidationException {
         logger.debug("resetState called");
 
@@ -129,7 +129,7 @@ public class StatefulServiceImpl implements StatefulService {
 
     }
 
-    StatefulResponse handleGet(final String dataId, final List<Map<String, Object>> currentStateContentForMock, final RestfulMockStatefulMeta restfulMockStatefulMeta) {
+    StatefulResponse handleGet(final String dataId, final List<Map<String, Object>> currentStateContentForMock, final RestfulMockStatefulMetaSnapshot restfulMockStatefulMeta) {
 
         // GET All
         if (dataId == null) {
@@ -149,7 +149,7 @@ public class StatefulServiceImpl implements StatefulService {
                 GeneralUtils.serialiseJson(stateDataOpt.get()));
     }
 
-    StatefulResponse handlePost(final String parentExtId, final String requestBody, final List<Map<String, Object>> currentStateContentForMock, final RestfulMockStatefulMeta restfulMockStatefulMeta) {
+    StatefulResponse handlePost(final String parentExtId, final String requestBody, final List<Map<String, Object>> currentStateContentForMock, final RestfulMockStatefulMetaSnapshot restfulMockStatefulMeta) {
 
         // Validate is valid json body
         final Optional<Map<String, Object>> requestDataMapOpt = convertToJsonMap(requestBody);
@@ -188,7 +188,7 @@ public class StatefulServiceImpl implements StatefulService {
     StatefulResponse handleDelete(final String dataId,
                                   final String parentExtId,
                                   final List<Map<String, Object>> currentStateContentForMock,
-                                  final RestfulMockStatefulMeta restfulMockStatefulMeta) {
+                                  final RestfulMockStatefulMetaSnapshot restfulMockStatefulMeta) {
 
         if (dataId == null) {
             return new StatefulResponse(HttpStatus.SC_BAD_REQUEST);
@@ -238,7 +238,7 @@ public class StatefulServiceImpl implements StatefulService {
                                final String parentExtId,
                                final String requestBody,
                                final List<Map<String, Object>> currentStateContentForMock,
-                               final RestfulMockStatefulMeta restfulMockStatefulMeta) {
+                               final RestfulMockStatefulMetaSnapshot restfulMockStatefulMeta) {
 
         if (dataId == null) {
             return new StatefulResponse(HttpStatus.SC_BAD_REQUEST);
@@ -319,7 +319,7 @@ public class StatefulServiceImpl implements StatefulService {
                                  final String parentExtId,
                                  final String requestBody,
                                  final List<Map<String, Object>> currentStateContentForMock,
-                                 final RestfulMockStatefulMeta restfulMockStatefulMeta) throws StatefulValidationException {
+                                 final RestfulMockStatefulMetaSnapshot restfulMockStatefulMeta) throws StatefulValidationException {
 
         if (dataId == null) {
             return new StatefulResponse(HttpStatus.SC_BAD_REQUEST);
@@ -577,7 +577,7 @@ public class StatefulServiceImpl implements StatefulService {
 
     Optional<Map<String, Object>> findStatefulDataById(final String id,
                                                        final List<Map<String, Object>> currentStateContent,
-                                                       final RestfulMockStatefulMeta restfulMockStatefulMeta) {
+                                                       final RestfulMockStatefulMetaSnapshot restfulMockStatefulMeta) {
 
 
         final String fieldIdPathPattern = restfulMockStatefulMeta.getIdFieldLocation();
@@ -600,11 +600,11 @@ public class StatefulServiceImpl implements StatefulService {
     }
 
 
-    List<Map<String, Object>> loadStateForMock(final RestfulMock parent) {
+    List<Map<String, Object>> loadStateForMock(final String parentExtId, final RestfulMockStatefulMetaSnapshot statefulMeta) {
 
-        return state.computeIfAbsent(parent.getExtId(), k -> {
+        return state.computeIfAbsent(parentExtId, k -> {
 
-            final String initialBody = parent.getRestfulMockStatefulMeta().getInitialResponseBody();
+            final String initialBody = statefulMeta.getInitialResponseBody();
 
             return (initialBody != null)
                     ? GeneralUtils.deserialiseJson(initialBody, new TypeReference<List<Map<String, Object>>>() {})
@@ -632,7 +632,7 @@ public class StatefulServiceImpl implements StatefulService {
     }
 
     void appendIdToJson(final Map<String, Object> jsonDataMap,
-                        final RestfulMockStatefulMeta restfulMockStatefulMeta) {
+                        final RestfulMockStatefulMetaSnapshot restfulMockStatefulMeta) {
 
         final String fieldIdPathPattern = restfulMockStatefulMeta.getIdFieldLocation();
 
@@ -0,0 +1,175 @@
+package com.smockin.mockserver.service;
+
+import com.smockin.mockserver.dto.TrafficJournalEntryDTO;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * Compact binary encoding of a TrafficJournalEntryDTO. Lengths and counts are variable length ints, with strings
+ * held as UTF-8 (a length of 0 denoting null). The searchable fields come first, so entries can be filtered on these
+ * without decoding the rest.
+ */
+final class TrafficJournalCodec {
+
+    private TrafficJournalCodec() {
+    }
+
+    static byte[] encode(final TrafficJournalEntryDTO entry) {
+
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream(512);
+        final DataOutputStream out = new DataOutputStream(bytes);
+
+        try {
+
+            out.writeLong(entry.getTimestamp());
+            writeVarLong(out, entry.getDurationMillis());
+            out.writeShort(entry.getStatus());
+            out.writeBoolean(entry.isProxied());
+            writeString(out, entry.getTraceId());
+            writeString(out, entry.getMethod());
+            writeString(out, entry.getPath());
+            writeString(out, entry.getMockType());
+
+            writeHeaders(out, entry.getRequestHeaders());
+            writeString(out, entry.getRequestBody());
+            writeHeaders(out, entry.getResponseHeaders());
+            writeString(out, entry.getResponseBody());
+
+        } catch (IOException e) {
+            // Not expected, as this is all in memory
+            throw new UncheckedIOException(e);
+        }
+
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Decodes the entry at the buffer's current position, returning null (without decoding the remainder) where the
+     * searchable fields do not match the given filter.
+     */
+    static TrafficJournalEntryDTO decode(final ByteBuffer buffer,
+                                         final Predicate<TrafficJournalEntryDTO> filter) {
+
+        final TrafficJournalEntryDTO entry = decodeSearchableFields(buffer);
+
+        if (!filter.test(entry)) {
+            return null;
+        }
+
+        entry.setRequestHeaders(readHeaders(buffer));
+        entry.setRequestBody(readString(buffer));
+        entry.setResponseHeaders(readHeaders(buffer));
+        entry.setResponseBody(readString(buffer));
+
+        return entry;
+    }
+
+    static TrafficJournalEntryDTO decodeSearchableFields(final ByteBuffer buffer) {
+
+        final TrafficJournalEntryDTO entry = new TrafficJournalEntryDTO();
+
+        entry.setTimestamp(buffer.getLong());
+        entry.setDurationMillis(readVarLong(buffer));
+        entry.setStatus(buffer.getShort() & 0xFFFF);
+        entry.setProxied(buffer.get() != 0);
+        entry.setTraceId(readString(buffer));
+        entry.setMethod(readString(buffer));
+        entry.setPath(readString(buffer));
+        entry.setMockType(readString(buffer));
+
+        return entry;
+    }
+
+    private static void writeHeaders(final DataOutputStream out, final Map<String, String> headers) throws IOException {
+
+        if (headers == null) {
+            writeVarLong(out, 0);
+            return;
+        }
+
+        writeVarLong(out, headers.size() + 1);
+
+        for (Map.Entry<String, String> header : headers.entrySet()) {
+            writeString(out, header.getKey());
+            writeString(out, header.getValue());
+        }
+    }
+
+    private static Map<String, String> readHeaders(final ByteBuffer buffer) {
+
+        final int size = (int) readVarLong(buffer) - 1;
+
+        if (size < 0) {
+            return null;
+        }
+
+        final Map<String, String> headers = new LinkedHashMap<>();
+
+        for (int i = 0; i < size; i++) {
+            headers.put(readString(buffer), readString(buffer));
+        }
+
+        return headers;
+    }
+
+    private static void writeString(final DataOutputStream out, final String value) throws IOException {
+
+        if (value == null) {
+            writeVarLong(out, 0);
+            return;
+        }
+
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+
+        writeVarLong(out, bytes.length + 1);
+        out.write(bytes);
+    }
+
+    private static String readString(final ByteBuffer buffer) {
+
+        final int length = (int) readVarLong(buffer) - 1;
+
+        if (length < 0) {
+            return null;
+        }
+
+        final byte[] bytes = new byte[length];
+        buffer.get(bytes);
+
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeVarLong(final DataOutputStream out, long value) throws IOException {
+
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+
+        out.writeByte((int) value);
+    }
+
+    private static long readVarLong(final ByteBuffer buffer) {
+
+        long value = 0;
+        int shift = 0;
+        byte b;
+
+        do {
+            b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+
+        return value;
+    }
+
+}
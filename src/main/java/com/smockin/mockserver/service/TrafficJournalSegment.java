@@ -0,0 +1,330 @@
+package com.smockin.mockserver.service;
+
+import com.smockin.mockserver.dto.TrafficJournalEntryDTO;
+import com.smockin.mockserver.dto.TrafficJournalQueryDTO;
+import org.apache.commons.lang3.StringUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+/**
+ * A single memory mapped, append only file of the traffic journal, holding each encoded entry as [int length][entry].
+ *
+ * Only the journal's writer thread appends, with any number of threads searching alongside this. The length of an
+ * entry is only written once the entry itself is in place, and the entry only published to searches (via the volatile
+ * count) after that, so a length of 0 marks the end of the data when a segment is reopened.
+ *
+ * Each segment keeps an in memory index of its time range, statuses, top level paths and trace ids, so searches can
+ * skip whole segments (or go straight to an entry) without decoding any of these.
+ */
+final class TrafficJournalSegment {
+
+    static final String FILE_PREFIX = "traffic-";
+    static final String FILE_SUFFIX = ".journal";
+
+    private static final int MAGIC = 0x534A524E;
+    private static final int HEADER_SIZE = 8;
+    private static final int LENGTH_SIZE = 4;
+
+    private final long sequence;
+    private final File file;
+    private final long createdMillis;
+    private final MappedByteBuffer buffer; // only ever read or written by absolute index
+
+    // The writer's view of the buffer
+    private final ByteBuffer writeBuffer;
+
+    private int[] offsets = new int[256];
+    private volatile int count;
+    private volatile int size = HEADER_SIZE;
+    private volatile long minTimestamp = Long.MAX_VALUE;
+    private volatile long maxTimestamp = Long.MIN_VALUE;
+    private final Map<String, Integer> traceIdOffsets = new ConcurrentHashMap<>();
+    private final Set<Integer> statuses = ConcurrentHashMap.newKeySet();
+    private final Set<String> pathRoots = ConcurrentHashMap.newKeySet();
+
+    private TrafficJournalSegment(final long sequence,
+                                  final File file,
+                                  final long createdMillis,
+                                  final MappedByteBuffer buffer) {
+        this.sequence = sequence;
+        this.file = file;
+        this.createdMillis = createdMillis;
+        this.buffer = buffer;
+        this.writeBuffer = buffer.duplicate();
+    }
+
+    static TrafficJournalSegment create(final File dir, final long sequence, final int capacity) throws IOException {
+
+        final File file = new File(dir, buildFileName(sequence));
+
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+
+            raf.setLength(capacity);
+
+            final MappedByteBuffer buffer = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+            buffer.putInt(0, MAGIC);
+
+            final TrafficJournalSegment segment = new TrafficJournalSegment(sequence, file, System.currentTimeMillis(), buffer);
+            segment.writeBuffer.position(HEADER_SIZE);
+
+            return segment;
+        }
+    }
+
+    /**
+     * Maps an existing (and now sealed) segment read only, rebuilding its index from the entries within it.
+     * Returns null if this is not a journal segment.
+     */
+    static TrafficJournalSegment open(final File file) throws IOException {
+
+        final Long sequence = parseSequence(file.getName());
+
+        if (sequence == null) {
+            return null;
+        }
+
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+
+            if (raf.length() < HEADER_SIZE) {
+                return null;
+            }
+
+            final MappedByteBuffer buffer = raf.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, raf.length());
+
+            if (buffer.getInt(0) != MAGIC) {
+                return null;
+            }
+
+            final TrafficJournalSegment segment = new TrafficJournalSegment(sequence, file, file.lastModified(), buffer);
+            segment.rebuildIndex();
+
+            return segment;
+        }
+    }
+
+    static String buildFileName(final long sequence) {
+        return FILE_PREFIX + String.format("%012d", sequence) + FILE_SUFFIX;
+    }
+
+    static Long parseSequence(final String fileName) {
+
+        if (!StringUtils.startsWith(fileName, FILE_PREFIX)
+                || !StringUtils.endsWith(fileName, FILE_SUFFIX)) {
+            return null;
+        }
+
+        final String sequence = fileName.substring(FILE_PREFIX.length(), fileName.length() - FILE_SUFFIX.length());
+
+        return (StringUtils.isNumeric(sequence))
+                ? Long.valueOf(sequence)
+                : null;
+    }
+
+    /**
+     * Returns false if there is not enough room left for this entry, in which case the segment needs rolling.
+     */
+    boolean append(final TrafficJournalEntryDTO entry, final byte[] encoded) {
+
+        final int offset = writeBuffer.position();
+
+        if (writeBuffer.remaining() < LENGTH_SIZE + encoded.length) {
+            return false;
+        }
+
+        writeBuffer.position(offset + LENGTH_SIZE);
+        writeBuffer.put(encoded);
+        writeBuffer.putInt(offset, encoded.length);
+
+        index(entry, offset);
+        size = writeBuffer.position();
+
+        return true;
+    }
+
+    static int maxEntrySize(final int capacity) {
+        return capacity - HEADER_SIZE - LENGTH_SIZE;
+    }
+
+    void flush() {
+
+        if (!buffer.isReadOnly()) {
+            buffer.force();
+        }
+    }
+
+    boolean mayMatch(final TrafficJournalQueryDTO query) {
+
+        if (count == 0) {
+            return false;
+        }
+
+        if ((query.getFrom() != null && maxTimestamp < query.getFrom())
+                || (query.getTo() != null && minTimestamp > query.getTo())) {
+            return false;
+        }
+
+        if (query.getTraceId() != null) {
+            return traceIdOffsets.containsKey(query.getTraceId());
+        }
+
+        if (query.getMinStatus() != null || query.getMaxStatus() != null) {
+
+            final int minStatus = (query.getMinStatus() != null) ? query.getMinStatus() : Integer.MIN_VALUE;
+            final int maxStatus = (query.getMaxStatus() != null) ? query.getMaxStatus() : Integer.MAX_VALUE;
+
+            if (statuses.stream().noneMatch(s -> s >= minStatus && s <= maxStatus)) {
+                return false;
+            }
+        }
+
+        return query.getPathPrefix() == null
+                || mayMatchPathPrefix(query.getPathPrefix());
+    }
+
+    /**
+     * Adds the entries matching the given filter to the results, newest first, until the limit is reached.
+     */
+    void search(final TrafficJournalQueryDTO query,
+                final Predicate<TrafficJournalEntryDTO> filter,
+                final List<TrafficJournalEntryDTO> results) {
+
+        if (query.getTraceId() != null) {
+
+            final Integer offset = traceIdOffsets.get(query.getTraceId());
+
+            if (offset != null) {
+                addIfMatched(offset, filter, results);
+            }
+
+            return;
+        }
+
+        // Reading count first ensures the offsets (and entries) up to this are visible
+        final int total = count;
+        final int[] indexedOffsets = offsets;
+
+        for (int i = total - 1; i >= 0 && results.size() < query.getLimit(); i--) {
+            addIfMatched(indexedOffsets[i], filter, results);
+        }
+    }
+
+    long getSequence() {
+        return sequence;
+    }
+
+    long getCreatedMillis() {
+        return createdMillis;
+    }
+
+    long getMaxTimestamp() {
+        return maxTimestamp;
+    }
+
+    int getCount() {
+        return count;
+    }
+
+    /**
+     * The bytes written so far, rather than the capacity mapped up front, so a segment rolled early (i.e. by age) only
+     * counts what it actually holds towards the journal's retention size.
+     */
+    long getSize() {
+        return size;
+    }
+
+    File getFile() {
+        return file;
+    }
+
+    private void addIfMatched(final int offset,
+                              final Predicate<TrafficJournalEntryDTO> filter,
+                              final List<TrafficJournalEntryDTO> results) {
+
+        final ByteBuffer reader = buffer.duplicate();
+        reader.position(offset + LENGTH_SIZE);
+
+        final TrafficJournalEntryDTO entry = TrafficJournalCodec.decode(reader, filter);
+
+        if (entry != null) {
+            results.add(entry);
+        }
+    }
+
+    private void rebuildIndex() {
+
+        final ByteBuffer reader = buffer.duplicate();
+        int offset = HEADER_SIZE;
+
+        while (offset + LENGTH_SIZE <= reader.capacity()) {
+
+            final int length = reader.getInt(offset);
+
+            if (length <= 0
+                    || offset + LENGTH_SIZE + length > reader.capacity()) {
+                break;
+            }
+
+            reader.position(offset + LENGTH_SIZE);
+            index(TrafficJournalCodec.decodeSearchableFields(reader), offset);
+
+            offset += LENGTH_SIZE + length;
+        }
+
+        size = offset;
+    }
+
+    private void index(final TrafficJournalEntryDTO entry, final int offset) {
+
+        if (count == offsets.length) {
+            offsets = Arrays.copyOf(offsets, count * 2);
+        }
+
+        offsets[count] = offset;
+
+        if (entry.getTraceId() != null) {
+            traceIdOffsets.put(entry.getTraceId(), offset);
+        }
+
+        statuses.add(entry.getStatus());
+
+        if (entry.getPath() != null) {
+            pathRoots.add(extractPathRoot(entry.getPath()));
+        }
+
+        minTimestamp = Math.min(minTimestamp, entry.getTimestamp());
+        maxTimestamp = Math.max(maxTimestamp, entry.getTimestamp());
+
+        count++;
+    }
+
+    private boolean mayMatchPathPrefix(final String pathPrefix) {
+
+        // A prefix running past the first part of the path can only be within that root...
+        if (pathPrefix.indexOf('/', 1) != -1) {
+            return pathRoots.contains(extractPathRoot(pathPrefix));
+        }
+
+        // ...otherwise it may be part of any root starting with it
+        return pathRoots.stream().anyMatch(r -> r.startsWith(pathPrefix));
+    }
+
+    // e.g. /api for /api/users/1
+    static String extractPathRoot(final String path) {
+
+        final int end = path.indexOf('/', 1);
+
+        return (end == -1) ? path : path.substring(0, end);
+    }
+
+}
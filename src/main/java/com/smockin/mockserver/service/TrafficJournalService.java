@@ -0,0 +1,20 @@
+package com.smockin.mockserver.service;
+
+import com.smockin.admin.exception.ValidationException;
+import com.smockin.mockserver.dto.TrafficJournalEntryDTO;
+import com.smockin.mockserver.dto.TrafficJournalQueryDTO;
+
+import java.util.List;
+
+public interface TrafficJournalService {
+
+    // Recorded in place of a request body which was streamed on downstream as it was read
+    String BODY_NOT_CAPTURED = "(not captured, as streamed downstream)";
+
+    boolean isEnabled();
+    int getMaxBodySize();
+    void record(final TrafficJournalEntryDTO entry);
+    List<TrafficJournalEntryDTO> search(final TrafficJournalQueryDTO query) throws ValidationException;
+    long getDroppedEntryCount();
+
+}
@@ -0,0 +1,364 @@
+package com.smockin.mockserver.service;
+
+import com.smockin.admin.exception.ValidationException;
+import com.smockin.mockserver.dto.TrafficJournalEntryDTO;
+import com.smockin.mockserver.dto.TrafficJournalQueryDTO;
+import com.smockin.utils.LiveLoggingUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+/**
+ * An optional, persistent record of all mock server traffic (see the smockin.journal settings), which can be searched
+ * after the event, unlike the live logging feed.
+ *
+ * Credential headers are redacted and bodies truncated before an entry is even queued, so neither credentials nor
+ * oversized bodies are ever held in the queue or written to disk.
+ *
+ * Request threads only ever hand entries over to a bounded queue (dropping these if it is full), with a single writer
+ * thread encoding and appending them to the active segment. Segments are rolled once full or old enough, with the
+ * oldest deleted once the journal exceeds its retention size or age.
+ */
+@Service
+public class TrafficJournalServiceImpl implements TrafficJournalService {
+
+    private final Logger logger = LoggerFactory.getLogger(TrafficJournalServiceImpl.class);
+
+    static final int MAX_PENDING_ENTRIES = 8192;
+    static final int DEFAULT_SEARCH_LIMIT = 100;
+    static final int MAX_SEARCH_LIMIT = 1000;
+    static final String REDACTED_HEADER_VALUE = "(redacted)";
+    private static final long MB = 1024 * 1024;
+
+    // Lower case, as header names are matched case insensitively
+    static final Set<String> REDACTED_HEADERS = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+            HttpHeaders.AUTHORIZATION.toLowerCase(),
+            HttpHeaders.PROXY_AUTHORIZATION.toLowerCase(),
+            HttpHeaders.COOKIE.toLowerCase(),
+            HttpHeaders.SET_COOKIE.toLowerCase(),
+            "x-api-key")));
+
+    @Value("${smockin.journal.enabled:false}")
+    private boolean enabled;
+
+    @Value("${smockin.journal.dir:${user.home}/.smockin/journal}")
+    private String journalDir;
+
+    @Value("${smockin.journal.segment-size-mb:64}")
+    private int segmentSizeMb;
+
+    @Value("${smockin.journal.segment-max-age-minutes:60}")
+    private int segmentMaxAgeMinutes;
+
+    @Value("${smockin.journal.retention-mb:1024}")
+    private int retentionMb;
+
+    @Value("${smockin.journal.retention-hours:24}")
+    private int retentionHours;
+
+    @Value("${smockin.journal.max-body-size:16384}")
+    private int maxBodySize;
+
+    private final BlockingQueue<TrafficJournalEntryDTO> pendingEntries = new ArrayBlockingQueue<>(MAX_PENDING_ENTRIES);
+    private final LongAdder droppedEntries = new LongAdder();
+
+    // Oldest first, with the last of these being the active segment (only ever modified by the writer)
+    private final List<TrafficJournalSegment> segments = new CopyOnWriteArrayList<>();
+
+    private final Thread writer = new Thread(this::writePendingEntries, "smockin-traffic-journal-writer");
+
+    @PostConstruct
+    public void start() throws IOException {
+
+        if (!enabled) {
+            return;
+        }
+
+        open();
+
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+
+        if (!writer.isAlive()) {
+            return;
+        }
+
+        writer.interrupt();
+        writer.join(TimeUnit.SECONDS.toMillis(5));
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public int getMaxBodySize() {
+        return maxBodySize;
+    }
+
+    @Override
+    public void record(final TrafficJournalEntryDTO entry) {
+
+        if (!enabled) {
+            return;
+        }
+
+        entry.setRequestHeaders(redactHeaders(entry.getRequestHeaders()));
+        entry.setResponseHeaders(redactHeaders(entry.getResponseHeaders()));
+        if (!BODY_NOT_CAPTURED.equals(entry.getRequestBody())) {
+            entry.setRequestBody(LiveLoggingUtils.truncateBody(entry.getRequestBody(), maxBodySize));
+        }
+
+        entry.setResponseBody(LiveLoggingUtils.truncateBody(entry.getResponseBody(), maxBodySize));
+
+        if (!pendingEntries.offer(entry)) {
+            droppedEntries.increment();
+        }
+    }
+
+    @Override
+    public List<TrafficJournalEntryDTO> search(final TrafficJournalQueryDTO query) throws ValidationException {
+
+        if (!enabled) {
+            throw new ValidationException("The traffic journal is not enabled");
+        }
+
+        if (query.getFrom() != null
+                && query.getTo() != null
+                && query.getFrom() > query.getTo()) {
+            throw new ValidationException("'from' cannot be after 'to'");
+        }
+
+        if (query.getMinStatus() != null
+                && query.getMaxStatus() != null
+                && query.getMinStatus() > query.getMaxStatus()) {
+            throw new ValidationException("'minStatus' cannot be greater than 'maxStatus'");
+        }
+
+        query.setLimit((query.getLimit() > 0) ? Math.min(query.getLimit(), MAX_SEARCH_LIMIT) : DEFAULT_SEARCH_LIMIT);
+
+        final Predicate<TrafficJournalEntryDTO> filter = buildFilter(query);
+        final List<TrafficJournalEntryDTO> results = new ArrayList<>();
+
+        // A snapshot, as the writer may roll or delete segments while this runs (newest first)
+        final List<TrafficJournalSegment> snapshot = new ArrayList<>(segments);
+
+        for (int i = snapshot.size() - 1; i >= 0 && results.size() < query.getLimit(); i--) {
+
+            final TrafficJournalSegment segment = snapshot.get(i);
+
+            if (segment.mayMatch(query)) {
+                segment.search(query, filter, results);
+            }
+        }
+
+        return results;
+    }
+
+    @Override
+    public long getDroppedEntryCount() {
+        return droppedEntries.sum();
+    }
+
+    /**
+     * Loads any segments left by a previous run and starts a new active segment after these.
+     */
+    void open() throws IOException {
+
+        final File dir = new File(journalDir);
+
+        if (!dir.exists() && !dir.mkdirs()) {
+            throw new IOException("Unable to create traffic journal directory " + dir.getAbsolutePath());
+        }
+
+        final File[] files = dir.listFiles();
+        final List<TrafficJournalSegment> existingSegments = new ArrayList<>();
+
+        if (files != null) {
+            for (File file : files) {
+                try {
+                    final TrafficJournalSegment segment = TrafficJournalSegment.open(file);
+
+                    if (segment != null) {
+                        existingSegments.add(segment);
+                    }
+                } catch (IOException e) {
+                    logger.error("Unable to open traffic journal segment " + file.getName(), e);
+                }
+            }
+        }
+
+        existingSegments.sort(Comparator.comparingLong(TrafficJournalSegment::getSequence));
+        segments.addAll(existingSegments);
+
+        final long nextSequence = (existingSegments.isEmpty())
+                ? 1
+                : existingSegments.get(existingSegments.size() - 1).getSequence() + 1;
+
+        segments.add(TrafficJournalSegment.create(dir, nextSequence, getSegmentCapacity()));
+
+        applyRetention();
+    }
+
+    /**
+     * Writes out all entries currently pending, then applies any rolling and retention due.
+     */
+    void writePending() throws IOException {
+
+        TrafficJournalEntryDTO entry;
+
+        while ((entry = pendingEntries.poll()) != null) {
+            write(entry);
+        }
+
+        final TrafficJournalSegment active = getActiveSegment();
+
+        if (active.getCount() > 0
+                && System.currentTimeMillis() - active.getCreatedMillis() >= TimeUnit.MINUTES.toMillis(segmentMaxAgeMinutes)) {
+            roll();
+        }
+
+        applyRetention();
+    }
+
+    private void writePendingEntries() {
+
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+
+                final TrafficJournalEntryDTO entry = pendingEntries.poll(1, TimeUnit.SECONDS);
+
+                if (entry != null) {
+                    write(entry);
+                }
+
+                writePending();
+
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                logger.error("Error writing to the traffic journal", e);
+            }
+        }
+
+        try {
+            writePending();
+            getActiveSegment().flush();
+        } catch (Exception e) {
+            logger.error("Error writing to the traffic journal on shutdown", e);
+        }
+    }
+
+    private void write(final TrafficJournalEntryDTO entry) throws IOException {
+
+        final byte[] encoded = TrafficJournalCodec.encode(entry);
+
+        if (encoded.length > TrafficJournalSegment.maxEntrySize(getSegmentCapacity())) {
+            logger.warn("Traffic journal entry " + entry.getTraceId() + " is too large for a segment, so has been dropped");
+            droppedEntries.increment();
+            return;
+        }
+
+        if (!getActiveSegment().append(entry, encoded)) {
+            roll();
+            getActiveSegment().append(entry, encoded);
+        }
+    }
+
+    private void roll() throws IOException {
+
+        final TrafficJournalSegment active = getActiveSegment();
+        active.flush();
+
+        segments.add(TrafficJournalSegment.create(new File(journalDir), active.getSequence() + 1, getSegmentCapacity()));
+    }
+
+    // Deletes the oldest segments (never the active one) which are beyond either retention limit
+    private void applyRetention() {
+
+        final long expiredBefore = System.currentTimeMillis() - TimeUnit.HOURS.toMillis(retentionHours);
+        long totalSize = segments.stream().mapToLong(TrafficJournalSegment::getSize).sum();
+
+        while (segments.size() > 1) {
+
+            final TrafficJournalSegment oldest = segments.get(0);
+
+            if (totalSize <= retentionMb * MB
+                    && oldest.getMaxTimestamp() >= expiredBefore) {
+                return;
+            }
+
+            segments.remove(0);
+            totalSize -= oldest.getSize();
+
+            if (!oldest.getFile().delete()) {
+                logger.warn("Unable to delete traffic journal segment " + oldest.getFile().getName());
+            }
+        }
+    }
+
+    // Copied, as the headers given may also be in use elsewhere (e.g. by live logging)
+    private Map<String, String> redactHeaders(final Map<String, String> headers) {
+
+        if (headers == null) {
+            return null;
+        }
+
+        final Map<String, String> redactedHeaders = new HashMap<>(headers);
+
+        redactedHeaders.replaceAll((k, v) ->
+                (k != null && REDACTED_HEADERS.contains(k.toLowerCase()))
+                        ? REDACTED_HEADER_VALUE
+                        : v);
+
+        return redactedHeaders;
+    }
+
+    private Predicate<TrafficJournalEntryDTO> buildFilter(final TrafficJournalQueryDTO query) {
+
+        return e ->
+                (query.getFrom() == null || e.getTimestamp() >= query.getFrom())
+                && (query.getTo() == null || e.getTimestamp() <= query.getTo())
+                && (query.getPathPrefix() == null || StringUtils.startsWith(e.getPath(), query.getPathPrefix()))
+                && (query.getMinStatus() == null || e.getStatus() >= query.getMinStatus())
+                && (query.getMaxStatus() == null || e.getStatus() <= query.getMaxStatus())
+                && (query.getTraceId() == null || query.getTraceId().equals(e.getTraceId()));
+    }
+
+    private TrafficJournalSegment getActiveSegment() {
+        return segments.get(segments.size() - 1);
+    }
+
+    private int getSegmentCapacity() {
+        return (int) Math.min(Integer.MAX_VALUE, Math.max(1, segmentSizeMb) * MB);
+    }
+
+}
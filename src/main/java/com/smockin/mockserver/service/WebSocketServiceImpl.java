@@ -10,6 +10,7 @@ import com.smockin.admin.persistence.enums.RestMockTypeEnum;
 import com.smockin.admin.service.utils.UserTokenServiceUtils;
 import com.smockin.mockserver.engine.MockedRestServerEngineUtils;
 import com.smockin.mockserver.exception.MockServerException;
+import com.smockin.mockserver.service.bean.RestfulMockSnapshot;
 import com.smockin.mockserver.service.dto.PushClientDTO;
 import com.smockin.mockserver.service.dto.RestfulResponseDTO;
 import com.smockin.mockserver.service.dto.WebSocketDTO;
@@ -149,7 +150,7 @@ public class WebSocketServiceImpl implements WebSocketService {
                 // check if a rules is matched
                 boolean ruleMatched = false;
                 Request req = new sMockinRequest(message);
-                RestfulResponseDTO response = ruleEngine.process(req, wsMock.getRules());
+                RestfulResponseDTO response = ruleEngine.process(req, RestfulMockSnapshot.from(wsMock));
                 if (response != null && response.getResponseBody() != null) {
                     ruleMatched = true;
                     // Only one session should match this key - needs verification
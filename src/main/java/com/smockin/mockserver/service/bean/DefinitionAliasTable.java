@@ -0,0 +1,128 @@
+package com.smockin.mockserver.service.bean;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Pre-computed alias table (Vose's method) of a randomised mock's definitions, each weighted by its frequency count
+ * (where a count of 0 counts as 1, so un-weighted definitions are picked uniformly).
+ *
+ * A weighted pick then costs one random column and one biased coin toss, regardless of the number of definitions
+ * or the size of their weights.
+ */
+public final class DefinitionAliasTable {
+
+    private final double[] probability;
+    private final int[] alias;
+
+    private DefinitionAliasTable(final double[] probability, final int[] alias) {
+        this.probability = probability;
+        this.alias = alias;
+    }
+
+    public static DefinitionAliasTable compile(final List<RestfulMockDefinitionSnapshot> definitions) {
+
+        final int n = definitions.size();
+        final double[] probability = new double[n];
+        final int[] alias = new int[n];
+
+        if (n == 0) {
+            return new DefinitionAliasTable(probability, alias);
+        }
+
+        long totalWeight = 0;
+
+        for (RestfulMockDefinitionSnapshot d : definitions) {
+            totalWeight += weightOf(d);
+        }
+
+        // Each weight scaled so the average column holds exactly 1
+        final double[] scaled = new double[n];
+        final Deque<Integer> small = new ArrayDeque<>();
+        final Deque<Integer> large = new ArrayDeque<>();
+
+        for (int i = 0; i < n; i++) {
+
+            scaled[i] = ((double) weightOf(definitions.get(i)) * n) / totalWeight;
+
+            if (scaled[i] < 1.0) {
+                small.push(i);
+            } else {
+                large.push(i);
+            }
+        }
+
+        while (!small.isEmpty() && !large.isEmpty()) {
+
+            final int s = small.pop();
+            final int l = large.pop();
+
+            probability[s] = scaled[s];
+            alias[s] = l;
+
+            // The large column donates whatever the small one is short of
+            scaled[l] = (scaled[l] + scaled[s]) - 1.0;
+
+            if (scaled[l] < 1.0) {
+                small.push(l);
+            } else {
+                large.push(l);
+            }
+        }
+
+        // Anything left over is (bar rounding errors) a full column
+        while (!large.isEmpty()) {
+            final int l = large.pop();
+            probability[l] = 1.0;
+            alias[l] = l;
+        }
+
+        while (!small.isEmpty()) {
+            final int s = small.pop();
+            probability[s] = 1.0;
+            alias[s] = s;
+        }
+
+        return new DefinitionAliasTable(probability, alias);
+    }
+
+    public boolean isEmpty() {
+        return probability.length == 0;
+    }
+
+    /**
+     * @return the index of a definition, picked at random in proportion to its weight.
+     */
+    public int sample() {
+
+        final ThreadLocalRandom random = ThreadLocalRandom.current();
+        final int column = random.nextInt(probability.length);
+
+        return (random.nextDouble() < probability[column])
+                ? column
+                : alias[column];
+    }
+
+    /**
+     * @return the chance of the given definition index being picked, as implied by the table.
+     */
+    double probabilityOf(final int index) {
+
+        double p = probability[index];
+
+        for (int i = 0; i < alias.length; i++) {
+            if (alias[i] == index && i != index) {
+                p += 1.0 - probability[i];
+            }
+        }
+
+        return p / probability.length;
+    }
+
+    private static int weightOf(final RestfulMockDefinitionSnapshot definition) {
+        return (definition.getFrequencyCount() > 0) ? definition.getFrequencyCount() : 1;
+    }
+
+}
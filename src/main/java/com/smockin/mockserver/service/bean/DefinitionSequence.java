@@ -0,0 +1,80 @@
+package com.smockin.mockserver.service.bean;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Pre-computed cycle of a SEQ mock's definitions, in which each definition appears (consecutively) as many times as
+ * its frequency count. e.g. counts of 2, 1 and 3 give the cycle [0, 0, 1, 2, 2, 2].
+ *
+ * The definition for any position in the sequence is then just a look up of that position modulo the cycle length,
+ * so callers only need to track a single counter per mock.
+ */
+public final class DefinitionSequence {
+
+    // Longer cycles are resolved with a binary search over the running totals, rather than being expanded in full
+    static final int MAX_EXPANDED_CYCLE = 10000;
+
+    private final int[] cycle;
+    private final long[] runningTotals;
+    private final long length;
+
+    private DefinitionSequence(final int[] cycle, final long[] runningTotals, final long length) {
+        this.cycle = cycle;
+        this.runningTotals = runningTotals;
+        this.length = length;
+    }
+
+    public static DefinitionSequence compile(final List<RestfulMockDefinitionSnapshot> definitions) {
+
+        final long[] runningTotals = new long[definitions.size()];
+        long length = 0;
+
+        for (int i = 0; i < definitions.size(); i++) {
+            final int frequencyCount = definitions.get(i).getFrequencyCount();
+            length += (frequencyCount > 0) ? frequencyCount : 1;
+            runningTotals[i] = length;
+        }
+
+        if (length > MAX_EXPANDED_CYCLE) {
+            return new DefinitionSequence(null, runningTotals, length);
+        }
+
+        final int[] cycle = new int[(int) length];
+        int start = 0;
+
+        for (int i = 0; i < runningTotals.length; i++) {
+            Arrays.fill(cycle, start, (int) runningTotals[i], i);
+            start = (int) runningTotals[i];
+        }
+
+        return new DefinitionSequence(cycle, null, length);
+    }
+
+    public boolean isEmpty() {
+        return length == 0;
+    }
+
+    public long getLength() {
+        return length;
+    }
+
+    /**
+     * @param position a zero based, ever increasing position in the sequence.
+     * @return the index of the definition at this position.
+     */
+    public int indexAt(final long position) {
+
+        final long offset = Math.floorMod(position, length);
+
+        if (cycle != null) {
+            return cycle[(int) offset];
+        }
+
+        // i.e the first definition whose running total exceeds the offset
+        final int found = Arrays.binarySearch(runningTotals, offset + 1);
+
+        return (found >= 0) ? found : -(found + 1);
+    }
+
+}
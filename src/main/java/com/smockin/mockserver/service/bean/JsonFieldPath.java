@@ -0,0 +1,157 @@
+package com.smockin.mockserver.service.bean;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.math.NumberUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Pre-compiled form of a REQUEST_BODY_JSON_ANY rule field (e.g. 'name', 'person.name' or 'person.pets[2].type'),
+ * so the dotted path is only split and parsed once, rather than on every request.
+ *
+ * Reads values from an already parsed JSON body, following the same rules as the original
+ * RuleEngineUtils.matchOnJsonField look up.
+ */
+public final class JsonFieldPath {
+
+    private static final String PATH_SEPARATOR = ".";
+
+    private final String fieldName;
+    private final boolean nested;
+    private final boolean valid;
+    private final List<Step> steps;
+
+    private JsonFieldPath(final String fieldName, final boolean nested, final boolean valid, final List<Step> steps) {
+        this.fieldName = fieldName;
+        this.nested = nested;
+        this.valid = valid;
+        this.steps = steps;
+    }
+
+    public static JsonFieldPath compile(final String fieldName) {
+
+        // e.g. name or items[]
+        if (StringUtils.indexOf(fieldName, PATH_SEPARATOR) == -1) {
+            return new JsonFieldPath(fieldName, false, true, Collections.emptyList());
+        }
+
+        // e.g.
+        // person.name
+        // person.pets[2].type
+        final List<Step> steps = new ArrayList<>();
+
+        for (String f : StringUtils.split(fieldName, PATH_SEPARATOR)) {
+
+            if (isListField(f)) {
+
+                if (!f.startsWith("[")) {
+                    steps.add(new Step(f.substring(0, f.indexOf("[")), -1, true));
+                }
+
+                final String positionStr = f.substring(f.indexOf("[") + 1, f.length() - 1);
+
+                if (!NumberUtils.isDigits(positionStr)) {
+                    // Never matches, as with an invalid list position in the original look up
+                    return new JsonFieldPath(fieldName, true, false, Collections.emptyList());
+                }
+
+                steps.add(new Step(null, Integer.parseInt(positionStr), false));
+
+            } else {
+                steps.add(new Step(f, -1, false));
+            }
+
+        }
+
+        return new JsonFieldPath(fieldName, true, true, Collections.unmodifiableList(steps));
+    }
+
+    public String getFieldName() {
+        return fieldName;
+    }
+
+    /**
+     * @param jsonBody the request body, as parsed into either a Map or a List.
+     */
+    public String read(final Object jsonBody) {
+
+        if (jsonBody == null || !valid) {
+            return null;
+        }
+
+        if (!nested) {
+
+            if (isListField(fieldName)
+                    && jsonBody instanceof List) {
+                return (String)((List)jsonBody).get(0);
+            }
+
+            return (String)((Map<String, ?>)jsonBody).get(fieldName);
+        }
+
+        Object current = jsonBody;
+
+        for (Step s : steps) {
+
+            if (s.getKey() != null) {
+
+                if (s.isListExpected()) {
+
+                    current = ((Map) current).get(s.getKey());
+
+                    if (!(current instanceof List)) {
+                        return null;
+                    }
+
+                } else if (current instanceof Map) {
+                    current = ((Map) current).get(s.getKey());
+                } else {
+                    return null;
+                }
+
+            } else {
+                current = ((List) current).get(s.getIndex());
+            }
+
+        }
+
+        if (current == null
+                || current instanceof List
+                || current instanceof Map) {
+            return null;
+        }
+
+        return (String)current;
+    }
+
+    private static boolean isListField(final String field) {
+        return field.indexOf("[") > -1 && field.endsWith("]");
+    }
+
+    private static final class Step {
+
+        private final String key;
+        private final int index;
+        private final boolean listExpected;
+
+        private Step(final String key, final int index, final boolean listExpected) {
+            this.key = key;
+            this.index = index;
+            this.listExpected = listExpected;
+        }
+
+        private String getKey() {
+            return key;
+        }
+        private int getIndex() {
+            return index;
+        }
+        private boolean isListExpected() {
+            return listExpected;
+        }
+    }
+
+}
@@ -0,0 +1,330 @@
+package com.smockin.mockserver.service.bean;
+
+import com.smockin.mockserver.service.enums.ParamMatchTypeEnum;
+import org.apache.commons.lang3.RandomUtils;
+import org.apache.commons.lang3.StringUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Pre-compiled form of a response body containing inbound param tokens (e.g. $requestHeader(name) or $lookUpKvp($pathVar(id))).
+ *
+ * The body is parsed once into a list of literal and token nodes, so each request only has to resolve the tokens
+ * and append every node into a single buffer, rather than repeatedly rescanning and rebuilding the whole body.
+ *
+ * Token values are appended as they are and are never themselves scanned for further tokens.
+ */
+public final class ResponseTemplate {
+
+    private static final String SINGLE_QUOTE = "'";
+    private static final String DOUBLE_QUOTE = "\"";
+
+    private final String source;
+    private final List<Node> nodes;
+    private final boolean containsTokens;
+
+    private ResponseTemplate(final String source, final List<Node> nodes, final boolean containsTokens) {
+        this.source = source;
+        this.nodes = nodes;
+        this.containsTokens = containsTokens;
+    }
+
+    public static ResponseTemplate compile(final String source) {
+
+        if (source == null) {
+            return null;
+        }
+
+        final List<Node> nodes = new ArrayList<>();
+        boolean containsTokens = false;
+
+        int literalStart = 0;
+        int pos = source.indexOf(ParamMatchTypeEnum.PARAM_PREFIX);
+
+        while (pos > -1) {
+
+            final ParamMatchTypeEnum type = findTokenAt(source, pos);
+
+            if (type == null) {
+                pos = source.indexOf(ParamMatchTypeEnum.PARAM_PREFIX, pos + 1);
+                continue;
+            }
+
+            if (pos > literalStart) {
+                nodes.add(new LiteralNode(source.substring(literalStart, pos)));
+            }
+
+            containsTokens = true;
+
+            final int argStart = pos + ParamMatchTypeEnum.PARAM_PREFIX.length() + type.name().length() + ((type.takesArg()) ? 1 : 0);
+
+            if (!type.takesArg()) {
+                nodes.add(new TokenNode(type, null));
+                literalStart = argStart;
+                pos = source.indexOf(ParamMatchTypeEnum.PARAM_PREFIX, literalStart);
+                continue;
+            }
+
+            final int closingPos = source.indexOf(")", argStart);
+
+            if (closingPos == -1) {
+                // Unclosed token, so the remainder of the body can not be rendered
+                nodes.add(new InvalidNode(type.name() + " is missing a closing bracket"));
+                literalStart = source.length();
+                break;
+            }
+
+            final String arg = source.substring(argStart, closingPos);
+            int tokenEnd = closingPos + 1;
+
+            if (ParamMatchTypeEnum.lookUpKvp.equals(type) && arg.contains("(")) {
+
+                // A nested token, e.g. $lookUpKvp($requestHeader(name)), which must close with '))'
+                if (tokenEnd >= source.length() || source.charAt(tokenEnd) != ')') {
+                    nodes.add(new InvalidNode(type.name() + " is missing a closing bracket"));
+                    literalStart = source.length();
+                    break;
+                }
+
+                tokenEnd++;
+            }
+
+            switch (type) {
+                case lookUpKvp:
+                    nodes.add(compileKvp(arg));
+                    break;
+                case randomNumber:
+                    nodes.add(compileRandomNumber(arg));
+                    break;
+                default:
+                    nodes.add(new TokenNode(type, sanitiseArgName(arg)));
+                    break;
+            }
+
+            literalStart = tokenEnd;
+            pos = source.indexOf(ParamMatchTypeEnum.PARAM_PREFIX, literalStart);
+        }
+
+        if (literalStart < source.length()) {
+            nodes.add(new LiteralNode(source.substring(literalStart)));
+        }
+
+        return new ResponseTemplate(source, Collections.unmodifiableList(nodes), containsTokens);
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    public boolean containsTokens() {
+        return containsTokens;
+    }
+
+    public String render(final TokenResolver resolver) {
+
+        if (!containsTokens) {
+            return source;
+        }
+
+        final StringBuilder sb = new StringBuilder(source.length() + 64);
+
+        for (Node n : nodes) {
+            n.render(sb, resolver);
+        }
+
+        return sb.toString();
+    }
+
+    /**
+     * Token names are matched case sensitively and in enum order (so isoDatetime is tried before isoDate).
+     */
+    static ParamMatchTypeEnum findTokenAt(final String source, final int pos) {
+
+        for (ParamMatchTypeEnum p : ParamMatchTypeEnum.values()) {
+            if (source.startsWith(ParamMatchTypeEnum.PARAM_PREFIX + p.name() + ((p.takesArg()) ? "(" : ""), pos)) {
+                return p;
+            }
+        }
+
+        return null;
+    }
+
+    static String sanitiseArgName(final String argName) {
+        return StringUtils.remove(StringUtils.remove(argName, SINGLE_QUOTE), DOUBLE_QUOTE);
+    }
+
+    private static Node compileKvp(final String arg) {
+
+        String key = sanitiseArgName(arg);
+
+        if (key.contains("(")) {
+            key = key.concat(")");
+        }
+
+        // Check if the key is itself a token, looking for the first type (in enum order) it contains
+        for (ParamMatchTypeEnum p : ParamMatchTypeEnum.values()) {
+
+            final int nestedPos = key.indexOf(ParamMatchTypeEnum.PARAM_PREFIX + p.name() + ((p.takesArg()) ? "(" : ""));
+
+            if (nestedPos == -1) {
+                continue;
+            }
+
+            switch (p) {
+                case requestHeader:
+                case requestParameter:
+                case pathVar:
+                    final int nestedArgStart = nestedPos + ParamMatchTypeEnum.PARAM_PREFIX.length() + p.name().length() + 1;
+                    return new KvpNode(null, new TokenNode(p, StringUtils.substring(key, nestedArgStart, key.length() - 1)));
+                case requestBody:
+                    return new KvpNode(null, new TokenNode(p, null));
+                default:
+                    // Other nested types are not supported as KVP keys, so never match
+                    return new KvpNode(null, null);
+            }
+        }
+
+        return new KvpNode(key, null);
+    }
+
+    private static Node compileRandomNumber(final String arg) {
+
+        final String[] params = StringUtils.split(arg, ",");
+
+        if (params.length == 0) {
+            return new InvalidNode(ParamMatchTypeEnum.randomNumber.name() + " is missing args");
+        }
+
+        if (params.length > 2) {
+            return new InvalidNode(ParamMatchTypeEnum.randomNumber.name() + " has too many args");
+        }
+
+        try {
+
+            final int startInc = (params.length == 2) ? Integer.parseInt(params[0].trim()) : 0;
+            final int endExcl = (params.length == 2) ? Integer.parseInt(params[1].trim()) : Integer.parseInt(params[0].trim());
+
+            if (startInc < 0 || endExcl < startInc) {
+                return new InvalidNode(ParamMatchTypeEnum.randomNumber.name() + " has an invalid range");
+            }
+
+            return new RandomNumberNode(startInc, endExcl);
+
+        } catch (NumberFormatException ex) {
+            return new InvalidNode(ParamMatchTypeEnum.randomNumber.name() + " has non numeric args");
+        }
+
+    }
+
+    /**
+     * Supplies the request specific values of each token.
+     */
+    public interface TokenResolver {
+
+        /**
+         * @param type one of requestHeader, requestParameter, pathVar, requestBody, isoDate, isoDatetime or uuid.
+         * @param argName the sanitised token arg, or null if the type does not take one.
+         * @return the value, or null if there is none.
+         */
+        String resolve(final ParamMatchTypeEnum type, final String argName);
+
+        String resolveKvp(final String key);
+
+    }
+
+    private interface Node {
+        void render(final StringBuilder sb, final TokenResolver resolver);
+    }
+
+    private static final class LiteralNode implements Node {
+
+        private final String text;
+
+        private LiteralNode(final String text) {
+            this.text = text;
+        }
+
+        @Override
+        public void render(final StringBuilder sb, final TokenResolver resolver) {
+            sb.append(text);
+        }
+    }
+
+    private static final class TokenNode implements Node {
+
+        private final ParamMatchTypeEnum type;
+        private final String argName;
+
+        private TokenNode(final ParamMatchTypeEnum type, final String argName) {
+            this.type = type;
+            this.argName = argName;
+        }
+
+        private String resolve(final TokenResolver resolver) {
+            return resolver.resolve(type, argName);
+        }
+
+        @Override
+        public void render(final StringBuilder sb, final TokenResolver resolver) {
+            sb.append(StringUtils.defaultString(resolve(resolver)));
+        }
+    }
+
+    private static final class KvpNode implements Node {
+
+        // Only one of these is set, unless the key is an unsupported nested token, in which case neither are
+        private final String key;
+        private final TokenNode nestedKey;
+
+        private KvpNode(final String key, final TokenNode nestedKey) {
+            this.key = key;
+            this.nestedKey = nestedKey;
+        }
+
+        @Override
+        public void render(final StringBuilder sb, final TokenResolver resolver) {
+
+            final String k = (nestedKey != null)
+                    ? nestedKey.resolve(resolver)
+                    : key;
+
+            if (k != null) {
+                sb.append(StringUtils.defaultString(resolver.resolveKvp(k)));
+            }
+
+        }
+    }
+
+    private static final class RandomNumberNode implements Node {
+
+        private final int startInc;
+        private final int endExcl;
+
+        private RandomNumberNode(final int startInc, final int endExcl) {
+            this.startInc = startInc;
+            this.endExcl = endExcl;
+        }
+
+        @Override
+        public void render(final StringBuilder sb, final TokenResolver resolver) {
+            sb.append(RandomUtils.nextInt(startInc, endExcl));
+        }
+    }
+
+    private static final class InvalidNode implements Node {
+
+        private final String message;
+
+        private InvalidNode(final String message) {
+            this.message = message;
+        }
+
+        @Override
+        public void render(final StringBuilder sb, final TokenResolver resolver) {
+            throw new IllegalArgumentException(message);
+        }
+    }
+
+}
@@ -0,0 +1,44 @@
+package com.smockin.mockserver.service.bean;
+
+import lombok.Getter;
+
+import java.util.Map;
+
+@Getter
+public final class RestfulMockDefinitionSnapshot {
+
+    private final String extId;
+    private final int orderNo;
+    private final int httpStatusCode;
+    private final String responseContentType;
+    private final String responseBody;
+    private final Map<String, String> responseHeaders;
+    private final long sleepInMillis;
+    private final int frequencyCount;
+    private final int frequencyPercentage;
+
+    // Compiled from the responseBody
+    private final ResponseTemplate responseTemplate;
+
+    public RestfulMockDefinitionSnapshot(final String extId,
+                                         final int orderNo,
+                                         final int httpStatusCode,
+                                         final String responseContentType,
+                                         final String responseBody,
+                                         final Map<String, String> responseHeaders,
+                                         final long sleepInMillis,
+                                         final int frequencyCount,
+                                         final int frequencyPercentage) {
+        this.extId = extId;
+        this.orderNo = orderNo;
+        this.httpStatusCode = httpStatusCode;
+        this.responseContentType = responseContentType;
+        this.responseBody = responseBody;
+        this.responseHeaders = responseHeaders;
+        this.sleepInMillis = sleepInMillis;
+        this.frequencyCount = frequencyCount;
+        this.frequencyPercentage = frequencyPercentage;
+        this.responseTemplate = ResponseTemplate.compile(responseBody);
+    }
+
+}
@@ -0,0 +1,63 @@
+package com.smockin.mockserver.service.bean;
+
+import com.smockin.admin.persistence.enums.RuleComparatorEnum;
+import com.smockin.admin.persistence.enums.RuleDataTypeEnum;
+import com.smockin.admin.persistence.enums.RuleMatchingTypeEnum;
+import lombok.Getter;
+
+@Getter
+public final class RestfulMockRuleConditionSnapshot {
+
+    private final String field;
+    private final RuleDataTypeEnum dataType;
+    private final RuleComparatorEnum comparator;
+    private final String matchValue;
+    private final RuleMatchingTypeEnum ruleMatchingType;
+    private final Boolean caseSensitive;
+
+    // Identifies the inbound value this condition reads, so conditions sharing it can share a single extraction per request.
+    private final String extractionKey;
+
+    // Only set for REQUEST_BODY_JSON_ANY conditions
+    private final JsonFieldPath jsonFieldPath;
+
+    public RestfulMockRuleConditionSnapshot(final String field,
+                                            final RuleDataTypeEnum dataType,
+                                            final RuleComparatorEnum comparator,
+                                            final String matchValue,
+                                            final RuleMatchingTypeEnum ruleMatchingType,
+                                            final Boolean caseSensitive) {
+        this.field = field;
+        this.dataType = dataType;
+        this.comparator = comparator;
+        this.matchValue = matchValue;
+        this.ruleMatchingType = ruleMatchingType;
+        this.caseSensitive = caseSensitive;
+        this.extractionKey = buildExtractionKey(ruleMatchingType, field);
+        this.jsonFieldPath = (RuleMatchingTypeEnum.REQUEST_BODY_JSON_ANY.equals(ruleMatchingType))
+                ? JsonFieldPath.compile(field)
+                : null;
+    }
+
+    static String buildExtractionKey(final RuleMatchingTypeEnum ruleMatchingType, final String field) {
+
+        if (ruleMatchingType == null) {
+            return null;
+        }
+
+        switch (ruleMatchingType) {
+            case REQUEST_BODY:
+                // The field is not used for a plain body match
+                return ruleMatchingType.name();
+            case REQUEST_HEADER:
+            case REQUEST_PARAM:
+            case PATH_VARIABLE:
+                // Looked up case insensitively
+                return ruleMatchingType.name() + ":" + ((field != null) ? field.toLowerCase() : null);
+            default:
+                return ruleMatchingType.name() + ":" + field;
+        }
+
+    }
+
+}
@@ -0,0 +1,15 @@
+package com.smockin.mockserver.service.bean;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+@Getter
+@AllArgsConstructor
+public final class RestfulMockRuleGroupSnapshot {
+
+    private final int orderNo;
+    private final List<RestfulMockRuleConditionSnapshot> conditions;
+
+}
@@ -0,0 +1,39 @@
+package com.smockin.mockserver.service.bean;
+
+import lombok.Getter;
+
+import java.util.List;
+import java.util.Map;
+
+@Getter
+public final class RestfulMockRuleSnapshot {
+
+    private final int orderNo;
+    private final int httpStatusCode;
+    private final String responseContentType;
+    private final String responseBody;
+    private final Map<String, String> responseHeaders;
+    private final long sleepInMillis;
+    private final List<RestfulMockRuleGroupSnapshot> conditionGroups;
+
+    // Compiled from the responseBody
+    private final ResponseTemplate responseTemplate;
+
+    public RestfulMockRuleSnapshot(final int orderNo,
+                                   final int httpStatusCode,
+                                   final String responseContentType,
+                                   final String responseBody,
+                                   final Map<String, String> responseHeaders,
+                                   final long sleepInMillis,
+                                   final List<RestfulMockRuleGroupSnapshot> conditionGroups) {
+        this.orderNo = orderNo;
+        this.httpStatusCode = httpStatusCode;
+        this.responseContentType = responseContentType;
+        this.responseBody = responseBody;
+        this.responseHeaders = responseHeaders;
+        this.sleepInMillis = sleepInMillis;
+        this.conditionGroups = conditionGroups;
+        this.responseTemplate = ResponseTemplate.compile(responseBody);
+    }
+
+}
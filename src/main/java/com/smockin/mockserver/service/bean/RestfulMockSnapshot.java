@@ -0,0 +1,174 @@
+package com.smockin.mockserver.service.bean;
+
+import com.smockin.admin.persistence.entity.RestfulMock;
+import com.smockin.admin.persistence.entity.RestfulMockDefinitionOrder;
+import com.smockin.admin.persistence.entity.RestfulMockDefinitionRule;
+import com.smockin.admin.persistence.entity.RestfulMockDefinitionRuleGroup;
+import com.smockin.admin.persistence.entity.RestfulMockStatefulMeta;
+import com.smockin.admin.persistence.entity.SmockinUser;
+import com.smockin.admin.persistence.enums.RestMethodEnum;
+import com.smockin.admin.persistence.enums.RestMockTypeEnum;
+import com.smockin.admin.persistence.enums.SmockinUserRoleEnum;
+import com.smockin.utils.GeneralUtils;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Immutable runtime form of an ACTIVE RestfulMock, used by the mock server to serve requests
+ * without touching the JPA graph (and so without a Hibernate session on the request thread).
+ *
+ * Suspended definitions and rules are removed when the snapshot is built.
+ */
+@Getter
+@AllArgsConstructor
+public final class RestfulMockSnapshot {
+
+    private final long id;
+    private final String extId;
+    private final String path;
+    private final RestMethodEnum method;
+    private final RestMockTypeEnum mockType;
+    private final int initializationOrder;
+    private final long proxyTimeOutInMillis;
+    private final long sseHeartBeatInMillis;
+    private final boolean proxyPushIdOnConnect;
+    private final boolean randomiseDefinitions;
+    private final boolean randomiseLatency;
+    private final long randomiseLatencyRangeMinMillis;
+    private final long randomiseLatencyRangeMaxMillis;
+    private final long userId;
+    private final String userCtxPath;
+    private final SmockinUserRoleEnum userRole;
+    private final String userPath;
+    private final List<RestfulMockDefinitionSnapshot> definitions;
+    private final DefinitionSequence definitionSequence;
+    private final DefinitionAliasTable definitionAliasTable;
+    private final List<RestfulMockRuleSnapshot> rules;
+    private final RuleDispatchPlan rulePlan;
+    private final String javaScriptSyntax;
+    private final String statefulParentExtId;
+    private final RestfulMockStatefulMetaSnapshot statefulMeta;
+
+    /**
+     * Reads the full (lazy) graph of the given mock, so must be called within the transaction that loaded it.
+     */
+    public static RestfulMockSnapshot from(final RestfulMock mock) {
+
+        final SmockinUser createdBy = mock.getCreatedBy();
+        final List<RestfulMockDefinitionSnapshot> definitions = Collections.unmodifiableList(mock.getDefinitions()
+                .stream()
+                .filter(d ->
+                        !d.isSuspend())
+                .map(d ->
+                        toDefinition(d))
+                .collect(Collectors.toList()));
+        final List<RestfulMockRuleSnapshot> rules = Collections.unmodifiableList(mock.getRules()
+                .stream()
+                .filter(r ->
+                        !r.isSuspend())
+                .map(r ->
+                        toRule(r))
+                .collect(Collectors.toList()));
+        final RestfulMock statefulParent = (mock.getStatefulParent() != null)
+                ? mock.getStatefulParent()
+                : mock;
+
+        return new RestfulMockSnapshot(
+                mock.getId(),
+                mock.getExtId(),
+                mock.getPath(),
+                mock.getMethod(),
+                mock.getMockType(),
+                mock.getInitializationOrder(),
+                mock.getProxyTimeOutInMillis(),
+                mock.getSseHeartBeatInMillis(),
+                mock.isProxyPushIdOnConnect(),
+                mock.isRandomiseDefinitions(),
+                mock.isRandomiseLatency(),
+                mock.getRandomiseLatencyRangeMinMillis(),
+                mock.getRandomiseLatencyRangeMaxMillis(),
+                (createdBy != null) ? createdBy.getId() : 0,
+                (createdBy != null) ? createdBy.getCtxPath() : null,
+                (createdBy != null) ? createdBy.getRole() : null,
+                buildUserPath(mock.getPath(), createdBy),
+                definitions,
+                DefinitionSequence.compile(definitions),
+                DefinitionAliasTable.compile(definitions),
+                rules,
+                RuleDispatchPlan.compile(rules),
+                (mock.getJavaScriptHandler() != null) ? mock.getJavaScriptHandler().getSyntax() : null,
+                statefulParent.getExtId(),
+                toStatefulMeta(statefulParent.getRestfulMockStatefulMeta()));
+    }
+
+    private static String buildUserPath(final String path, final SmockinUser createdBy) {
+
+        if (createdBy != null && !SmockinUserRoleEnum.SYS_ADMIN.equals(createdBy.getRole())) {
+            return GeneralUtils.URL_PATH_SEPARATOR + createdBy.getCtxPath() + path;
+        }
+
+        return path;
+    }
+
+    private static RestfulMockDefinitionSnapshot toDefinition(final RestfulMockDefinitionOrder definition) {
+
+        return new RestfulMockDefinitionSnapshot(
+                definition.getExtId(),
+                definition.getOrderNo(),
+                definition.getHttpStatusCode(),
+                definition.getResponseContentType(),
+                definition.getResponseBody(),
+                Collections.unmodifiableMap(new HashMap<>(definition.getResponseHeaders())),
+                definition.getSleepInMillis(),
+                definition.getFrequencyCount(),
+                definition.getFrequencyPercentage());
+    }
+
+    private static RestfulMockRuleSnapshot toRule(final RestfulMockDefinitionRule rule) {
+
+        return new RestfulMockRuleSnapshot(
+                rule.getOrderNo(),
+                rule.getHttpStatusCode(),
+                rule.getResponseContentType(),
+                rule.getResponseBody(),
+                Collections.unmodifiableMap(new HashMap<>(rule.getResponseHeaders())),
+                rule.getSleepInMillis(),
+                Collections.unmodifiableList(rule.getConditionGroups()
+                        .stream()
+                        .map(g ->
+                                toRuleGroup(g))
+                        .collect(Collectors.toList())));
+    }
+
+    private static RestfulMockRuleGroupSnapshot toRuleGroup(final RestfulMockDefinitionRuleGroup group) {
+
+        return new RestfulMockRuleGroupSnapshot(
+                group.getOrderNo(),
+                Collections.unmodifiableList(group.getConditions()
+                        .stream()
+                        .map(c ->
+                                new RestfulMockRuleConditionSnapshot(
+                                        c.getField(),
+                                        c.getDataType(),
+                                        c.getComparator(),
+                                        c.getMatchValue(),
+                                        c.getRuleMatchingType(),
+                                        c.getCaseSensitive()))
+                        .collect(Collectors.toList())));
+    }
+
+    private static RestfulMockStatefulMetaSnapshot toStatefulMeta(final RestfulMockStatefulMeta meta) {
+
+        if (meta == null) {
+            return null;
+        }
+
+        return new RestfulMockStatefulMetaSnapshot(meta.getIdFieldName(), meta.getIdFieldLocation(), meta.getInitialResponseBody());
+    }
+
+}
@@ -0,0 +1,14 @@
+package com.smockin.mockserver.service.bean;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public final class RestfulMockStatefulMetaSnapshot {
+
+    private final String idFieldName;
+    private final String idFieldLocation;
+    private final String initialResponseBody;
+
+}
@@ -0,0 +1,218 @@
+package com.smockin.mockserver.service.bean;
+
+import com.smockin.admin.persistence.enums.RuleComparatorEnum;
+import com.smockin.admin.persistence.enums.RuleDataTypeEnum;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compiled evaluation order of a RULE mock's rules.
+ *
+ * Every rule group is flattened (in rule orderNo, then group order) into a list of entries, which are then split into segments.
+ * Consecutive groups consisting of a single TEXT EQUALS condition on the same inbound value are collected into an
+ * indexed segment, resolved with a hash look up rather than a scan. All other groups fall into scan segments.
+ *
+ * Segments are evaluated in order and the first match wins, just as with a plain scan of the rules.
+ */
+public final class RuleDispatchPlan {
+
+    // Shorter runs of EQUALS groups are cheaper to scan than to index
+    static final int MIN_INDEXED_RUN = 4;
+
+    private final List<Segment> segments;
+
+    private RuleDispatchPlan(final List<Segment> segments) {
+        this.segments = segments;
+    }
+
+    public List<Segment> getSegments() {
+        return segments;
+    }
+
+    public static RuleDispatchPlan compile(final List<RestfulMockRuleSnapshot> rules) {
+
+        final List<Entry> entries = new ArrayList<>();
+
+        rules.forEach(r ->
+                r.getConditionGroups().forEach(g ->
+                        entries.add(new Entry(r, g, entries.size()))));
+
+        final List<Segment> segments = new ArrayList<>();
+        final List<Entry> pendingScan = new ArrayList<>();
+
+        int i = 0;
+
+        while (i < entries.size()) {
+
+            final String key = findIndexableKey(entries.get(i));
+            int runEnd = i;
+
+            if (key != null) {
+                while (runEnd < entries.size() && key.equals(findIndexableKey(entries.get(runEnd)))) {
+                    runEnd++;
+                }
+            }
+
+            if (runEnd - i >= MIN_INDEXED_RUN) {
+
+                if (!pendingScan.isEmpty()) {
+                    segments.add(new ScanSegment(Collections.unmodifiableList(new ArrayList<>(pendingScan))));
+                    pendingScan.clear();
+                }
+
+                segments.add(IndexedSegment.build(entries.subList(i, runEnd)));
+                i = runEnd;
+
+            } else {
+
+                pendingScan.add(entries.get(i));
+                i++;
+            }
+
+        }
+
+        if (!pendingScan.isEmpty()) {
+            segments.add(new ScanSegment(Collections.unmodifiableList(new ArrayList<>(pendingScan))));
+        }
+
+        return new RuleDispatchPlan(Collections.unmodifiableList(segments));
+    }
+
+    private static String findIndexableKey(final Entry entry) {
+
+        final List<RestfulMockRuleConditionSnapshot> conditions = entry.getGroup().getConditions();
+
+        if (conditions.size() != 1) {
+            return null;
+        }
+
+        final RestfulMockRuleConditionSnapshot condition = conditions.get(0);
+
+        // NUMERIC equality is not a plain string match, and a null match value is left to the scan to report.
+        if (!RuleComparatorEnum.EQUALS.equals(condition.getComparator())
+                || !RuleDataTypeEnum.TEXT.equals(condition.getDataType())
+                || condition.getMatchValue() == null
+                || condition.getExtractionKey() == null) {
+            return null;
+        }
+
+        return condition.getExtractionKey();
+    }
+
+    /**
+     * Folds case in the same way as String.equalsIgnoreCase, so a folded look up gives the same outcome.
+     */
+    static String foldCase(final String value) {
+
+        final char[] chars = value.toCharArray();
+
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = Character.toLowerCase(Character.toUpperCase(chars[i]));
+        }
+
+        return new String(chars);
+    }
+
+    public interface Segment {
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static final class Entry {
+        private final RestfulMockRuleSnapshot rule;
+        private final RestfulMockRuleGroupSnapshot group;
+        private final int position;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static final class ScanSegment implements Segment {
+        private final List<Entry> entries;
+    }
+
+    public static final class IndexedSegment implements Segment {
+
+        // Any condition in the segment, as they all share the same extraction key
+        private final RestfulMockRuleConditionSnapshot condition;
+        private final Map<String, Entry> caseSensitiveIndex;
+        private final Map<String, Entry> caseInsensitiveIndex;
+        private final int size;
+
+        private IndexedSegment(final RestfulMockRuleConditionSnapshot condition,
+                               final Map<String, Entry> caseSensitiveIndex,
+                               final Map<String, Entry> caseInsensitiveIndex,
+                               final int size) {
+            this.condition = condition;
+            this.caseSensitiveIndex = caseSensitiveIndex;
+            this.caseInsensitiveIndex = caseInsensitiveIndex;
+            this.size = size;
+        }
+
+        private static IndexedSegment build(final List<Entry> run) {
+
+            final Map<String, Entry> caseSensitiveIndex = new HashMap<>();
+            final Map<String, Entry> caseInsensitiveIndex = new HashMap<>();
+
+            for (Entry e : run) {
+
+                final RestfulMockRuleConditionSnapshot c = e.getGroup().getConditions().get(0);
+
+                // putIfAbsent, so the earliest entry for any value wins
+                if (c.getCaseSensitive() != null && c.getCaseSensitive()) {
+                    caseSensitiveIndex.putIfAbsent(c.getMatchValue(), e);
+                } else {
+                    caseInsensitiveIndex.putIfAbsent(foldCase(c.getMatchValue()), e);
+                }
+
+            }
+
+            return new IndexedSegment(run.get(0).getGroup().getConditions().get(0),
+                    caseSensitiveIndex,
+                    caseInsensitiveIndex,
+                    run.size());
+        }
+
+        public RestfulMockRuleConditionSnapshot getCondition() {
+            return condition;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        /**
+         * @return the first entry in this segment matching the given inbound value, or null if none do.
+         */
+        public Entry find(final String inboundValue) {
+
+            if (inboundValue == null) {
+                return null;
+            }
+
+            final Entry caseSensitiveMatch = caseSensitiveIndex.get(inboundValue);
+            final Entry caseInsensitiveMatch = (caseInsensitiveIndex.isEmpty())
+                    ? null
+                    : caseInsensitiveIndex.get(foldCase(inboundValue));
+
+            if (caseSensitiveMatch == null) {
+                return caseInsensitiveMatch;
+            }
+
+            if (caseInsensitiveMatch == null) {
+                return caseSensitiveMatch;
+            }
+
+            return (caseSensitiveMatch.getPosition() < caseInsensitiveMatch.getPosition())
+                    ? caseSensitiveMatch
+                    : caseInsensitiveMatch;
+        }
+
+    }
+
+}
@@ -1,5 +1,7 @@
 package com.smockin.mockserver.service.dto;
 
+import com.smockin.mockserver.service.bean.ResponseTemplate;
+
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
@@ -14,22 +16,42 @@ public class RestfulResponseDTO {
     private final String responseBody;
     private final Map<String, String> headers = new HashMap<>();
 
+    // Pre-compiled form of the responseBody, where available
+    private final ResponseTemplate responseTemplate;
+
+    // Period by which the mock server should delay sending this response
+    private final long sleepInMillis;
+
     public RestfulResponseDTO(final int httpStatusCode) {
         this.httpStatusCode = httpStatusCode;
         this.responseContentType = null;
         this.responseBody = null;
+        this.responseTemplate = null;
+        this.sleepInMillis = 0;
     }
 
     public RestfulResponseDTO(final int httpStatusCode, final String responseContentType, final String responseBody) {
         this.httpStatusCode = httpStatusCode;
         this.responseContentType = responseContentType;
         this.responseBody = responseBody;
+        this.responseTemplate = null;
+        this.sleepInMillis = 0;
     }
 
     public RestfulResponseDTO(final int httpStatusCode, final String responseContentType, final String responseBody, final Set<Map.Entry<String, String>> headers) {
+        this(httpStatusCode, responseContentType, responseBody, headers, null);
+    }
+
+    public RestfulResponseDTO(final int httpStatusCode, final String responseContentType, final String responseBody, final Set<Map.Entry<String, String>> headers, final ResponseTemplate responseTemplate) {
+        this(httpStatusCode, responseContentType, responseBody, headers, responseTemplate, 0);
+    }
+
+    public RestfulResponseDTO(final int httpStatusCode, final String responseContentType, final String responseBody, final Set<Map.Entry<String, String>> headers, final ResponseTemplate responseTemplate, final long sleepInMillis) {
         this.httpStatusCode = httpStatusCode;
         this.responseContentType = responseContentType;
         this.responseBody = responseBody;
+        this.responseTemplate = responseTemplate;
+        this.sleepInMillis = sleepInMillis;
 
         headers.stream().forEach(h ->
             this.headers.put(h.getKey(), h.getValue()));
@@ -48,5 +70,11 @@ public class RestfulResponseDTO {
     public Map<String, String> getHeaders() {
         return headers;
     }
+    public ResponseTemplate getResponseTemplate() {
+        return responseTemplate;
+    }
+    public long getSleepInMillis() {
+        return sleepInMillis;
+    }
 
 }
@@ -50,6 +50,8 @@ public final class GeneralUtils {
 
     public static final String ENABLE_CORS_PARAM = "ENABLE_CORS";
     public static final String AUTO_GEN_INBOXES_PARAM = "AUTO_GEN_INBOXES";
+    public static final String LIVE_LOGGING_SAMPLE_PERCENT_PARAM = "LIVE_LOGGING_SAMPLE_PERCENT";
+    public static final String LIVE_LOGGING_MAX_BODY_SIZE_PARAM = "LIVE_LOGGING_MAX_BODY_SIZE";
 
     public static final String S3_HOST = "localhost";
 
@@ -57,12 +59,16 @@ public final class GeneralUtils {
     public static final String PROXIED_DOWNSTREAM_URL_HEADER = "X-Proxied-Downstream-Url";
     public static final String PATH_WILDCARD = "*";
     public static final String URL_PATH_SEPARATOR = "/";
+    public static final String PATH_VARS_ATTR = "smockin.pathVars";
     public static final String CARRIAGE = "\n";
 
     public static final int DEFAULT_RECORDS_PER_PAGE = 25;
 
     static final ObjectMapper JSON_MAPPER = new ObjectMapper();
 
+    // AntPathMatcher is thread safe once configured, so a single shared instance is used.
+    private static final AntPathMatcher PATH_MATCHER = new AntPathMatcher(AntPathMatcher.DEFAULT_PATH_SEPARATOR);
+
     static {
         JSON_MAPPER.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
         JSON_MAPPER.registerModule(new Jdk8Module());
@@ -125,6 +131,37 @@ public final class GeneralUtils {
         return findAllPathVars(inboundPath, mockPath).get(pathVarName.toLowerCase());
     }
 
+    /**
+     * Returns the path vars captured when the mock was matched (see RestfulMockRouteCache), only working these out
+     * from the paths where the request did not come through there.
+     */
+    public static Map<String, String> loadPathVars(final Request req,
+                                                   final UserModeEnum userMode,
+                                                   final String userCtxPath,
+                                                   final String mockPath) {
+
+        final Map<String, String> pathVars = req.attribute(PATH_VARS_ATTR);
+
+        if (pathVars != null) {
+            return pathVars;
+        }
+
+        return findAllPathVars(sanitizeMultiUserPath(userMode, req.pathInfo(), userCtxPath), mockPath);
+    }
+
+    public static Map<String, String> loadPathVars(final Request req,
+                                                   final String sanitizedInboundPath,
+                                                   final String mockPath) {
+
+        final Map<String, String> pathVars = req.attribute(PATH_VARS_ATTR);
+
+        if (pathVars != null) {
+            return pathVars;
+        }
+
+        return findAllPathVars(sanitizedInboundPath, mockPath);
+    }
+
     public static Map<String, String> findAllPathVars(final String inboundPath, final String mockPath) {
 
         final String[] inboundPathSegments = StringUtils.split(inboundPath, URL_PATH_SEPARATOR);
@@ -404,6 +441,18 @@ public final class GeneralUtils {
 
     public static String extractRequestParamByName(final Request req, final String fieldName) {
 
+        // Plain query string look ups can go straight to the request, rather than building the full param map
+        if (!isRequestBodyParamsMethod(req)) {
+
+            for (String k : req.queryParams()) {
+                if (StringUtils.equalsIgnoreCase(fieldName, k)) {
+                    return req.queryParams(k);
+                }
+            }
+
+            return null;
+        }
+
         return extractAllRequestParams(req)
                 .entrySet()
                 .stream()
@@ -417,9 +466,7 @@ public final class GeneralUtils {
 
     public static Map<String, String> extractAllRequestParams(final Request req) {
 
-        if (!StringUtils.equalsIgnoreCase(HttpMethod.POST.name(), req.requestMethod())
-                && !StringUtils.equalsIgnoreCase(HttpMethod.PUT.name(), req.requestMethod())
-                && !StringUtils.equalsIgnoreCase(HttpMethod.PATCH.name(), req.requestMethod())) {
+        if (!isRequestBodyParamsMethod(req)) {
 
             if (req.queryParams().isEmpty()) {
                 return new HashMap<>();
@@ -454,6 +501,13 @@ public final class GeneralUtils {
         return allParams;
     }
 
+    private static boolean isRequestBodyParamsMethod(final Request req) {
+
+        return StringUtils.equalsIgnoreCase(HttpMethod.POST.name(), req.requestMethod())
+                || StringUtils.equalsIgnoreCase(HttpMethod.PUT.name(), req.requestMethod())
+                || StringUtils.equalsIgnoreCase(HttpMethod.PATCH.name(), req.requestMethod());
+    }
+
     public static String removeJsComments(final String jsSrc) {
 
         final String comment = "//";
@@ -486,10 +540,7 @@ public final class GeneralUtils {
     }
 
     public static boolean matchPaths(final String mockPath, final String inboundPath) {
-
-        final AntPathMatcher matcher = new AntPathMatcher(AntPathMatcher.DEFAULT_PATH_SEPARATOR);
-
-        return matcher.match(mockPath, inboundPath);
+        return PATH_MATCHER.match(mockPath, inboundPath);
     }
 
     public static Optional<String> convertInputStreamToString(final InputStream inputStream,
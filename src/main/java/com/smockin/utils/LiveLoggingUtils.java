@@ -3,6 +3,7 @@ package com.smockin.utils;
 import com.smockin.admin.dto.response.*;
 import com.smockin.admin.enums.LiveLoggingDirectionEnum;
 import com.smockin.admin.enums.LiveLoggingMessageTypeEnum;
+import com.smockin.admin.persistence.enums.RestMockTypeEnum;
 import org.apache.commons.lang3.StringUtils;
 import java.util.Map;
 
@@ -12,6 +13,7 @@ import java.util.Map;
 public final class LiveLoggingUtils {
 
     private static final String NOT_AVAILABLE = "n/a";
+    private static final String TRUNCATED_SUFFIX = "... (truncated)";
 
     public static LiveLoggingDTO buildLiveLogInterceptedResponseDTO(final String reqId,
                                                                     final String url,
@@ -59,6 +61,18 @@ public final class LiveLoggingUtils {
                                                          final String responseBody,
                                                          final boolean viaProxy) {
 
+        return buildLiveLogOutboundDTO(reqId, null, url, status, headers, responseBody, viaProxy, null);
+    }
+
+    public static LiveLoggingDTO buildLiveLogOutboundDTO(final String reqId,
+                                                         final String method,
+                                                         final String url,
+                                                         final Integer status,
+                                                         final Map<String, String> headers,
+                                                         final String responseBody,
+                                                         final boolean viaProxy,
+                                                         final RestMockTypeEnum mockType) {
+
         return new LiveLoggingDTO(LiveLoggingMessageTypeEnum.TRAFFIC,
                 new LiveLoggingTrafficDTO(
                         reqId,
@@ -68,7 +82,23 @@ public final class LiveLoggingUtils {
                                 url,
                                 headers,
                                 StringUtils.defaultIfBlank(responseBody, NOT_AVAILABLE),
-                                status)));
+                                status,
+                                method,
+                                mockType)));
+    }
+
+    /**
+     * Shortens the given body to the max size (in characters) live logging captures.
+     */
+    public static String truncateBody(final String body, final int maxBodySize) {
+
+        if (body == null
+                || maxBodySize <= 0
+                || body.length() <= maxBodySize) {
+            return body;
+        }
+
+        return body.substring(0, maxBodySize) + TRUNCATED_SUFFIX;
     }
 
     public static LiveLoggingDTO buildS3LiveLogging(final String message, final String bucketOwnerId) {
@@ -1,11 +1,9 @@
 package com.smockin.utils;
 
+import com.smockin.mockserver.service.bean.JsonFieldPath;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.math.NumberUtils;
 import spark.Request;
-import java.util.List;
-import java.util.Map;
-import java.util.Optional;
 
 public final class RuleEngineUtils {
 
@@ -24,103 +22,22 @@ public final class RuleEngineUtils {
 
     public static String matchOnJsonField(final String fieldName, final String reqBody, final String path) {
 
-        if (StringUtils.isBlank(reqBody)) {
-            return null;
-        }
-
-        final Object jsonRequestBody = (StringUtils.startsWith(reqBody, "["))
-                ? GeneralUtils.deserialiseJSONToList(reqBody)
-                : GeneralUtils.deserialiseJSONToMap(reqBody);
-
-        if (jsonRequestBody == null) {
-            return null;
-        }
-
-        // e.g.
-        // person.name
-        // person.pets[2].type
-        if (StringUtils.indexOf(fieldName, ".") > -1) {
-
-            final String[] fields = StringUtils.split(fieldName,".");
-
-            Object currentJsonObject = jsonRequestBody;
-
-            for (String f : fields) {
-
-                if (isJSONFieldAList(f)) {
-
-                    final Optional<String> listFieldNameOpt = extractJSONFieldListFieldName(f);
-
-                    if (listFieldNameOpt.isPresent()) {
-
-                        currentJsonObject = ((Map) currentJsonObject).get(listFieldNameOpt.get());
-
-                        if (!(currentJsonObject instanceof List)) {
-                            return null;
-                        }
-                    }
-
-                    final Integer fieldListPos = extractJSONFieldListPosition(f);
-
-                    if (fieldListPos == null) {
-                        return null;
-                    }
-
-                    currentJsonObject = ((List)currentJsonObject).get(fieldListPos);
-
-                } else if (currentJsonObject instanceof Map) {
-                    currentJsonObject = ((Map)currentJsonObject).get(f);
-                } else {
-                    return null;
-                }
-
-            }
-
-            if (currentJsonObject == null
-                    || currentJsonObject instanceof List
-                    || currentJsonObject instanceof Map) {
-                return null;
-            }
-
-            return (String)currentJsonObject;
-
-        } else {
-
-            if (isJSONFieldAList(fieldName)
-                    && jsonRequestBody instanceof List) {
-                return (String)((List)jsonRequestBody).get(0);
-            } else {
-                return (String)((Map<String, ?>)jsonRequestBody).get(fieldName);
-            }
-
-        }
-
+        return JsonFieldPath.compile(fieldName)
+                .read(parseJsonBody(reqBody));
     }
 
-    static boolean isJSONFieldAList(final String field) {
-
-        return field.indexOf("[") > -1 && field.endsWith("]");
-    }
+    /**
+     * @return the request body parsed into either a List or Map, or null if blank or not valid JSON.
+     */
+    public static Object parseJsonBody(final String reqBody) {
 
-    static Optional<String> extractJSONFieldListFieldName(final String field) {
-
-        if (field.startsWith("[")) {
-            return Optional.empty();
-        }
-
-        return Optional.of(field.substring(0, field.indexOf("[")));
-    }
-
-    static Integer extractJSONFieldListPosition(final String field) {
-
-        int bracketStart = field.indexOf("[");
-        final String positionStr = field.substring( (bracketStart + 1), (field.length() - 1) );
-
-        if (!NumberUtils.isDigits(positionStr)) {
+        if (StringUtils.isBlank(reqBody)) {
             return null;
         }
 
-        return Integer.valueOf(positionStr);
+        return (StringUtils.startsWith(reqBody, "["))
+                ? GeneralUtils.deserialiseJSONToList(reqBody)
+                : GeneralUtils.deserialiseJSONToMap(reqBody);
     }
 
 }
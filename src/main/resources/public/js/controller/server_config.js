@@ -20,6 +20,8 @@ app.controller('serverConfigController', function($scope, $location, $uibModal,
     $scope.maxThreadsLabel = 'Max Threads';
     $scope.minThreadsLabel = 'Min Threads';
     $scope.timeOutMillisLabel = 'Idle Time out';
+    $scope.liveLoggingSamplePercentLabel = 'Live Logging Sample Rate (%)';
+    $scope.liveLoggingMaxBodySizeLabel = 'Live Logging Max Body Size';
     $scope.autoStartLabel = 'Auto start on application launch';
     $scope.enableCorsLabel = 'Enable Cross-Origin Resource Sharing (across all endpoints)';
     $scope.autoGenInboxesLabel = 'Auto create inboxes where anonymous mail is received (requires restart)';
@@ -27,6 +29,8 @@ app.controller('serverConfigController', function($scope, $location, $uibModal,
     $scope.maxThreadsPlaceholderTxt = 'The Maximum Threads (Concurrent Requests) allowed';
     $scope.minThreadsPlaceholderTxt = 'The Minimum Threads (Concurrent Requests) allowed';
     $scope.timeOutMillisPlaceholderTxt = 'Connection Idle Time Out (in Milliseconds)';
+    $scope.liveLoggingSamplePercentPlaceholderTxt = 'The percentage of calls shown in the live logging feed (defaults to 100)';
+    $scope.liveLoggingMaxBodySizePlaceholderTxt = 'Bodies shown in the live logging feed are cut off beyond this many characters (defaults to 1048576)';
 
 
     //
@@ -70,7 +74,9 @@ app.controller('serverConfigController', function($scope, $location, $uibModal,
         "timeOutMillis" : 0,
         "autoStart" : false,
         "enableCors" : false,
-        "autoGenInboxes" : false
+        "autoGenInboxes" : false,
+        "liveLoggingSamplePercent" : null,
+        "liveLoggingMaxBodySize" : null
     };
 
 
@@ -109,6 +115,20 @@ app.controller('serverConfigController', function($scope, $location, $uibModal,
                 return;
             }
 
+            if (!utils.isBlank($scope.serverConfig.liveLoggingSamplePercent)
+                    && (!utils.isNumeric($scope.serverConfig.liveLoggingSamplePercent)
+                        || $scope.serverConfig.liveLoggingSamplePercent < 1
+                        || $scope.serverConfig.liveLoggingSamplePercent > 100)) {
+                showAlert("'Live Logging Sample Rate' must be a number between 1 and 100");
+                return;
+            }
+
+            if (!utils.isBlank($scope.serverConfig.liveLoggingMaxBodySize)
+                    && !utils.isNumeric($scope.serverConfig.liveLoggingMaxBodySize)) {
+                showAlert("'Live Logging Max Body Size' must be numeric");
+                return;
+            }
+
         }
 
         var req = {
@@ -126,6 +146,14 @@ app.controller('serverConfigController', function($scope, $location, $uibModal,
             req.nativeProperties = {
                 "ENABLE_CORS" : ($scope.serverConfig.enableCors) ? "TRUE" : "FALSE"
             };
+
+            if (!utils.isBlank($scope.serverConfig.liveLoggingSamplePercent)) {
+                req.nativeProperties.LIVE_LOGGING_SAMPLE_PERCENT = "" + $scope.serverConfig.liveLoggingSamplePercent;
+            }
+
+            if (!utils.isBlank($scope.serverConfig.liveLoggingMaxBodySize)) {
+                req.nativeProperties.LIVE_LOGGING_MAX_BODY_SIZE = "" + $scope.serverConfig.liveLoggingMaxBodySize;
+            }
         }
         if (ServerType == globalVars.MailServerType) {
             req.nativeProperties = {
@@ -195,7 +223,9 @@ app.controller('serverConfigController', function($scope, $location, $uibModal,
                     "timeOutMillis" : data.timeOutMillis,
                     "autoStart" : data.autoStart,
                     "enableCors" : (data.nativeProperties.ENABLE_CORS != null && data.nativeProperties.ENABLE_CORS.toUpperCase() == "TRUE"),
-                    "autoGenInboxes" : (data.nativeProperties.AUTO_GEN_INBOXES != null && data.nativeProperties.AUTO_GEN_INBOXES.toUpperCase() == "TRUE")
+                    "autoGenInboxes" : (data.nativeProperties.AUTO_GEN_INBOXES != null && data.nativeProperties.AUTO_GEN_INBOXES.toUpperCase() == "TRUE"),
+                    "liveLoggingSamplePercent" : data.nativeProperties.LIVE_LOGGING_SAMPLE_PERCENT,
+                    "liveLoggingMaxBodySize" : data.nativeProperties.LIVE_LOGGING_MAX_BODY_SIZE
                 };
 
                 return;
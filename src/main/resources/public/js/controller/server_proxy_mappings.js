@@ -24,6 +24,7 @@ app.controller('serverProxyMappingsController', function($scope, $location, $uib
     $scope.proxyModeActiveTypeLabel = 'Look for matching MOCK first, if nothing found, then forward request DOWNSTREAM';
     $scope.proxyModeReactiveTypeLabel = 'Forward request DOWNSTREAM first, if nothing found, then look for a matching MOCK';
     $scope.activeProxy404MockDoNotForwardLabel = 'Do not forward to downstream when 404 is a deliberate mock response';
+    $scope.hedgeRequestsLabel = 'Look for a matching MOCK and forward request DOWNSTREAM at the same time (reduces waiting on slow downstreams)';
     $scope.pathUrlMappingsLabel = 'Path to URL Mappings';
     $scope.pathLabel = 'Path';
     $scope.proxyForwardUrlLabel = 'Downstream URL';
@@ -74,6 +75,7 @@ app.controller('serverProxyMappingsController', function($scope, $location, $uib
         "proxyMode" : null,
         "proxyModeType" : null,
         "doNotForwardWhen404Mock" : null,
+        "hedgeRequests" : null,
         "proxyForwardMappings" : []
     };
 
@@ -147,6 +149,7 @@ app.controller('serverProxyMappingsController', function($scope, $location, $uib
         var req = {
             "proxyModeType" : $scope.proxyMappingConfig.proxyModeType,
             "doNotForwardWhen404Mock" : $scope.proxyMappingConfig.doNotForwardWhen404Mock,
+            "hedgeRequests" : $scope.proxyMappingConfig.hedgeRequests,
             "proxyForwardMappings" : $scope.proxyMappingConfig.proxyForwardMappings
         }
 
@@ -279,6 +282,7 @@ app.controller('serverProxyMappingsController', function($scope, $location, $uib
                     "proxyMode" : data.proxyMode,
                     "proxyModeType" : data.proxyModeType,
                     "doNotForwardWhen404Mock" : data.doNotForwardWhen404Mock,
+                    "hedgeRequests" : data.hedgeRequests,
                     "proxyForwardMappings" : data.proxyForwardMappings
                 };
 
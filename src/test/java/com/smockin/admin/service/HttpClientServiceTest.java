@@ -2,6 +2,7 @@ package com.smockin.admin.service;
 
 import com.smockin.admin.dto.HttpClientCallDTO;
 import com.smockin.admin.dto.response.HttpClientResponseDTO;
+import com.smockin.admin.dto.response.HttpClientStreamedResponseDTO;
 import com.smockin.admin.exception.ValidationException;
 import com.smockin.admin.persistence.enums.RestMethodEnum;
 import org.apache.commons.io.IOUtils;
@@ -9,9 +10,18 @@ import org.apache.http.Header;
 import org.apache.http.HttpEntity;
 import org.apache.http.HttpResponse;
 import org.apache.http.StatusLine;
+import org.apache.http.HttpHost;
+import org.apache.http.client.ResponseHandler;
+import org.apache.http.client.fluent.Executor;
 import org.apache.http.client.fluent.Request;
 import org.apache.http.client.fluent.Response;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
 import org.apache.http.message.BasicHeader;
+import org.eclipse.jetty.client.HttpClient;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
+import org.eclipse.jetty.server.handler.AbstractHandler;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Rule;
@@ -20,10 +30,14 @@ import org.junit.rules.ExpectedException;
 import org.junit.runner.RunWith;
 import org.mockito.*;
 import org.mockito.junit.MockitoJUnitRunner;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import java.nio.charset.Charset;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Created by mgallina on 15/08/17.
@@ -34,6 +48,12 @@ public class HttpClientServiceTest {
     @Mock
     private MockedServerEngineService mockedServerEngineService;
 
+    @Mock
+    private Executor executor;
+
+    @Mock
+    private PoolingHttpClientConnectionManager connectionManager;
+
     @Mock
     private Request request;
 
@@ -169,7 +189,7 @@ public class HttpClientServiceTest {
         final HttpClientCallDTO httpClientCallDTO = new HttpClientCallDTO();
         httpClientCallDTO.getHeaders().put("auth", "X");
 
-        Mockito.when(request.execute()).thenReturn(response);
+        Mockito.when(executor.execute(request)).thenReturn(response);
         Mockito.when(response.returnResponse()).thenReturn(httpResponse);
         Mockito.when(httpResponse.getAllHeaders()).thenReturn(new Header[] { new BasicHeader("one", "1") });
 
@@ -183,7 +203,7 @@ public class HttpClientServiceTest {
         Mockito.when(httpEntity.getContent()).thenReturn(IOUtils.toInputStream("Foo", Charset.defaultCharset()));
 
         // Test
-        final HttpClientResponseDTO result = httpClientServiceImpl.executeRequest(request, httpClientCallDTO, false);
+        final HttpClientResponseDTO result = httpClientServiceImpl.executeRequest(request, httpClientCallDTO);
 
         // Assertions
         Assert.assertNotNull(result);
@@ -194,4 +214,309 @@ public class HttpClientServiceTest {
         Assert.assertEquals("1", result.getHeaders().get("one"));
     }
 
+    @Test
+    public void applyConnectionSettings_Test() {
+
+        // Setup
+        final HttpClientCallDTO httpClientCallDTO = new HttpClientCallDTO("https://api.foo.com/bar?a=1", RestMethodEnum.GET);
+        httpClientCallDTO.setConnectTimeOutMillis(1000);
+        httpClientCallDTO.setReadTimeOutMillis(2000);
+        httpClientCallDTO.setMaxConnectionsPerRoute(5);
+
+        // Test
+        httpClientServiceImpl.applyConnectionSettings(request, httpClientCallDTO);
+        httpClientServiceImpl.applyConnectionSettings(request, httpClientCallDTO);
+
+        // Assertions
+        Mockito.verify(request, Mockito.times(2)).connectTimeout(1000);
+        Mockito.verify(request, Mockito.times(2)).socketTimeout(2000);
+        Mockito.verify(connectionManager, Mockito.times(1))
+                .setMaxPerRoute(new HttpRoute(new HttpHost("api.foo.com", 443, "https"), null, true), 5);
+    }
+
+    @Test
+    public void applyConnectionSettings_defaults_Test() {
+
+        // Test
+        httpClientServiceImpl.applyConnectionSettings(request, new HttpClientCallDTO("http://localhost:8001/bar", RestMethodEnum.GET));
+
+        // Assertions
+        Mockito.verifyNoInteractions(request, connectionManager);
+    }
+
+    @Test
+    public void applyStreamedRequestBody_Test() throws IOException {
+
+        // Setup
+        final HttpClientCallDTO httpClientCallDTO = new HttpClientCallDTO("http://localhost:8001/bar", RestMethodEnum.POST);
+        httpClientCallDTO.getHeaders().put("auth", "X");
+        httpClientCallDTO.getHeaders().put("content-length", "3");
+        httpClientCallDTO.getHeaders().put("Transfer-Encoding", "chunked");
+
+        // Test
+        httpClientServiceImpl.applyStreamedRequestBody(request, httpClientCallDTO, IOUtils.toInputStream("Foo", Charset.defaultCharset()));
+
+        // Assertions
+        final ArgumentCaptor<HttpEntity> entityCaptor = ArgumentCaptor.forClass(HttpEntity.class);
+        Mockito.verify(request).body(entityCaptor.capture());
+
+        Assert.assertEquals(3, entityCaptor.getValue().getContentLength());
+        Assert.assertFalse(entityCaptor.getValue().isRepeatable());
+        Assert.assertEquals("Foo", IOUtils.toString(entityCaptor.getValue().getContent(), Charset.defaultCharset()));
+        Assert.assertEquals(1, httpClientCallDTO.getHeaders().size());
+        Assert.assertEquals("X", httpClientCallDTO.getHeaders().get("auth"));
+    }
+
+    @Test
+    public void handleExternalStreamedCall_Test() throws IOException, ValidationException {
+
+        // Setup
+        final HttpClientCallDTO httpClientCallDTO = new HttpClientCallDTO("http://localhost:8001/bar", RestMethodEnum.GET);
+
+        Mockito.when(executor.execute(Mockito.any(Request.class))).thenReturn(response);
+        Mockito.when(response.handleResponse(Mockito.any())).thenAnswer(invocation ->
+                invocation.<ResponseHandler<?>>getArgument(0).handleResponse(httpResponse));
+        Mockito.when(httpResponse.getAllHeaders()).thenReturn(new Header[] { new BasicHeader("one", "1") });
+
+        Mockito.when(httpResponse.getStatusLine()).thenReturn(statusLine);
+        Mockito.when(statusLine.getStatusCode()).thenReturn(200);
+
+        Mockito.when(httpResponse.getEntity()).thenReturn(httpEntity);
+        Mockito.when(httpEntity.getContent()).thenReturn(IOUtils.toInputStream("Foo", Charset.defaultCharset()));
+
+        // Test
+        final String result = httpClientServiceImpl.handleExternalStreamedCall(httpClientCallDTO, null, (httpClientResponse, body) -> {
+
+            Assert.assertEquals(200, httpClientResponse.getStatus());
+            Assert.assertNull(httpClientResponse.getContentType());
+            Assert.assertNull(httpClientResponse.getBody());
+            Assert.assertEquals("1", httpClientResponse.getHeaders().get("one"));
+
+            return IOUtils.toString(body, Charset.defaultCharset());
+        });
+
+        // Assertions
+        Assert.assertEquals("Foo", result);
+    }
+
+    @Test
+    public void handleExternalStreamedCall_downstreamUnavailable_Test() throws IOException, ValidationException {
+
+        // Setup
+        final HttpClientCallDTO httpClientCallDTO = new HttpClientCallDTO("http://localhost:8001/bar", RestMethodEnum.GET);
+
+        Mockito.when(executor.execute(Mockito.any(Request.class))).thenThrow(new IOException("Connection refused"));
+
+        // Test
+        final Integer result = httpClientServiceImpl.handleExternalStreamedCall(httpClientCallDTO, null, (httpClientResponse, body) -> {
+
+            Assert.assertNull(body);
+
+            return httpClientResponse.getStatus();
+        });
+
+        // Assertions
+        Assert.assertEquals(404, result.intValue());
+    }
+
+    @Test
+    public void handleExternalAsyncCall_Test() throws Exception {
+
+        // Setup
+        final Server server = new Server(0);
+        server.setHandler(new AbstractHandler() {
+
+            @Override
+            public void handle(final String target,
+                               final org.eclipse.jetty.server.Request baseRequest,
+                               final HttpServletRequest request,
+                               final HttpServletResponse response) throws IOException {
+
+                response.setStatus(201);
+                response.setContentType("text/plain");
+                response.setHeader("one", "1");
+                response.getOutputStream().write(("Hello " + IOUtils.toString(request.getInputStream(), Charset.defaultCharset())).getBytes());
+
+                baseRequest.setHandled(true);
+            }
+        });
+        server.start();
+
+        httpClientServiceImpl.initHttpClient();
+
+        final HttpClientCallDTO httpClientCallDTO = new HttpClientCallDTO("http://localhost:" + ((ServerConnector) server.getConnectors()[0]).getLocalPort() + "/bar", RestMethodEnum.POST);
+        httpClientCallDTO.getHeaders().put("Content-Length", "3");
+
+        try {
+
+            // Test
+            final HttpClientStreamedResponseDTO result = httpClientServiceImpl
+                    .handleExternalAsyncCall(httpClientCallDTO, IOUtils.toInputStream("Bob", Charset.defaultCharset()))
+                    .get(10, TimeUnit.SECONDS);
+
+            // Assertions
+            Assert.assertEquals(201, result.getStatus());
+            Assert.assertEquals("text/plain", result.getContentType());
+            Assert.assertEquals("1", result.getHeaders().get("one"));
+            Assert.assertEquals("Hello Bob", IOUtils.toString(result.getBodyStream(), Charset.defaultCharset()));
+
+            result.close();
+
+        } finally {
+            httpClientServiceImpl.closeHttpClient();
+            server.stop();
+        }
+
+    }
+
+    @Test
+    public void handleExternalAsyncCall_downstreamUnavailable_Test() throws Exception {
+
+        // Setup
+        httpClientServiceImpl.initHttpClient();
+
+        try {
+
+            // Test
+            final HttpClientStreamedResponseDTO result = httpClientServiceImpl
+                    .handleExternalAsyncCall(new HttpClientCallDTO("http://localhost:1/bar", RestMethodEnum.GET), null)
+                    .get(10, TimeUnit.SECONDS);
+
+            // Assertions
+            Assert.assertEquals(404, result.getStatus());
+            Assert.assertNull(result.getBodyStream());
+
+        } finally {
+            httpClientServiceImpl.closeHttpClient();
+        }
+
+    }
+
+    @Test
+    public void handleExternalCall_cookiesNotShared_Test() throws Exception {
+
+        // Setup
+        final Server server = buildCookieServer();
+        server.start();
+
+        httpClientServiceImpl.initHttpClient();
+
+        final String url = "http://localhost:" + ((ServerConnector) server.getConnectors()[0]).getLocalPort() + "/bar";
+
+        try {
+
+            // Test
+            final HttpClientResponseDTO result1 = httpClientServiceImpl.handleExternalCall(new HttpClientCallDTO(url, RestMethodEnum.GET));
+            final HttpClientResponseDTO result2 = httpClientServiceImpl.handleExternalCall(new HttpClientCallDTO(url, RestMethodEnum.GET));
+
+            final HttpClientStreamedResponseDTO asyncResult = httpClientServiceImpl
+                    .handleExternalAsyncCall(new HttpClientCallDTO(url, RestMethodEnum.GET), null)
+                    .get(10, TimeUnit.SECONDS);
+            final HttpClientStreamedResponseDTO asyncResult2 = httpClientServiceImpl
+                    .handleExternalAsyncCall(new HttpClientCallDTO(url, RestMethodEnum.GET), null)
+                    .get(10, TimeUnit.SECONDS);
+
+            // Assertions
+            Assert.assertEquals("No cookie", result1.getBody());
+            Assert.assertEquals("No cookie", result2.getBody());
+            Assert.assertEquals("No cookie", IOUtils.toString(asyncResult.getBodyStream(), Charset.defaultCharset()));
+            Assert.assertEquals("No cookie", IOUtils.toString(asyncResult2.getBodyStream(), Charset.defaultCharset()));
+
+            asyncResult.close();
+            asyncResult2.close();
+
+        } finally {
+            httpClientServiceImpl.closeHttpClient();
+            server.stop();
+        }
+
+    }
+
+    @Test
+    public void getAsyncHttpClient_connectionSettings_Test() throws Exception {
+
+        // Setup
+        httpClientServiceImpl.initHttpClient();
+
+        final HttpClientCallDTO defaultDTO = new HttpClientCallDTO("http://localhost:8001/bar", RestMethodEnum.GET);
+
+        final HttpClientCallDTO customDTO = new HttpClientCallDTO("http://localhost:8001/bar", RestMethodEnum.GET);
+        customDTO.setConnectTimeOutMillis(1000);
+        customDTO.setMaxConnectionsPerRoute(5);
+
+        try {
+
+            // Test
+            final HttpClient defaultClient = httpClientServiceImpl.getAsyncHttpClient(defaultDTO);
+            final HttpClient customClient = httpClientServiceImpl.getAsyncHttpClient(customDTO);
+
+            // Assertions
+            Assert.assertEquals(HttpClientServiceImpl.DEFAULT_CONNECT_TIMEOUT_MILLIS, defaultClient.getConnectTimeout());
+            Assert.assertEquals(HttpClientServiceImpl.DEFAULT_MAX_CONNECTIONS_PER_ROUTE, defaultClient.getMaxConnectionsPerDestination());
+            Assert.assertEquals(1000, customClient.getConnectTimeout());
+            Assert.assertEquals(5, customClient.getMaxConnectionsPerDestination());
+            Assert.assertTrue(customClient.isStarted());
+            Assert.assertSame(customClient, httpClientServiceImpl.getAsyncHttpClient(customDTO));
+            Assert.assertSame(defaultClient, httpClientServiceImpl.getAsyncHttpClient(defaultDTO));
+
+            // i.e. the settings of one do not leak into the other
+            Assert.assertNotSame(defaultClient, customClient);
+
+        } finally {
+            httpClientServiceImpl.closeHttpClient();
+        }
+
+    }
+
+    @Test
+    public void getMaxResponseWaitMillis_Test() {
+
+        // Setup
+        final HttpClientCallDTO httpClientCallDTO = new HttpClientCallDTO("http://localhost:8001/bar", RestMethodEnum.GET);
+
+        // Test & Assertions
+        Assert.assertEquals(70000, httpClientServiceImpl.getMaxResponseWaitMillis(httpClientCallDTO));
+
+        httpClientCallDTO.setReadTimeOutMillis(5000);
+
+        Assert.assertEquals(15000, httpClientServiceImpl.getMaxResponseWaitMillis(httpClientCallDTO));
+
+        httpClientCallDTO.setConnectTimeOutMillis(1000);
+
+        Assert.assertEquals(6000, httpClientServiceImpl.getMaxResponseWaitMillis(httpClientCallDTO));
+    }
+
+    @Test
+    public void toRoute_Test() {
+
+        Assert.assertEquals(new HttpRoute(new HttpHost("foo.com", 80, "http"), null, false), httpClientServiceImpl.toRoute("http://foo.com/bar"));
+        Assert.assertEquals(new HttpRoute(new HttpHost("foo.com", 8443, "https"), null, true), httpClientServiceImpl.toRoute("https://foo.com:8443"));
+    }
+
+    // Sets a session cookie on every response, echoing back any cookie the caller sent
+    private Server buildCookieServer() {
+
+        final Server server = new Server(0);
+        server.setHandler(new AbstractHandler() {
+
+            @Override
+            public void handle(final String target,
+                               final org.eclipse.jetty.server.Request baseRequest,
+                               final HttpServletRequest request,
+                               final HttpServletResponse response) throws IOException {
+
+                final String cookie = request.getHeader("Cookie");
+
+                response.setStatus(200);
+                response.setContentType("text/plain");
+                response.setHeader("Set-Cookie", "SESSION=abc; Path=/");
+                response.getOutputStream().write(((cookie != null) ? cookie : "No cookie").getBytes());
+
+                baseRequest.setHandled(true);
+            }
+        });
+
+        return server;
+    }
+
 }
@@ -0,0 +1,169 @@
+package com.smockin.admin.service;
+
+import com.smockin.admin.persistence.CoreDataHandler;
+import com.smockin.admin.persistence.dao.AppConfigDAO;
+import com.smockin.admin.persistence.dao.ServerConfigDAO;
+import com.smockin.admin.persistence.dao.SmockinUserDAO;
+import com.smockin.admin.persistence.entity.SmockinUser;
+import com.smockin.admin.persistence.enums.SmockinUserRoleEnum;
+import com.smockin.admin.persistence.migration.DataMigrationService;
+import com.smockin.mockserver.engine.RestfulMockRouteCache;
+import com.smockin.mockserver.engine.UserCtxPathIndex;
+import com.smockin.mockserver.engine.UserKeyValueDataCache;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentMatchers;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.Spy;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+@RunWith(MockitoJUnitRunner.class)
+public class SmockinUserServiceTest {
+
+    @Mock
+    private SmockinUserDAO smockinUserDAO;
+
+    @Mock
+    private EncryptionService encryptionService;
+
+    @Mock
+    private ServerConfigDAO serverConfigDAO;
+
+    @Mock
+    private AppConfigDAO appConfigDAO;
+
+    @Mock
+    private DataMigrationService dataMigrationService;
+
+    @Mock
+    private RestfulMockRouteCache restfulMockRouteCache;
+
+    @Mock
+    private UserKeyValueDataCache userKeyValueDataCache;
+
+    @Spy
+    private UserCtxPathIndex userCtxPathIndex = new UserCtxPathIndex();
+
+    @InjectMocks
+    private SmockinUserServiceImpl smockinUserService = new SmockinUserServiceImpl();
+
+    @InjectMocks
+    private CoreDataHandler coreDataHandler = new CoreDataHandler();
+
+    private final List<SmockinUser> savedUsers = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+
+        Mockito.when(smockinUserDAO.findAll()).thenReturn(savedUsers);
+        Mockito.lenient().when(smockinUserDAO.save(ArgumentMatchers.any(SmockinUser.class))).thenAnswer(invocation -> {
+            final SmockinUser user = invocation.getArgument(0);
+            user.setId(savedUsers.size() + 1);
+            savedUsers.add(user);
+            return user;
+        });
+
+        ReflectionTestUtils.setField(userCtxPathIndex, "smockinUserDAO", smockinUserDAO);
+        userCtxPathIndex.init();
+
+        TransactionSynchronizationManager.initSynchronization();
+    }
+
+    @After
+    public void tearDown() {
+        TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    @Test
+    public void doesUserExistWithCtxPath_seededAdmin_Test() {
+
+        // Setup
+        Mockito.when(smockinUserDAO.findAllByRole(SmockinUserRoleEnum.SYS_ADMIN)).thenReturn(Collections.emptyList());
+
+        // Test
+        coreDataHandler.exec();
+
+        // Assertions (index only updated once the seeded admin has been committed)
+        Assert.assertFalse(smockinUserService.doesUserExistWithCtxPath(""));
+
+        commit();
+
+        Assert.assertTrue(smockinUserService.doesUserExistWithCtxPath(""));
+        Assert.assertFalse(smockinUserService.doesUserExistWithCtxPath("bob"));
+    }
+
+    @Test
+    public void doesUserExistWithCtxPath_userChangedOutsideService_Test() {
+
+        // Setup
+        final SmockinUser user = new SmockinUser();
+        user.setId(1);
+        user.setCtxPath("bob");
+        savedUsers.add(user);
+
+        userCtxPathIndex.rebuild();
+        Assert.assertTrue(smockinUserService.doesUserExistWithCtxPath("bob"));
+
+        user.setCtxPath("robert");
+
+        // Test
+        userCtxPathIndex.rebuild();
+
+        // Assertions
+        Assert.assertFalse(smockinUserService.doesUserExistWithCtxPath("bob"));
+        Assert.assertTrue(smockinUserService.doesUserExistWithCtxPath("robert"));
+    }
+
+    @Test
+    public void deleteUser_cachesEvictedAfterCommit_Test() throws Exception {
+
+        // Setup
+        final SmockinUser admin = new SmockinUser();
+        admin.setRole(SmockinUserRoleEnum.ADMIN);
+
+        final SmockinUser user = new SmockinUser();
+        user.setId(7);
+        user.setCtxPath("bob");
+        user.setRole(SmockinUserRoleEnum.REGULAR);
+        savedUsers.add(user);
+        userCtxPathIndex.rebuild();
+
+        Mockito.when(smockinUserDAO.findBySessionToken("token")).thenReturn(admin);
+        Mockito.when(smockinUserDAO.findByExtId("abc")).thenReturn(user);
+
+        // Test
+        smockinUserService.deleteUser("abc", "token");
+        savedUsers.remove(user);
+
+        // Assertions
+        Mockito.verify(userKeyValueDataCache, Mockito.never()).evict(Mockito.anyLong());
+
+        commit();
+
+        Mockito.verify(userKeyValueDataCache).evict(7);
+        Mockito.verify(restfulMockRouteCache).rebuild();
+        Assert.assertFalse(smockinUserService.doesUserExistWithCtxPath("bob"));
+    }
+
+    @Test
+    public void doesUserExistWithCtxPath_null_Test() {
+        Assert.assertFalse(smockinUserService.doesUserExistWithCtxPath(null));
+    }
+
+    private void commit() {
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+    }
+
+}
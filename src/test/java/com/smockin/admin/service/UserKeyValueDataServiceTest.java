@@ -0,0 +1,178 @@
+package com.smockin.admin.service;
+
+import com.smockin.admin.dto.UserKeyValueDataDTO;
+import com.smockin.admin.exception.RecordNotFoundException;
+import com.smockin.admin.exception.ValidationException;
+import com.smockin.admin.persistence.dao.UserKeyValueDataDAO;
+import com.smockin.admin.persistence.entity.SmockinUser;
+import com.smockin.admin.persistence.entity.UserKeyValueData;
+import com.smockin.admin.service.utils.UserTokenServiceUtils;
+import com.smockin.mockserver.engine.UserKeyValueDataCache;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.Spy;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+
+@RunWith(MockitoJUnitRunner.class)
+public class UserKeyValueDataServiceTest {
+
+    @Mock
+    private UserKeyValueDataDAO userKeyValueDataDAO;
+
+    @Mock
+    private UserTokenServiceUtils userTokenServiceUtils;
+
+    @Spy
+    private UserKeyValueDataCache userKeyValueDataCache = new UserKeyValueDataCache();
+
+    @Spy
+    @InjectMocks
+    private UserKeyValueDataServiceImpl userKeyValueDataService = new UserKeyValueDataServiceImpl();
+
+    private SmockinUser user1;
+    private SmockinUser user2;
+
+    @Before
+    public void setUp() {
+
+        user1 = new SmockinUser();
+        user1.setId(1);
+        user2 = new SmockinUser();
+        user2.setId(2);
+
+        Mockito.when(userKeyValueDataDAO.findAllWithUser())
+                .thenReturn(Arrays.asList(buildKvp("Greeting", "Hello", user1), buildKvp("weather", "Sunny", user1), buildKvp("greeting", "Bonjour", user2)));
+
+        ReflectionTestUtils.setField(userKeyValueDataCache, "userKeyValueDataDAO", userKeyValueDataDAO);
+        userKeyValueDataCache.init();
+
+        TransactionSynchronizationManager.initSynchronization();
+    }
+
+    @After
+    public void tearDown() {
+        TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    @Test
+    public void loadByKey_Test() {
+
+        Assert.assertEquals("Hello", userKeyValueDataService.loadByKey("greeting", 1).getValue());
+        Assert.assertEquals("Hello", userKeyValueDataService.loadByKey("GREETING", 1).getValue());
+        Assert.assertEquals("Bonjour", userKeyValueDataService.loadByKey("greeting", 2).getValue());
+        Assert.assertNull(userKeyValueDataService.loadByKey("weather", 2));
+        Assert.assertNull(userKeyValueDataService.loadByKey("weather", 3));
+        Assert.assertNull(userKeyValueDataService.loadByKey(null, 1));
+
+        Mockito.verify(userKeyValueDataDAO, Mockito.never()).findByKey(Mockito.anyString(), Mockito.anyLong());
+    }
+
+    @Test
+    public void loadByKeys_Test() {
+
+        // Test
+        final Map<String, UserKeyValueDataDTO> result = userKeyValueDataService.loadByKeys(Arrays.asList("GREETING", "weather", "foo"), 1);
+
+        // Assertions
+        Assert.assertEquals(2, result.size());
+        Assert.assertEquals("Hello", result.get("GREETING").getValue());
+        Assert.assertEquals("Sunny", result.get("weather").getValue());
+        Assert.assertFalse(result.containsKey("foo"));
+    }
+
+    @Test
+    public void update_cacheRefreshedAfterCommit_Test() throws RecordNotFoundException, ValidationException {
+
+        // Setup
+        final UserKeyValueData kvp = buildKvp("weather", "Sunny", user1);
+        Mockito.when(userKeyValueDataDAO.findByExtId("abc")).thenReturn(kvp);
+        Mockito.when(userKeyValueDataDAO.findAllByUser(1))
+                .thenReturn(Arrays.asList(buildKvp("Greeting", "Hello", user1), buildKvp("forecast", "Rain", user1)));
+
+        // Test
+        userKeyValueDataService.update("abc", new UserKeyValueDataDTO(null, "forecast", "Rain"), "token");
+
+        // Assertions (only reloaded once committed, so never from a snapshot of the uncommitted state)
+        Assert.assertEquals("Sunny", userKeyValueDataService.loadByKey("weather", 1).getValue());
+        Mockito.verify(userKeyValueDataDAO, Mockito.never()).findAllByUser(Mockito.anyLong());
+
+        commit();
+
+        Assert.assertNull(userKeyValueDataService.loadByKey("weather", 1));
+        Assert.assertEquals("Rain", userKeyValueDataService.loadByKey("forecast", 1).getValue());
+        Assert.assertEquals("Bonjour", userKeyValueDataService.loadByKey("greeting", 2).getValue());
+    }
+
+    @Test
+    public void delete_cacheRefreshedAfterCommit_Test() throws RecordNotFoundException, ValidationException {
+
+        // Setup
+        final UserKeyValueData kvp = buildKvp("greeting", "Bonjour", user2);
+        Mockito.when(userKeyValueDataDAO.findByExtId("abc")).thenReturn(kvp);
+        Mockito.when(userKeyValueDataDAO.findAllByUser(2)).thenReturn(Collections.emptyList());
+
+        // Test
+        userKeyValueDataService.delete("abc", "token");
+        commit();
+
+        // Assertions
+        Assert.assertNull(userKeyValueDataService.loadByKey("greeting", 2));
+        Assert.assertEquals("Hello", userKeyValueDataService.loadByKey("greeting", 1).getValue());
+    }
+
+    @Test
+    public void reload_latestCommittedStateWins_Test() {
+
+        // Setup
+        Mockito.when(userKeyValueDataDAO.findAllByUser(1))
+                .thenReturn(Collections.singletonList(buildKvp("weather", "Rain", user1)))
+                .thenReturn(Collections.singletonList(buildKvp("weather", "Snow", user1)));
+
+        // Test (i.e. two writes committing in turn, each reloading whatever has been committed by then)
+        userKeyValueDataCache.reload(1);
+        userKeyValueDataCache.reload(1);
+
+        // Assertions
+        Assert.assertEquals("Snow", userKeyValueDataService.loadByKey("weather", 1).getValue());
+    }
+
+    @Test
+    public void evict_Test() {
+
+        // Test
+        userKeyValueDataCache.evict(1);
+
+        // Assertions
+        Assert.assertNull(userKeyValueDataService.loadByKey("greeting", 1));
+        Assert.assertEquals("Bonjour", userKeyValueDataService.loadByKey("greeting", 2).getValue());
+    }
+
+    private void commit() {
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(TransactionSynchronization::afterCommit);
+    }
+
+    private UserKeyValueData buildKvp(final String key, final String value, final SmockinUser user) {
+
+        final UserKeyValueData kvp = new UserKeyValueData();
+        kvp.setKey(key);
+        kvp.setValue(value);
+        kvp.setCreatedBy(user);
+
+        return kvp;
+    }
+
+}
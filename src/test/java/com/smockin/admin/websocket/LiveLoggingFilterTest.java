@@ -0,0 +1,109 @@
+package com.smockin.admin.websocket;
+
+import com.smockin.admin.dto.LiveLoggingSubscriptionDTO;
+import com.smockin.admin.dto.response.LiveLoggingTrafficDTO;
+import com.smockin.admin.persistence.enums.RestMockTypeEnum;
+import com.smockin.utils.GeneralUtils;
+import com.smockin.utils.LiveLoggingUtils;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+public class LiveLoggingFilterTest {
+
+    private LiveLoggingSubscriptionDTO dto;
+
+    @Before
+    public void setUp() {
+        dto = new LiveLoggingSubscriptionDTO();
+    }
+
+    @Test
+    public void parseStatusRange_Test() {
+
+        Assert.assertArrayEquals(new int[] { 404, 404 }, LiveLoggingFilter.parseStatusRange("404"));
+        Assert.assertArrayEquals(new int[] { 400, 499 }, LiveLoggingFilter.parseStatusRange("4xx"));
+        Assert.assertArrayEquals(new int[] { 500, 503 }, LiveLoggingFilter.parseStatusRange(" 500-503 "));
+        Assert.assertNull(LiveLoggingFilter.parseStatusRange("503-500"));
+        Assert.assertNull(LiveLoggingFilter.parseStatusRange("abc"));
+        Assert.assertNull(LiveLoggingFilter.parseStatusRange(null));
+    }
+
+    @Test
+    public void matches_request_Test() {
+
+        // Setup
+        dto.setMethods(Collections.singletonList("get"));
+        dto.setStatusRanges(Collections.singletonList("2xx"));
+
+        final LiveLoggingFilter filter = LiveLoggingFilter.compile(dto);
+
+        // Assertions
+        Assert.assertTrue(filter.matches(buildRequest("GET")));
+        Assert.assertFalse(filter.matches(buildRequest("POST")));
+    }
+
+    @Test
+    public void matches_responseStatus_Test() {
+
+        // Setup
+        dto.setStatusRanges(Arrays.asList("2xx", "404", "invalid"));
+
+        final LiveLoggingFilter filter = LiveLoggingFilter.compile(dto);
+
+        // Assertions
+        Assert.assertTrue(filter.matches(buildResponse(201, RestMockTypeEnum.SEQ, false)));
+        Assert.assertTrue(filter.matches(buildResponse(404, RestMockTypeEnum.SEQ, false)));
+        Assert.assertFalse(filter.matches(buildResponse(500, RestMockTypeEnum.SEQ, false)));
+    }
+
+    @Test
+    public void matches_responseMockType_Test() {
+
+        // Setup
+        dto.setMockTypes(Collections.singletonList("RULE"));
+
+        final LiveLoggingFilter filter = LiveLoggingFilter.compile(dto);
+
+        // Assertions
+        Assert.assertTrue(filter.matches(buildResponse(200, RestMockTypeEnum.RULE, false)));
+        Assert.assertFalse(filter.matches(buildResponse(200, RestMockTypeEnum.SEQ, false)));
+        Assert.assertFalse(filter.matches(buildResponse(200, null, true)));
+    }
+
+    @Test
+    public void matches_responseProxied_Test() {
+
+        // Setup
+        dto.setProxied(true);
+
+        final LiveLoggingFilter filter = LiveLoggingFilter.compile(dto);
+
+        // Assertions
+        Assert.assertTrue(filter.matches(buildResponse(200, null, true)));
+        Assert.assertFalse(filter.matches(buildResponse(200, RestMockTypeEnum.SEQ, false)));
+    }
+
+    @Test
+    public void matches_all_Test() {
+
+        Assert.assertTrue(LiveLoggingFilter.compile(null).matches(buildResponse(500, null, true)));
+        Assert.assertTrue(LiveLoggingFilter.compile(dto).matches(buildRequest("DELETE")));
+    }
+
+    private LiveLoggingTrafficDTO buildRequest(final String method) {
+        return (LiveLoggingTrafficDTO) LiveLoggingUtils.buildLiveLogInboundDTO("1", method, "/api", Collections.emptyMap(), null, false, null)
+                .getPayload();
+    }
+
+    private LiveLoggingTrafficDTO buildResponse(final int status, final RestMockTypeEnum mockType, final boolean proxied) {
+        return (LiveLoggingTrafficDTO) LiveLoggingUtils.buildLiveLogOutboundDTO("1", "GET", "/api", status,
+                    proxied ? Collections.singletonMap(GeneralUtils.PROXIED_DOWNSTREAM_URL_HEADER, "http://foo.com") : Collections.emptyMap(),
+                    null, false, mockType)
+                .getPayload();
+    }
+
+}
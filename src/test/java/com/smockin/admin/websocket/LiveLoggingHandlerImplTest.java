@@ -0,0 +1,239 @@
+package com.smockin.admin.websocket;
+
+import com.smockin.admin.dto.response.LiveLoggingDTO;
+import com.smockin.admin.enums.LiveLoggingMessageTypeEnum;
+import com.smockin.admin.enums.UserModeEnum;
+import com.smockin.admin.service.SmockinUserService;
+import com.smockin.mockserver.engine.MockedRestServerEngine;
+import com.smockin.utils.LiveLoggingUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+@RunWith(MockitoJUnitRunner.class)
+public class LiveLoggingHandlerImplTest {
+
+    @Mock
+    private SmockinUserService smockinUserService;
+
+    @Mock
+    private MockedRestServerEngine mockedRestServerEngine;
+
+    @Mock
+    private WebSocketSession sessionA;
+
+    @Mock
+    private WebSocketSession sessionB;
+
+    @InjectMocks
+    private LiveLoggingHandlerImpl liveLoggingHandler = new LiveLoggingHandlerImpl();
+
+    private LiveLoggingDTO dto;
+
+    @Before
+    public void setUp() throws Exception {
+
+        Mockito.when(smockinUserService.getUserMode()).thenReturn(UserModeEnum.INACTIVE);
+
+        Mockito.when(sessionA.getId()).thenReturn("A");
+        Mockito.lenient().when(sessionA.isOpen()).thenReturn(true);
+        Mockito.when(sessionB.getId()).thenReturn("B");
+        Mockito.lenient().when(sessionB.isOpen()).thenReturn(true);
+
+        liveLoggingHandler.afterConnectionEstablished(sessionA);
+        liveLoggingHandler.afterConnectionEstablished(sessionB);
+
+        dto = LiveLoggingUtils.buildLiveLogOutboundDTO("1", "/hello", 200, Collections.emptyMap(), "Hello", false);
+    }
+
+    @After
+    public void tearDown() {
+        liveLoggingHandler.stopPublisher();
+    }
+
+    @Test
+    public void publish_serialisedOnce_Test() throws Exception {
+
+        // Test
+        liveLoggingHandler.publish(dto);
+
+        // Assertions
+        final ArgumentCaptor<TextMessage> messageA = ArgumentCaptor.forClass(TextMessage.class);
+        final ArgumentCaptor<TextMessage> messageB = ArgumentCaptor.forClass(TextMessage.class);
+
+        Mockito.verify(sessionA, Mockito.timeout(1000)).sendMessage(messageA.capture());
+        Mockito.verify(sessionB, Mockito.timeout(1000)).sendMessage(messageB.capture());
+
+        Assert.assertSame(messageA.getValue(), messageB.getValue());
+        Assert.assertTrue(messageA.getValue().getPayload().contains("/hello"));
+    }
+
+    @Test
+    public void publish_slowSessionDoesNotHoldUpOthers_Test() throws Exception {
+
+        // Setup
+        final CountDownLatch releaseA = new CountDownLatch(1);
+
+        Mockito.doAnswer(invocation -> releaseA.await(5, TimeUnit.SECONDS))
+                .when(sessionA).sendMessage(Mockito.any());
+
+        // Test
+        liveLoggingHandler.publish(dto);
+        liveLoggingHandler.publish(dto);
+
+        // Assertions
+        Mockito.verify(sessionB, Mockito.timeout(1000).times(2)).sendMessage(Mockito.any());
+
+        releaseA.countDown();
+
+        Mockito.verify(sessionA, Mockito.timeout(1000).times(2)).sendMessage(Mockito.any());
+    }
+
+    @Test
+    public void publish_dropsOldestWhenSessionFallsBehind_Test() throws Exception {
+
+        // Setup
+        liveLoggingHandler.afterConnectionClosed(sessionB, null);
+
+        final CountDownLatch releaseA = new CountDownLatch(1);
+
+        Mockito.doAnswer(invocation -> releaseA.await(5, TimeUnit.SECONDS))
+                .when(sessionA).sendMessage(Mockito.any());
+
+        liveLoggingHandler.publish(dto);
+
+        // i.e. the 1st message is now being sent, so is no longer queued
+        Mockito.verify(sessionA, Mockito.timeout(1000)).sendMessage(Mockito.any());
+
+        // Test
+        for (int i = 0; i < LiveLoggingHandlerImpl.MAX_PENDING_MESSAGES_PER_SESSION + 10; i++) {
+            liveLoggingHandler.publish(dto);
+        }
+
+        releaseA.countDown();
+
+        // Assertions
+        Assert.assertEquals(10, liveLoggingHandler.getDroppedMessageCount());
+        Mockito.verify(sessionA, Mockito.timeout(2000).times(LiveLoggingHandlerImpl.MAX_PENDING_MESSAGES_PER_SESSION + 1)).sendMessage(Mockito.any());
+    }
+
+    @Test
+    public void publish_controlMessageNotDroppedWhenSessionFallsBehind_Test() throws Exception {
+
+        // Setup
+        liveLoggingHandler.afterConnectionClosed(sessionB, null);
+
+        final CountDownLatch releaseA = new CountDownLatch(1);
+
+        Mockito.doAnswer(invocation -> releaseA.await(5, TimeUnit.SECONDS))
+                .when(sessionA).sendMessage(Mockito.any());
+
+        liveLoggingHandler.publish(dto);
+        Mockito.verify(sessionA, Mockito.timeout(1000)).sendMessage(Mockito.any());
+
+        for (int i = 0; i < LiveLoggingHandlerImpl.MAX_PENDING_MESSAGES_PER_SESSION + 10; i++) {
+            liveLoggingHandler.publish(dto);
+        }
+
+        // Test
+        liveLoggingHandler.publish(LiveLoggingUtils.buildLiveLogInterceptedResponseDTO("2", "/hello", 200, Collections.emptyMap(), "Blocked", false));
+
+        releaseA.countDown();
+
+        // Assertions
+        final ArgumentCaptor<TextMessage> messages = ArgumentCaptor.forClass(TextMessage.class);
+        Mockito.verify(sessionA, Mockito.timeout(2000).times(LiveLoggingHandlerImpl.MAX_PENDING_MESSAGES_PER_SESSION + 2)).sendMessage(messages.capture());
+
+        Assert.assertEquals(10, liveLoggingHandler.getDroppedMessageCount());
+
+        // i.e. sent ahead of the traffic still waiting
+        Assert.assertTrue(messages.getAllValues().get(1).getPayload().contains(LiveLoggingMessageTypeEnum.BLOCKED_RESPONSE.name()));
+    }
+
+    @Test
+    public void broadcast_controlMessageNotDroppedWhenQueueFull_Test() throws Exception {
+
+        // Setup
+        liveLoggingHandler.stopPublisher();
+        ((Thread) ReflectionTestUtils.getField(liveLoggingHandler, "publisher")).join(1000);
+
+        for (int i = 0; i < LiveLoggingHandlerImpl.MAX_PENDING_BROADCASTS + 10; i++) {
+            liveLoggingHandler.broadcast(dto);
+        }
+
+        // Test
+        liveLoggingHandler.broadcast(LiveLoggingUtils.buildLiveLogInterceptedResponseDTO("2", "/hello", 200, Collections.emptyMap(), "Blocked", false));
+
+        // Assertions
+        Assert.assertEquals(10, liveLoggingHandler.getDroppedMessageCount());
+        Assert.assertEquals(LiveLoggingMessageTypeEnum.BLOCKED_RESPONSE, liveLoggingHandler.pollNextBroadcast().getType());
+        Assert.assertEquals(LiveLoggingMessageTypeEnum.TRAFFIC, liveLoggingHandler.pollNextBroadcast().getType());
+    }
+
+    @Test
+    public void publish_subscriptionFilter_Test() throws Exception {
+
+        // Setup
+        liveLoggingHandler.handleTextMessage(sessionA,
+                new TextMessage("{ \"type\" : \"LIVE_LOGGING_SUBSCRIPTION\", \"payload\" : { \"pathPrefix\" : \"/api\", \"methods\" : [ \"GET\" ], \"statusRanges\" : [ \"2xx\" ] } }"));
+
+        // Test
+        liveLoggingHandler.publish(LiveLoggingUtils.buildLiveLogOutboundDTO("1", "GET", "/api/users", 200, Collections.emptyMap(), "Hello", false, null));
+        liveLoggingHandler.publish(LiveLoggingUtils.buildLiveLogOutboundDTO("2", "GET", "/other", 200, Collections.emptyMap(), "Hello", false, null));
+        liveLoggingHandler.publish(LiveLoggingUtils.buildLiveLogOutboundDTO("3", "POST", "/api/users", 200, Collections.emptyMap(), "Hello", false, null));
+        liveLoggingHandler.publish(LiveLoggingUtils.buildLiveLogOutboundDTO("4", "GET", "/api/users", 500, Collections.emptyMap(), "Hello", false, null));
+
+        // Assertions
+        Mockito.verify(sessionB, Mockito.timeout(1000).times(4)).sendMessage(Mockito.any());
+
+        final ArgumentCaptor<TextMessage> messageA = ArgumentCaptor.forClass(TextMessage.class);
+        Mockito.verify(sessionA, Mockito.timeout(1000)).sendMessage(messageA.capture());
+        Assert.assertTrue(messageA.getValue().getPayload().contains("\"id\":\"1\""));
+    }
+
+    @Test
+    public void publish_subscriptionCleared_Test() throws Exception {
+
+        // Setup
+        liveLoggingHandler.handleTextMessage(sessionA,
+                new TextMessage("{ \"type\" : \"LIVE_LOGGING_SUBSCRIPTION\", \"payload\" : { \"pathPrefix\" : \"/api\" } }"));
+        liveLoggingHandler.handleTextMessage(sessionA,
+                new TextMessage("{ \"type\" : \"LIVE_LOGGING_SUBSCRIPTION\" }"));
+
+        // Test
+        liveLoggingHandler.publish(dto);
+
+        // Assertions
+        Mockito.verify(sessionA, Mockito.timeout(1000)).sendMessage(Mockito.any());
+    }
+
+    @Test
+    public void broadcast_noSubscribers_Test() throws Exception {
+
+        // Setup
+        liveLoggingHandler.afterConnectionClosed(sessionA, null);
+        liveLoggingHandler.afterConnectionClosed(sessionB, null);
+
+        // Test
+        liveLoggingHandler.broadcast(dto);
+
+        // Assertions
+        Assert.assertFalse(liveLoggingHandler.hasSubscribers());
+        Mockito.verify(sessionA, Mockito.never()).sendMessage(Mockito.any());
+    }
+
+}
@@ -0,0 +1,159 @@
+package com.smockin.mockserver.engine;
+
+import com.smockin.admin.dto.response.LiveLoggingTrafficDTO;
+import com.smockin.admin.persistence.enums.RestMethodEnum;
+import com.smockin.admin.websocket.LiveLoggingHandler;
+import com.smockin.mockserver.dto.LiveloggingUserOverrideResponse;
+import com.smockin.utils.GeneralUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import spark.Request;
+import spark.RequestResponseFactory;
+import spark.Response;
+
+import java.util.Collections;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+@RunWith(MockitoJUnitRunner.class)
+public class MockedRestServerEngineTest {
+
+    @Mock
+    private LiveLoggingHandler liveLoggingHandler;
+
+    @Mock
+    private MockedRestServerEngineUtils mockedRestServerEngineUtils;
+
+    @InjectMocks
+    private MockedRestServerEngine mockedRestServerEngine = new MockedRestServerEngine();
+
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() throws Exception {
+
+        executor = Executors.newCachedThreadPool();
+
+        mockedRestServerEngine.updateLiveBlockingMode(true);
+        mockedRestServerEngine.addPathToLiveBlocking(RestMethodEnum.GET, "/hello", "1");
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void checkForAndHandleBlockSwapAndMock_amended_Test() throws Exception {
+
+        // Setup
+        final Future<Optional<String>> blockedA = block("A", "/hello");
+        final Future<Optional<String>> blockedB = block("B", "/hello");
+
+        // Test
+        mockedRestServerEngine.releaseBlockedLiveLoggingResponse("A",
+                Optional.of(new LiveloggingUserOverrideResponse(201, Collections.emptyMap(), "Amended")));
+
+        // Assertions
+        Assert.assertEquals("Amended", blockedA.get(1, TimeUnit.SECONDS).get());
+        Assert.assertFalse(blockedB.isDone());
+
+        mockedRestServerEngine.releaseBlockedLiveLoggingResponse("B", Optional.empty());
+
+        Assert.assertFalse(blockedB.get(1, TimeUnit.SECONDS).isPresent());
+    }
+
+    @Test
+    public void checkForAndHandleBlockSwapAndMock_notBlocked_Test() throws Exception {
+
+        // Test
+        final Optional<String> result = mockedRestServerEngine.checkForAndHandleBlockSwapAndMock(buildRequest("A", "/bye"), buildResponse(), false);
+
+        // Assertions
+        Assert.assertFalse(result.isPresent());
+        Mockito.verify(liveLoggingHandler, Mockito.never()).broadcast(Mockito.any());
+    }
+
+    @Test
+    public void updateLiveBlockingMode_disabledReleasesAll_Test() throws Exception {
+
+        // Setup
+        final Future<Optional<String>> blocked = block("A", "/hello");
+
+        // Test
+        mockedRestServerEngine.updateLiveBlockingMode(false);
+
+        // Assertions
+        Assert.assertFalse(blocked.get(1, TimeUnit.SECONDS).isPresent());
+    }
+
+    @Test
+    public void notifyBlockedLiveLoggingCalls_pathNoLongerBlocked_Test() throws Exception {
+
+        // Setup
+        mockedRestServerEngine.addPathToLiveBlocking(RestMethodEnum.GET, "/bye", "1");
+
+        final Future<Optional<String>> blockedHello = block("A", "/hello");
+        final Future<Optional<String>> blockedBye = block("B", "/bye");
+
+        // Test
+        mockedRestServerEngine.removePathFromLiveBlocking(RestMethodEnum.GET, "/hello", "1");
+        mockedRestServerEngine.notifyBlockedLiveLoggingCalls(Optional.of(RestMethodEnum.GET), "/hello");
+
+        // Assertions
+        Assert.assertFalse(blockedHello.get(1, TimeUnit.SECONDS).isPresent());
+        Assert.assertFalse(blockedBye.isDone());
+
+        mockedRestServerEngine.releaseBlockedLiveLoggingResponse("B", Optional.empty());
+        blockedBye.get(1, TimeUnit.SECONDS);
+    }
+
+    // Waits until the call is blocked (i.e. the live logging console has been told of it)
+    private Future<Optional<String>> block(final String traceId, final String path) throws Exception {
+
+        final CompletableFuture<Void> broadcast = new CompletableFuture<>();
+
+        Mockito.doAnswer(invocation -> broadcast.complete(null))
+                .when(liveLoggingHandler).broadcast(Mockito.argThat(dto ->
+                        dto != null && traceId.equals(((LiveLoggingTrafficDTO) dto.getPayload()).getId())));
+
+        final Future<Optional<String>> blocked = executor.submit(() ->
+                mockedRestServerEngine.checkForAndHandleBlockSwapAndMock(buildRequest(traceId, path), buildResponse(), false));
+
+        broadcast.get(1, TimeUnit.SECONDS);
+
+        return blocked;
+    }
+
+    private Request buildRequest(final String traceId, final String path) {
+
+        final Request request = Mockito.mock(Request.class);
+        final MockHttpServletRequest rawRequest = new MockHttpServletRequest("GET", path);
+
+        Mockito.lenient().when(request.raw()).thenReturn(rawRequest);
+        Mockito.lenient().when(request.attribute(GeneralUtils.LOG_REQ_ID)).thenReturn(traceId);
+        Mockito.lenient().when(request.attribute(MockedRestServerEngineUtils.LIVE_LOGGED_ATTR)).thenReturn((traceId != null) ? Boolean.TRUE : null);
+        Mockito.lenient().when(request.requestMethod()).thenReturn("GET");
+        Mockito.lenient().when(request.pathInfo()).thenReturn(path);
+
+        return request;
+    }
+
+    private Response buildResponse() {
+        return RequestResponseFactory.create(new MockHttpServletResponse());
+    }
+
+}
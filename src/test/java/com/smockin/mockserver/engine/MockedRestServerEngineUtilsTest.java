@@ -1,25 +1,60 @@
 package com.smockin.mockserver.engine;
 
-import com.smockin.admin.persistence.dao.RestfulMockDAO;
+import com.smockin.admin.dto.HttpClientCallDTO;
+import com.smockin.admin.dto.response.HttpClientResponseDTO;
+import com.smockin.admin.dto.response.HttpClientStreamedResponseDTO;
 import com.smockin.admin.persistence.entity.RestfulMock;
 import com.smockin.admin.persistence.entity.RestfulMockDefinitionOrder;
+import com.smockin.admin.persistence.enums.RestMethodEnum;
 import com.smockin.admin.persistence.enums.RestMockTypeEnum;
+import com.smockin.admin.service.HttpClientService;
 import com.smockin.admin.service.SmockinUserService;
+import com.smockin.admin.websocket.LiveLoggingHandler;
+import com.smockin.mockserver.dto.ProxyForwardConfigCacheDTO;
+import com.smockin.mockserver.dto.ProxyForwardMappingDTO;
 import com.smockin.mockserver.service.MockOrderingCounterService;
 import com.smockin.mockserver.service.HttpProxyService;
 import com.smockin.mockserver.service.RuleEngine;
+import com.smockin.mockserver.service.TrafficJournalService;
+import com.smockin.mockserver.service.bean.RestfulMockSnapshot;
 import com.smockin.mockserver.service.dto.RestfulResponseDTO;
+import com.smockin.utils.GeneralUtils;
+import org.apache.commons.io.IOUtils;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentMatchers;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Mockito;
 import org.mockito.Spy;
 import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import spark.Request;
+import spark.RequestResponseFactory;
+import spark.Response;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Created by mgallina.
@@ -28,7 +63,7 @@ import org.springframework.http.HttpStatus;
 public class MockedRestServerEngineUtilsTest {
 
     @Mock
-    private RestfulMockDAO restfulMockDAO;
+    private RestfulMockRouteCache restfulMockRouteCache;
 
     @Mock
     private RuleEngine ruleEngine;
@@ -42,6 +77,15 @@ public class MockedRestServerEngineUtilsTest {
     @Mock
     private SmockinUserService smockinUserService;
 
+    @Mock
+    private HttpClientService httpClientService;
+
+    @Mock
+    private LiveLoggingHandler liveLoggingHandler;
+
+    @Spy
+    private ProxyResponseCache proxyResponseCache = new ProxyResponseCache();
+
     @Spy
     @InjectMocks
     private MockedRestServerEngineUtils engineUtils = new MockedRestServerEngineUtils();
@@ -81,7 +125,7 @@ public class MockedRestServerEngineUtilsTest {
         restfulMock.getDefinitions().clear();
 
         // Test
-        engineUtils.getDefault(restfulMock);
+        engineUtils.getDefault(RestfulMockSnapshot.from(restfulMock));
     }
 
     @Test
@@ -89,7 +133,7 @@ public class MockedRestServerEngineUtilsTest {
 
         // Test (run 1)
         // Should always be response with 'order No 1'
-        final RestfulResponseDTO result1 = engineUtils.getDefault(restfulMock);
+        final RestfulResponseDTO result1 = engineUtils.getDefault(RestfulMockSnapshot.from(restfulMock));
 
         // Assertions
         Assert.assertNotNull(result1);
@@ -99,7 +143,7 @@ public class MockedRestServerEngineUtilsTest {
 
         // Test (run 2)
         // ... and just to double check...
-        final RestfulResponseDTO result2 = engineUtils.getDefault(restfulMock);
+        final RestfulResponseDTO result2 = engineUtils.getDefault(RestfulMockSnapshot.from(restfulMock));
 
         // Assertions
         Assert.assertNotNull(result2);
@@ -116,7 +160,7 @@ public class MockedRestServerEngineUtilsTest {
         restfulMock.setMockType(RestMockTypeEnum.PROXY_HTTP);
 
         // Test
-        final RestfulResponseDTO result = engineUtils.getDefault(restfulMock);
+        final RestfulResponseDTO result = engineUtils.getDefault(RestfulMockSnapshot.from(restfulMock));
 
         // Assertions
         Assert.assertNotNull(result);
@@ -126,4 +170,561 @@ public class MockedRestServerEngineUtilsTest {
         Assert.assertTrue(result.getHeaders().isEmpty());
     }
 
+    @Test
+    public void streamClientDownstreamProxyCall_Test() throws Exception {
+
+        // Setup
+        final byte[] downstreamBody = new byte[] { 0, -1, 10, -128, 13 };
+        final ByteArrayOutputStream written = new ByteArrayOutputStream();
+        final Request request = mockProxiedRequest("POST", "abc");
+        final Response response = Mockito.mock(Response.class);
+        final HttpServletResponse rawResponse = Mockito.mock(HttpServletResponse.class);
+
+        Mockito.when(response.raw()).thenReturn(rawResponse);
+        Mockito.when(rawResponse.getOutputStream()).thenReturn(toServletOutputStream(written));
+
+        Mockito.when(httpClientService.handleExternalStreamedCall(Mockito.any(), Mockito.any(), Mockito.any())).thenAnswer(invocation -> {
+
+            final HttpClientCallDTO dto = invocation.getArgument(0);
+
+            Assert.assertEquals("http://foo.com/bar", dto.getUrl());
+            Assert.assertEquals(RestMethodEnum.POST, dto.getMethod());
+            Assert.assertNull(dto.getBody());
+            Assert.assertEquals("abc", IOUtils.toString(invocation.<InputStream>getArgument(1), StandardCharsets.UTF_8));
+
+            return invocation.<HttpClientService.StreamedResponseHandler<Boolean>>getArgument(2)
+                    .handle(new HttpClientResponseDTO(200, "application/octet-stream", new HashMap<>(), null),
+                            new ByteArrayInputStream(downstreamBody));
+        });
+
+        // Test
+        final boolean result = engineUtils.streamClientDownstreamProxyCall("/bar", request, response, new ProxyForwardMappingDTO("/*", "http://foo.com", false), true);
+
+        // Assertions
+        Assert.assertTrue(result);
+        Assert.assertArrayEquals(downstreamBody, written.toByteArray());
+        Mockito.verify(response).status(200);
+        Mockito.verify(response).type("application/octet-stream");
+        Mockito.verify(response, Mockito.never()).body(Mockito.any());
+        Mockito.verify(rawResponse).flushBuffer();
+    }
+
+    @Test
+    public void streamClientDownstreamProxyCall_ignored404_Test() throws Exception {
+
+        // Setup
+        final Request request = mockProxiedRequest("GET", "");
+        final Response response = Mockito.mock(Response.class);
+
+        Mockito.when(httpClientService.handleExternalStreamedCall(Mockito.any(), Mockito.any(), Mockito.any())).thenAnswer(invocation ->
+                invocation.<HttpClientService.StreamedResponseHandler<Boolean>>getArgument(2)
+                    .handle(new HttpClientResponseDTO(404, "text/plain", new HashMap<>(), null),
+                            IOUtils.toInputStream("Not Found", StandardCharsets.UTF_8)));
+
+        // Test
+        final boolean result = engineUtils.streamClientDownstreamProxyCall("/bar", request, response, new ProxyForwardMappingDTO("/*", "http://foo.com", false), true);
+
+        // Assertions
+        Assert.assertFalse(result);
+        Mockito.verifyNoInteractions(response);
+    }
+
+    @Test
+    public void handleAsyncClientDownstreamProxyCallResponse_Test() throws Exception {
+
+        // Setup
+        final ByteArrayOutputStream written = new ByteArrayOutputStream();
+        final MockHttpServletRequest rawRequest = new MockHttpServletRequest();
+        final Request request = Mockito.mock(Request.class);
+        final Response response = Mockito.mock(Response.class);
+        final HttpServletResponse rawResponse = Mockito.mock(HttpServletResponse.class);
+
+        rawRequest.setAttribute(MockedRestServerEngineUtils.ASYNC_PROXY_DOWNSTREAM_URL_ATTR, "http://foo.com");
+        rawRequest.setAttribute(ResponseDelayHandler.RESUMED_FUTURE_ATTR, CompletableFuture.completedFuture(
+                new HttpClientStreamedResponseDTO(200, "text/plain", new HashMap<>(), IOUtils.toInputStream("Hello", StandardCharsets.UTF_8))));
+
+        Mockito.when(request.raw()).thenReturn(rawRequest);
+        Mockito.when(response.raw()).thenReturn(rawResponse);
+        Mockito.when(rawResponse.getOutputStream()).thenReturn(toServletOutputStream(written));
+
+        // Test
+        final Optional<String> result = engineUtils.handleAsyncClientDownstreamProxyCallResponse(request, response, false, true);
+
+        // Assertions
+        Assert.assertEquals(Optional.of(""), result);
+        Assert.assertEquals("Hello", written.toString(StandardCharsets.UTF_8.name()));
+        Assert.assertNull(rawRequest.getAttribute(MockedRestServerEngineUtils.ASYNC_PROXY_DOWNSTREAM_URL_ATTR));
+        Assert.assertEquals(Boolean.TRUE, rawRequest.getAttribute(MockedRestServerEngineUtils.ASYNC_PROXY_CALL_COMPLETED_ATTR));
+        Mockito.verify(response).status(200);
+        Mockito.verify(response).header(GeneralUtils.PROXIED_DOWNSTREAM_URL_HEADER, "http://foo.com");
+        Mockito.verify(rawResponse).flushBuffer();
+    }
+
+    @Test
+    public void handleAsyncClientDownstreamProxyCallResponse_timedOut_Test() throws Exception {
+
+        // Setup
+        final CompletableFuture<HttpClientStreamedResponseDTO> future = new CompletableFuture<>();
+        final MockHttpServletRequest rawRequest = new MockHttpServletRequest();
+        final Request request = Mockito.mock(Request.class);
+        final Response response = Mockito.mock(Response.class);
+
+        rawRequest.setAttribute(MockedRestServerEngineUtils.ASYNC_PROXY_DOWNSTREAM_URL_ATTR, "http://foo.com");
+        rawRequest.setAttribute(ResponseDelayHandler.RESUMED_FUTURE_ATTR, future);
+
+        Mockito.when(request.raw()).thenReturn(rawRequest);
+        Mockito.doReturn(Optional.of("Mock")).when(engineUtils).handleMockLookup(request, response, false, false);
+
+        // Test
+        final Optional<String> result = engineUtils.handleAsyncClientDownstreamProxyCallResponse(request, response, false, true);
+
+        // Assertions
+        Assert.assertEquals(Optional.of("Mock"), result);
+        Assert.assertTrue(future.isCancelled());
+        Mockito.verifyNoInteractions(response);
+    }
+
+    @Test
+    public void isHedgeable_Test() {
+
+        // Setup
+        final ProxyForwardConfigCacheDTO config = new ProxyForwardConfigCacheDTO();
+        config.setHedgeRequests(true);
+
+        restfulMock.setMockType(RestMockTypeEnum.SEQ);
+
+        Mockito.when(restfulMockRouteCache.find(ArgumentMatchers.any(), ArgumentMatchers.eq("/foo"), ArgumentMatchers.eq(false)))
+                .thenReturn(Optional.of(RestfulMockSnapshot.from(restfulMock)));
+
+        // Test & Assertions
+        Assert.assertTrue(engineUtils.isHedgeable(config, mockHedgedRequest("GET"), false, true));
+        Assert.assertFalse(engineUtils.isHedgeable(config, mockHedgedRequest("POST"), false, true));
+        Assert.assertFalse(engineUtils.isHedgeable(config, mockHedgedRequest("GET"), false, false));
+
+        restfulMock.setRandomiseDefinitions(true);
+        Mockito.when(restfulMockRouteCache.find(ArgumentMatchers.any(), ArgumentMatchers.eq("/foo"), ArgumentMatchers.eq(false)))
+                .thenReturn(Optional.of(RestfulMockSnapshot.from(restfulMock)));
+
+        Assert.assertTrue(engineUtils.isHedgeable(config, mockHedgedRequest("POST"), false, false));
+
+        config.setHedgeRequests(false);
+
+        Assert.assertFalse(engineUtils.isHedgeable(config, mockHedgedRequest("GET"), false, true));
+    }
+
+    @Test
+    public void isHedgeable_noMock_Test() {
+
+        // Setup
+        final ProxyForwardConfigCacheDTO config = new ProxyForwardConfigCacheDTO();
+        config.setHedgeRequests(true);
+
+        Mockito.when(restfulMockRouteCache.find(RestMethodEnum.GET, "/foo", false)).thenReturn(Optional.empty());
+
+        // Test & Assertions
+        Assert.assertFalse(engineUtils.isHedgeable(config, mockHedgedRequest("GET"), false, true));
+    }
+
+    @Test
+    public void handleHedgedActiveMode_mockFound_Test() throws Exception {
+
+        // Setup
+        final CompletableFuture<HttpClientStreamedResponseDTO> future = new CompletableFuture<>();
+        final Request request = mockHedgedRequest("GET");
+        final Response response = Mockito.mock(Response.class);
+
+        Mockito.doReturn(future).when(engineUtils).startAsyncClientDownstreamProxyCall(ArgumentMatchers.any(), ArgumentMatchers.eq(request), ArgumentMatchers.eq(true));
+        Mockito.doReturn(Optional.of("Mock")).when(engineUtils).handleMockLookup(request, response, false, true);
+
+        // Test
+        final Optional<String> result = engineUtils.handleHedgedActiveMode("/foo", request, response,
+                new ProxyForwardMappingDTO("/foo", "http://foo.com", false), false, true);
+
+        // Assertions
+        Assert.assertEquals(Optional.of("Mock"), result);
+        Assert.assertTrue(future.isCancelled());
+        Assert.assertFalse(ResponseDelayHandler.isParked(request.raw()));
+    }
+
+    @Test
+    public void handleHedgedActiveMode_noMock_Test() throws Exception {
+
+        // Setup
+        final CompletableFuture<HttpClientStreamedResponseDTO> future = new CompletableFuture<>();
+        final Request request = mockHedgedRequest("GET");
+        final Response response = Mockito.mock(Response.class);
+
+        Mockito.doReturn(future).when(engineUtils).startAsyncClientDownstreamProxyCall(ArgumentMatchers.any(), ArgumentMatchers.eq(request), ArgumentMatchers.eq(true));
+        Mockito.doReturn(Optional.empty()).when(engineUtils).handleMockLookup(request, response, false, true);
+
+        // Test
+        final Optional<String> result = engineUtils.handleHedgedActiveMode("/foo", request, response,
+                new ProxyForwardMappingDTO("/foo", "http://foo.com", false), false, true);
+
+        // Assertions
+        Assert.assertEquals(Optional.of(""), result);
+        Assert.assertFalse(future.isCancelled());
+        Assert.assertTrue(ResponseDelayHandler.isParked(request.raw()));
+        Assert.assertEquals("http://foo.com", request.raw().getAttribute(MockedRestServerEngineUtils.ASYNC_PROXY_DOWNSTREAM_URL_ATTR));
+    }
+
+    @Test
+    public void captureHedgedMockLookup_Test() {
+
+        // Setup
+        final Request request = mockHedgedRequest("GET");
+        final Response response = RequestResponseFactory.create(new MockHttpServletResponse());
+
+        response.header("X-Trace", "123");
+
+        Mockito.doAnswer(invocation -> {
+            response.status(201);
+            response.header("X-Mock", "yes");
+            ResponseDelayHandler.delay(request.raw(), 5000);
+            return Optional.of("Mock");
+        }).when(engineUtils).handleMockLookup(request, response, false, false);
+
+        final long start = System.currentTimeMillis();
+
+        // Test
+        final HedgedMockResponse hedgedMockResponse = engineUtils.captureHedgedMockLookup(request, response, false);
+
+        // Assertions
+        Assert.assertEquals(Optional.of("Mock"), hedgedMockResponse.getBody());
+        Assert.assertEquals(201, hedgedMockResponse.getStatus());
+        Assert.assertEquals(Collections.singletonMap("X-Mock", "yes"), hedgedMockResponse.getHeaders());
+        Assert.assertTrue(hedgedMockResponse.getRespondAtMillis() >= (start + 5000));
+        Assert.assertNull(request.raw().getAttribute(ResponseDelayHandler.DELAY_MILLIS_ATTR));
+    }
+
+    @Test
+    public void handleAsyncClientDownstreamProxyCallResponse_hedgedMock_Test() throws Exception {
+
+        // Setup
+        final Request request = mockHedgedRequest("GET");
+        final MockHttpServletResponse rawResponse = new MockHttpServletResponse();
+        final Response response = RequestResponseFactory.create(rawResponse);
+
+        request.raw().setAttribute(MockedRestServerEngineUtils.ASYNC_PROXY_DOWNSTREAM_URL_ATTR, "http://foo.com");
+        request.raw().setAttribute(ResponseDelayHandler.RESUMED_FUTURE_ATTR, CompletableFuture.completedFuture(new HttpClientStreamedResponseDTO(404)));
+        request.raw().setAttribute(MockedRestServerEngineUtils.HEDGED_MOCK_RESPONSE_ATTR, new HedgedMockResponse(
+                Optional.of("Mock"), 201, Collections.singletonMap("X-Mock", "yes"), System.currentTimeMillis() + 5000));
+
+        // Test
+        final Optional<String> result = engineUtils.handleAsyncClientDownstreamProxyCallResponse(request, response, false, true);
+
+        // Assertions
+        Assert.assertEquals(Optional.of("Mock"), result);
+        Assert.assertEquals(201, rawResponse.getStatus());
+        Assert.assertEquals("yes", rawResponse.getHeader("X-Mock"));
+        Assert.assertNull(request.raw().getAttribute(MockedRestServerEngineUtils.HEDGED_MOCK_RESPONSE_ATTR));
+
+        // Only what remains of the mock's latency is still to be applied
+        final long delayInMillis = (Long) request.raw().getAttribute(ResponseDelayHandler.DELAY_MILLIS_ATTR);
+        Assert.assertTrue(delayInMillis > 0 && delayInMillis <= 5000);
+        Mockito.verify(engineUtils, Mockito.never()).handleMockLookup(request, response, false, false);
+    }
+
+    @Test
+    public void buildProxyResponseCacheKey_Test() {
+
+        // Setup
+        final HttpClientCallDTO httpClientCallDTO = new HttpClientCallDTO("http://foo.com/bar?a=1", RestMethodEnum.GET);
+        httpClientCallDTO.getHeaders().put("accept", "application/json");
+        httpClientCallDTO.getHeaders().put("X-Other", "ignored");
+
+        final ProxyForwardMappingDTO proxyMapping = new ProxyForwardMappingDTO("/*", "http://foo.com", false);
+        proxyMapping.setCacheKeyHeaders("Accept, Authorization");
+
+        // Test
+        final String key = engineUtils.buildProxyResponseCacheKey(httpClientCallDTO, proxyMapping);
+
+        // Assertions
+        Assert.assertEquals("GET http://foo.com/bar?a=1\naccept:application/json\nauthorization:", key);
+    }
+
+    @Test
+    public void isProxyResponseCacheable_Test() {
+
+        // Setup
+        final ProxyForwardMappingDTO proxyMapping = new ProxyForwardMappingDTO("/*", "http://foo.com", false);
+        proxyMapping.setCacheTtlMillis(60000);
+
+        // Test & Assertions
+        Assert.assertTrue(engineUtils.isProxyResponseCacheable(mockHedgedRequest("GET"), proxyMapping));
+        Assert.assertFalse(engineUtils.isProxyResponseCacheable(mockHedgedRequest("POST"), proxyMapping));
+    }
+
+    @Test
+    public void isProxyResponseCacheable_authorization_Test() {
+
+        // Setup
+        final ProxyForwardMappingDTO proxyMapping = new ProxyForwardMappingDTO("/*", "http://foo.com", false);
+        proxyMapping.setCacheTtlMillis(60000);
+
+        final Request request = mockHedgedRequest("GET");
+        Mockito.when(request.headers(HttpHeaders.AUTHORIZATION)).thenReturn("Bearer abc");
+
+        // Test & Assertions
+        Assert.assertFalse(engineUtils.isProxyResponseCacheable(request, proxyMapping));
+    }
+
+    @Test
+    public void isProxyResponseCacheable_cookie_Test() {
+
+        // Setup
+        final ProxyForwardMappingDTO proxyMapping = new ProxyForwardMappingDTO("/*", "http://foo.com", false);
+        proxyMapping.setCacheTtlMillis(60000);
+
+        final Request request = mockHedgedRequest("GET");
+        Mockito.when(request.headers(HttpHeaders.COOKIE)).thenReturn("session=abc");
+
+        // Test & Assertions
+        Assert.assertFalse(engineUtils.isProxyResponseCacheable(request, proxyMapping));
+    }
+
+    @Test
+    public void isProxyResponseCacheable_authorizationInCacheKey_Test() {
+
+        // Setup
+        final ProxyForwardMappingDTO proxyMapping = new ProxyForwardMappingDTO("/*", "http://foo.com", false);
+        proxyMapping.setCacheTtlMillis(60000);
+        proxyMapping.setCacheKeyHeaders("Accept, authorization");
+
+        final Request request = mockHedgedRequest("GET");
+        Mockito.when(request.headers(HttpHeaders.AUTHORIZATION)).thenReturn("Bearer abc");
+
+        // Test & Assertions
+        Assert.assertTrue(engineUtils.isProxyResponseCacheable(request, proxyMapping));
+    }
+
+    @Test
+    public void readCacheableBody_Test() throws IOException {
+
+        // Test & Assertions
+        Assert.assertEquals("Hello", new String(engineUtils.readCacheableBody(new HttpClientStreamedResponseDTO(200, "text/plain", new HashMap<>(),
+                IOUtils.toInputStream("Hello", StandardCharsets.UTF_8))), StandardCharsets.UTF_8));
+        Assert.assertNull(engineUtils.readCacheableBody(new HttpClientStreamedResponseDTO(500, "text/plain", new HashMap<>(),
+                IOUtils.toInputStream("Error", StandardCharsets.UTF_8))));
+    }
+
+    @Test
+    public void readCacheableBody_setCookie_Test() throws IOException {
+
+        // Test & Assertions
+        Assert.assertNull(engineUtils.readCacheableBody(new HttpClientStreamedResponseDTO(200, "text/plain", Collections.singletonMap("Set-Cookie", "a=b"),
+                IOUtils.toInputStream("Hello", StandardCharsets.UTF_8))));
+    }
+
+    @Test
+    public void readCacheableBody_noStore_Test() throws IOException {
+
+        // Test & Assertions
+        Assert.assertNull(engineUtils.readCacheableBody(new HttpClientStreamedResponseDTO(200, "text/plain", Collections.singletonMap("cache-control", "no-store"),
+                IOUtils.toInputStream("Hello", StandardCharsets.UTF_8))));
+    }
+
+    @Test
+    public void readCacheableBody_private_Test() throws IOException {
+
+        // Test & Assertions
+        Assert.assertNull(engineUtils.readCacheableBody(new HttpClientStreamedResponseDTO(200, "text/plain", Collections.singletonMap("Cache-Control", "private, max-age=60"),
+                IOUtils.toInputStream("Hello", StandardCharsets.UTF_8))));
+    }
+
+    @Test
+    public void writeCachedClientDownstreamProxyCallResponse_trafficCaptured_Test() throws IOException {
+
+        // Setup
+        final ProxyForwardMappingDTO proxyMapping = new ProxyForwardMappingDTO("/*", "http://foo.com", false);
+        proxyMapping.setCacheTtlMillis(60000);
+
+        final CachedProxyResponse cachedResponse = proxyResponseCache.complete(proxyResponseCache.lookup("", proxyMapping, "GET http://foo.com/foo"),
+                200, "text/plain", new HashMap<>(), "Hello".getBytes(StandardCharsets.UTF_8));
+
+        final Request request = mockHedgedRequest("GET");
+        Mockito.when(request.attribute(MockedRestServerEngineUtils.LIVE_LOGGED_ATTR)).thenReturn(Boolean.TRUE);
+
+        // Test
+        final Optional<String> result = engineUtils.writeCachedClientDownstreamProxyCallResponse(cachedResponse, request,
+                RequestResponseFactory.create(new MockHttpServletResponse()), "http://foo.com");
+
+        // Assertions
+        Assert.assertEquals(Optional.of("Hello"), result);
+    }
+
+    @Test
+    public void executeCachedClientDownstreamProxyCall_hit_Test() throws Exception {
+
+        // Setup
+        final ProxyForwardMappingDTO proxyMapping = new ProxyForwardMappingDTO("/*", "http://foo.com", false);
+        proxyMapping.setCacheTtlMillis(60000);
+
+        proxyResponseCache.complete(proxyResponseCache.lookup("", proxyMapping, "GET http://foo.com/foo"),
+                200, "text/plain", new HashMap<>(), "Hello".getBytes(StandardCharsets.UTF_8));
+
+        final Request request = mockHedgedRequest("GET");
+        final MockHttpServletResponse rawResponse = new MockHttpServletResponse();
+
+        // Test
+        final Optional<String> result = engineUtils.executeCachedClientDownstreamProxyCall("", "/foo", request, RequestResponseFactory.create(rawResponse), proxyMapping);
+
+        // Assertions
+        Assert.assertEquals(Optional.of(""), result);
+        Assert.assertEquals(200, rawResponse.getStatus());
+        Assert.assertEquals("Hello", rawResponse.getContentAsString());
+        Assert.assertEquals("http://foo.com", rawResponse.getHeader(GeneralUtils.PROXIED_DOWNSTREAM_URL_HEADER));
+        Assert.assertFalse(ResponseDelayHandler.isParked(request.raw()));
+        Mockito.verify(httpClientService, Mockito.never()).handleExternalAsyncCall(ArgumentMatchers.any(), ArgumentMatchers.any());
+    }
+
+    @Test
+    public void executeCachedClientDownstreamProxyCall_coalesced_Test() throws Exception {
+
+        // Setup
+        final ProxyForwardMappingDTO proxyMapping = new ProxyForwardMappingDTO("/*", "http://foo.com", false);
+        proxyMapping.setCacheTtlMillis(60000);
+
+        final ProxyResponseCache.Lookup leader = proxyResponseCache.lookup("", proxyMapping, "GET http://foo.com/foo");
+
+        final Request request = mockHedgedRequest("GET");
+        final MockHttpServletResponse rawResponse = new MockHttpServletResponse();
+        final Response response = RequestResponseFactory.create(rawResponse);
+
+        // Test (waits on the leader's call)
+        final Optional<String> parkedResult = engineUtils.executeCachedClientDownstreamProxyCall("", "/foo", request, response, proxyMapping);
+
+        // Assertions
+        Assert.assertEquals(Optional.of(""), parkedResult);
+        Assert.assertTrue(ResponseDelayHandler.isParked(request.raw()));
+        Mockito.verify(httpClientService, Mockito.never()).handleExternalAsyncCall(ArgumentMatchers.any(), ArgumentMatchers.any());
+
+        // Test (resumed once the leader's call completes)
+        proxyResponseCache.complete(leader, 200, "text/plain", new HashMap<>(), "Hello".getBytes(StandardCharsets.UTF_8));
+        request.raw().setAttribute(ResponseDelayHandler.RESUMED_FUTURE_ATTR, leader.getInFlight());
+
+        final Optional<String> result = engineUtils.handleCoalescedClientDownstreamProxyCallResponse("/foo", request, response, proxyMapping, true);
+
+        // Assertions
+        Assert.assertEquals(Optional.of(""), result);
+        Assert.assertEquals("Hello", rawResponse.getContentAsString());
+        Assert.assertNull(request.raw().getAttribute(MockedRestServerEngineUtils.PROXY_CACHE_LOOKUP_ATTR));
+    }
+
+    @Test
+    public void captureRequestBody_unread_Test() throws IOException {
+
+        // Setup
+        final Request request = mockBodyRequest("Hello World");
+
+        // Test
+        final String result = engineUtils.captureRequestBody(request, 5);
+
+        // Assertions (i.e. only 1 character more than is kept is read)
+        Assert.assertEquals("Hello ", result);
+        Mockito.verify(request, Mockito.never()).bodyAsBytes();
+        Mockito.verify(request, Mockito.never()).body();
+    }
+
+    @Test
+    public void captureRequestBody_alreadyRead_Test() throws IOException {
+
+        // Setup
+        final Request request = mockBodyRequest("Hello World");
+        IOUtils.toByteArray(request.raw().getInputStream());
+        Mockito.when(request.bodyAsBytes()).thenReturn("Hello World".getBytes(StandardCharsets.UTF_8));
+
+        // Test
+        final String result = engineUtils.captureRequestBody(request, 5);
+
+        // Assertions
+        Assert.assertEquals("Hello ", result);
+    }
+
+    @Test
+    public void captureRequestBody_retained_Test() throws IOException {
+
+        // Setup
+        final Request request = mockBodyRequest("");
+        ResponseDelayHandler.retainRequestBody(request.raw(), "Hello World".getBytes(StandardCharsets.UTF_8));
+
+        // Test
+        final String result = engineUtils.captureRequestBody(request, 20);
+
+        // Assertions
+        Assert.assertEquals("Hello World", result);
+    }
+
+    @Test
+    public void captureRequestBody_streamedDownstream_Test() throws IOException {
+
+        // Setup
+        final Request request = mockBodyRequest("Hello World");
+        IOUtils.toByteArray(engineUtils.openRequestBodyStream(request));
+
+        // Test
+        final String result = engineUtils.captureRequestBody(request, 5);
+
+        // Assertions
+        Assert.assertEquals(TrafficJournalService.BODY_NOT_CAPTURED, result);
+    }
+
+    private Request mockBodyRequest(final String body) {
+
+        final MockHttpServletRequest rawRequest = new MockHttpServletRequest("POST", "/foo");
+        rawRequest.setContent(body.getBytes(StandardCharsets.UTF_8));
+
+        final Request request = Mockito.mock(Request.class);
+        Mockito.when(request.raw()).thenReturn(new HttpServletRequestWrapper(rawRequest));
+
+        return request;
+    }
+
+    private Request mockHedgedRequest(final String method) {
+
+        final MockHttpServletRequest rawRequest = new MockHttpServletRequest(method, "/foo");
+        rawRequest.setAttribute(ResponseDelayHandler.DELAY_SUPPORTED_ATTR, Boolean.TRUE);
+
+        final Request request = Mockito.mock(Request.class);
+
+        Mockito.lenient().when(request.requestMethod()).thenReturn(method);
+        Mockito.lenient().when(request.pathInfo()).thenReturn("/foo");
+        Mockito.lenient().when(request.headers()).thenReturn(Collections.emptySet());
+        Mockito.lenient().when(request.raw()).thenReturn(rawRequest);
+
+        return request;
+    }
+
+    private Request mockProxiedRequest(final String method, final String body) {
+
+        final Request request = Mockito.mock(Request.class);
+
+        Mockito.when(request.requestMethod()).thenReturn(method);
+        Mockito.when(request.headers()).thenReturn(Collections.emptySet());
+        Mockito.when(request.raw()).thenReturn(Mockito.mock(HttpServletRequest.class));
+        Mockito.when(request.bodyAsBytes()).thenReturn(body.getBytes(StandardCharsets.UTF_8));
+
+        return request;
+    }
+
+    private ServletOutputStream toServletOutputStream(final OutputStream outputStream) {
+
+        return new ServletOutputStream() {
+
+            @Override
+            public void write(final int b) throws IOException {
+                outputStream.write(b);
+            }
+
+            @Override
+            public boolean isReady() {
+                return true;
+            }
+
+            @Override
+            public void setWriteListener(final WriteListener writeListener) {
+            }
+        };
+    }
+
 }
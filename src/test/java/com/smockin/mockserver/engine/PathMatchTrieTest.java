@@ -0,0 +1,132 @@
+package com.smockin.mockserver.engine;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Optional;
+
+public class PathMatchTrieTest {
+
+    private PathMatchTrie<String> trie;
+
+    @Before
+    public void setUp() {
+
+        trie = PathMatchTrie.<String>builder()
+                .add("/hello/*", "A")
+                .add("/hello/{name}", "B")
+                .add("/hello/bob", "C")
+                .add("/hello/{name}/howareyou/{date}", "D")
+                .add("/files/**", "E")
+                .add("/files/**/meta", "F")
+                .add("/report/{id}.json", "G")
+                .add("/js", "H")
+                .add("/js", "I")
+                .add("/trailing/", "J")
+                .build();
+
+    }
+
+    @Test
+    public void match_literalBeforeVarBeforeWildcard_Test() {
+
+        Assert.assertEquals("C", trie.match("/hello/bob").get().getValue());
+        Assert.assertEquals("B", trie.match("/hello/mike").get().getValue());
+    }
+
+    @Test
+    public void match_pathVars_Test() {
+
+        final Optional<PathMatchTrie.PathMatch<String>> match = trie.match("/hello/mike/howareyou/today");
+
+        Assert.assertTrue(match.isPresent());
+        Assert.assertEquals("D", match.get().getValue());
+        Assert.assertEquals(2, match.get().getPathVars().size());
+        Assert.assertEquals("mike", match.get().getPathVars().get("name"));
+        Assert.assertEquals("today", match.get().getPathVars().get("date"));
+    }
+
+    @Test
+    public void match_wildcardPathVar_Test() {
+
+        final PathMatchTrie<String> wildcardTrie = PathMatchTrie.<String>builder()
+                .add("/hello/*", "A")
+                .build();
+
+        final Optional<PathMatchTrie.PathMatch<String>> match = wildcardTrie.match("/hello/mike");
+
+        Assert.assertTrue(match.isPresent());
+        Assert.assertEquals("mike", match.get().getPathVars().get("*1"));
+    }
+
+    @Test
+    public void match_wildcardPathVarAfterLeadingSegments_Test() {
+
+        final PathMatchTrie<String> wildcardTrie = PathMatchTrie.<String>builder()
+                .add("/bob/hello/*/{name}", "A", 1)
+                .add("/bob/report/*/{id}.json", "B", 1)
+                .build();
+
+        final Optional<PathMatchTrie.PathMatch<String>> match = wildcardTrie.match("/bob/hello/there/mike");
+
+        Assert.assertTrue(match.isPresent());
+        Assert.assertEquals("there", match.get().getPathVars().get("*1"));
+        Assert.assertEquals("mike", match.get().getPathVars().get("name"));
+
+        final Optional<PathMatchTrie.PathMatch<String>> complexMatch = wildcardTrie.match("/bob/report/monthly/1.json");
+
+        Assert.assertTrue(complexMatch.isPresent());
+        Assert.assertEquals("monthly", complexMatch.get().getPathVars().get("*1"));
+    }
+
+    @Test
+    public void match_doubleWildcard_Test() {
+
+        Assert.assertEquals("E", trie.match("/files").get().getValue());
+        Assert.assertEquals("E", trie.match("/files/a/b/c").get().getValue());
+        Assert.assertEquals("F", trie.match("/files/a/b/meta").get().getValue());
+        Assert.assertEquals("F", trie.match("/files/meta").get().getValue());
+    }
+
+    @Test
+    public void match_complexSegment_Test() {
+
+        final Optional<PathMatchTrie.PathMatch<String>> match = trie.match("/report/123.json");
+
+        Assert.assertTrue(match.isPresent());
+        Assert.assertEquals("G", match.get().getValue());
+        Assert.assertFalse(trie.match("/report/123.xml").isPresent());
+    }
+
+    @Test
+    public void match_firstAddedWinsForIdenticalPattern_Test() {
+
+        Assert.assertEquals("H", trie.match("/js").get().getValue());
+    }
+
+    @Test
+    public void match_trailingSeparator_Test() {
+
+        Assert.assertFalse(trie.match("/js/").isPresent());
+        Assert.assertFalse(trie.match("/trailing").isPresent());
+        Assert.assertEquals("J", trie.match("/trailing/").get().getValue());
+    }
+
+    @Test
+    public void match_noMatch_Test() {
+
+        Assert.assertFalse(trie.match("/hello").isPresent());
+        Assert.assertFalse(trie.match("/hello/mike/howareyou").isPresent());
+        Assert.assertFalse(trie.match("/HELLO/bob").isPresent());
+        Assert.assertFalse(trie.match(null).isPresent());
+    }
+
+    @Test
+    public void size_Test() {
+
+        Assert.assertEquals(10, trie.size());
+        Assert.assertTrue(PathMatchTrie.<String>builder().build().isEmpty());
+    }
+
+}
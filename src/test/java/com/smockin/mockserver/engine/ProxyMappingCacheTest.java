@@ -0,0 +1,74 @@
+package com.smockin.mockserver.engine;
+
+import com.smockin.mockserver.dto.ProxyForwardConfigCacheDTO;
+import com.smockin.mockserver.dto.ProxyForwardMappingDTO;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+
+public class ProxyMappingCacheTest {
+
+    private ProxyMappingCache proxyMappingCache;
+
+    @Before
+    public void setUp() {
+
+        proxyMappingCache = new ProxyMappingCache();
+        proxyMappingCache.init(Collections.singletonList(buildConfig("bob", new ProxyForwardMappingDTO("*", "http://foo.com", false))));
+    }
+
+    @Test
+    public void init_Test() {
+
+        // Assertions
+        Assert.assertTrue(proxyMappingCache.find("bob").isPresent());
+        Assert.assertEquals("http://foo.com", proxyMappingCache.lookUpProxyMapping("/other", proxyMappingCache.find("bob").get()).get().getProxyForwardUrl());
+        Assert.assertFalse(proxyMappingCache.find("").isPresent());
+    }
+
+    @Test
+    public void update_Test() {
+
+        // Setup
+        final ProxyForwardConfigCacheDTO before = proxyMappingCache.find("bob").get();
+
+        // Test
+        proxyMappingCache.update(buildConfig("bob",
+                new ProxyForwardMappingDTO("/api/*", "http://bar.com", false),
+                new ProxyForwardMappingDTO("*", "http://foo.com", true)));
+
+        // Assertions
+        final ProxyForwardConfigCacheDTO after = proxyMappingCache.find("bob").get();
+
+        Assert.assertNotSame(before, after);
+        Assert.assertEquals(1, after.getProxyForwardMappings().size());
+        Assert.assertFalse(proxyMappingCache.lookUpProxyMapping("/other", after).isPresent());
+        Assert.assertEquals("http://bar.com", proxyMappingCache.lookUpProxyMapping("/api/users", after).get().getProxyForwardUrl());
+
+        // i.e. a request already holding the replaced config carries on with its mappings
+        Assert.assertEquals("http://foo.com", proxyMappingCache.lookUpProxyMapping("/other", before).get().getProxyForwardUrl());
+    }
+
+    @Test
+    public void update_allDisabled_Test() {
+
+        // Test
+        proxyMappingCache.update(buildConfig("bob", new ProxyForwardMappingDTO("*", "http://foo.com", true)));
+
+        // Assertions
+        Assert.assertFalse(proxyMappingCache.find("bob").isPresent());
+    }
+
+    private ProxyForwardConfigCacheDTO buildConfig(final String userCtxPath, final ProxyForwardMappingDTO... mappings) {
+
+        final ProxyForwardConfigCacheDTO dto = new ProxyForwardConfigCacheDTO(userCtxPath, userCtxPath);
+        dto.setProxyForwardMappings(new ArrayList<>(Arrays.asList(mappings)));
+
+        return dto;
+    }
+
+}
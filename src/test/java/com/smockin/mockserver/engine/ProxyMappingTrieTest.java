@@ -0,0 +1,81 @@
+package com.smockin.mockserver.engine;
+
+import com.smockin.mockserver.dto.ProxyForwardMappingDTO;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+public class ProxyMappingTrieTest {
+
+    private ProxyForwardMappingDTO defaultMapping;
+    private ProxyForwardMappingDTO apiMapping;
+    private ProxyForwardMappingDTO apiUsersMapping;
+    private ProxyForwardMappingDTO apiUsersExactMapping;
+    private ProxyMappingTrie proxyMappingTrie;
+
+    @Before
+    public void setUp() {
+
+        defaultMapping = new ProxyForwardMappingDTO("*", "http://default.com", false);
+        apiMapping = new ProxyForwardMappingDTO("/api/*", "http://api.com", false);
+        apiUsersMapping = new ProxyForwardMappingDTO("/api/users/*", "http://users.com", false);
+        apiUsersExactMapping = new ProxyForwardMappingDTO("/api/users", "http://users-list.com", false);
+
+        // Deliberately least specific first
+        proxyMappingTrie = ProxyMappingTrie.build(Arrays.asList(defaultMapping, apiMapping, apiUsersMapping, apiUsersExactMapping));
+    }
+
+    @Test
+    public void find_longestPrefix_Test() {
+
+        Assert.assertSame(apiUsersMapping, proxyMappingTrie.find("/api/users/123").get());
+        Assert.assertSame(apiMapping, proxyMappingTrie.find("/api/orders/123").get());
+    }
+
+    @Test
+    public void find_exactMatch_Test() {
+
+        Assert.assertSame(apiUsersExactMapping, proxyMappingTrie.find("/api/users").get());
+    }
+
+    @Test
+    public void find_defaultMapping_Test() {
+
+        Assert.assertSame(defaultMapping, proxyMappingTrie.find("/other").get());
+        Assert.assertSame(defaultMapping, proxyMappingTrie.find("").get());
+    }
+
+    @Test
+    public void find_noMatch_Test() {
+
+        // Setup
+        proxyMappingTrie = ProxyMappingTrie.build(Arrays.asList(apiMapping, apiUsersExactMapping));
+
+        // Assertions
+        Assert.assertFalse(proxyMappingTrie.find("/other").isPresent());
+        Assert.assertSame(apiMapping, proxyMappingTrie.find("/api/users/123").get());
+        Assert.assertFalse(proxyMappingTrie.find(null).isPresent());
+    }
+
+    @Test
+    public void find_duplicatePath_firstAddedWins_Test() {
+
+        // Setup
+        final ProxyForwardMappingDTO duplicateApiMapping = new ProxyForwardMappingDTO("/api/*", "http://api2.com", false);
+
+        proxyMappingTrie = ProxyMappingTrie.build(Arrays.asList(apiMapping, duplicateApiMapping));
+
+        // Assertions
+        Assert.assertSame(apiMapping, proxyMappingTrie.find("/api/users").get());
+    }
+
+    @Test
+    public void find_empty_Test() {
+
+        Assert.assertFalse(ProxyMappingTrie.build(Collections.emptyList()).find("/api").isPresent());
+    }
+
+}
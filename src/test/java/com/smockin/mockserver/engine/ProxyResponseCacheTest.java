@@ -0,0 +1,160 @@
+package com.smockin.mockserver.engine;
+
+import com.smockin.mockserver.dto.ProxyForwardMappingDTO;
+import com.smockin.mockserver.dto.ProxyResponseCacheStatsDTO;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+
+public class ProxyResponseCacheTest {
+
+    private ProxyResponseCache proxyResponseCache;
+    private ProxyForwardMappingDTO proxyMapping;
+
+    @Before
+    public void setUp() {
+
+        proxyResponseCache = new ProxyResponseCache();
+
+        proxyMapping = new ProxyForwardMappingDTO("/*", "http://foo.com", false);
+        proxyMapping.setCacheTtlMillis(60000);
+    }
+
+    @Test
+    public void lookup_missThenHit_Test() {
+
+        // Test
+        final ProxyResponseCache.Lookup miss = proxyResponseCache.lookup("", proxyMapping, "GET http://foo.com/bar");
+        complete(miss, "Hello");
+        final ProxyResponseCache.Lookup hit = proxyResponseCache.lookup("", proxyMapping, "GET http://foo.com/bar");
+
+        // Assertions
+        Assert.assertNull(miss.getCachedResponse());
+        Assert.assertTrue(miss.isLeader());
+        Assert.assertNotNull(hit.getCachedResponse());
+        Assert.assertEquals("Hello", new String(hit.getCachedResponse().getBody(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void lookup_expired_Test() throws InterruptedException {
+
+        // Setup
+        proxyMapping.setCacheTtlMillis(50);
+
+        complete(proxyResponseCache.lookup("", proxyMapping, "GET http://foo.com/bar"), "Hello");
+
+        Thread.sleep(100);
+
+        // Test
+        final ProxyResponseCache.Lookup lookup = proxyResponseCache.lookup("", proxyMapping, "GET http://foo.com/bar");
+
+        // Assertions
+        Assert.assertNull(lookup.getCachedResponse());
+        Assert.assertTrue(lookup.isLeader());
+    }
+
+    @Test
+    public void lookup_leastRecentlyUsedEvicted_Test() {
+
+        // Setup
+        proxyMapping.setCacheMaxEntries(2);
+
+        complete(proxyResponseCache.lookup("", proxyMapping, "a"), "A");
+        complete(proxyResponseCache.lookup("", proxyMapping, "b"), "B");
+
+        // Test
+        proxyResponseCache.lookup("", proxyMapping, "a");
+        complete(proxyResponseCache.lookup("", proxyMapping, "c"), "C");
+
+        // Assertions
+        Assert.assertNotNull(proxyResponseCache.lookup("", proxyMapping, "a").getCachedResponse());
+        Assert.assertNotNull(proxyResponseCache.lookup("", proxyMapping, "c").getCachedResponse());
+        Assert.assertNull(proxyResponseCache.lookup("", proxyMapping, "b").getCachedResponse());
+    }
+
+    @Test
+    public void lookup_concurrentMissesCoalesced_Test() {
+
+        // Test
+        final ProxyResponseCache.Lookup leader = proxyResponseCache.lookup("", proxyMapping, "GET http://foo.com/bar");
+        final ProxyResponseCache.Lookup follower = proxyResponseCache.lookup("", proxyMapping, "GET http://foo.com/bar");
+
+        // Assertions
+        Assert.assertTrue(leader.isLeader());
+        Assert.assertFalse(follower.isLeader());
+        Assert.assertSame(leader.getInFlight(), follower.getInFlight());
+        Assert.assertFalse(follower.getInFlight().isDone());
+
+        complete(leader, "Hello");
+
+        Assert.assertEquals("Hello", new String(follower.getInFlight().getNow(null).getBody(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void abandon_Test() {
+
+        // Setup
+        final ProxyResponseCache.Lookup leader = proxyResponseCache.lookup("", proxyMapping, "GET http://foo.com/bar");
+        final ProxyResponseCache.Lookup follower = proxyResponseCache.lookup("", proxyMapping, "GET http://foo.com/bar");
+
+        // Test
+        proxyResponseCache.abandon(leader);
+
+        // Assertions
+        Assert.assertTrue(follower.getInFlight().isDone());
+        Assert.assertNull(follower.getInFlight().getNow(null));
+
+        final ProxyResponseCache.Lookup next = proxyResponseCache.lookup("", proxyMapping, "GET http://foo.com/bar");
+        Assert.assertNull(next.getCachedResponse());
+        Assert.assertTrue(next.isLeader());
+    }
+
+    @Test
+    public void getStats_Test() {
+
+        // Setup
+        final ProxyResponseCache.Lookup leader = proxyResponseCache.lookup("", proxyMapping, "GET http://foo.com/bar");
+        proxyResponseCache.lookup("", proxyMapping, "GET http://foo.com/bar");
+        complete(leader, "Hello");
+        proxyResponseCache.lookup("", proxyMapping, "GET http://foo.com/bar");
+        proxyResponseCache.lookup("", proxyMapping, "GET http://foo.com/bar");
+
+        complete(proxyResponseCache.lookup("bob", proxyMapping, "GET http://foo.com/bar"), "Hello");
+
+        // Test
+        final List<ProxyResponseCacheStatsDTO> stats = proxyResponseCache.getStats("");
+
+        // Assertions
+        Assert.assertEquals(1, stats.size());
+        Assert.assertEquals("/*", stats.get(0).getPath());
+        Assert.assertEquals(1, stats.get(0).getEntries());
+        Assert.assertEquals(2, stats.get(0).getHits());
+        Assert.assertEquals(2, stats.get(0).getMisses());
+        Assert.assertEquals(1, stats.get(0).getCoalesced());
+        Assert.assertEquals(0.5, stats.get(0).getHitRate(), 0);
+    }
+
+    @Test
+    public void clear_Test() {
+
+        // Setup
+        complete(proxyResponseCache.lookup("", proxyMapping, "GET http://foo.com/bar"), "Hello");
+        complete(proxyResponseCache.lookup("bob", proxyMapping, "GET http://foo.com/bar"), "Hello");
+
+        // Test
+        proxyResponseCache.clear("bob");
+
+        // Assertions
+        Assert.assertTrue(proxyResponseCache.getStats("bob").isEmpty());
+        Assert.assertNotNull(proxyResponseCache.lookup("", proxyMapping, "GET http://foo.com/bar").getCachedResponse());
+    }
+
+    private void complete(final ProxyResponseCache.Lookup lookup, final String body) {
+        proxyResponseCache.complete(lookup, 200, "text/plain", Collections.emptyMap(), body.getBytes(StandardCharsets.UTF_8));
+    }
+
+}
@@ -0,0 +1,221 @@
+package com.smockin.mockserver.engine;
+
+import org.apache.commons.io.IOUtils;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
+import org.eclipse.jetty.server.handler.AbstractHandler;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+public class ResponseDelayHandlerTest {
+
+    private Server server;
+    private final Map<String, CompletableFuture<String>> parkedFutures = new ConcurrentHashMap<>();
+    private int port;
+
+    @Before
+    public void setUp() throws Exception {
+
+        server = new Server(new QueuedThreadPool(20, 8));
+
+        final ServerConnector connector = new ServerConnector(server);
+        connector.setPort(0);
+        server.addConnector(connector);
+
+        final ResponseDelayHandler responseDelayHandler = new ResponseDelayHandler();
+        responseDelayHandler.setHandler(new AbstractHandler() {
+
+            @Override
+            public void handle(final String target,
+                               final Request baseRequest,
+                               final HttpServletRequest request,
+                               final HttpServletResponse response) throws IOException {
+
+                if (request.getParameter("park") != null) {
+
+                    final CompletableFuture<String> resumed = ResponseDelayHandler.resume(request);
+
+                    if (resumed == null) {
+                        final CompletableFuture<String> future = new CompletableFuture<>();
+                        parkedFutures.put(request.getParameter("name"), future);
+                        if (request.getParameter("retain") != null) {
+                            ResponseDelayHandler.retainRequestBody(request, IOUtils.toByteArray(request.getInputStream()));
+                        }
+                        ResponseDelayHandler.park(request, future, Long.parseLong(request.getParameter("park")));
+                        response.getOutputStream().write("Discarded".getBytes(StandardCharsets.UTF_8));
+                        baseRequest.setHandled(true);
+                        return;
+                    }
+
+                    resumed.complete("timed out");
+                    response.setHeader("X-Parked", resumed.getNow(null));
+                    response.setHeader("X-Body", IOUtils.toString(request.getInputStream(), StandardCharsets.UTF_8));
+                }
+
+                ResponseDelayHandler.delay(request, Long.parseLong(request.getParameter("delay")));
+
+                response.setStatus(HttpServletResponse.SC_CREATED);
+                response.setHeader("X-Mock", "yes");
+                response.getOutputStream().write(("Hello " + request.getParameter("name")).getBytes(StandardCharsets.UTF_8));
+                response.getOutputStream().close();
+
+                baseRequest.setHandled(true);
+            }
+        });
+
+        server.setHandler(responseDelayHandler);
+        server.start();
+
+        port = connector.getLocalPort();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.stop();
+    }
+
+    @Test
+    public void delay_noDelay_Test() throws IOException {
+
+        final HttpURLConnection conn = call("Bob", 0);
+
+        Assert.assertEquals(201, conn.getResponseCode());
+        Assert.assertEquals("yes", conn.getHeaderField("X-Mock"));
+        Assert.assertEquals("Hello Bob", IOUtils.toString(conn.getInputStream(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void delay_Test() throws IOException {
+
+        final long start = System.currentTimeMillis();
+
+        final HttpURLConnection conn = call("Bob", 300);
+
+        Assert.assertEquals(201, conn.getResponseCode());
+        Assert.assertEquals("yes", conn.getHeaderField("X-Mock"));
+        Assert.assertEquals("Hello Bob", IOUtils.toString(conn.getInputStream(), StandardCharsets.UTF_8));
+        Assert.assertTrue((System.currentTimeMillis() - start) >= 300);
+    }
+
+    @Test
+    public void delay_workerThreadsNotHeld_Test() throws Exception {
+
+        // Far more concurrent delayed calls than there are worker threads
+        final int calls = 100;
+        final ExecutorService executor = Executors.newFixedThreadPool(calls);
+        final List<Future<String>> results = new ArrayList<>();
+        final long start = System.currentTimeMillis();
+
+        for (int i = 0; i < calls; i++) {
+            final String name = "Bob" + i;
+            results.add(executor.submit(() ->
+                    IOUtils.toString(call(name, 1000).getInputStream(), StandardCharsets.UTF_8)));
+        }
+
+        for (int i = 0; i < calls; i++) {
+            Assert.assertEquals("Hello Bob" + i, results.get(i).get(30, TimeUnit.SECONDS));
+        }
+
+        executor.shutdown();
+
+        // Had each call held a worker thread for its delay, this would take several seconds
+        Assert.assertTrue((System.currentTimeMillis() - start) < 4000);
+    }
+
+    @Test
+    public void delay_notReceivedViaHandler_Test() {
+
+        final long start = System.currentTimeMillis();
+
+        ResponseDelayHandler.delay(null, 100);
+
+        Assert.assertTrue((System.currentTimeMillis() - start) >= 100);
+    }
+
+    @Test
+    public void park_resumedOnCompletion_Test() throws Exception {
+
+        // Setup
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        final Future<HttpURLConnection> result = executor.submit(() -> {
+            final HttpURLConnection conn = call("Bob", 0, "park=10000&");
+            conn.getResponseCode();
+            return conn;
+        });
+
+        while (!parkedFutures.containsKey("Bob")) {
+            Thread.sleep(10);
+        }
+
+        // Test
+        parkedFutures.get("Bob").complete("released");
+
+        // Assertions
+        final HttpURLConnection conn = result.get(10, TimeUnit.SECONDS);
+        Assert.assertEquals(201, conn.getResponseCode());
+        Assert.assertEquals("released", conn.getHeaderField("X-Parked"));
+        Assert.assertEquals("Hello Bob", IOUtils.toString(conn.getInputStream(), StandardCharsets.UTF_8));
+
+        executor.shutdown();
+    }
+
+    @Test
+    public void park_timeOut_Test() throws IOException {
+
+        final HttpURLConnection conn = call("Bob", 100, "park=200&");
+
+        Assert.assertEquals(201, conn.getResponseCode());
+        Assert.assertEquals("timed out", conn.getHeaderField("X-Parked"));
+        Assert.assertEquals("Hello Bob", IOUtils.toString(conn.getInputStream(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void park_retainedRequestBody_Test() throws IOException {
+
+        // Setup
+        final HttpURLConnection conn = call("Bob", 0, "park=100&retain=true&");
+        conn.setRequestMethod("POST");
+        conn.setRequestProperty("Content-Type", "text/plain");
+        conn.setDoOutput(true);
+        conn.getOutputStream().write("Hi Bob".getBytes(StandardCharsets.UTF_8));
+
+        // Assertions
+        Assert.assertEquals(201, conn.getResponseCode());
+        Assert.assertEquals("timed out", conn.getHeaderField("X-Parked"));
+        Assert.assertEquals("Hi Bob", conn.getHeaderField("X-Body"));
+    }
+
+    private HttpURLConnection call(final String name, final long delay) throws IOException {
+        return call(name, delay, "");
+    }
+
+    private HttpURLConnection call(final String name, final long delay, final String params) throws IOException {
+
+        final HttpURLConnection conn = (HttpURLConnection) new URL("http://localhost:" + port + "/hello?" + params + "name=" + name + "&delay=" + delay).openConnection();
+        conn.setReadTimeout(30000);
+
+        return conn;
+    }
+
+}
@@ -0,0 +1,174 @@
+package com.smockin.mockserver.engine;
+
+import com.smockin.SmockinTestUtils;
+import com.smockin.admin.persistence.entity.RestfulMock;
+import com.smockin.admin.persistence.entity.RestfulMockDefinitionOrder;
+import com.smockin.admin.persistence.entity.SmockinUser;
+import com.smockin.admin.persistence.enums.RecordStatusEnum;
+import com.smockin.admin.persistence.enums.RestMethodEnum;
+import com.smockin.admin.persistence.enums.RestMockTypeEnum;
+import com.smockin.admin.persistence.enums.SmockinUserRoleEnum;
+import com.smockin.mockserver.service.bean.RestfulMockSnapshot;
+import com.smockin.utils.GeneralUtils;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+public class RestfulMockRouteCacheTest {
+
+    private RestfulMockRouteCache restfulMockRouteCache;
+    private SmockinUser admin, bob;
+    private RestfulMock a, b, c, d, e;
+
+    @Before
+    public void setUp() {
+
+        admin = SmockinTestUtils.buildSmockinUser();
+        bob = new SmockinUser("bob", "letmein", "bob", "bob", SmockinUserRoleEnum.REGULAR, RecordStatusEnum.ACTIVE, GeneralUtils.generateUUID(), GeneralUtils.generateUUID());
+
+        a = SmockinTestUtils.buildRestfulMock("/js", RestMockTypeEnum.CUSTOM_JS, 1, RestMethodEnum.GET, RecordStatusEnum.ACTIVE, admin);
+        b = SmockinTestUtils.buildRestfulMock("/js2/{id}", RestMockTypeEnum.CUSTOM_JS, 2, RestMethodEnum.GET, RecordStatusEnum.ACTIVE, admin);
+        c = SmockinTestUtils.buildRestfulMock("/hello/{name}/howareyou/{date}", RestMockTypeEnum.SEQ, 3, RestMethodEnum.GET, RecordStatusEnum.ACTIVE, admin);
+        d = SmockinTestUtils.buildRestfulMock("/hello", RestMockTypeEnum.SEQ, 4, RestMethodEnum.POST, RecordStatusEnum.ACTIVE, bob);
+        e = SmockinTestUtils.buildRestfulMock("/js", RestMockTypeEnum.SEQ, 5, RestMethodEnum.GET, RecordStatusEnum.ACTIVE, bob);
+
+        Arrays.asList(a, b, c, d, e).forEach(m ->
+                m.setExtId(GeneralUtils.generateUUID()));
+
+        restfulMockRouteCache = new RestfulMockRouteCache();
+        restfulMockRouteCache.load(snapshots(a, b, c, d, e));
+
+    }
+
+    @Test
+    public void find_singleUser_simpleMatch_Test() {
+
+        final Optional<RestfulMockSnapshot> mockOpt = restfulMockRouteCache.find(RestMethodEnum.GET, "/js", false);
+        Assert.assertTrue(mockOpt.isPresent());
+        Assert.assertEquals(a.getExtId(), mockOpt.get().getExtId());
+    }
+
+    @Test
+    public void find_singleUser_pathVar_Test() {
+
+        final Optional<RestfulMockSnapshot> mockOpt = restfulMockRouteCache.find(RestMethodEnum.GET, "/hello/mike/howareyou/today", false);
+        Assert.assertTrue(mockOpt.isPresent());
+        Assert.assertEquals(c.getExtId(), mockOpt.get().getExtId());
+    }
+
+    @Test
+    public void find_singleUser_wrongMethod_Test() {
+
+        Assert.assertFalse(restfulMockRouteCache.find(RestMethodEnum.DELETE, "/js", false).isPresent());
+    }
+
+    @Test
+    public void find_singleUser_ignoresNonAdminMocks_Test() {
+
+        Assert.assertFalse(restfulMockRouteCache.find(RestMethodEnum.POST, "/hello", false).isPresent());
+        Assert.assertFalse(restfulMockRouteCache.find(RestMethodEnum.GET, "/bob/js", false).isPresent());
+    }
+
+    @Test
+    public void find_multiUser_userCtxPath_Test() {
+
+        final Optional<RestfulMockSnapshot> mockOpt = restfulMockRouteCache.find(RestMethodEnum.GET, "/bob/js", true);
+        Assert.assertTrue(mockOpt.isPresent());
+        Assert.assertEquals(e.getExtId(), mockOpt.get().getExtId());
+
+        final Optional<RestfulMockSnapshot> adminMockOpt = restfulMockRouteCache.find(RestMethodEnum.GET, "/js", true);
+        Assert.assertTrue(adminMockOpt.isPresent());
+        Assert.assertEquals(a.getExtId(), adminMockOpt.get().getExtId());
+    }
+
+    @Test
+    public void match_multiUser_pathVarsRelativeToMockPath_Test() {
+
+        // Setup
+        final RestfulMock f = SmockinTestUtils.buildRestfulMock("/items/*/{id}", RestMockTypeEnum.RULE, 6, RestMethodEnum.GET, RecordStatusEnum.ACTIVE, bob);
+        f.setExtId(GeneralUtils.generateUUID());
+
+        restfulMockRouteCache.load(snapshots(c, f));
+
+        // Test
+        final Optional<PathMatchTrie.PathMatch<RestfulMockSnapshot>> userMatchOpt = restfulMockRouteCache.match(RestMethodEnum.GET, "/bob/items/shoes/7", true);
+        final Optional<PathMatchTrie.PathMatch<RestfulMockSnapshot>> adminMatchOpt = restfulMockRouteCache.match(RestMethodEnum.GET, "/hello/mike/howareyou/today", true);
+
+        // Assertions (keyed as GeneralUtils.findAllPathVars would against the mock's own path)
+        Assert.assertTrue(userMatchOpt.isPresent());
+        Assert.assertEquals(f.getExtId(), userMatchOpt.get().getValue().getExtId());
+        Assert.assertEquals(GeneralUtils.findAllPathVars("/items/shoes/7", "/items/*/{id}"), userMatchOpt.get().getPathVars());
+
+        Assert.assertTrue(adminMatchOpt.isPresent());
+        Assert.assertEquals("mike", adminMatchOpt.get().getPathVars().get("name"));
+        Assert.assertEquals("today", adminMatchOpt.get().getPathVars().get("date"));
+    }
+
+    @Test
+    public void find_noMatch_Test() {
+
+        Assert.assertFalse(restfulMockRouteCache.find(RestMethodEnum.GET, "/foo/bar", true).isPresent());
+        Assert.assertFalse(restfulMockRouteCache.find(RestMethodEnum.GET, "/js2", false).isPresent());
+    }
+
+    @Test
+    public void load_removesSuspendedResponses_Test() {
+
+        a.getDefinitions().add(new RestfulMockDefinitionOrder(a, 200, "text/html", "HelloWorld 1", 1, 0, false, 0, 0));
+        a.getDefinitions().add(new RestfulMockDefinitionOrder(a, 201, "text/html", "HelloWorld 2", 2, 0, true, 0, 0));
+
+        restfulMockRouteCache.load(snapshots(a));
+
+        final Optional<RestfulMockSnapshot> mockOpt = restfulMockRouteCache.find(RestMethodEnum.GET, "/js", false);
+        Assert.assertTrue(mockOpt.isPresent());
+        Assert.assertEquals(1, mockOpt.get().getDefinitions().size());
+        Assert.assertEquals(200, mockOpt.get().getDefinitions().get(0).getHttpStatusCode());
+    }
+
+    @Test
+    public void load_snapshotIsDetachedFromEntity_Test() {
+
+        a.getDefinitions().add(new RestfulMockDefinitionOrder(a, 200, "text/html", "HelloWorld 1", 1, 0, false, 0, 0));
+
+        restfulMockRouteCache.load(snapshots(a));
+
+        a.getDefinitions().clear();
+        a.setPath("/changed");
+
+        final Optional<RestfulMockSnapshot> mockOpt = restfulMockRouteCache.find(RestMethodEnum.GET, "/js", false);
+        Assert.assertTrue(mockOpt.isPresent());
+        Assert.assertEquals(1, mockOpt.get().getDefinitions().size());
+        Assert.assertEquals("/js", mockOpt.get().getPath());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void load_snapshotIsImmutable_Test() {
+
+        restfulMockRouteCache.find(RestMethodEnum.GET, "/js", false).get().getDefinitions().clear();
+    }
+
+    @Test
+    public void load_incrementsVersion_Test() {
+
+        final long version = restfulMockRouteCache.getVersion();
+
+        restfulMockRouteCache.load(snapshots(a, b));
+
+        Assert.assertEquals(version + 1, restfulMockRouteCache.getVersion());
+        Assert.assertFalse(restfulMockRouteCache.find(RestMethodEnum.GET, "/hello/mike/howareyou/today", false).isPresent());
+    }
+
+    private List<RestfulMockSnapshot> snapshots(final RestfulMock... mocks) {
+
+        return Arrays.stream(mocks)
+                .map(m ->
+                        RestfulMockSnapshot.from(m))
+                .collect(Collectors.toList());
+    }
+
+}
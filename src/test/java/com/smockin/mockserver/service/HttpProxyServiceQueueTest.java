@@ -13,6 +13,7 @@ import com.smockin.admin.service.utils.UserTokenServiceUtils;
 import com.smockin.mockserver.engine.MockedRestServerEngine;
 import com.smockin.mockserver.engine.MockedRestServerEngineUtils;
 import com.smockin.mockserver.service.bean.ProxiedKey;
+import com.smockin.mockserver.service.bean.RestfulMockSnapshot;
 import com.smockin.mockserver.service.dto.HttpProxiedDTO;
 import com.smockin.mockserver.service.dto.RestfulResponseDTO;
 import com.smockin.utils.GeneralUtils;
@@ -100,19 +101,19 @@ public class HttpProxyServiceQueueTest {
     @Test
     public void waitForResponse_ConsumeAll_Test() throws InterruptedException, ExecutionException, TimeoutException {
 
-        final RestfulResponseDTO dto1 = proxyService.waitForResponse(File.separator + user.getCtxPath() + helloKeyGet.getPath(), mockReqHelloGet);
+        final RestfulResponseDTO dto1 = proxyService.waitForResponse(File.separator + user.getCtxPath() + helloKeyGet.getPath(), RestfulMockSnapshot.from(mockReqHelloGet));
         Assert.assertNotNull(dto1);
         Assert.assertEquals(helloGetDTO.getBody(), dto1.getResponseBody());
 
-        final RestfulResponseDTO dto2 = proxyService.waitForResponse(File.separator + user.getCtxPath() + helloKeyPost.getPath(), mockReqHelloPost);
+        final RestfulResponseDTO dto2 = proxyService.waitForResponse(File.separator + user.getCtxPath() + helloKeyPost.getPath(), RestfulMockSnapshot.from(mockReqHelloPost));
         Assert.assertNotNull(dto2);
         Assert.assertEquals(helloPostDTO.getBody(), dto2.getResponseBody());
 
-        final RestfulResponseDTO dto3 = proxyService.waitForResponse(File.separator + user.getCtxPath() + helloKeyDelete.getPath(), mockReqHelloDelete);
+        final RestfulResponseDTO dto3 = proxyService.waitForResponse(File.separator + user.getCtxPath() + helloKeyDelete.getPath(), RestfulMockSnapshot.from(mockReqHelloDelete));
         Assert.assertNotNull(dto3);
         Assert.assertEquals(helloDeleteDTO.getBody(), dto3.getResponseBody());
 
-        final RestfulResponseDTO dto4 = proxyService.waitForResponse(File.separator + user.getCtxPath() + fooKeyGet.getPath(), mockReqFooGet);
+        final RestfulResponseDTO dto4 = proxyService.waitForResponse(File.separator + user.getCtxPath() + fooKeyGet.getPath(), RestfulMockSnapshot.from(mockReqFooGet));
         Assert.assertNotNull(dto4);
         Assert.assertEquals(fooGetDTO.getBody(), dto4.getResponseBody());
 
@@ -121,11 +122,11 @@ public class HttpProxyServiceQueueTest {
     @Test
     public void waitForResponse_ConsumeAndWaitTimeout_Test() throws InterruptedException, ExecutionException, TimeoutException {
 
-        final RestfulResponseDTO dto1 = proxyService.waitForResponse(File.separator + user.getCtxPath() + helloKeyGet.getPath(), mockReqHelloGet);
+        final RestfulResponseDTO dto1 = proxyService.waitForResponse(File.separator + user.getCtxPath() + helloKeyGet.getPath(), RestfulMockSnapshot.from(mockReqHelloGet));
         Assert.assertNotNull(dto1);
         Assert.assertEquals(helloGetDTO.getBody(), dto1.getResponseBody());
 
-        Assert.assertNull(proxyService.waitForResponse(File.separator + user.getCtxPath() + helloKeyGet.getPath(), mockReqHelloGet));
+        Assert.assertNull(proxyService.waitForResponse(File.separator + user.getCtxPath() + helloKeyGet.getPath(), RestfulMockSnapshot.from(mockReqHelloGet)));
     }
 
     @Test
@@ -135,7 +136,7 @@ public class HttpProxyServiceQueueTest {
         proxyService.clearAllSessions();
 
         // Assertions
-        Assert.assertNull(proxyService.waitForResponse(helloKeyGet.getPath(), mockReqHelloGet));
+        Assert.assertNull(proxyService.waitForResponse(helloKeyGet.getPath(), RestfulMockSnapshot.from(mockReqHelloGet)));
     }
 
     @Test
@@ -145,11 +146,11 @@ public class HttpProxyServiceQueueTest {
         proxyService.clearSession(mockReqHelloPost.getExtId(), user.getSessionToken());
 
         // Assertions
-        Assert.assertNull(proxyService.waitForResponse(File.separator + user.getCtxPath() + helloKeyGet.getPath(), mockReqHelloGet));
-        Assert.assertNull(proxyService.waitForResponse(File.separator + user.getCtxPath() + helloKeyPost.getPath(), mockReqHelloPost));
-        Assert.assertNull(proxyService.waitForResponse(File.separator + user.getCtxPath() + helloKeyDelete.getPath(), mockReqHelloDelete));
+        Assert.assertNull(proxyService.waitForResponse(File.separator + user.getCtxPath() + helloKeyGet.getPath(), RestfulMockSnapshot.from(mockReqHelloGet)));
+        Assert.assertNull(proxyService.waitForResponse(File.separator + user.getCtxPath() + helloKeyPost.getPath(), RestfulMockSnapshot.from(mockReqHelloPost)));
+        Assert.assertNull(proxyService.waitForResponse(File.separator + user.getCtxPath() + helloKeyDelete.getPath(), RestfulMockSnapshot.from(mockReqHelloDelete)));
 
-        final RestfulResponseDTO dto4 = proxyService.waitForResponse(File.separator + user.getCtxPath() + fooKeyGet.getPath(), mockReqFooGet);
+        final RestfulResponseDTO dto4 = proxyService.waitForResponse(File.separator + user.getCtxPath() + fooKeyGet.getPath(), RestfulMockSnapshot.from(mockReqFooGet));
         Assert.assertNotNull(dto4);
         Assert.assertEquals(fooGetDTO.getBody(), dto4.getResponseBody());
     }
@@ -161,19 +162,86 @@ public class HttpProxyServiceQueueTest {
         proxyService.clearSession(mockReqFooGet.getExtId(), user.getSessionToken());
 
         // Assertions
-        Assert.assertNull(proxyService.waitForResponse(File.separator + user.getCtxPath() + fooKeyGet.getPath(), mockReqFooGet));
+        Assert.assertNull(proxyService.waitForResponse(File.separator + user.getCtxPath() + fooKeyGet.getPath(), RestfulMockSnapshot.from(mockReqFooGet)));
 
-        final RestfulResponseDTO dto1 = proxyService.waitForResponse(File.separator + user.getCtxPath() + helloKeyGet.getPath(), mockReqHelloGet);
+        final RestfulResponseDTO dto1 = proxyService.waitForResponse(File.separator + user.getCtxPath() + helloKeyGet.getPath(), RestfulMockSnapshot.from(mockReqHelloGet));
         Assert.assertNotNull(dto1);
         Assert.assertEquals(helloGetDTO.getBody(), dto1.getResponseBody());
 
-        final RestfulResponseDTO dto2 = proxyService.waitForResponse(File.separator + user.getCtxPath() + helloKeyPost.getPath(), mockReqHelloPost);
+        final RestfulResponseDTO dto2 = proxyService.waitForResponse(File.separator + user.getCtxPath() + helloKeyPost.getPath(), RestfulMockSnapshot.from(mockReqHelloPost));
         Assert.assertNotNull(dto2);
         Assert.assertEquals(helloPostDTO.getBody(), dto2.getResponseBody());
 
-        final RestfulResponseDTO dto3 = proxyService.waitForResponse(File.separator + user.getCtxPath() + helloKeyDelete.getPath(), mockReqHelloDelete);
+        final RestfulResponseDTO dto3 = proxyService.waitForResponse(File.separator + user.getCtxPath() + helloKeyDelete.getPath(), RestfulMockSnapshot.from(mockReqHelloDelete));
         Assert.assertNotNull(dto3);
         Assert.assertEquals(helloDeleteDTO.getBody(), dto3.getResponseBody());
     }
 
+    @Test
+    public void awaitResponse_onlyMatchingWaiterCompleted_Test() throws RecordNotFoundException, ValidationException {
+
+        // Setup
+        final String helloPath = File.separator + user.getCtxPath() + helloKeyGet.getPath();
+        final String fooPath = File.separator + user.getCtxPath() + fooKeyGet.getPath();
+
+        proxyService.awaitResponse(helloPath, RestfulMockSnapshot.from(mockReqHelloGet));
+        proxyService.awaitResponse(fooPath, RestfulMockSnapshot.from(mockReqFooGet));
+
+        final CompletableFuture<RestfulResponseDTO> helloWaiter1 = proxyService.awaitResponse(helloPath, RestfulMockSnapshot.from(mockReqHelloGet));
+        final CompletableFuture<RestfulResponseDTO> helloWaiter2 = proxyService.awaitResponse(helloPath, RestfulMockSnapshot.from(mockReqHelloGet));
+        final CompletableFuture<RestfulResponseDTO> fooWaiter = proxyService.awaitResponse(fooPath, RestfulMockSnapshot.from(mockReqFooGet));
+
+        // Test
+        proxyService.addResponse(mockReqHelloGet.getExtId(), helloGetDTO, user.getSessionToken());
+
+        // Assertions
+        Assert.assertTrue(helloWaiter1.isDone());
+        Assert.assertEquals(helloGetDTO.getBody(), helloWaiter1.getNow(null).getResponseBody());
+        Assert.assertFalse(helloWaiter2.isDone());
+        Assert.assertFalse(fooWaiter.isDone());
+    }
+
+    @Test
+    public void awaitResponse_abandonedWaiterSkipped_Test() throws RecordNotFoundException, ValidationException {
+
+        // Setup
+        final String helloPath = File.separator + user.getCtxPath() + helloKeyGet.getPath();
+
+        proxyService.awaitResponse(helloPath, RestfulMockSnapshot.from(mockReqHelloGet));
+
+        final CompletableFuture<RestfulResponseDTO> abandonedWaiter = proxyService.awaitResponse(helloPath, RestfulMockSnapshot.from(mockReqHelloGet));
+        final CompletableFuture<RestfulResponseDTO> waiter = proxyService.awaitResponse(helloPath, RestfulMockSnapshot.from(mockReqHelloGet));
+
+        // i.e timed out
+        abandonedWaiter.complete(null);
+
+        // Test
+        proxyService.addResponse(mockReqHelloGet.getExtId(), helloGetDTO, user.getSessionToken());
+
+        // Assertions
+        Assert.assertNull(abandonedWaiter.getNow(null));
+        Assert.assertEquals(helloGetDTO.getBody(), waiter.getNow(null).getResponseBody());
+    }
+
+    @Test
+    public void evictQueuesIdleSince_Test() {
+
+        // Setup
+        final HttpProxyServiceImpl proxyServiceImpl = (HttpProxyServiceImpl) proxyService;
+        final String helloPath = File.separator + user.getCtxPath() + helloKeyGet.getPath();
+
+        // Consume hello GET, leaving it empty and with someone waiting on it
+        proxyService.awaitResponse(helloPath, RestfulMockSnapshot.from(mockReqHelloGet));
+        proxyService.awaitResponse(helloPath, RestfulMockSnapshot.from(mockReqHelloGet));
+
+        Assert.assertEquals(4, proxyServiceImpl.getQueueCount());
+
+        // Test
+        proxyServiceImpl.evictQueuesIdleSince(System.currentTimeMillis() + 1);
+
+        // Assertions
+        Assert.assertEquals(1, proxyServiceImpl.getQueueCount());
+        Assert.assertNull(proxyService.waitForResponse(File.separator + user.getCtxPath() + fooKeyGet.getPath(), RestfulMockSnapshot.from(mockReqFooGet)));
+    }
+
 }
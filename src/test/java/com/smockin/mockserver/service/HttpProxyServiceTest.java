@@ -12,6 +12,7 @@ import com.smockin.admin.persistence.enums.SmockinUserRoleEnum;
 import com.smockin.admin.service.utils.UserTokenServiceUtils;
 import com.smockin.mockserver.engine.MockedRestServerEngineUtils;
 import com.smockin.mockserver.service.bean.ProxiedKey;
+import com.smockin.mockserver.service.bean.RestfulMockSnapshot;
 import com.smockin.mockserver.service.dto.HttpProxiedDTO;
 import com.smockin.mockserver.service.dto.RestfulResponseDTO;
 import com.smockin.utils.GeneralUtils;
@@ -82,7 +83,7 @@ public class HttpProxyServiceTest {
             }
         };
 
-        consumer1 = () -> proxyService.waitForResponse(File.separator + user.getCtxPath() + mockReq.getPath(), mockReq);
+        consumer1 = () -> proxyService.waitForResponse(File.separator + user.getCtxPath() + mockReq.getPath(), RestfulMockSnapshot.from(mockReq));
 
     }
 
@@ -144,7 +145,7 @@ public class HttpProxyServiceTest {
         // Setup
         mockReq.setProxyTimeOutInMillis(3000);
 
-        consumer1 = () -> proxyService.waitForResponse(mockReq.getPath(), mockReq);
+        consumer1 = () -> proxyService.waitForResponse(mockReq.getPath(), RestfulMockSnapshot.from(mockReq));
 
         // Test
         final Future future = executor.submit(consumer1);
@@ -13,6 +13,7 @@ import com.smockin.admin.service.utils.UserTokenServiceUtils;
 import com.smockin.mockserver.engine.MockedRestServerEngine;
 import com.smockin.mockserver.engine.MockedRestServerEngineUtils;
 import com.smockin.mockserver.service.bean.ProxiedKey;
+import com.smockin.mockserver.service.bean.RestfulMockSnapshot;
 import com.smockin.mockserver.service.dto.HttpProxiedDTO;
 import com.smockin.mockserver.service.dto.RestfulResponseDTO;
 import com.smockin.utils.GeneralUtils;
@@ -111,7 +112,7 @@ public class HttpProxyServiceVolumeTest {
 
                 @Override
                 public Object call() {
-                    return proxyService.waitForResponse(File.separator + user.getCtxPath() + pk.getPath(), rm);
+                    return proxyService.waitForResponse(File.separator + user.getCtxPath() + pk.getPath(), RestfulMockSnapshot.from(rm));
                 }
             };
 
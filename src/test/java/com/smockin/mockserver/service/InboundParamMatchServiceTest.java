@@ -5,6 +5,7 @@ import com.smockin.admin.enums.UserModeEnum;
 import com.smockin.admin.service.SmockinUserService;
 import com.smockin.admin.service.UserKeyValueDataService;
 import com.smockin.mockserver.exception.InboundParamMatchException;
+import com.smockin.mockserver.service.bean.ResponseTemplate;
 import com.smockin.mockserver.service.enums.ParamMatchTypeEnum;
 import com.smockin.utils.GeneralUtils;
 import org.apache.commons.lang3.math.NumberUtils;
@@ -35,7 +36,7 @@ import java.util.UUID;
 public class InboundParamMatchServiceTest {
 
     private Request request;
-    private String sanitizedUserCtxInboundPath;
+    private String userCtxPath;
     private long userId;
 
     @Mock
@@ -55,59 +56,61 @@ public class InboundParamMatchServiceTest {
     @Before
     public void setUp() {
 
-        sanitizedUserCtxInboundPath = "";
+        userCtxPath = "";
         userId = 1;
         request = Mockito.mock(Request.class);
+
+        Mockito.lenient().when(request.pathInfo()).thenReturn("");
     }
 
     @Test
-    public void processParamMatch_NoToken_Test() {
-        Assert.assertNull(inboundParamMatchServiceImpl.processParamMatch(request, "/person/{name}","Hello World", sanitizedUserCtxInboundPath, userId));
+    public void enrichWithInboundParamMatches_NoToken_Test() throws InboundParamMatchException {
+        Assert.assertEquals("Hello World", renderTemplate("/person/{name}", "Hello World"));
     }
 
     @Test
-    public void processParamMatch_InvalidToken_Test() {
+    public void enrichWithInboundParamMatches_InvalidToken_Test() throws InboundParamMatchException {
 
         // Test
         final String responseBody = "Hello " + ParamMatchTypeEnum.PARAM_PREFIX + "Foo";
 
         // Assertions
-        Assert.assertNull(inboundParamMatchServiceImpl.processParamMatch(request, "/person/{name}", responseBody, sanitizedUserCtxInboundPath, userId));
+        Assert.assertEquals(responseBody, renderTemplate("/person/{name}", responseBody));
     }
 
     @Test
-    public void processParamMatch_InvalidTokenWithBrackets_Test() {
+    public void enrichWithInboundParamMatches_InvalidTokenWithBrackets_Test() throws InboundParamMatchException {
 
         // Setup
         final String responseBody = "Hello " + ParamMatchTypeEnum.PARAM_PREFIX + "Foo()";
 
         // Test & Assertions
-        Assert.assertNull(inboundParamMatchServiceImpl.processParamMatch(request, "/person/{name}", responseBody, sanitizedUserCtxInboundPath, userId));
+        Assert.assertEquals(responseBody, renderTemplate("/person/{name}", responseBody));
     }
 
     @Test
-    public void processParamMatch_Empty_Test() {
+    public void enrichWithInboundParamMatches_Empty_Test() throws InboundParamMatchException {
 
         // Setup
         final String responseBody = "Hello " + ParamMatchTypeEnum.PARAM_PREFIX + "(  )";
 
         // Test & Assertions
-        Assert.assertNull(inboundParamMatchServiceImpl.processParamMatch(request, "/person/{name}", responseBody, sanitizedUserCtxInboundPath, userId));
+        Assert.assertEquals(responseBody, renderTemplate("/person/{name}", responseBody));
     }
 
     @Test
-    public void processParamMatch_Blank_Test() {
+    public void enrichWithInboundParamMatches_Blank_Test() throws InboundParamMatchException {
 
         // Setup
         final String responseBody = "Hello " + ParamMatchTypeEnum.PARAM_PREFIX + "()";
 
         // Test & Assertions
-        Assert.assertNull(inboundParamMatchServiceImpl.processParamMatch(request, "/person/{name}", responseBody, sanitizedUserCtxInboundPath, userId));
+        Assert.assertEquals(responseBody, renderTemplate("/person/{name}", responseBody));
 
     }
 
     @Test
-    public void processParamMatch_header_Test() {
+    public void enrichWithInboundParamMatches_header_Test() throws InboundParamMatchException {
 
         // Setup
         final String responseBody = "Hello " + ParamMatchTypeEnum.PARAM_PREFIX + ParamMatchTypeEnum.requestHeader.name() +"(name)";
@@ -120,14 +123,14 @@ public class InboundParamMatchServiceTest {
         });
 
         // Test
-        final String result = inboundParamMatchServiceImpl.processParamMatch(request, "/person/{name}", responseBody, sanitizedUserCtxInboundPath, userId);
+        final String result = renderTemplate("/person/{name}", responseBody);
 
         // Assertions
         Assert.assertEquals("Hello Roger", result);
     }
 
     @Test
-    public void processParamMatch_headerCase_Test() {
+    public void enrichWithInboundParamMatches_headerCase_Test() throws InboundParamMatchException {
 
         // Setup
         final String responseBody = "Hello " + ParamMatchTypeEnum.PARAM_PREFIX + ParamMatchTypeEnum.requestHeader.name() +"(NAME)";
@@ -140,25 +143,25 @@ public class InboundParamMatchServiceTest {
         });
 
         // Test
-        final String result = inboundParamMatchServiceImpl.processParamMatch(request, "/person/{name}", responseBody, sanitizedUserCtxInboundPath, userId);
+        final String result = renderTemplate("/person/{name}", responseBody);
 
         // Assertions
         Assert.assertEquals("Hello Roger", result);
     }
 
     @Test
-    public void processParamMatch_headerNoMatch_Test() {
+    public void enrichWithInboundParamMatches_headerNoMatch_Test() throws InboundParamMatchException {
 
         // Test
         final String responseBody = "Hello " + ParamMatchTypeEnum.PARAM_PREFIX + ParamMatchTypeEnum.requestHeader.name() +"(name)";
-        final String result = inboundParamMatchServiceImpl.processParamMatch(request, "/person/{name}", responseBody, sanitizedUserCtxInboundPath, userId);
+        final String result = renderTemplate("/person/{name}", responseBody);
 
         // Assertions
         Assert.assertEquals("Hello ", result);
     }
 
     @Test
-    public void processParamMatch_reqParam_Test() {
+    public void enrichWithInboundParamMatches_reqParam_Test() throws InboundParamMatchException {
 
         // Setup
         final String responseBody = "Hello " + ParamMatchTypeEnum.PARAM_PREFIX + ParamMatchTypeEnum.requestParameter.name() +"(name)";
@@ -171,14 +174,14 @@ public class InboundParamMatchServiceTest {
         });
 
         // Test
-        final String result = inboundParamMatchServiceImpl.processParamMatch(request, "/person/{name}", responseBody, sanitizedUserCtxInboundPath, userId);
+        final String result = renderTemplate("/person/{name}", responseBody);
 
         // Assertions
         Assert.assertEquals("Hello Roger", result);
     }
 
     @Test
-    public void processParamMatch_reqParamCase_Test() {
+    public void enrichWithInboundParamMatches_reqParamCase_Test() throws InboundParamMatchException {
 
         // Setup
         final String responseBody = "Hello " + ParamMatchTypeEnum.PARAM_PREFIX + ParamMatchTypeEnum.requestParameter.name() +"(NAME)";
@@ -192,59 +195,59 @@ public class InboundParamMatchServiceTest {
         });
 
         // Test
-        final String result = inboundParamMatchServiceImpl.processParamMatch(request, "/person/{name}", responseBody, sanitizedUserCtxInboundPath, userId);
+        final String result = renderTemplate("/person/{name}", responseBody);
 
         // Assertions
         Assert.assertEquals("Hello Roger", result);
     }
 
     @Test
-    public void processParamMatch_reqParamNoMatch_Test() {
+    public void enrichWithInboundParamMatches_reqParamNoMatch_Test() throws InboundParamMatchException {
 
         // Test
         final String responseBody = "Hello " + ParamMatchTypeEnum.PARAM_PREFIX + ParamMatchTypeEnum.requestParameter.name() +"(name)";
-        final String result = inboundParamMatchServiceImpl.processParamMatch(request, "/person/{name}", responseBody, sanitizedUserCtxInboundPath, userId);
+        final String result = renderTemplate("/person/{name}", responseBody);
 
         // Assertions
         Assert.assertEquals("Hello ", result);
     }
 
     @Test
-    public void processParamMatch_pathVar_Test() {
+    public void enrichWithInboundParamMatches_pathVar_Test() throws InboundParamMatchException {
 
         // Setup
         final String responseBody = "Hello " + ParamMatchTypeEnum.PARAM_PREFIX + ParamMatchTypeEnum.pathVar.name() +"(name)";
 
-        sanitizedUserCtxInboundPath = "/person/Roger";
+        Mockito.when(request.pathInfo()).thenReturn("/person/Roger");
 
         // Test
-        final String result = inboundParamMatchServiceImpl.processParamMatch(request, "/person/{name}", responseBody, sanitizedUserCtxInboundPath, userId);
+        final String result = renderTemplate("/person/{name}", responseBody);
 
         // Assertions
         Assert.assertEquals("Hello Roger", result);
     }
 
     @Test
-    public void processParamMatch_pathVarCase_Test() {
+    public void enrichWithInboundParamMatches_pathVarCase_Test() throws InboundParamMatchException {
 
         // Setup
         final String responseBody = "Hello " + ParamMatchTypeEnum.PARAM_PREFIX + ParamMatchTypeEnum.pathVar.name() +"(NAME)";
 
-        sanitizedUserCtxInboundPath = "/person/Roger";
+        Mockito.when(request.pathInfo()).thenReturn("/person/Roger");
 
         // Test
-        final String result = inboundParamMatchServiceImpl.processParamMatch(request, "/person/{name}", responseBody, sanitizedUserCtxInboundPath, userId);
+        final String result = renderTemplate("/person/{name}", responseBody);
 
         // Assertions
         Assert.assertEquals("Hello Roger", result);
     }
 
     @Test
-    public void processParamMatch_pathVarNoMatch_Test() {
+    public void enrichWithInboundParamMatches_pathVarNoMatch_Test() throws InboundParamMatchException {
 
         // Test
         final String responseBody = "Hello " + ParamMatchTypeEnum.PARAM_PREFIX + ParamMatchTypeEnum.pathVar.name() +"(name)";
-        final String result = inboundParamMatchServiceImpl.processParamMatch(request, "/person/{name}", responseBody, sanitizedUserCtxInboundPath, userId);
+        final String result = renderTemplate("/person/{name}", responseBody);
 
         // Assertions
         Assert.assertEquals("Hello ", result);
@@ -270,7 +273,7 @@ public class InboundParamMatchServiceTest {
         Mockito.when(smockinUserService.getUserMode()).thenReturn(UserModeEnum.INACTIVE);
 
         // Test
-        final String result = inboundParamMatchServiceImpl.enrichWithInboundParamMatches(request, "/person/{name}", responseBody, sanitizedUserCtxInboundPath, userId);
+        final String result = inboundParamMatchServiceImpl.enrichWithInboundParamMatches(request, "/person/{name}", responseBody, userCtxPath, userId);
 
         // Assertions
         Assert.assertEquals("Hello Roger, you are Male and are 21 years old", result);
@@ -290,7 +293,7 @@ public class InboundParamMatchServiceTest {
         });
 
         // Test
-        final String result = inboundParamMatchServiceImpl.enrichWithInboundParamMatches(request, "/person/{name}", responseBody, sanitizedUserCtxInboundPath, userId);
+        final String result = inboundParamMatchServiceImpl.enrichWithInboundParamMatches(request, "/person/{name}", responseBody, userCtxPath, userId);
 
         // Assertions
         Assert.assertEquals("Hello Roger, you are  years old", result);
@@ -310,7 +313,7 @@ public class InboundParamMatchServiceTest {
         });
 
         // Test
-        final String result = inboundParamMatchServiceImpl.enrichWithInboundParamMatches(request, "/person/{name}", responseBody, sanitizedUserCtxInboundPath, userId);
+        final String result = inboundParamMatchServiceImpl.enrichWithInboundParamMatches(request, "/person/{name}", responseBody, userCtxPath, userId);
 
         // Assertions
         Assert.assertNotNull(result);
@@ -318,14 +321,14 @@ public class InboundParamMatchServiceTest {
     }
 
     @Test
-    public void processParamMatch_isoDate_Test() {
+    public void enrichWithInboundParamMatches_isoDate_Test() throws InboundParamMatchException {
 
         // Setup
         TimeZone.setDefault(TimeZone.getTimeZone("UTC"));
         final String responseBody = "The date is " + ParamMatchTypeEnum.PARAM_PREFIX + ParamMatchTypeEnum.isoDate.name();
 
         // Test
-        final String result = inboundParamMatchServiceImpl.processParamMatch(request, "/person/{name}", responseBody, sanitizedUserCtxInboundPath, userId);
+        final String result = renderTemplate("/person/{name}", responseBody);
 
         // Assertions
         final String remainder = result.replaceAll("The date is ", "");
@@ -338,14 +341,14 @@ public class InboundParamMatchServiceTest {
     }
 
     @Test
-    public void processParamMatch_isoDateTime_Test() {
+    public void enrichWithInboundParamMatches_isoDateTime_Test() throws InboundParamMatchException {
 
         // Setup
         TimeZone.setDefault(TimeZone.getTimeZone("UTC"));
         final String responseBody = "The date and time is " + ParamMatchTypeEnum.PARAM_PREFIX + ParamMatchTypeEnum.isoDatetime.name();
 
         // Test
-        final String result = inboundParamMatchServiceImpl.processParamMatch(request, "/person/{name}", responseBody, sanitizedUserCtxInboundPath, userId);
+        final String result = renderTemplate("/person/{name}", responseBody);
 
         // Assertions
         final String remainder = result.replaceAll("The date and time is ", "");
@@ -358,13 +361,13 @@ public class InboundParamMatchServiceTest {
     }
 
     @Test
-    public void processParamMatch_uuid_Test() {
+    public void enrichWithInboundParamMatches_uuid_Test() throws InboundParamMatchException {
 
         // Setup
         final String responseBody = "Your ID is " + ParamMatchTypeEnum.PARAM_PREFIX + ParamMatchTypeEnum.uuid.name();
 
         // Test
-        final String result = inboundParamMatchServiceImpl.processParamMatch(request, "/person/{name}", responseBody, sanitizedUserCtxInboundPath, userId);
+        final String result = renderTemplate("/person/{name}", responseBody);
 
         // Assertions
         final String remainder = result.replaceAll("Your ID is ", "");
@@ -377,13 +380,13 @@ public class InboundParamMatchServiceTest {
     }
 
     @Test
-    public void processParamMatch_randomNumber_Test() {
+    public void enrichWithInboundParamMatches_randomNumber_Test() throws InboundParamMatchException {
 
         // Setup
         final String responseBody = "Your number is " + ParamMatchTypeEnum.PARAM_PREFIX + ParamMatchTypeEnum.randomNumber.name() + "(1,3)";
 
         // Test
-        final String result = inboundParamMatchServiceImpl.processParamMatch(request, "/person/{name}", responseBody, sanitizedUserCtxInboundPath, userId);
+        final String result = renderTemplate("/person/{name}", responseBody);
 
         // Assertions
         final String remainder = result.replaceAll("Your number is ", "");
@@ -392,13 +395,13 @@ public class InboundParamMatchServiceTest {
     }
 
     @Test
-    public void processParamMatch_randomNumberZero_Test() {
+    public void enrichWithInboundParamMatches_randomNumberZero_Test() throws InboundParamMatchException {
 
         // Setup
         final String responseBody = "Your number is " + ParamMatchTypeEnum.PARAM_PREFIX + ParamMatchTypeEnum.randomNumber.name() + "(0,0)";
 
         // Test
-        final String result = inboundParamMatchServiceImpl.processParamMatch(request, "/person/{name}", responseBody, sanitizedUserCtxInboundPath, userId);
+        final String result = renderTemplate("/person/{name}", responseBody);
 
         // Assertions
         final String remainder = result.replaceAll("Your number is ", "");
@@ -407,22 +410,22 @@ public class InboundParamMatchServiceTest {
     }
 
     @Test
-    public void processParamMatch_randomNumberNoParams_Test() {
+    public void enrichWithInboundParamMatches_randomNumberNoParams_Test() throws InboundParamMatchException {
 
         // Assertions
-        thrown.expect(IllegalArgumentException.class);
-        thrown.expectMessage("randomNumber is missing args");
+        thrown.expect(InboundParamMatchException.class);
+        thrown.expectMessage("Please check your token syntax");
 
         // Setup
         final String responseBody = "Your number is " + ParamMatchTypeEnum.PARAM_PREFIX + ParamMatchTypeEnum.randomNumber.name() + "()";
 
         // Test
-        inboundParamMatchServiceImpl.processParamMatch(request, "/person/{name}", responseBody, sanitizedUserCtxInboundPath, userId);
+        renderTemplate("/person/{name}", responseBody);
 
     }
 
     @Test
-    public void processParamMatch_kvpMatch_Test() {
+    public void enrichWithInboundParamMatches_kvpMatch_Test() throws InboundParamMatchException {
 
         // Setup
         final String responseBody = "I say " + ParamMatchTypeEnum.PARAM_PREFIX + ParamMatchTypeEnum.lookUpKvp +"(Hello)";
@@ -432,14 +435,14 @@ public class InboundParamMatchServiceTest {
             .thenReturn(new UserKeyValueDataDTO(GeneralUtils.generateUUID(), "Hello", "Bonjour"));
 
         // Test
-        final String result = inboundParamMatchServiceImpl.processParamMatch(request, "/person", responseBody, sanitizedUserCtxInboundPath, userId);
+        final String result = renderTemplate("/person", responseBody);
 
         // Assertions
         Assert.assertEquals("I say Bonjour", result);
     }
 
     @Test
-    public void processParamMatch_kvpNoMatch_Test() {
+    public void enrichWithInboundParamMatches_kvpNoMatch_Test() throws InboundParamMatchException {
 
         // Setup
         final String responseBody = "I say "+ ParamMatchTypeEnum.PARAM_PREFIX + ParamMatchTypeEnum.lookUpKvp +"(Hello)";
@@ -449,14 +452,14 @@ public class InboundParamMatchServiceTest {
             .thenReturn(null);
 
         // Test
-        final String result = inboundParamMatchServiceImpl.processParamMatch(request, "/person", responseBody, sanitizedUserCtxInboundPath, userId);
+        final String result = renderTemplate("/person", responseBody);
 
         // Assertions
         Assert.assertEquals("I say ", result);
     }
 
     @Test
-    public void processParamMatch_kvpNestedRequestBodyMatch_Test() {
+    public void enrichWithInboundParamMatches_kvpNestedRequestBodyMatch_Test() throws InboundParamMatchException {
 
         // Setup
         final String responseBody = "I say " + ParamMatchTypeEnum.PARAM_PREFIX + ParamMatchTypeEnum.lookUpKvp +"(" + ParamMatchTypeEnum.PARAM_PREFIX + ParamMatchTypeEnum.requestBody + ")";
@@ -467,14 +470,14 @@ public class InboundParamMatchServiceTest {
                 .thenReturn(new UserKeyValueDataDTO(GeneralUtils.generateUUID(), "greeting", "Good day!"));
 
         // Test
-        final String result = inboundParamMatchServiceImpl.processParamMatch(request, "/person", responseBody, sanitizedUserCtxInboundPath, userId);
+        final String result = renderTemplate("/person", responseBody);
 
         // Assertions
         Assert.assertEquals("I say Good day!", result);
     }
 
     @Test
-    public void processParamMatch_kvpNestedRequestParamMatch_Test() {
+    public void enrichWithInboundParamMatches_kvpNestedRequestParamMatch_Test() throws InboundParamMatchException {
 
         // Setup
         final String responseBody = "Watcha " + ParamMatchTypeEnum.PARAM_PREFIX + ParamMatchTypeEnum.lookUpKvp +"(" + ParamMatchTypeEnum.PARAM_PREFIX + ParamMatchTypeEnum.requestParameter + "(name)" + ")";
@@ -488,32 +491,32 @@ public class InboundParamMatchServiceTest {
                 .thenReturn(new UserKeyValueDataDTO(GeneralUtils.generateUUID(), "max", "Your name is Max"));
 
         // Test
-        final String result = inboundParamMatchServiceImpl.processParamMatch(request, "/person", responseBody, sanitizedUserCtxInboundPath, userId);
+        final String result = renderTemplate("/person", responseBody);
 
         // Assertions
         Assert.assertEquals("Watcha Your name is Max", result);
     }
 
     @Test
-    public void processParamMatch_kvpNestedPathVarMatch_Test() {
+    public void enrichWithInboundParamMatches_kvpNestedPathVarMatch_Test() throws InboundParamMatchException {
 
         // Setup
         final String responseBody = "Watcha " + ParamMatchTypeEnum.PARAM_PREFIX + ParamMatchTypeEnum.lookUpKvp +"(" + ParamMatchTypeEnum.PARAM_PREFIX + ParamMatchTypeEnum.pathVar + "(name)" + ")";
 
         // Mock
-        sanitizedUserCtxInboundPath = "/person/max";
+        Mockito.when(request.pathInfo()).thenReturn("/person/max");
         Mockito.when(userKeyValueDataService.loadByKey(Mockito.anyString(), Mockito.anyLong()))
                 .thenReturn(new UserKeyValueDataDTO(GeneralUtils.generateUUID(), "max", "Your name is Max"));
 
         // Test
-        final String result = inboundParamMatchServiceImpl.processParamMatch(request, "/person/{name}", responseBody, sanitizedUserCtxInboundPath, userId);
+        final String result = renderTemplate("/person/{name}", responseBody);
 
         // Assertions
         Assert.assertEquals("Watcha Your name is Max", result);
     }
 
     @Test
-    public void processParamMatch_kvpNestedRequestHeaderMatch_Test() {
+    public void enrichWithInboundParamMatches_kvpNestedRequestHeaderMatch_Test() throws InboundParamMatchException {
 
         // Setup
         final String responseBody = "Watcha " + ParamMatchTypeEnum.PARAM_PREFIX + ParamMatchTypeEnum.lookUpKvp +"(" + ParamMatchTypeEnum.PARAM_PREFIX + ParamMatchTypeEnum.requestHeader + "(name)" + ")";
@@ -527,23 +530,60 @@ public class InboundParamMatchServiceTest {
                 .thenReturn(new UserKeyValueDataDTO(GeneralUtils.generateUUID(), "max", "Your name is Max"));
 
         // Test
-        final String result = inboundParamMatchServiceImpl.processParamMatch(request, "/person", responseBody, sanitizedUserCtxInboundPath, userId);
+        final String result = renderTemplate("/person", responseBody);
 
         // Assertions
         Assert.assertEquals("Watcha Your name is Max", result);
     }
 
     @Test
-    public void processParamMatch_kvpNestedInvalidParam_Test() {
+    public void enrichWithInboundParamMatches_kvpNestedInvalidParam_Test() throws InboundParamMatchException {
 
         // Setup
         final String responseBody = "Watcha " + ParamMatchTypeEnum.PARAM_PREFIX + ParamMatchTypeEnum.lookUpKvp +"(" + ParamMatchTypeEnum.PARAM_PREFIX + "XXX(name)" + ")";
 
         // Test
-        final String result = inboundParamMatchServiceImpl.processParamMatch(request, "/person", responseBody, sanitizedUserCtxInboundPath, userId);
+        final String result = renderTemplate("/person", responseBody);
 
         // Assertions
         Assert.assertEquals("Watcha ", result);
     }
 
+    @Test
+    public void enrichWithInboundParamMatches_compiledTemplate_Test() throws InboundParamMatchException {
+
+        // Setup
+        final ResponseTemplate responseTemplate = ResponseTemplate.compile("Hello " + ParamMatchTypeEnum.PARAM_PREFIX + ParamMatchTypeEnum.requestHeader.name() + "(name), " + ParamMatchTypeEnum.PARAM_PREFIX + ParamMatchTypeEnum.lookUpKvp + "(Hello)");
+
+        Mockito.when(request.headers("name")).thenReturn("Roger");
+        Mockito.when(request.headers()).thenReturn(new HashSet<>(Arrays.asList("name")));
+        Mockito.when(userKeyValueDataService.loadByKey("Hello", userId))
+                .thenReturn(new UserKeyValueDataDTO(GeneralUtils.generateUUID(), "Hello", "Bonjour"));
+
+        // Test
+        final String result1 = inboundParamMatchServiceImpl.enrichWithInboundParamMatches(request, "/person", responseTemplate, userCtxPath, userId);
+        final String result2 = inboundParamMatchServiceImpl.enrichWithInboundParamMatches(request, "/person", responseTemplate, userCtxPath, userId);
+
+        // Assertions
+        Assert.assertEquals("Hello Roger, Bonjour", result1);
+        Assert.assertEquals(result1, result2);
+    }
+
+    @Test
+    public void enrichWithInboundParamMatches_unclosedToken_Test() throws InboundParamMatchException {
+
+        // Assertions
+        thrown.expect(InboundParamMatchException.class);
+
+        // Setup
+        final String responseBody = "Hello " + ParamMatchTypeEnum.PARAM_PREFIX + ParamMatchTypeEnum.requestHeader.name() + "(name";
+
+        // Test
+        inboundParamMatchServiceImpl.enrichWithInboundParamMatches(request, "/person", responseBody, userCtxPath, userId);
+    }
+
+    private String renderTemplate(final String mockPath, final String responseBody) throws InboundParamMatchException {
+        return inboundParamMatchServiceImpl.enrichWithInboundParamMatches(request, mockPath, ResponseTemplate.compile(responseBody), userCtxPath, userId);
+    }
+
 }
@@ -7,6 +7,9 @@ import com.smockin.admin.persistence.entity.RestfulMockJavaScriptHandler;
 import com.smockin.admin.persistence.entity.SmockinUser;
 import com.smockin.admin.service.SmockinUserService;
 import com.smockin.admin.service.UserKeyValueDataService;
+import com.smockin.mockserver.service.bean.RestfulMockSnapshot;
+import com.smockin.mockserver.service.dto.RestfulResponseDTO;
+import com.smockin.utils.GeneralUtils;
 import jdk.nashorn.api.scripting.ScriptObjectMirror;
 import org.hamcrest.Matchers;
 import org.junit.Assert;
@@ -24,9 +27,12 @@ import spark.Request;
 
 import javax.script.ScriptException;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
+import java.util.stream.Collectors;
 
 @RunWith(MockitoJUnitRunner.class)
 public class JavaScriptResponseHandlerTest {
@@ -241,25 +247,7 @@ public class JavaScriptResponseHandlerTest {
     }
 
     @Test
-    public void applyMapValuesToStringBuilderTest() {
-
-        // Setup
-        final Map<String, String> values = new HashMap<>();
-        values.put("firstname", "Bob");
-        values.put("lastname", "Bloggs");
-        final StringBuilder reqObject = new StringBuilder();
-
-        // Test
-        javaScriptResponseHandler.applyMapValuesToStringBuilder("request.parameters", values, reqObject);
-
-        // Assertions
-        Assert.assertNotNull(reqObject);
-        Assert.assertNotNull(reqObject.toString());
-        Assert.assertEquals("request.parameters['firstname']='Bob'; request.parameters['lastname']='Bloggs';", reqObject.toString().trim());
-    }
-
-    @Test
-    public void populateRequestObjectWithInboundTest() {
+    public void buildRequestObjectTest() {
 
         // Setup
         Mockito.when(req.headers()).thenReturn(new HashSet<>(Arrays.asList("one", "two")));
@@ -274,15 +262,19 @@ public class JavaScriptResponseHandlerTest {
         Mockito.when(smockinUserService.getUserMode()).thenReturn(UserModeEnum.INACTIVE);
 
         // Test
-        final String result = javaScriptResponseHandler.populateRequestObjectWithInbound(req, "/hello/{name}", "");
+        final Map<String, Object> result = javaScriptResponseHandler.buildRequestObject(req, "/hello/{name}", "");
 
         // Assertions
         Assert.assertNotNull(result);
-        Assert.assertEquals("request.path='/hello/james'; request.body='xxx'; request.pathVars['name']='james'; request.parameters['name']='joe'; request.parameters['age']='35'; request.headers['one']='1'; request.headers['two']='2';", result.trim());
+        Assert.assertEquals("/hello/james", result.get("path"));
+        Assert.assertEquals("xxx", result.get("body"));
+        Assert.assertEquals(Collections.singletonMap("name", "james"), result.get("pathVars"));
+        Assert.assertEquals(new HashMap<String, String>() { { put("name", "joe"); put("age", "35"); } }, result.get("parameters"));
+        Assert.assertEquals(new HashMap<String, String>() { { put("one", "1"); put("two", "2"); } }, result.get("headers"));
     }
 
     @Test
-    public void populateRequestObjectWithInbound_multiUserCtx_Test() {
+    public void buildRequestObject_multiUserCtx_Test() {
 
         // Setup
         Mockito.when(req.headers()).thenReturn(new HashSet<>(Arrays.asList("one", "two")));
@@ -297,11 +289,15 @@ public class JavaScriptResponseHandlerTest {
         Mockito.when(smockinUserService.getUserMode()).thenReturn(UserModeEnum.ACTIVE);
 
         // Test
-        final String result = javaScriptResponseHandler.populateRequestObjectWithInbound(req, "/hello/{name}", "/bob");
+        final Map<String, Object> result = javaScriptResponseHandler.buildRequestObject(req, "/hello/{name}", "/bob");
 
         // Assertions
         Assert.assertNotNull(result);
-        Assert.assertEquals("request.path='/bob/hello/james'; request.body='xxx'; request.pathVars['name']='james'; request.parameters['name']='joe'; request.parameters['age']='35'; request.headers['one']='1'; request.headers['two']='2';", result.trim());
+        Assert.assertEquals("/bob/hello/james", result.get("path"));
+        Assert.assertEquals("xxx", result.get("body"));
+        Assert.assertEquals(Collections.singletonMap("name", "james"), result.get("pathVars"));
+        Assert.assertEquals(new HashMap<String, String>() { { put("name", "joe"); put("age", "35"); } }, result.get("parameters"));
+        Assert.assertEquals(new HashMap<String, String>() { { put("one", "1"); put("two", "2"); } }, result.get("headers"));
     }
 
     @Test
@@ -375,11 +371,11 @@ public class JavaScriptResponseHandlerTest {
         mock.setJavaScriptHandler(javaScriptHandler);
 
         // Test
-        final String result = javaScriptResponseHandler.populateKVPs(req, mock);
+        final Map<String, String> result = javaScriptResponseHandler.populateKVPs(req, RestfulMockSnapshot.from(mock));
 
         // Assertions
         Assert.assertNotNull(result);
-        Assert.assertEquals(javaScriptResponseHandler.defaultKeyValuePairStoreObject, result);
+        Assert.assertTrue(result.isEmpty());
     }
 
     @Test
@@ -404,15 +400,16 @@ public class JavaScriptResponseHandlerTest {
         // Mock
         final UserKeyValueDataDTO userKeyValueDataDTO = new UserKeyValueDataDTO();
         userKeyValueDataDTO.setValue("XXX");
-        Mockito.when(userKeyValueDataService.loadByKey(Mockito.anyString(), Mockito.anyLong())).thenReturn(userKeyValueDataDTO);
+        stubKvps(userKeyValueDataDTO);
 
         // Test
-        final String result = javaScriptResponseHandler.populateKVPs(req, mock);
+        final Map<String, String> result = javaScriptResponseHandler.populateKVPs(req, RestfulMockSnapshot.from(mock));
 
         // Assertions
         Assert.assertNotNull(result);
-        Assert.assertTrue(result.equals(javaScriptResponseHandler.defaultKeyValuePairStoreObjectStart + "{\"foo\":\"XXX\",\"weather\":\"XXX\"};")
-                || result.equals(javaScriptResponseHandler.defaultKeyValuePairStoreObjectStart + "{\"weather\":\"XXX\",\"foo\":\"XXX\"};"));
+        Assert.assertEquals(2, result.size());
+        Assert.assertEquals("XXX", result.get("foo"));
+        Assert.assertEquals("XXX", result.get("weather"));
     }
 
     @Test
@@ -438,16 +435,17 @@ public class JavaScriptResponseHandlerTest {
         // Mock
         final UserKeyValueDataDTO userKeyValueDataDTO = new UserKeyValueDataDTO();
         userKeyValueDataDTO.setValue("XXX");
-        Mockito.when(userKeyValueDataService.loadByKey(Mockito.anyString(), Mockito.anyLong())).thenReturn(userKeyValueDataDTO);
+        stubKvps(userKeyValueDataDTO);
         Mockito.when(req.body()).thenReturn("hello");
 
         // Test
-        final String result = javaScriptResponseHandler.populateKVPs(req, mock);
+        final Map<String, String> result = javaScriptResponseHandler.populateKVPs(req, RestfulMockSnapshot.from(mock));
 
         // Assertions
         Assert.assertNotNull(result);
-        Assert.assertTrue(result.equals(javaScriptResponseHandler.defaultKeyValuePairStoreObjectStart + "{\"hello\":\"XXX\",\"weather\":\"XXX\"};")
-                || result.equals(javaScriptResponseHandler.defaultKeyValuePairStoreObjectStart + "{\"weather\":\"XXX\",\"hello\":\"XXX\"};") );
+        Assert.assertEquals(2, result.size());
+        Assert.assertEquals("XXX", result.get("hello"));
+        Assert.assertEquals("XXX", result.get("weather"));
     }
 
     @Test
@@ -473,15 +471,17 @@ public class JavaScriptResponseHandlerTest {
         // Mock
         final UserKeyValueDataDTO userKeyValueDataDTO = new UserKeyValueDataDTO();
         userKeyValueDataDTO.setValue("XXX");
-        Mockito.when(userKeyValueDataService.loadByKey(Mockito.anyString(), Mockito.anyLong())).thenReturn(userKeyValueDataDTO);
+        stubKvps(userKeyValueDataDTO);
         Mockito.when(req.pathInfo()).thenReturn("/hello/bob");
 
         // Test
-        final String result = javaScriptResponseHandler.populateKVPs(req, mock);
+        final Map<String, String> result = javaScriptResponseHandler.populateKVPs(req, RestfulMockSnapshot.from(mock));
 
         // Assertions
         Assert.assertNotNull(result);
-        Assert.assertEquals(javaScriptResponseHandler.defaultKeyValuePairStoreObjectStart + "{\"bob\":\"XXX\",\"weather\":\"XXX\"};", result);
+        Assert.assertEquals(2, result.size());
+        Assert.assertEquals("XXX", result.get("bob"));
+        Assert.assertEquals("XXX", result.get("weather"));
     }
 
     @Test
@@ -508,16 +508,18 @@ public class JavaScriptResponseHandlerTest {
         // Mock
         final UserKeyValueDataDTO userKeyValueDataDTO = new UserKeyValueDataDTO();
         userKeyValueDataDTO.setValue("XXX");
-        Mockito.when(userKeyValueDataService.loadByKey(Mockito.anyString(), Mockito.anyLong())).thenReturn(userKeyValueDataDTO);
+        stubKvps(userKeyValueDataDTO);
         Mockito.when(req.queryParams()).thenReturn(new HashSet<String>() { { add("my-first-name"); } });
         Mockito.when(req.queryParams(Mockito.anyString())).thenReturn("Harry");
 
         // Test
-        final String result = javaScriptResponseHandler.populateKVPs(req, mock);
+        final Map<String, String> result = javaScriptResponseHandler.populateKVPs(req, RestfulMockSnapshot.from(mock));
 
         // Assertions
         Assert.assertNotNull(result);
-        Assert.assertEquals(javaScriptResponseHandler.defaultKeyValuePairStoreObjectStart + "{\"Harry\":\"XXX\",\"weather\":\"XXX\"};", result);
+        Assert.assertEquals(2, result.size());
+        Assert.assertEquals("XXX", result.get("Harry"));
+        Assert.assertEquals("XXX", result.get("weather"));
     }
 
     @Test
@@ -544,17 +546,18 @@ public class JavaScriptResponseHandlerTest {
         // Mock
         final UserKeyValueDataDTO userKeyValueDataDTO = new UserKeyValueDataDTO();
         userKeyValueDataDTO.setValue("XXX");
-        Mockito.when(userKeyValueDataService.loadByKey(Mockito.anyString(), Mockito.anyLong())).thenReturn(userKeyValueDataDTO);
+        stubKvps(userKeyValueDataDTO);
         Mockito.when(req.headers()).thenReturn(new HashSet<String>() { { add("myLastName"); } });
         Mockito.when(req.headers(Mockito.anyString())).thenReturn("Potter");
 
         // Test
-        final String result = javaScriptResponseHandler.populateKVPs(req, mock);
+        final Map<String, String> result = javaScriptResponseHandler.populateKVPs(req, RestfulMockSnapshot.from(mock));
 
         // Assertions
         Assert.assertNotNull(result);
-        Assert.assertTrue((javaScriptResponseHandler.defaultKeyValuePairStoreObjectStart + "{\"Potter\":\"XXX\",\"weather\":\"XXX\"};").equals(result)
-                            || (javaScriptResponseHandler.defaultKeyValuePairStoreObjectStart + "{\"weather\":\"XXX\",\"Potter\":\"XXX\"};").equals(result));
+        Assert.assertEquals(2, result.size());
+        Assert.assertEquals("XXX", result.get("Potter"));
+        Assert.assertEquals("XXX", result.get("weather"));
     }
 
     @Test
@@ -577,11 +580,13 @@ public class JavaScriptResponseHandlerTest {
         mock.setJavaScriptHandler(javaScriptHandler);
 
         // Test
-        final String result = javaScriptResponseHandler.populateKVPs(req, mock);
+        final Map<String, String> result = javaScriptResponseHandler.populateKVPs(req, RestfulMockSnapshot.from(mock));
 
         // Assertions
         Assert.assertNotNull(result);
-        Assert.assertEquals(javaScriptResponseHandler.defaultKeyValuePairStoreObjectStart + "{\"foo\":\"\",\"weather\":\"\"};", result);
+        Assert.assertEquals(2, result.size());
+        Assert.assertEquals("", result.get("foo"));
+        Assert.assertEquals("", result.get("weather"));
 
     }
 
@@ -609,7 +614,7 @@ public class JavaScriptResponseHandlerTest {
         mock.setJavaScriptHandler(javaScriptHandler);
 
         // Test
-        javaScriptResponseHandler.populateKVPs(req, mock);
+        javaScriptResponseHandler.populateKVPs(req, RestfulMockSnapshot.from(mock));
     }
 
     @Test
@@ -636,7 +641,7 @@ public class JavaScriptResponseHandlerTest {
         mock.setJavaScriptHandler(javaScriptHandler);
 
         // Test
-        javaScriptResponseHandler.populateKVPs(req, mock);
+        javaScriptResponseHandler.populateKVPs(req, RestfulMockSnapshot.from(mock));
 
     }
 
@@ -668,4 +673,144 @@ public class JavaScriptResponseHandlerTest {
         Assert.assertEquals("HelloWorld", result);
     }
 
+    @Test
+    public void executeUserResponse_requestValuesViaBindings_Test() {
+
+        // Setup
+        final String userFunc = "function handleResponse(request, response) { "
+                + "response.body = request.headers['name'] + ' ' + request.pathVars.id + ' ' + lookUpKvp('foo');"
+                + "response.status = 200;"
+                + "return response;"
+                + "}";
+
+        Mockito.when(req.headers()).thenReturn(new HashSet<>(Arrays.asList("name")));
+        Mockito.when(req.headers("name")).thenReturn("O'Brien");
+        Mockito.when(req.pathInfo()).thenReturn("/hello/7");
+        Mockito.when(req.queryParams()).thenReturn(new HashSet<>());
+
+        final UserKeyValueDataDTO userKeyValueDataDTO = new UserKeyValueDataDTO();
+        userKeyValueDataDTO.setValue("bar");
+        Mockito.when(userKeyValueDataService.loadByKeys(Collections.singleton("foo"), 1)).thenReturn(Collections.singletonMap("foo", userKeyValueDataDTO));
+        Mockito.when(smockinUserService.getUserMode()).thenReturn(UserModeEnum.INACTIVE);
+
+        // Test
+        final RestfulResponseDTO result = javaScriptResponseHandler.executeUserResponse(req, RestfulMockSnapshot.from(buildJsMock("/hello/{id}", userFunc)));
+
+        // Assertions
+        Assert.assertEquals(200, result.getHttpStatusCode());
+        Assert.assertEquals("O'Brien 7 bar", result.getResponseBody());
+    }
+
+    @Test
+    public void loadCompiledHandler_compiledOnce_Test() throws ScriptException {
+
+        // Setup
+        final RestfulMock mock = buildJsMock("/hello", "function handleResponse(request, response) { return response; }");
+
+        // Test
+        final JavaScriptResponseHandlerImpl.CompiledHandler handler1 = javaScriptResponseHandler.loadCompiledHandler(RestfulMockSnapshot.from(mock));
+        final JavaScriptResponseHandlerImpl.CompiledHandler handler2 = javaScriptResponseHandler.loadCompiledHandler(RestfulMockSnapshot.from(mock));
+
+        mock.getJavaScriptHandler().setSyntax("function handleResponse(request, response) { response.status = 201; return response; }");
+        final JavaScriptResponseHandlerImpl.CompiledHandler handler3 = javaScriptResponseHandler.loadCompiledHandler(RestfulMockSnapshot.from(mock));
+
+        // Assertions
+        Assert.assertSame(handler1, handler2);
+        Assert.assertNotSame(handler1, handler3);
+    }
+
+    @Test
+    public void loadCompiledHandler_leastRecentlyUsedEvicted_Test() throws ScriptException {
+
+        // Setup
+        final RestfulMockSnapshot first = RestfulMockSnapshot.from(buildJsMock("/hello", "function handleResponse(request, response) { return response; }"));
+        final JavaScriptResponseHandlerImpl.CompiledHandler firstHandler = javaScriptResponseHandler.loadCompiledHandler(first);
+
+        final RestfulMockSnapshot second = RestfulMockSnapshot.from(buildJsMock("/hello", "function handleResponse(request, response) { return response; }"));
+        final JavaScriptResponseHandlerImpl.CompiledHandler secondHandler = javaScriptResponseHandler.loadCompiledHandler(second);
+
+        // Test
+        for (int i = 0; i < JavaScriptResponseHandlerImpl.MAX_COMPILED_HANDLERS - 1; i++) {
+            javaScriptResponseHandler.loadCompiledHandler(RestfulMockSnapshot.from(buildJsMock("/hello", "function handleResponse(request, response) { return response; }")));
+
+            if (i == 0) {
+                javaScriptResponseHandler.loadCompiledHandler(second);
+            }
+        }
+
+        // Assertions
+        Assert.assertSame(secondHandler, javaScriptResponseHandler.loadCompiledHandler(second));
+        Assert.assertNotSame(firstHandler, javaScriptResponseHandler.loadCompiledHandler(first));
+    }
+
+    @Test
+    public void executeUserResponse_noStateSharedBetweenMocks_Test() {
+
+        // Setup
+        Mockito.when(req.headers()).thenReturn(new HashSet<>());
+        Mockito.when(req.pathInfo()).thenReturn("/hello");
+        Mockito.when(req.queryParams()).thenReturn(new HashSet<>());
+
+        final RestfulMock mockA = buildJsMock("/hello", "var counter = 1; function handleResponse(request, response) { response.status = 200; response.body = 'A'; return response; }");
+        final RestfulMock mockB = buildJsMock("/hello", "function other() {}");
+
+        // Test
+        final RestfulResponseDTO resultA = javaScriptResponseHandler.executeUserResponse(req, RestfulMockSnapshot.from(mockA));
+        final RestfulResponseDTO resultB = javaScriptResponseHandler.executeUserResponse(req, RestfulMockSnapshot.from(mockB));
+
+        // Assertions
+        Assert.assertEquals("A", resultA.getResponseBody());
+        Assert.assertEquals(404, resultB.getHttpStatusCode());
+        Assert.assertEquals("Expected handleResponse(request, response) function is undefined!", resultB.getResponseBody());
+    }
+
+    @Test
+    public void executeUserResponse_noGlobalsLeakedBetweenRuns_Test() {
+
+        // Setup
+        Mockito.when(req.headers()).thenReturn(new HashSet<>());
+        Mockito.when(req.pathInfo()).thenReturn("/hello");
+        Mockito.when(req.queryParams()).thenReturn(new HashSet<>());
+
+        final RestfulMock mockA = buildJsMock("/hello", "function handleResponse(request, response) { "
+                + "Array.prototype.leaked = 'A'; print = 'A'; JSON.stringify = function() { return 'A'; }; "
+                + "response.status = 200; response.body = 'A'; return response; }");
+        final RestfulMock mockB = buildJsMock("/hello", "function handleResponse(request, response) { response.status = 200; "
+                + "response.body = (typeof [].leaked) + ',' + (typeof print) + ',' + JSON.stringify({ b: 1 }); return response; }");
+
+        // Test
+        final RestfulResponseDTO resultA = javaScriptResponseHandler.executeUserResponse(req, RestfulMockSnapshot.from(mockA));
+        final RestfulResponseDTO resultB = javaScriptResponseHandler.executeUserResponse(req, RestfulMockSnapshot.from(mockB));
+
+        // Assertions
+        Assert.assertEquals("A", resultA.getResponseBody());
+        Assert.assertEquals("undefined,function,{\"b\":1}", resultB.getResponseBody());
+    }
+
+    private void stubKvps(final UserKeyValueDataDTO userKeyValueDataDTO) {
+
+        // Every requested key resolves to the given KVP
+        Mockito.when(userKeyValueDataService.loadByKeys(Mockito.anyCollection(), Mockito.anyLong()))
+                .thenAnswer(i -> ((Collection<String>) i.getArgument(0))
+                        .stream()
+                        .collect(Collectors.toMap(k -> k, k -> userKeyValueDataDTO)));
+    }
+
+    private RestfulMock buildJsMock(final String path, final String userFunc) {
+
+        final RestfulMock mock = new RestfulMock();
+        final SmockinUser smockinUser = new SmockinUser();
+        smockinUser.setCtxPath("");
+        smockinUser.setId(1);
+        mock.setCreatedBy(smockinUser);
+        mock.setExtId(GeneralUtils.generateUUID());
+        mock.setPath(path);
+        final RestfulMockJavaScriptHandler javaScriptHandler = new RestfulMockJavaScriptHandler();
+        javaScriptHandler.setRestfulMock(mock);
+        javaScriptHandler.setSyntax(userFunc);
+        mock.setJavaScriptHandler(javaScriptHandler);
+
+        return mock;
+    }
+
 }
@@ -2,6 +2,7 @@ package com.smockin.mockserver.service;
 
 import com.smockin.admin.persistence.entity.RestfulMock;
 import com.smockin.admin.persistence.entity.RestfulMockDefinitionOrder;
+import com.smockin.mockserver.service.bean.RestfulMockSnapshot;
 import com.smockin.utils.GeneralUtils;
 import com.smockin.mockserver.service.dto.RestfulResponseDTO;
 import org.junit.Assert;
@@ -9,6 +10,13 @@ import org.junit.Before;
 import org.junit.Test;
 import org.springframework.http.MediaType;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
 /**
  * Created by mgallina.
  */
@@ -63,7 +71,7 @@ public class MockOrderingCounterServiceTest {
 
         // Test (run 1)
         // Start with calls to 'RestfulMockDefinition 1'...
-        final RestfulResponseDTO result1 = mockOrderingCounterService.process(restfulMock1);
+        final RestfulResponseDTO result1 = mockOrderingCounterService.process(RestfulMockSnapshot.from(restfulMock1));
 
         // Assertions
         Assert.assertNotNull(result1);
@@ -73,7 +81,7 @@ public class MockOrderingCounterServiceTest {
 
 
         // Test (run 2)
-        final RestfulResponseDTO result2 = mockOrderingCounterService.process(restfulMock1);
+        final RestfulResponseDTO result2 = mockOrderingCounterService.process(RestfulMockSnapshot.from(restfulMock1));
 
         // Assertions
         Assert.assertNotNull(result2);
@@ -83,7 +91,7 @@ public class MockOrderingCounterServiceTest {
 
 
         // Test (run 3)
-        final RestfulResponseDTO result3 = mockOrderingCounterService.process(restfulMock1);
+        final RestfulResponseDTO result3 = mockOrderingCounterService.process(RestfulMockSnapshot.from(restfulMock1));
 
         // Assertions
         Assert.assertNotNull(result3);
@@ -94,7 +102,7 @@ public class MockOrderingCounterServiceTest {
 
         // Test (run 4)
         // Call 'RestfulMockDefinition 2' in-between calls to 'RestfulMockDefinition 1'
-        final RestfulResponseDTO result11 = mockOrderingCounterService.process(restfulMock2);
+        final RestfulResponseDTO result11 = mockOrderingCounterService.process(RestfulMockSnapshot.from(restfulMock2));
 
         // Assertions
         Assert.assertNotNull(result11);
@@ -104,7 +112,7 @@ public class MockOrderingCounterServiceTest {
 
 
         // Test (run 5)
-        final RestfulResponseDTO result4 = mockOrderingCounterService.process(restfulMock1);
+        final RestfulResponseDTO result4 = mockOrderingCounterService.process(RestfulMockSnapshot.from(restfulMock1));
 
         // Assertions
         Assert.assertNotNull(result4);
@@ -115,7 +123,7 @@ public class MockOrderingCounterServiceTest {
 
         // Test (run 6)
         // ... And again call 'RestfulMockDefinition 2' in-between calls to 'RestfulMockDefinition 1'
-        final RestfulResponseDTO result22 = mockOrderingCounterService.process(restfulMock2);
+        final RestfulResponseDTO result22 = mockOrderingCounterService.process(RestfulMockSnapshot.from(restfulMock2));
 
         // Assertions
         Assert.assertNotNull(result22);
@@ -126,7 +134,7 @@ public class MockOrderingCounterServiceTest {
 
         // Test (run 7)
         // This call to 'RestfulMockDefinition 1' should now come around full circle returning the 1st response (with order no 1)
-        final RestfulResponseDTO result5 = mockOrderingCounterService.process(restfulMock1);
+        final RestfulResponseDTO result5 = mockOrderingCounterService.process(RestfulMockSnapshot.from(restfulMock1));
 
         // Assertions
         Assert.assertNotNull(result5);
@@ -137,7 +145,7 @@ public class MockOrderingCounterServiceTest {
 
         // Test (run 8)
         // This call to 'RestfulMockDefinition 2' should now come around full circle returning the 1st response (with order no 1)
-        final RestfulResponseDTO result33 = mockOrderingCounterService.process(restfulMock2);
+        final RestfulResponseDTO result33 = mockOrderingCounterService.process(RestfulMockSnapshot.from(restfulMock2));
 
         // Assertions
         Assert.assertNotNull(result33);
@@ -159,7 +167,7 @@ public class MockOrderingCounterServiceTest {
 
         // Test (run 1)
         // Expect order 1 to be returned once
-        final RestfulResponseDTO result1 = mockOrderingCounterService.process(restfulMock1);
+        final RestfulResponseDTO result1 = mockOrderingCounterService.process(RestfulMockSnapshot.from(restfulMock1));
 
         // Assertions
         Assert.assertNotNull(result1);
@@ -170,7 +178,7 @@ public class MockOrderingCounterServiceTest {
 
         // Test (run 2)
         // Expect order 2 to be returned twice, once here...
-        final RestfulResponseDTO result2 = mockOrderingCounterService.process(restfulMock1);
+        final RestfulResponseDTO result2 = mockOrderingCounterService.process(RestfulMockSnapshot.from(restfulMock1));
 
         // Assertions
         Assert.assertNotNull(result2);
@@ -181,7 +189,7 @@ public class MockOrderingCounterServiceTest {
 
         // Test (run 3)
         // ... and again here
-        final RestfulResponseDTO result3 = mockOrderingCounterService.process(restfulMock1);
+        final RestfulResponseDTO result3 = mockOrderingCounterService.process(RestfulMockSnapshot.from(restfulMock1));
 
         // Assertions
         Assert.assertNotNull(result3);
@@ -192,7 +200,7 @@ public class MockOrderingCounterServiceTest {
 
         // Test (run 4)
         // Now expecting order 3
-        final RestfulResponseDTO result4 = mockOrderingCounterService.process(restfulMock1);
+        final RestfulResponseDTO result4 = mockOrderingCounterService.process(RestfulMockSnapshot.from(restfulMock1));
 
         // Assertions
         Assert.assertNotNull(result4);
@@ -203,7 +211,7 @@ public class MockOrderingCounterServiceTest {
 
         // Test (run 5)
         // Then order 4
-        final RestfulResponseDTO result5 = mockOrderingCounterService.process(restfulMock1);
+        final RestfulResponseDTO result5 = mockOrderingCounterService.process(RestfulMockSnapshot.from(restfulMock1));
 
         // Assertions
         Assert.assertNotNull(result5);
@@ -214,7 +222,7 @@ public class MockOrderingCounterServiceTest {
 
         // Test (run 6)
         // Finally back round to order 1
-        final RestfulResponseDTO result6 = mockOrderingCounterService.process(restfulMock1);
+        final RestfulResponseDTO result6 = mockOrderingCounterService.process(RestfulMockSnapshot.from(restfulMock1));
 
         // Assertions
         Assert.assertNotNull(result6);
@@ -224,4 +232,88 @@ public class MockOrderingCounterServiceTest {
 
     }
 
+    @Test
+    public void getNextInSequence_concurrent_Test() throws InterruptedException {
+
+        // Local Setup
+        order1.setFrequencyCount(3);
+        order2.setFrequencyCount(1);
+        order3.setFrequencyCount(2);
+        order4.setFrequencyCount(4);
+
+        final RestfulMockSnapshot snapshot = RestfulMockSnapshot.from(restfulMock1);
+        final int threads = 10;
+        final int callsPerThread = 1000;
+        final Map<Integer, AtomicInteger> statusCounts = new ConcurrentHashMap<>();
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+        // Test
+        for (int t = 0; t < threads; t++) {
+            executor.execute(() -> {
+                for (int i = 0; i < callsPerThread; i++) {
+                    statusCounts.computeIfAbsent(mockOrderingCounterService.process(snapshot).getHttpStatusCode(), k -> new AtomicInteger())
+                            .incrementAndGet();
+                }
+            });
+        }
+
+        executor.shutdown();
+        Assert.assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+
+        // Assertions
+        // 10,000 calls is exactly 1,000 complete cycles, so each definition is returned in proportion to its frequency
+        Assert.assertEquals(3000, statusCounts.get(order1.getHttpStatusCode()).get());
+        Assert.assertEquals(1000, statusCounts.get(order2.getHttpStatusCode()).get());
+        Assert.assertEquals(2000, statusCounts.get(order3.getHttpStatusCode()).get());
+        Assert.assertEquals(4000, statusCounts.get(order4.getHttpStatusCode()).get());
+    }
+
+    @Test
+    public void clearMockStateById_Test() {
+
+        // Setup
+        final RestfulMockSnapshot snapshot = RestfulMockSnapshot.from(restfulMock1);
+
+        mockOrderingCounterService.process(snapshot);
+        mockOrderingCounterService.process(snapshot);
+
+        // Test
+        mockOrderingCounterService.clearMockStateById(restfulMock1.getExtId());
+
+        // Assertions
+        Assert.assertEquals(order1.getHttpStatusCode(), mockOrderingCounterService.process(snapshot).getHttpStatusCode());
+    }
+
+    @Test
+    public void getRandomResponse_weighted_Test() {
+
+        // Local Setup
+        restfulMock2.setRandomiseDefinitions(true);
+        order5.setFrequencyCount(1);
+        order6.setFrequencyCount(0);
+
+        final RestfulMockSnapshot snapshot = RestfulMockSnapshot.from(restfulMock2);
+
+        // Test
+        final Map<Integer, AtomicInteger> statusCounts = new ConcurrentHashMap<>();
+
+        for (int i = 0; i < 1000; i++) {
+            statusCounts.computeIfAbsent(mockOrderingCounterService.process(snapshot).getHttpStatusCode(), k -> new AtomicInteger())
+                    .incrementAndGet();
+        }
+
+        // Assertions
+        // Equal weights (a count of 0 counts as 1), so both should be picked at some point
+        Assert.assertEquals(2, statusCounts.size());
+
+        // Local Setup
+        order5.setFrequencyCount(1000000);
+        order6.setFrequencyCount(1);
+
+        final RestfulMockSnapshot weightedSnapshot = RestfulMockSnapshot.from(restfulMock2);
+
+        // Assertions
+        Assert.assertEquals(order5.getHttpStatusCode(), mockOrderingCounterService.process(weightedSnapshot).getHttpStatusCode());
+    }
+
 }
@@ -6,6 +6,8 @@ import com.smockin.admin.persistence.enums.RuleComparatorEnum;
 import com.smockin.admin.persistence.enums.RuleDataTypeEnum;
 import com.smockin.admin.persistence.enums.RuleMatchingTypeEnum;
 import com.smockin.admin.service.SmockinUserService;
+import com.smockin.mockserver.service.bean.RestfulMockRuleConditionSnapshot;
+import com.smockin.mockserver.service.bean.RestfulMockSnapshot;
 import com.smockin.mockserver.service.dto.RestfulResponseDTO;
 import org.junit.Assert;
 import org.junit.Before;
@@ -19,9 +21,7 @@ import org.springframework.http.HttpMethod;
 import org.springframework.http.MediaType;
 import spark.QueryParamsMap;
 import spark.Request;
-import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 
 /**
@@ -39,9 +39,6 @@ public class RuleEngineTest {
     @Mock
     private QueryParamsMap queryParamsMap;
 
-    @Mock
-    private List<RestfulMockDefinitionRule> rules;
-
     @Mock
     private SmockinUserService smockinUserService;
 
@@ -69,11 +66,8 @@ public class RuleEngineTest {
         // Assertions
         thrown.expect(NullPointerException.class);
 
-        // Setup
-        rules = null;
-
         // Test
-        ruleEngine.process(req, rules);
+        ruleEngine.process(req, null);
 
     }
 
@@ -81,10 +75,11 @@ public class RuleEngineTest {
     public void process_emptyRules_Test() {
 
         // Setup
-        rules = new ArrayList<RestfulMockDefinitionRule>();
+        final RestfulMock mock = new RestfulMock();
+        mock.setPath("/person/{name}");
 
         // Test
-        final RestfulResponseDTO result = ruleEngine.process(req, rules);
+        final RestfulResponseDTO result = ruleEngine.process(req, RestfulMockSnapshot.from(mock));
 
         // Assertions
         Assert.assertNull(result);
@@ -95,8 +90,6 @@ public class RuleEngineTest {
     public void process_Test() {
 
         // Setup
-        rules = new ArrayList<>();
-
         final RestfulMock mock = new RestfulMock();
         mock.setPath("/person/{name}");
         final SmockinUser user = new SmockinUser();
@@ -108,13 +101,13 @@ public class RuleEngineTest {
 
         group.getConditions().add(condition);
         rule.getConditionGroups().add(group);
-        rules.add(rule);
+        mock.getRules().add(rule);
 
         Mockito.when(req.body()).thenReturn("{ \"name\" : \"joe\" }");
-        Mockito.when(ruleResolver.processRuleComparison(Mockito.any(RestfulMockDefinitionRuleGroupCondition.class), Mockito.anyString())).thenReturn(true);
+        Mockito.when(ruleResolver.processRuleComparison(Mockito.any(RestfulMockRuleConditionSnapshot.class), Mockito.anyString())).thenReturn(true);
 
         // Test
-        final RestfulResponseDTO result = ruleEngine.process(req, rules);
+        final RestfulResponseDTO result = ruleEngine.process(req, RestfulMockSnapshot.from(mock));
 
         // Assertions
         Assert.assertNotNull(result);
@@ -123,6 +116,110 @@ public class RuleEngineTest {
         Assert.assertEquals(rule.getResponseBody(), result.getResponseBody());
     }
 
+    @Test
+    public void process_groupStopsAtFirstFailedCondition_Test() {
+
+        // Setup
+        final RestfulMock mock = new RestfulMock();
+        mock.setPath("/person");
+        final RestfulMockDefinitionRule rule = new RestfulMockDefinitionRule(mock, 1, 200, MediaType.APPLICATION_JSON_VALUE, "{ \"msg\" : \"foobar\" }", 0, false);
+        final RestfulMockDefinitionRuleGroup group = new RestfulMockDefinitionRuleGroup(rule, 1);
+        group.getConditions().add(new RestfulMockDefinitionRuleGroupCondition(group, "x-first", RuleDataTypeEnum.TEXT, RuleComparatorEnum.EQUALS, "a", RuleMatchingTypeEnum.REQUEST_HEADER, false));
+        group.getConditions().add(new RestfulMockDefinitionRuleGroupCondition(group, "x-second", RuleDataTypeEnum.TEXT, RuleComparatorEnum.EQUALS, "b", RuleMatchingTypeEnum.REQUEST_HEADER, false));
+        rule.getConditionGroups().add(group);
+        mock.getRules().add(rule);
+
+        Mockito.when(req.headers("x-first")).thenReturn("z");
+        Mockito.when(ruleResolver.processRuleComparison(Mockito.any(RestfulMockRuleConditionSnapshot.class), Mockito.anyString())).thenReturn(false);
+
+        // Test
+        final RestfulResponseDTO result = ruleEngine.process(req, RestfulMockSnapshot.from(mock));
+
+        // Assertions
+        Assert.assertNull(result);
+        Mockito.verify(req, Mockito.never()).headers("x-second");
+        Mockito.verify(ruleResolver, Mockito.times(1)).processRuleComparison(Mockito.any(RestfulMockRuleConditionSnapshot.class), Mockito.anyString());
+    }
+
+    @Test
+    public void process_inboundValueExtractedOncePerRequest_Test() {
+
+        // Setup
+        final RestfulMock mock = new RestfulMock();
+        mock.setPath("/person");
+
+        for (int i = 1; i <= 3; i++) {
+            final RestfulMockDefinitionRule rule = new RestfulMockDefinitionRule(mock, i, 200, MediaType.TEXT_PLAIN_VALUE, "rule " + i, 0, false);
+            final RestfulMockDefinitionRuleGroup group = new RestfulMockDefinitionRuleGroup(rule, 1);
+            group.getConditions().add(new RestfulMockDefinitionRuleGroupCondition(group, (i % 2 == 0) ? "NAME" : "name", RuleDataTypeEnum.TEXT, RuleComparatorEnum.EQUALS, "joe" + i, RuleMatchingTypeEnum.REQUEST_HEADER, false));
+            rule.getConditionGroups().add(group);
+            mock.getRules().add(rule);
+        }
+
+        Mockito.when(req.headers("name")).thenReturn("joe3");
+        Mockito.when(ruleResolver.processRuleComparison(Mockito.any(RestfulMockRuleConditionSnapshot.class), Mockito.anyString())).thenReturn(false, false, true);
+
+        // Test
+        final RestfulResponseDTO result = ruleEngine.process(req, RestfulMockSnapshot.from(mock));
+
+        // Assertions
+        Assert.assertNotNull(result);
+        Assert.assertEquals("rule 3", result.getResponseBody());
+        Mockito.verify(req, Mockito.times(1)).headers(Mockito.anyString());
+    }
+
+    @Test
+    public void process_jsonBodyParsedOncePerRequest_Test() {
+
+        // Setup
+        final RestfulMock mock = new RestfulMock();
+        mock.setPath("/person");
+        final RestfulMockDefinitionRule rule = new RestfulMockDefinitionRule(mock, 1, 200, MediaType.TEXT_PLAIN_VALUE, "matched", 0, false);
+        final RestfulMockDefinitionRuleGroup group = new RestfulMockDefinitionRuleGroup(rule, 1);
+        group.getConditions().add(new RestfulMockDefinitionRuleGroupCondition(group, "person.name", RuleDataTypeEnum.TEXT, RuleComparatorEnum.EQUALS, "joe", RuleMatchingTypeEnum.REQUEST_BODY_JSON_ANY, false));
+        group.getConditions().add(new RestfulMockDefinitionRuleGroupCondition(group, "person.pets[1].type", RuleDataTypeEnum.TEXT, RuleComparatorEnum.EQUALS, "dog", RuleMatchingTypeEnum.REQUEST_BODY_JSON_ANY, false));
+        rule.getConditionGroups().add(group);
+        mock.getRules().add(rule);
+
+        Mockito.when(req.body()).thenReturn("{ \"person\" : { \"name\" : \"joe\", \"pets\" : [ { \"type\" : \"cat\" }, { \"type\" : \"dog\" } ] } }");
+        Mockito.when(ruleResolver.processRuleComparison(Mockito.any(RestfulMockRuleConditionSnapshot.class), Mockito.anyString())).thenReturn(true);
+
+        // Test
+        final RestfulResponseDTO result = ruleEngine.process(req, RestfulMockSnapshot.from(mock));
+
+        // Assertions
+        Assert.assertNotNull(result);
+        Mockito.verify(ruleResolver).processRuleComparison(Mockito.any(RestfulMockRuleConditionSnapshot.class), Mockito.eq("joe"));
+        Mockito.verify(ruleResolver).processRuleComparison(Mockito.any(RestfulMockRuleConditionSnapshot.class), Mockito.eq("dog"));
+        Mockito.verify(req, Mockito.times(1)).body();
+    }
+
+    @Test
+    public void process_indexedEqualsRules_Test() {
+
+        // Setup
+        final RestfulMock mock = new RestfulMock();
+        mock.setPath("/person");
+
+        for (int i = 1; i <= 100; i++) {
+            final RestfulMockDefinitionRule rule = new RestfulMockDefinitionRule(mock, i, 200, MediaType.TEXT_PLAIN_VALUE, "rule " + i, 0, false);
+            final RestfulMockDefinitionRuleGroup group = new RestfulMockDefinitionRuleGroup(rule, 1);
+            group.getConditions().add(new RestfulMockDefinitionRuleGroupCondition(group, "name", RuleDataTypeEnum.TEXT, RuleComparatorEnum.EQUALS, "joe" + i, RuleMatchingTypeEnum.REQUEST_HEADER, false));
+            rule.getConditionGroups().add(group);
+            mock.getRules().add(rule);
+        }
+
+        Mockito.when(req.headers("name")).thenReturn("JOE42");
+
+        // Test
+        final RestfulResponseDTO result = ruleEngine.process(req, RestfulMockSnapshot.from(mock));
+
+        // Assertions
+        Assert.assertNotNull(result);
+        Assert.assertEquals("rule 42", result.getResponseBody());
+        Mockito.verifyNoInteractions(ruleResolver);
+    }
+
     @Test
     public void extractInboundValue_nullRuleMatchingType_Test() {
 
@@ -1,9 +1,9 @@
 package com.smockin.mockserver.service;
 
-import com.smockin.admin.persistence.entity.RestfulMockDefinitionRuleGroupCondition;
 import com.smockin.admin.persistence.enums.RuleComparatorEnum;
 import com.smockin.admin.persistence.enums.RuleDataTypeEnum;
 import com.smockin.admin.persistence.enums.RuleMatchingTypeEnum;
+import com.smockin.mockserver.service.bean.RestfulMockRuleConditionSnapshot;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
@@ -28,8 +28,8 @@ public class RuleResolverContainsTest {
     public void processRuleComparison_NullValue_Text_Contains_Fail() {
 
         // Setup
-        final RestfulMockDefinitionRuleGroupCondition condition =
-                new RestfulMockDefinitionRuleGroupCondition(null, "NAME", RuleDataTypeEnum.TEXT, RuleComparatorEnum.CONTAINS, ruleTextValue, RuleMatchingTypeEnum.REQUEST_PARAM, false);
+        final RestfulMockRuleConditionSnapshot condition =
+                new RestfulMockRuleConditionSnapshot("NAME", RuleDataTypeEnum.TEXT, RuleComparatorEnum.CONTAINS, ruleTextValue, RuleMatchingTypeEnum.REQUEST_PARAM, false);
 
         // Test
         final boolean result = ruleResolver.processRuleComparison(condition, null);
@@ -42,8 +42,8 @@ public class RuleResolverContainsTest {
     public void processRuleComparison_Text_Contains_Pass() {
 
         // Setup
-        final RestfulMockDefinitionRuleGroupCondition condition =
-                new RestfulMockDefinitionRuleGroupCondition(null, "NAME", RuleDataTypeEnum.TEXT, RuleComparatorEnum.CONTAINS, ruleTextValue.toUpperCase(), RuleMatchingTypeEnum.REQUEST_PARAM, false);
+        final RestfulMockRuleConditionSnapshot condition =
+                new RestfulMockRuleConditionSnapshot("NAME", RuleDataTypeEnum.TEXT, RuleComparatorEnum.CONTAINS, ruleTextValue.toUpperCase(), RuleMatchingTypeEnum.REQUEST_PARAM, false);
 
         // Test
         final boolean result = ruleResolver.processRuleComparison(condition, inboundTextValue);
@@ -56,8 +56,8 @@ public class RuleResolverContainsTest {
     public void processRuleComparison_CaseSensitiveText_Contains_Pass() {
 
         // Setup
-        final RestfulMockDefinitionRuleGroupCondition condition =
-                new RestfulMockDefinitionRuleGroupCondition(null, "NAME", RuleDataTypeEnum.TEXT, RuleComparatorEnum.CONTAINS, ruleTextValue, RuleMatchingTypeEnum.REQUEST_PARAM, true);
+        final RestfulMockRuleConditionSnapshot condition =
+                new RestfulMockRuleConditionSnapshot("NAME", RuleDataTypeEnum.TEXT, RuleComparatorEnum.CONTAINS, ruleTextValue, RuleMatchingTypeEnum.REQUEST_PARAM, true);
 
         // Test
         final boolean result = ruleResolver.processRuleComparison(condition, inboundTextValue);
@@ -70,8 +70,8 @@ public class RuleResolverContainsTest {
     public void processRuleComparison_CaseSensitiveText_Contains_Fail() {
 
         // Setup
-        final RestfulMockDefinitionRuleGroupCondition condition =
-                new RestfulMockDefinitionRuleGroupCondition(null, "NAME", RuleDataTypeEnum.TEXT, RuleComparatorEnum.CONTAINS, ruleTextValue.toUpperCase(), RuleMatchingTypeEnum.REQUEST_PARAM, true);
+        final RestfulMockRuleConditionSnapshot condition =
+                new RestfulMockRuleConditionSnapshot("NAME", RuleDataTypeEnum.TEXT, RuleComparatorEnum.CONTAINS, ruleTextValue.toUpperCase(), RuleMatchingTypeEnum.REQUEST_PARAM, true);
 
         // Test
         final boolean result = ruleResolver.processRuleComparison(condition, inboundTextValue);
@@ -84,8 +84,8 @@ public class RuleResolverContainsTest {
     public void processRuleComparison_CaseSensitiveFieldIsNullText_Contains_Fail() {
 
         // Setup
-        final RestfulMockDefinitionRuleGroupCondition condition =
-                new RestfulMockDefinitionRuleGroupCondition(null, "NAME", RuleDataTypeEnum.TEXT, RuleComparatorEnum.CONTAINS, ruleTextValue.toUpperCase(), RuleMatchingTypeEnum.REQUEST_PARAM, null);
+        final RestfulMockRuleConditionSnapshot condition =
+                new RestfulMockRuleConditionSnapshot("NAME", RuleDataTypeEnum.TEXT, RuleComparatorEnum.CONTAINS, ruleTextValue.toUpperCase(), RuleMatchingTypeEnum.REQUEST_PARAM, null);
 
         // Test
         final boolean result = ruleResolver.processRuleComparison(condition, inboundTextValue);
@@ -1,9 +1,9 @@
 package com.smockin.mockserver.service;
 
-import com.smockin.admin.persistence.entity.RestfulMockDefinitionRuleGroupCondition;
 import com.smockin.admin.persistence.enums.RuleComparatorEnum;
 import com.smockin.admin.persistence.enums.RuleDataTypeEnum;
 import com.smockin.admin.persistence.enums.RuleMatchingTypeEnum;
+import com.smockin.mockserver.service.bean.RestfulMockRuleConditionSnapshot;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Rule;
@@ -37,8 +37,8 @@ public class RuleResolverEqualsTest {
         thrown.expectMessage("Invalid rule comparator. Cannot be null");
 
         // Setup
-        final RestfulMockDefinitionRuleGroupCondition condition =
-                new RestfulMockDefinitionRuleGroupCondition(null, "NAME", RuleDataTypeEnum.TEXT, null, inboundTextValue, RuleMatchingTypeEnum.REQUEST_PARAM, false);
+        final RestfulMockRuleConditionSnapshot condition =
+                new RestfulMockRuleConditionSnapshot("NAME", RuleDataTypeEnum.TEXT, null, inboundTextValue, RuleMatchingTypeEnum.REQUEST_PARAM, false);
 
         // Test
         ruleResolver.processRuleComparison(condition, null);
@@ -48,8 +48,8 @@ public class RuleResolverEqualsTest {
     public void processRuleComparison_NullValue_Text_Equals_Fail() {
 
         // Setup
-        final RestfulMockDefinitionRuleGroupCondition condition =
-                new RestfulMockDefinitionRuleGroupCondition(null, "NAME", RuleDataTypeEnum.TEXT, RuleComparatorEnum.EQUALS, inboundTextValue, RuleMatchingTypeEnum.REQUEST_PARAM, false);
+        final RestfulMockRuleConditionSnapshot condition =
+                new RestfulMockRuleConditionSnapshot("NAME", RuleDataTypeEnum.TEXT, RuleComparatorEnum.EQUALS, inboundTextValue, RuleMatchingTypeEnum.REQUEST_PARAM, false);
 
         // Test
         final boolean result = ruleResolver.processRuleComparison(condition, null);
@@ -62,8 +62,8 @@ public class RuleResolverEqualsTest {
     public void processRuleComparison_Text_Equals_Pass() {
 
         // Setup
-        final RestfulMockDefinitionRuleGroupCondition condition =
-                new RestfulMockDefinitionRuleGroupCondition(null, "NAME", RuleDataTypeEnum.TEXT, RuleComparatorEnum.EQUALS, inboundTextValue, RuleMatchingTypeEnum.REQUEST_PARAM, false);
+        final RestfulMockRuleConditionSnapshot condition =
+                new RestfulMockRuleConditionSnapshot("NAME", RuleDataTypeEnum.TEXT, RuleComparatorEnum.EQUALS, inboundTextValue, RuleMatchingTypeEnum.REQUEST_PARAM, false);
 
         // Test
         final boolean result = ruleResolver.processRuleComparison(condition, inboundTextValue.toUpperCase());
@@ -76,8 +76,8 @@ public class RuleResolverEqualsTest {
     public void processRuleComparison_Text_Equals_Fail() {
 
         // Setup
-        final RestfulMockDefinitionRuleGroupCondition condition =
-                new RestfulMockDefinitionRuleGroupCondition(null, "NAME", RuleDataTypeEnum.TEXT, RuleComparatorEnum.EQUALS, inboundTextValue, RuleMatchingTypeEnum.REQUEST_PARAM, false);
+        final RestfulMockRuleConditionSnapshot condition =
+                new RestfulMockRuleConditionSnapshot("NAME", RuleDataTypeEnum.TEXT, RuleComparatorEnum.EQUALS, inboundTextValue, RuleMatchingTypeEnum.REQUEST_PARAM, false);
 
         // Test
         final boolean result = ruleResolver.processRuleComparison(condition, inboundTextValue + "GHI");
@@ -90,8 +90,8 @@ public class RuleResolverEqualsTest {
     public void processRuleComparison_CaseSensitiveFieldIsNull_Text_Equals_Pass() {
 
         // Setup
-        final RestfulMockDefinitionRuleGroupCondition condition =
-                new RestfulMockDefinitionRuleGroupCondition(null, "NAME", RuleDataTypeEnum.TEXT, RuleComparatorEnum.EQUALS, inboundTextValue, RuleMatchingTypeEnum.REQUEST_PARAM, null);
+        final RestfulMockRuleConditionSnapshot condition =
+                new RestfulMockRuleConditionSnapshot("NAME", RuleDataTypeEnum.TEXT, RuleComparatorEnum.EQUALS, inboundTextValue, RuleMatchingTypeEnum.REQUEST_PARAM, null);
 
         // Test
         final boolean result = ruleResolver.processRuleComparison(condition, inboundTextValue.toUpperCase());
@@ -104,8 +104,8 @@ public class RuleResolverEqualsTest {
     public void processRuleComparison_CaseSensitive_Text_Equals_Pass() {
 
         // Setup
-        final RestfulMockDefinitionRuleGroupCondition condition =
-                new RestfulMockDefinitionRuleGroupCondition(null, "NAME", RuleDataTypeEnum.TEXT, RuleComparatorEnum.EQUALS, inboundTextValue, RuleMatchingTypeEnum.REQUEST_PARAM, true);
+        final RestfulMockRuleConditionSnapshot condition =
+                new RestfulMockRuleConditionSnapshot("NAME", RuleDataTypeEnum.TEXT, RuleComparatorEnum.EQUALS, inboundTextValue, RuleMatchingTypeEnum.REQUEST_PARAM, true);
 
         // Test
         final boolean result = ruleResolver.processRuleComparison(condition, inboundTextValue);
@@ -118,8 +118,8 @@ public class RuleResolverEqualsTest {
     public void processRuleComparison_CaseSensitive_Text_Equals_Fail() {
 
         // Setup
-        final RestfulMockDefinitionRuleGroupCondition condition =
-                new RestfulMockDefinitionRuleGroupCondition(null, "NAME", RuleDataTypeEnum.TEXT, RuleComparatorEnum.EQUALS, inboundTextValue, RuleMatchingTypeEnum.REQUEST_PARAM, true);
+        final RestfulMockRuleConditionSnapshot condition =
+                new RestfulMockRuleConditionSnapshot("NAME", RuleDataTypeEnum.TEXT, RuleComparatorEnum.EQUALS, inboundTextValue, RuleMatchingTypeEnum.REQUEST_PARAM, true);
 
         // Test
         final boolean result = ruleResolver.processRuleComparison(condition, inboundTextValue.toUpperCase());
@@ -132,8 +132,8 @@ public class RuleResolverEqualsTest {
     public void processRuleComparison_Whole_Numeric_Equals_Pass() {
 
         // Setup
-        final RestfulMockDefinitionRuleGroupCondition condition =
-                new RestfulMockDefinitionRuleGroupCondition(null, "NAME", RuleDataTypeEnum.NUMERIC, RuleComparatorEnum.EQUALS, inboundNumericWholeValue, RuleMatchingTypeEnum.REQUEST_PARAM, null);
+        final RestfulMockRuleConditionSnapshot condition =
+                new RestfulMockRuleConditionSnapshot("NAME", RuleDataTypeEnum.NUMERIC, RuleComparatorEnum.EQUALS, inboundNumericWholeValue, RuleMatchingTypeEnum.REQUEST_PARAM, null);
 
         // Test
         final boolean result = ruleResolver.processRuleComparison(condition, inboundNumericWholeValue);
@@ -146,8 +146,8 @@ public class RuleResolverEqualsTest {
     public void processRuleComparison_Whole_Numeric_Equals_Fail() {
 
         // Setup
-        final RestfulMockDefinitionRuleGroupCondition condition =
-                new RestfulMockDefinitionRuleGroupCondition(null, "NAME", RuleDataTypeEnum.NUMERIC, RuleComparatorEnum.EQUALS, inboundNumericWholeValue, RuleMatchingTypeEnum.REQUEST_PARAM, null);
+        final RestfulMockRuleConditionSnapshot condition =
+                new RestfulMockRuleConditionSnapshot("NAME", RuleDataTypeEnum.NUMERIC, RuleComparatorEnum.EQUALS, inboundNumericWholeValue, RuleMatchingTypeEnum.REQUEST_PARAM, null);
 
         // Test
         final boolean result = ruleResolver.processRuleComparison(condition, "101");
@@ -160,8 +160,8 @@ public class RuleResolverEqualsTest {
     public void processRuleComparison_Decimal_Numeric_Equals_Pass() {
 
         // Setup
-        final RestfulMockDefinitionRuleGroupCondition condition =
-                new RestfulMockDefinitionRuleGroupCondition(null, "NAME", RuleDataTypeEnum.NUMERIC, RuleComparatorEnum.EQUALS, inboundNumericDecimalValue, RuleMatchingTypeEnum.REQUEST_PARAM, null);
+        final RestfulMockRuleConditionSnapshot condition =
+                new RestfulMockRuleConditionSnapshot("NAME", RuleDataTypeEnum.NUMERIC, RuleComparatorEnum.EQUALS, inboundNumericDecimalValue, RuleMatchingTypeEnum.REQUEST_PARAM, null);
 
         // Test
         final boolean result = ruleResolver.processRuleComparison(condition, inboundNumericDecimalValue);
@@ -174,8 +174,8 @@ public class RuleResolverEqualsTest {
     public void processRuleComparison_Decimal_Numeric_Equals_Fail() {
 
         // Setup
-        final RestfulMockDefinitionRuleGroupCondition condition =
-                new RestfulMockDefinitionRuleGroupCondition(null, "NAME", RuleDataTypeEnum.NUMERIC, RuleComparatorEnum.EQUALS, inboundNumericDecimalValue, RuleMatchingTypeEnum.REQUEST_PARAM, null);
+        final RestfulMockRuleConditionSnapshot condition =
+                new RestfulMockRuleConditionSnapshot("NAME", RuleDataTypeEnum.NUMERIC, RuleComparatorEnum.EQUALS, inboundNumericDecimalValue, RuleMatchingTypeEnum.REQUEST_PARAM, null);
 
         // Test
         final boolean result = ruleResolver.processRuleComparison(condition, "201.322");
@@ -188,8 +188,8 @@ public class RuleResolverEqualsTest {
     public void processRuleComparison_Invalid_Numeric_Equals_Fail() {
 
         // Setup
-        final RestfulMockDefinitionRuleGroupCondition condition =
-                new RestfulMockDefinitionRuleGroupCondition(null, "NAME", RuleDataTypeEnum.NUMERIC, RuleComparatorEnum.EQUALS, inboundNumericDecimalValue, RuleMatchingTypeEnum.REQUEST_PARAM, null);
+        final RestfulMockRuleConditionSnapshot condition =
+                new RestfulMockRuleConditionSnapshot("NAME", RuleDataTypeEnum.NUMERIC, RuleComparatorEnum.EQUALS, inboundNumericDecimalValue, RuleMatchingTypeEnum.REQUEST_PARAM, null);
 
         // Test
         final boolean result = ruleResolver.processRuleComparison(condition, "One");
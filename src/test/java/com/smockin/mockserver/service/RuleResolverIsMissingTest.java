@@ -1,9 +1,9 @@
 package com.smockin.mockserver.service;
 
-import com.smockin.admin.persistence.entity.RestfulMockDefinitionRuleGroupCondition;
 import com.smockin.admin.persistence.enums.RuleComparatorEnum;
 import com.smockin.admin.persistence.enums.RuleDataTypeEnum;
 import com.smockin.admin.persistence.enums.RuleMatchingTypeEnum;
+import com.smockin.mockserver.service.bean.RestfulMockRuleConditionSnapshot;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
@@ -27,8 +27,8 @@ public class RuleResolverIsMissingTest {
     public void processRuleComparison_Text_IsMissing_Pass() {
 
         // Setup
-        final RestfulMockDefinitionRuleGroupCondition condition =
-                new RestfulMockDefinitionRuleGroupCondition(null, ruleFieldName, RuleDataTypeEnum.TEXT, RuleComparatorEnum.IS_MISSING, "", RuleMatchingTypeEnum.REQUEST_PARAM, false);
+        final RestfulMockRuleConditionSnapshot condition =
+                new RestfulMockRuleConditionSnapshot(ruleFieldName, RuleDataTypeEnum.TEXT, RuleComparatorEnum.IS_MISSING, "", RuleMatchingTypeEnum.REQUEST_PARAM, false);
 
         // Test
         final boolean result = ruleResolver.processRuleComparison(condition, null);
@@ -41,8 +41,8 @@ public class RuleResolverIsMissingTest {
     public void processRuleComparison_Text_IsMissing_Fail() {
 
         // Setup
-        final RestfulMockDefinitionRuleGroupCondition condition =
-                new RestfulMockDefinitionRuleGroupCondition(null, ruleFieldName, RuleDataTypeEnum.TEXT, RuleComparatorEnum.IS_MISSING, "Joe", RuleMatchingTypeEnum.REQUEST_PARAM, false);
+        final RestfulMockRuleConditionSnapshot condition =
+                new RestfulMockRuleConditionSnapshot(ruleFieldName, RuleDataTypeEnum.TEXT, RuleComparatorEnum.IS_MISSING, "Joe", RuleMatchingTypeEnum.REQUEST_PARAM, false);
 
         // Test
         final boolean result = ruleResolver.processRuleComparison(condition, "Joe");
@@ -55,8 +55,8 @@ public class RuleResolverIsMissingTest {
     public void processRuleComparison_CaseSensitiveText_IsMissing_Pass() {
 
         // Setup
-        final RestfulMockDefinitionRuleGroupCondition condition =
-                new RestfulMockDefinitionRuleGroupCondition(null, ruleFieldName, RuleDataTypeEnum.TEXT, RuleComparatorEnum.IS_MISSING, "Joe", RuleMatchingTypeEnum.REQUEST_PARAM, true);
+        final RestfulMockRuleConditionSnapshot condition =
+                new RestfulMockRuleConditionSnapshot(ruleFieldName, RuleDataTypeEnum.TEXT, RuleComparatorEnum.IS_MISSING, "Joe", RuleMatchingTypeEnum.REQUEST_PARAM, true);
 
         // Test
         final boolean result = ruleResolver.processRuleComparison(condition, "joe");
@@ -69,8 +69,8 @@ public class RuleResolverIsMissingTest {
     public void processRuleComparison_Text_IsMissing_DifferentInputValue_Pass() {
 
         // Setup
-        final RestfulMockDefinitionRuleGroupCondition condition =
-                new RestfulMockDefinitionRuleGroupCondition(null, ruleFieldName, RuleDataTypeEnum.TEXT, RuleComparatorEnum.IS_MISSING, "Joe", RuleMatchingTypeEnum.REQUEST_PARAM, false);
+        final RestfulMockRuleConditionSnapshot condition =
+                new RestfulMockRuleConditionSnapshot(ruleFieldName, RuleDataTypeEnum.TEXT, RuleComparatorEnum.IS_MISSING, "Joe", RuleMatchingTypeEnum.REQUEST_PARAM, false);
 
         // Test
         final boolean result = ruleResolver.processRuleComparison(condition, "jane");
@@ -83,8 +83,8 @@ public class RuleResolverIsMissingTest {
     public void processRuleComparison_Text_IsMissing_NullInput_Pass() {
 
         // Setup
-        final RestfulMockDefinitionRuleGroupCondition condition =
-                new RestfulMockDefinitionRuleGroupCondition(null, ruleFieldName, RuleDataTypeEnum.TEXT, RuleComparatorEnum.IS_MISSING, "Joe", RuleMatchingTypeEnum.REQUEST_PARAM, false);
+        final RestfulMockRuleConditionSnapshot condition =
+                new RestfulMockRuleConditionSnapshot(ruleFieldName, RuleDataTypeEnum.TEXT, RuleComparatorEnum.IS_MISSING, "Joe", RuleMatchingTypeEnum.REQUEST_PARAM, false);
 
         // Test
         final boolean result = ruleResolver.processRuleComparison(condition, null);
@@ -97,8 +97,8 @@ public class RuleResolverIsMissingTest {
     public void processRuleComparison_Text_IsMissing_BlankInput_Pass() {
 
         // Setup
-        final RestfulMockDefinitionRuleGroupCondition condition =
-                new RestfulMockDefinitionRuleGroupCondition(null, ruleFieldName, RuleDataTypeEnum.TEXT, RuleComparatorEnum.IS_MISSING, "Joe", RuleMatchingTypeEnum.REQUEST_PARAM, false);
+        final RestfulMockRuleConditionSnapshot condition =
+                new RestfulMockRuleConditionSnapshot(ruleFieldName, RuleDataTypeEnum.TEXT, RuleComparatorEnum.IS_MISSING, "Joe", RuleMatchingTypeEnum.REQUEST_PARAM, false);
 
         // Test
         final boolean result = ruleResolver.processRuleComparison(condition, "");
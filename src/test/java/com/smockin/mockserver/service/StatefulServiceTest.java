@@ -1,7 +1,7 @@
 package com.smockin.mockserver.service;
 
 import com.fasterxml.jackson.core.type.TypeReference;
-import com.smockin.admin.persistence.entity.RestfulMockStatefulMeta;
+import com.smockin.mockserver.service.bean.RestfulMockStatefulMetaSnapshot;
 import com.smockin.utils.GeneralUtils;
 import org.junit.Assert;
 import org.junit.Before;
@@ -442,9 +442,7 @@ public class StatefulServiceTest {
 
         final Map<String, Object> newState = GeneralUtils.deserialiseJson(json,
                 new TypeReference<Map<String, Object>>() {});
-        final RestfulMockStatefulMeta restfulMockStatefulMeta = new RestfulMockStatefulMeta();
-        restfulMockStatefulMeta.setIdFieldName("id");
-        restfulMockStatefulMeta.setIdFieldLocation("data.keys.id");
+        final RestfulMockStatefulMetaSnapshot restfulMockStatefulMeta = new RestfulMockStatefulMetaSnapshot("id", "data.keys.id", null);
 
         // Test
         statefulServiceImpl.appendIdToJson(newState, restfulMockStatefulMeta);
@@ -474,9 +472,7 @@ public class StatefulServiceTest {
 
         final Map<String, Object> newState = GeneralUtils.deserialiseJson(json,
                 new TypeReference<Map<String, Object>>() {});
-        final RestfulMockStatefulMeta restfulMockStatefulMeta = new RestfulMockStatefulMeta();
-        restfulMockStatefulMeta.setIdFieldName("id");
-        restfulMockStatefulMeta.setIdFieldLocation("data.keys.id");
+        final RestfulMockStatefulMetaSnapshot restfulMockStatefulMeta = new RestfulMockStatefulMetaSnapshot("id", "data.keys.id", null);
 
         // Test
         statefulServiceImpl.appendIdToJson(newState, restfulMockStatefulMeta);
@@ -505,8 +501,7 @@ public class StatefulServiceTest {
 
         final Map<String, Object> newState = GeneralUtils.deserialiseJson(json,
                 new TypeReference<Map<String, Object>>() {});
-        final RestfulMockStatefulMeta restfulMockStatefulMeta = new RestfulMockStatefulMeta();
-        restfulMockStatefulMeta.setIdFieldName("id");
+        final RestfulMockStatefulMetaSnapshot restfulMockStatefulMeta = new RestfulMockStatefulMetaSnapshot("id", null, null);
 
         // Test
         statefulServiceImpl.appendIdToJson(newState, restfulMockStatefulMeta);
@@ -526,8 +521,7 @@ public class StatefulServiceTest {
 
         final Map<String, Object> newState = GeneralUtils.deserialiseJson(json,
                 new TypeReference<Map<String, Object>>() {});
-        final RestfulMockStatefulMeta restfulMockStatefulMeta = new RestfulMockStatefulMeta();
-        restfulMockStatefulMeta.setIdFieldName("id");
+        final RestfulMockStatefulMetaSnapshot restfulMockStatefulMeta = new RestfulMockStatefulMetaSnapshot("id", null, null);
 
         // Test
         statefulServiceImpl.appendIdToJson(newState, restfulMockStatefulMeta);
@@ -0,0 +1,408 @@
+package com.smockin.mockserver.service;
+
+import com.smockin.admin.exception.ValidationException;
+import com.smockin.mockserver.dto.TrafficJournalEntryDTO;
+import com.smockin.mockserver.dto.TrafficJournalQueryDTO;
+import org.apache.commons.lang3.StringUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class TrafficJournalServiceImplTest {
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    private TrafficJournalServiceImpl trafficJournalService;
+    private File journalDir;
+
+    @Before
+    public void setUp() throws Exception {
+
+        journalDir = tempFolder.newFolder("journal");
+        trafficJournalService = buildTrafficJournalService();
+        trafficJournalService.open();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        trafficJournalService.stop();
+    }
+
+    @Test
+    public void codec_roundTrip_Test() {
+
+        // Setup
+        final TrafficJournalEntryDTO entry = buildEntry("abc", 1000, "/api/users", 201);
+        entry.setMockType("SEQ");
+        entry.setProxied(true);
+        entry.setResponseHeaders(null);
+
+        // Test
+        final TrafficJournalEntryDTO result = TrafficJournalCodec.decode(ByteBuffer.wrap(TrafficJournalCodec.encode(entry)), e -> true);
+
+        // Assertions
+        Assert.assertEquals(entry, result);
+    }
+
+    @Test
+    public void codec_filteredOut_Test() {
+
+        // Test
+        final TrafficJournalEntryDTO result = TrafficJournalCodec.decode(
+                ByteBuffer.wrap(TrafficJournalCodec.encode(buildEntry("abc", 1000, "/api/users", 201))),
+                e -> e.getStatus() == 500);
+
+        // Assertions
+        Assert.assertNull(result);
+    }
+
+    @Test
+    public void search_byTraceId_Test() throws Exception {
+
+        // Setup
+        record(buildEntry("a", 1000, "/api/users", 200));
+        record(buildEntry("b", 2000, "/api/orders", 404));
+
+        // Test
+        final List<TrafficJournalEntryDTO> results = trafficJournalService.search(buildQuery(null, null, null, null, null, "b"));
+
+        // Assertions
+        Assert.assertEquals(1, results.size());
+        Assert.assertEquals("/api/orders", results.get(0).getPath());
+        Assert.assertEquals("Hello b", results.get(0).getResponseBody());
+        Assert.assertEquals("application/json", results.get(0).getRequestHeaders().get("Content-Type"));
+    }
+
+    @Test
+    public void search_byPathPrefixAndStatus_Test() throws Exception {
+
+        // Setup
+        record(buildEntry("a", 1000, "/api/users/1", 200));
+        record(buildEntry("b", 2000, "/api/users/2", 404));
+        record(buildEntry("c", 3000, "/api/orders/1", 404));
+        record(buildEntry("d", 4000, "/apiv2/users/1", 404));
+
+        // Test
+        final List<TrafficJournalEntryDTO> results = trafficJournalService.search(buildQuery(null, null, "/api/users", 400, 499, null));
+
+        // Assertions
+        Assert.assertEquals(1, results.size());
+        Assert.assertEquals("b", results.get(0).getTraceId());
+    }
+
+    @Test
+    public void search_partialPathPrefix_Test() throws Exception {
+
+        // Setup
+        record(buildEntry("a", 1000, "/api/users/1", 200));
+        record(buildEntry("b", 2000, "/apiv2/users/1", 200));
+        record(buildEntry("c", 3000, "/other", 200));
+
+        // Test
+        final List<TrafficJournalEntryDTO> results = trafficJournalService.search(buildQuery(null, null, "/ap", null, null, null));
+
+        // Assertions
+        Assert.assertEquals(2, results.size());
+        Assert.assertEquals("b", results.get(0).getTraceId());
+        Assert.assertEquals("a", results.get(1).getTraceId());
+    }
+
+    @Test
+    public void search_byTimeRangeNewestFirst_Test() throws Exception {
+
+        // Setup
+        for (int i = 1; i <= 5; i++) {
+            record(buildEntry("t" + i, i * 1000, "/api", 200));
+        }
+
+        // Test
+        final List<TrafficJournalEntryDTO> results = trafficJournalService.search(buildQuery(2000L, 4000L, null, null, null, null));
+
+        // Assertions
+        Assert.assertEquals(3, results.size());
+        Assert.assertEquals("t4", results.get(0).getTraceId());
+        Assert.assertEquals("t3", results.get(1).getTraceId());
+        Assert.assertEquals("t2", results.get(2).getTraceId());
+    }
+
+    @Test
+    public void search_limit_Test() throws Exception {
+
+        // Setup
+        for (int i = 1; i <= 5; i++) {
+            record(buildEntry("t" + i, i * 1000, "/api", 200));
+        }
+
+        final TrafficJournalQueryDTO query = buildQuery(null, null, null, null, null, null);
+        query.setLimit(2);
+
+        // Test
+        final List<TrafficJournalEntryDTO> results = trafficJournalService.search(query);
+
+        // Assertions
+        Assert.assertEquals(2, results.size());
+        Assert.assertEquals("t5", results.get(0).getTraceId());
+    }
+
+    @Test(expected = ValidationException.class)
+    public void search_invalidTimeRange_Test() throws Exception {
+        trafficJournalService.search(buildQuery(2000L, 1000L, null, null, null, null));
+    }
+
+    @Test(expected = ValidationException.class)
+    public void search_disabled_Test() throws Exception {
+
+        // Setup
+        ReflectionTestUtils.setField(trafficJournalService, "enabled", false);
+
+        // Test
+        trafficJournalService.search(buildQuery(null, null, null, null, null, null));
+    }
+
+    @Test
+    public void record_bodyTruncated_Test() throws Exception {
+
+        // Setup
+        ReflectionTestUtils.setField(trafficJournalService, "maxBodySize", 5);
+
+        // Test
+        record(buildEntry("a", 1000, "/api", 200));
+
+        // Assertions
+        final List<TrafficJournalEntryDTO> results = trafficJournalService.search(buildQuery(null, null, null, null, null, "a"));
+        Assert.assertTrue(results.get(0).getResponseBody().startsWith("Hello"));
+        Assert.assertTrue(results.get(0).getResponseBody().endsWith("(truncated)"));
+    }
+
+    @Test
+    public void record_requestBodyNotCaptured_Test() throws Exception {
+
+        // Setup
+        ReflectionTestUtils.setField(trafficJournalService, "maxBodySize", 5);
+
+        final TrafficJournalEntryDTO entry = buildEntry("a", 1000, "/api", 200);
+        entry.setRequestBody(TrafficJournalService.BODY_NOT_CAPTURED);
+
+        // Test
+        record(entry);
+
+        // Assertions
+        final List<TrafficJournalEntryDTO> results = trafficJournalService.search(buildQuery(null, null, null, null, null, "a"));
+        Assert.assertEquals(TrafficJournalService.BODY_NOT_CAPTURED, results.get(0).getRequestBody());
+    }
+
+    @Test
+    public void record_credentialHeadersRedacted_Test() throws Exception {
+
+        // Setup
+        final TrafficJournalEntryDTO entry = buildEntry("a", 1000, "/api", 200);
+
+        final Map<String, String> requestHeaders = new HashMap<>(entry.getRequestHeaders());
+        requestHeaders.put("authorization", "Bearer abc");
+        requestHeaders.put("Cookie", "session=abc");
+        entry.setRequestHeaders(requestHeaders);
+
+        final Map<String, String> responseHeaders = new HashMap<>(entry.getResponseHeaders());
+        responseHeaders.put("Set-Cookie", "session=abc");
+        entry.setResponseHeaders(responseHeaders);
+
+        // Test
+        record(entry);
+
+        // Assertions
+        final TrafficJournalEntryDTO result = trafficJournalService.search(buildQuery(null, null, null, null, null, "a")).get(0);
+
+        Assert.assertEquals(TrafficJournalServiceImpl.REDACTED_HEADER_VALUE, result.getRequestHeaders().get("authorization"));
+        Assert.assertEquals(TrafficJournalServiceImpl.REDACTED_HEADER_VALUE, result.getRequestHeaders().get("Cookie"));
+        Assert.assertEquals("application/json", result.getRequestHeaders().get("Content-Type"));
+        Assert.assertEquals(TrafficJournalServiceImpl.REDACTED_HEADER_VALUE, result.getResponseHeaders().get("Set-Cookie"));
+
+        // i.e. the caller's own copy of the headers is left as is
+        Assert.assertEquals("Bearer abc", requestHeaders.get("authorization"));
+    }
+
+    @Test
+    public void write_rollsSegmentsAndAppliesRetention_Test() throws Exception {
+
+        // Setup (each of these is around 300KB, so three fit within each 1MB segment)
+        ReflectionTestUtils.setField(trafficJournalService, "maxBodySize", 300 * 1024);
+        ReflectionTestUtils.setField(trafficJournalService, "retentionMb", 2);
+
+        // Test
+        for (int i = 1; i <= 12; i++) {
+            final TrafficJournalEntryDTO entry = buildEntry("t" + i, System.currentTimeMillis(), "/api", 200);
+            entry.setResponseBody(StringUtils.repeat('x', 300 * 1024));
+            record(entry);
+        }
+
+        // Assertions
+        Assert.assertEquals(2, countSegmentFiles());
+        Assert.assertEquals(1, trafficJournalService.search(buildQuery(null, null, null, null, null, "t12")).size());
+        Assert.assertTrue(trafficJournalService.search(buildQuery(null, null, null, null, null, "t1")).isEmpty());
+    }
+
+    @Test
+    public void write_retentionMeasuresWrittenSize_Test() throws Exception {
+
+        // Setup (so every write rolls the segment, leaving each of these mostly empty)
+        ReflectionTestUtils.setField(trafficJournalService, "segmentMaxAgeMinutes", 0);
+        ReflectionTestUtils.setField(trafficJournalService, "retentionMb", 1);
+
+        // Test
+        for (int i = 1; i <= 3; i++) {
+            record(buildEntry("t" + i, i * 1000, "/api", 200));
+        }
+
+        // Assertions
+        Assert.assertEquals(4, countSegmentFiles());
+        Assert.assertEquals(3, trafficJournalService.search(buildQuery(null, null, null, null, null, null)).size());
+    }
+
+    @Test
+    public void write_expiredSegmentsDeleted_Test() throws Exception {
+
+        // Setup
+        ReflectionTestUtils.setField(trafficJournalService, "maxBodySize", 300 * 1024);
+
+        for (int i = 1; i <= 4; i++) {
+            final TrafficJournalEntryDTO entry = buildEntry("t" + i, 1000, "/api", 200);
+            entry.setResponseBody(StringUtils.repeat('x', 300 * 1024));
+            record(entry);
+        }
+
+        Assert.assertEquals(2, countSegmentFiles());
+
+        ReflectionTestUtils.setField(trafficJournalService, "retentionHours", 0);
+
+        // Test
+        trafficJournalService.writePending();
+
+        // Assertions
+        Assert.assertEquals(1, countSegmentFiles());
+        Assert.assertEquals(1, trafficJournalService.search(buildQuery(null, null, null, null, null, null)).size());
+    }
+
+    @Test
+    public void search_whileSegmentsRolledAndDeleted_Test() throws Exception {
+
+        // Setup (so every write rolls the segment, with the searches below then having to decode every entry)
+        ReflectionTestUtils.setField(trafficJournalService, "segmentMaxAgeMinutes", 0);
+
+        final long timestamp = System.currentTimeMillis() - TimeUnit.HOURS.toMillis(1);
+        final AtomicBoolean writing = new AtomicBoolean(true);
+        final AtomicReference<Throwable> searchError = new AtomicReference<>();
+
+        final Thread searcher = new Thread(() -> {
+            try {
+                while (writing.get()) {
+                    trafficJournalService.search(buildQuery(null, null, "/api/none", null, null, null));
+                }
+            } catch (Throwable e) {
+                searchError.set(e);
+            }
+        });
+
+        // Test (repeatedly builds up, and then deletes, a run of expired segments whilst these are being searched)
+        searcher.start();
+
+        try {
+            for (int i = 1; i <= 20 && searchError.get() == null; i++) {
+
+                ReflectionTestUtils.setField(trafficJournalService, "retentionHours", 24);
+
+                for (int j = 1; j <= 20; j++) {
+                    for (int k = 1; k <= 500; k++) {
+                        trafficJournalService.record(buildEntry("t" + i + "-" + j + "-" + k, timestamp, "/api", 200));
+                    }
+                    trafficJournalService.writePending();
+                }
+
+                ReflectionTestUtils.setField(trafficJournalService, "retentionHours", 0);
+                trafficJournalService.writePending();
+            }
+        } finally {
+            writing.set(false);
+            searcher.join(5000);
+        }
+
+        // Assertions
+        Assert.assertNull(searchError.get());
+        Assert.assertEquals(1, countSegmentFiles());
+    }
+
+    @Test
+    public void open_existingSegmentsReindexed_Test() throws Exception {
+
+        // Setup
+        record(buildEntry("a", 1000, "/api/users", 200));
+        record(buildEntry("b", 2000, "/api/orders", 500));
+
+        // Test
+        final TrafficJournalServiceImpl reopened = buildTrafficJournalService();
+        reopened.open();
+
+        // Assertions
+        Assert.assertEquals(2, countSegmentFiles());
+        Assert.assertEquals("a", reopened.search(buildQuery(null, null, "/api/users", null, null, null)).get(0).getTraceId());
+        Assert.assertEquals("b", reopened.search(buildQuery(null, null, null, 500, null, null)).get(0).getTraceId());
+        Assert.assertEquals(2, reopened.search(buildQuery(null, null, null, null, null, null)).size());
+    }
+
+    private TrafficJournalServiceImpl buildTrafficJournalService() {
+
+        final TrafficJournalServiceImpl service = new TrafficJournalServiceImpl();
+
+        ReflectionTestUtils.setField(service, "enabled", true);
+        ReflectionTestUtils.setField(service, "journalDir", journalDir.getAbsolutePath());
+        ReflectionTestUtils.setField(service, "segmentSizeMb", 1);
+        ReflectionTestUtils.setField(service, "segmentMaxAgeMinutes", 60);
+        ReflectionTestUtils.setField(service, "retentionMb", 1024);
+        ReflectionTestUtils.setField(service, "retentionHours", 24 * 365 * 100);
+        ReflectionTestUtils.setField(service, "maxBodySize", 16384);
+
+        return service;
+    }
+
+    private void record(final TrafficJournalEntryDTO entry) throws Exception {
+        trafficJournalService.record(entry);
+        trafficJournalService.writePending();
+    }
+
+    private TrafficJournalEntryDTO buildEntry(final String traceId, final long timestamp, final String path, final int status) {
+
+        final Map<String, String> requestHeaders = Collections.singletonMap("Content-Type", "application/json");
+        final Map<String, String> responseHeaders = Collections.singletonMap("Content-Type", "text/plain");
+
+        return new TrafficJournalEntryDTO(traceId, timestamp, 15, "GET", path, status, false, null,
+                requestHeaders, null, responseHeaders, "Hello " + traceId);
+    }
+
+    private TrafficJournalQueryDTO buildQuery(final Long from,
+                                              final Long to,
+                                              final String pathPrefix,
+                                              final Integer minStatus,
+                                              final Integer maxStatus,
+                                              final String traceId) {
+        return new TrafficJournalQueryDTO(from, to, pathPrefix, minStatus, maxStatus, traceId, 0);
+    }
+
+    private int countSegmentFiles() {
+        return journalDir.list((dir, name) -> name.endsWith(TrafficJournalSegment.FILE_SUFFIX)).length;
+    }
+
+}
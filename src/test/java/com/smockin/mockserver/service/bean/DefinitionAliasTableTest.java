@@ -0,0 +1,77 @@
+package com.smockin.mockserver.service.bean;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class DefinitionAliasTableTest {
+
+    private static final double DELTA = 0.000001;
+
+    @Test
+    public void compile_empty_Test() {
+        Assert.assertTrue(DefinitionAliasTable.compile(Collections.emptyList()).isEmpty());
+    }
+
+    @Test
+    public void compile_unweighted_Test() {
+
+        // Counts of 0 are treated as 1, so each is equally likely
+        final DefinitionAliasTable aliasTable = DefinitionAliasTable.compile(definitions(0, 0, 0, 0));
+
+        for (int i = 0; i < 4; i++) {
+            Assert.assertEquals(0.25, aliasTable.probabilityOf(i), DELTA);
+        }
+    }
+
+    @Test
+    public void compile_weighted_Test() {
+
+        final DefinitionAliasTable aliasTable = DefinitionAliasTable.compile(definitions(99, 1));
+
+        Assert.assertEquals(0.99, aliasTable.probabilityOf(0), DELTA);
+        Assert.assertEquals(0.01, aliasTable.probabilityOf(1), DELTA);
+    }
+
+    @Test
+    public void compile_unevenWeights_Test() {
+
+        final int[] weights = { 7, 1, 0, 13, 3, 1000 };
+        final DefinitionAliasTable aliasTable = DefinitionAliasTable.compile(definitions(weights));
+        final double total = 7 + 1 + 1 + 13 + 3 + 1000;
+
+        for (int i = 0; i < weights.length; i++) {
+            Assert.assertEquals(Math.max(weights[i], 1) / total, aliasTable.probabilityOf(i), DELTA);
+        }
+    }
+
+    @Test
+    public void sample_Test() {
+
+        final DefinitionAliasTable aliasTable = DefinitionAliasTable.compile(definitions(9, 1));
+        final int samples = 100000;
+        final int[] counts = new int[2];
+
+        for (int i = 0; i < samples; i++) {
+            counts[aliasTable.sample()]++;
+        }
+
+        Assert.assertEquals(0.9, (double) counts[0] / samples, 0.01);
+        Assert.assertEquals(0.1, (double) counts[1] / samples, 0.01);
+    }
+
+    private List<RestfulMockDefinitionSnapshot> definitions(final int... frequencyCounts) {
+
+        final List<RestfulMockDefinitionSnapshot> definitions = new ArrayList<>();
+
+        Arrays.stream(frequencyCounts).forEach(f ->
+                definitions.add(new RestfulMockDefinitionSnapshot(null, definitions.size() + 1, 200, "text/plain", null, Collections.emptyMap(), 0, f, 0)));
+
+        return definitions;
+    }
+
+}
@@ -0,0 +1,61 @@
+package com.smockin.mockserver.service.bean;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class DefinitionSequenceTest {
+
+    @Test
+    public void compile_empty_Test() {
+
+        final DefinitionSequence sequence = DefinitionSequence.compile(Collections.emptyList());
+
+        Assert.assertTrue(sequence.isEmpty());
+    }
+
+    @Test
+    public void indexAt_Test() {
+
+        // Counts of 0 are treated as 1
+        final DefinitionSequence sequence = DefinitionSequence.compile(definitions(2, 0, 3));
+
+        Assert.assertEquals(6, sequence.getLength());
+
+        final int[] expected = { 0, 0, 1, 2, 2, 2, 0, 0, 1 };
+
+        for (int i = 0; i < expected.length; i++) {
+            Assert.assertEquals(expected[i], sequence.indexAt(i));
+        }
+    }
+
+    @Test
+    public void indexAt_longCycle_Test() {
+
+        // Too long to expand, so resolved via the running totals
+        final DefinitionSequence sequence = DefinitionSequence.compile(definitions(DefinitionSequence.MAX_EXPANDED_CYCLE, 1, 5));
+
+        Assert.assertEquals(DefinitionSequence.MAX_EXPANDED_CYCLE + 6, sequence.getLength());
+        Assert.assertEquals(0, sequence.indexAt(0));
+        Assert.assertEquals(0, sequence.indexAt(DefinitionSequence.MAX_EXPANDED_CYCLE - 1));
+        Assert.assertEquals(1, sequence.indexAt(DefinitionSequence.MAX_EXPANDED_CYCLE));
+        Assert.assertEquals(2, sequence.indexAt(DefinitionSequence.MAX_EXPANDED_CYCLE + 1));
+        Assert.assertEquals(2, sequence.indexAt(DefinitionSequence.MAX_EXPANDED_CYCLE + 5));
+        Assert.assertEquals(0, sequence.indexAt(DefinitionSequence.MAX_EXPANDED_CYCLE + 6));
+    }
+
+    private List<RestfulMockDefinitionSnapshot> definitions(final int... frequencyCounts) {
+
+        final List<RestfulMockDefinitionSnapshot> definitions = new ArrayList<>();
+
+        Arrays.stream(frequencyCounts).forEach(f ->
+                definitions.add(new RestfulMockDefinitionSnapshot(null, definitions.size() + 1, 200, "text/plain", null, Collections.emptyMap(), 0, f, 0)));
+
+        return definitions;
+    }
+
+}
@@ -0,0 +1,67 @@
+package com.smockin.mockserver.service.bean;
+
+import com.smockin.utils.RuleEngineUtils;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class JsonFieldPathTest {
+
+    private Object jsonBody;
+
+    @Before
+    public void setUp() {
+
+        jsonBody = RuleEngineUtils.parseJsonBody("{ \"name\" : \"joe\", \"person\" : { \"age\" : \"32\", \"pets\" : [ { \"type\" : \"cat\" }, { \"type\" : \"dog\" }, { \"type\" : \"fish\" } ] } }");
+    }
+
+    @Test
+    public void read_simpleField_Test() {
+
+        Assert.assertEquals("joe", JsonFieldPath.compile("name").read(jsonBody));
+        Assert.assertNull(JsonFieldPath.compile("foo").read(jsonBody));
+    }
+
+    @Test
+    public void read_nestedField_Test() {
+
+        Assert.assertEquals("32", JsonFieldPath.compile("person.age").read(jsonBody));
+        Assert.assertNull(JsonFieldPath.compile("person.foo").read(jsonBody));
+        Assert.assertNull(JsonFieldPath.compile("name.foo").read(jsonBody));
+    }
+
+    @Test
+    public void read_listField_Test() {
+
+        Assert.assertEquals("fish", JsonFieldPath.compile("person.pets[2].type").read(jsonBody));
+        Assert.assertEquals("cat", JsonFieldPath.compile("person.pets[0].type").read(jsonBody));
+    }
+
+    @Test
+    public void read_objectOrListValue_Test() {
+
+        Assert.assertNull(JsonFieldPath.compile("person.pets").read(jsonBody));
+        Assert.assertNull(JsonFieldPath.compile("person.pets[1]").read(jsonBody));
+    }
+
+    @Test
+    public void read_invalidListPosition_Test() {
+
+        Assert.assertNull(JsonFieldPath.compile("person.pets[x].type").read(jsonBody));
+    }
+
+    @Test
+    public void read_rootList_Test() {
+
+        Assert.assertEquals("a", JsonFieldPath.compile("[0]").read(RuleEngineUtils.parseJsonBody("[ \"a\", \"b\" ]")));
+        Assert.assertEquals("b", JsonFieldPath.compile("x.[1]").read(RuleEngineUtils.parseJsonBody("{ \"x\" : [ \"a\", \"b\" ] }")));
+    }
+
+    @Test
+    public void read_nullBody_Test() {
+
+        Assert.assertNull(JsonFieldPath.compile("person.age").read(null));
+        Assert.assertNull(JsonFieldPath.compile("person.age").read(RuleEngineUtils.parseJsonBody("not json")));
+    }
+
+}
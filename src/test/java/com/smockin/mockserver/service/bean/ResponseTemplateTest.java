@@ -0,0 +1,116 @@
+package com.smockin.mockserver.service.bean;
+
+import com.smockin.mockserver.service.enums.ParamMatchTypeEnum;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class ResponseTemplateTest {
+
+    private List<String> resolved;
+    private ResponseTemplate.TokenResolver resolver;
+
+    @Before
+    public void setUp() {
+
+        resolved = new ArrayList<>();
+        resolver = new ResponseTemplate.TokenResolver() {
+
+            @Override
+            public String resolve(final ParamMatchTypeEnum type, final String argName) {
+                resolved.add(type + ":" + argName);
+                return (ParamMatchTypeEnum.requestHeader.equals(type) && "name".equals(argName)) ? "Roger" : null;
+            }
+
+            @Override
+            public String resolveKvp(final String key) {
+                resolved.add("kvp:" + key);
+                return "[" + key + "]";
+            }
+        };
+    }
+
+    @Test
+    public void compile_null_Test() {
+        Assert.assertNull(ResponseTemplate.compile(null));
+    }
+
+    @Test
+    public void render_noTokens_Test() {
+
+        final String body = "Hello $Foo(bar) $requestHeader $ ()";
+        final ResponseTemplate template = ResponseTemplate.compile(body);
+
+        Assert.assertFalse(template.containsTokens());
+        Assert.assertSame(body, template.render(resolver));
+        Assert.assertTrue(resolved.isEmpty());
+    }
+
+    @Test
+    public void render_multipleTokens_Test() {
+
+        final ResponseTemplate template = ResponseTemplate.compile("Hello $requestHeader('name'), you are $requestHeader(age)!");
+
+        Assert.assertTrue(template.containsTokens());
+        Assert.assertEquals("Hello Roger, you are !", template.render(resolver));
+        Assert.assertEquals(2, resolved.size());
+        Assert.assertEquals("requestHeader:name", resolved.get(0));
+        Assert.assertEquals("requestHeader:age", resolved.get(1));
+    }
+
+    @Test
+    public void render_isoDatetimeBeforeIsoDate_Test() {
+
+        ResponseTemplate.compile("$isoDatetime $isoDate").render(resolver);
+
+        Assert.assertEquals(2, resolved.size());
+        Assert.assertEquals("isoDatetime:null", resolved.get(0));
+        Assert.assertEquals("isoDate:null", resolved.get(1));
+    }
+
+    @Test
+    public void render_resolvedValuesNotRescanned_Test() {
+
+        final ResponseTemplate template = ResponseTemplate.compile("$lookUpKvp($uuid) $lookUpKvp(key)");
+
+        // Unsupported nested KVP types never match and resolved values are appended as they are
+        Assert.assertEquals(" [key]", template.render(resolver));
+        Assert.assertEquals(1, resolved.size());
+    }
+
+    @Test
+    public void render_nestedKvp_Test() {
+
+        final ResponseTemplate template = ResponseTemplate.compile("Watcha $lookUpKvp($requestHeader(\"name\")) and $lookUpKvp($requestHeader(age)).");
+
+        Assert.assertEquals("Watcha [Roger] and .", template.render(resolver));
+        Assert.assertEquals("requestHeader:name", resolved.get(0));
+        Assert.assertEquals("kvp:Roger", resolved.get(1));
+        Assert.assertEquals("requestHeader:age", resolved.get(2));
+        Assert.assertEquals(3, resolved.size());
+    }
+
+    @Test
+    public void render_randomNumber_Test() {
+
+        final ResponseTemplate template = ResponseTemplate.compile("$randomNumber(5, 6)");
+
+        for (int i = 0; i < 20; i++) {
+            Assert.assertEquals("5", template.render(resolver));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void render_unclosedToken_Test() {
+        ResponseTemplate.compile("Hello $requestHeader(name").render(resolver);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void render_invalidRandomNumber_Test() {
+        ResponseTemplate.compile("$randomNumber(1,2,3)").render(resolver);
+    }
+
+}
@@ -0,0 +1,125 @@
+package com.smockin.mockserver.service.bean;
+
+import com.smockin.admin.persistence.enums.RuleComparatorEnum;
+import com.smockin.admin.persistence.enums.RuleDataTypeEnum;
+import com.smockin.admin.persistence.enums.RuleMatchingTypeEnum;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class RuleDispatchPlanTest {
+
+    @Test
+    public void compile_equalsRunIsIndexed_Test() {
+
+        // Setup
+        final List<RestfulMockRuleSnapshot> rules = new ArrayList<>();
+
+        for (int i = 1; i <= 10; i++) {
+            rules.add(buildRule(i, condition("name", RuleComparatorEnum.EQUALS, "joe" + i, false)));
+        }
+
+        // Test
+        final RuleDispatchPlan plan = RuleDispatchPlan.compile(rules);
+
+        // Assertions
+        Assert.assertEquals(1, plan.getSegments().size());
+        Assert.assertTrue(plan.getSegments().get(0) instanceof RuleDispatchPlan.IndexedSegment);
+
+        final RuleDispatchPlan.IndexedSegment segment = (RuleDispatchPlan.IndexedSegment) plan.getSegments().get(0);
+        Assert.assertEquals(10, segment.size());
+        Assert.assertEquals(7, segment.find("joe7").getRule().getOrderNo());
+        Assert.assertEquals(7, segment.find("JOE7").getRule().getOrderNo());
+        Assert.assertNull(segment.find("joe11"));
+        Assert.assertNull(segment.find(null));
+    }
+
+    @Test
+    public void compile_firstMatchWins_Test() {
+
+        // Setup
+        final List<RestfulMockRuleSnapshot> rules = Arrays.asList(
+                buildRule(1, condition("name", RuleComparatorEnum.EQUALS, "a", false)),
+                buildRule(2, condition("name", RuleComparatorEnum.EQUALS, "Joe", true)),
+                buildRule(3, condition("name", RuleComparatorEnum.EQUALS, "joe", false)),
+                buildRule(4, condition("name", RuleComparatorEnum.EQUALS, "JOE", false)),
+                buildRule(5, condition("name", RuleComparatorEnum.EQUALS, "joe", true)));
+
+        // Test
+        final RuleDispatchPlan.IndexedSegment segment = (RuleDispatchPlan.IndexedSegment) RuleDispatchPlan.compile(rules).getSegments().get(0);
+
+        // Assertions
+        Assert.assertEquals(2, segment.find("Joe").getRule().getOrderNo());
+        Assert.assertEquals(3, segment.find("joe").getRule().getOrderNo());
+        Assert.assertEquals(3, segment.find("jOE").getRule().getOrderNo());
+    }
+
+    @Test
+    public void compile_mixedRulesAreScanned_Test() {
+
+        // Setup
+        final List<RestfulMockRuleSnapshot> rules = new ArrayList<>();
+        rules.add(buildRule(1, condition("name", RuleComparatorEnum.CONTAINS, "j", false)));
+
+        for (int i = 2; i <= 6; i++) {
+            rules.add(buildRule(i, condition("name", RuleComparatorEnum.EQUALS, "joe" + i, false)));
+        }
+
+        rules.add(buildRule(7, condition("name", RuleComparatorEnum.EQUALS, "joe7", false), condition("age", RuleComparatorEnum.EQUALS, "7", false)));
+        rules.add(buildRule(8, condition("age", RuleComparatorEnum.EQUALS, "8", false)));
+
+        // Test
+        final RuleDispatchPlan plan = RuleDispatchPlan.compile(rules);
+
+        // Assertions
+        Assert.assertEquals(3, plan.getSegments().size());
+        Assert.assertTrue(plan.getSegments().get(0) instanceof RuleDispatchPlan.ScanSegment);
+        Assert.assertEquals(1, ((RuleDispatchPlan.ScanSegment) plan.getSegments().get(0)).getEntries().size());
+        Assert.assertTrue(plan.getSegments().get(1) instanceof RuleDispatchPlan.IndexedSegment);
+        Assert.assertEquals(5, ((RuleDispatchPlan.IndexedSegment) plan.getSegments().get(1)).size());
+        Assert.assertTrue(plan.getSegments().get(2) instanceof RuleDispatchPlan.ScanSegment);
+        Assert.assertEquals(2, ((RuleDispatchPlan.ScanSegment) plan.getSegments().get(2)).getEntries().size());
+    }
+
+    @Test
+    public void compile_shortRunIsScanned_Test() {
+
+        // Setup
+        final List<RestfulMockRuleSnapshot> rules = new ArrayList<>();
+
+        for (int i = 1; i < RuleDispatchPlan.MIN_INDEXED_RUN; i++) {
+            rules.add(buildRule(i, condition("name", RuleComparatorEnum.EQUALS, "joe" + i, false)));
+        }
+
+        // Test
+        final RuleDispatchPlan plan = RuleDispatchPlan.compile(rules);
+
+        // Assertions
+        Assert.assertEquals(1, plan.getSegments().size());
+        Assert.assertTrue(plan.getSegments().get(0) instanceof RuleDispatchPlan.ScanSegment);
+    }
+
+    @Test
+    public void foldCase_Test() {
+
+        Assert.assertEquals(RuleDispatchPlan.foldCase("HeLLo"), RuleDispatchPlan.foldCase("hEllO"));
+        Assert.assertNotEquals(RuleDispatchPlan.foldCase("Hello"), RuleDispatchPlan.foldCase("Hell0"));
+    }
+
+    private RestfulMockRuleSnapshot buildRule(final int orderNo, final RestfulMockRuleConditionSnapshot... conditions) {
+
+        final RestfulMockRuleGroupSnapshot group = new RestfulMockRuleGroupSnapshot(1, Arrays.asList(conditions));
+
+        return new RestfulMockRuleSnapshot(orderNo, 200, "text/plain", "rule " + orderNo, Collections.emptyMap(), 0, Collections.singletonList(group));
+    }
+
+    private RestfulMockRuleConditionSnapshot condition(final String field, final RuleComparatorEnum comparator, final String matchValue, final boolean caseSensitive) {
+
+        return new RestfulMockRuleConditionSnapshot(field, RuleDataTypeEnum.TEXT, comparator, matchValue, RuleMatchingTypeEnum.REQUEST_HEADER, caseSensitive);
+    }
+
+}
@@ -1,5 +1,6 @@
 package com.smockin.utils;
 
+import com.smockin.admin.enums.UserModeEnum;
 import org.junit.Assert;
 import org.junit.Rule;
 import org.junit.Test;
@@ -95,6 +96,38 @@ public class GeneralUtilsTest {
         Assert.assertEquals("21", ageResult);
     }
 
+    @Test
+    public void loadPathVars_capturedWhenMatched_Test() {
+
+        // Setup
+        final Map<String, String> capturedPathVars = new HashMap<>();
+        capturedPathVars.put("name", "Bob");
+
+        final Request req = Mockito.mock(Request.class);
+        Mockito.when(req.attribute(GeneralUtils.PATH_VARS_ATTR)).thenReturn(capturedPathVars);
+
+        // Test
+        final Map<String, String> pathVars = GeneralUtils.loadPathVars(req, UserModeEnum.INACTIVE, null, "/person/{name}");
+
+        // Assertions
+        Assert.assertSame(capturedPathVars, pathVars);
+        Mockito.verify(req, Mockito.never()).pathInfo();
+    }
+
+    @Test
+    public void loadPathVars_notCaptured_Test() {
+
+        // Setup
+        final Request req = Mockito.mock(Request.class);
+        Mockito.when(req.pathInfo()).thenReturn("/person/Bob");
+
+        // Test
+        final Map<String, String> pathVars = GeneralUtils.loadPathVars(req, UserModeEnum.INACTIVE, null, "/person/{name}");
+
+        // Assertions
+        Assert.assertEquals("Bob", pathVars.get("name"));
+    }
+
     @Test
     public void findPathVarIgnoreCase1Test() {
 
@@ -0,0 +1,27 @@
+package com.smockin.utils;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class LiveLoggingUtilsTest {
+
+    @Test
+    public void truncateBody_Test() {
+
+        Assert.assertEquals("Hello... (truncated)", LiveLoggingUtils.truncateBody("Hello World", 5));
+    }
+
+    @Test
+    public void truncateBody_withinMax_Test() {
+
+        Assert.assertEquals("Hello", LiveLoggingUtils.truncateBody("Hello", 5));
+        Assert.assertNull(LiveLoggingUtils.truncateBody(null, 5));
+    }
+
+    @Test
+    public void truncateBody_noMax_Test() {
+
+        Assert.assertEquals("Hello World", LiveLoggingUtils.truncateBody("Hello World", 0));
+    }
+
+}